@@ -1,5 +1,6 @@
 package kr.pyhub.llm;
 
+import kr.pyhub.llm.http.HttpTransport;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,6 +23,11 @@ public class Config {
     private String projectId;
     private String baseUrl;
     
+    /**
+     * HTTP transport for OkHttp-based providers (defaults to the shared transport)
+     */
+    private HttpTransport httpTransport;
+    
     /**
      * Create a Config with just an API key
      */
@@ -97,6 +103,7 @@ public class Config {
             .organizationId(other.organizationId != null ? other.organizationId : this.organizationId)
             .projectId(other.projectId != null ? other.projectId : this.projectId)
             .baseUrl(other.baseUrl != null ? other.baseUrl : this.baseUrl)
+            .httpTransport(other.httpTransport != null ? other.httpTransport : this.httpTransport)
             .build();
     }
     
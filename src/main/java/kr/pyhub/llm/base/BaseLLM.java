@@ -1,9 +1,12 @@
 package kr.pyhub.llm.base;
 
 import kr.pyhub.llm.cache.Cache;
+import kr.pyhub.llm.cache.CacheKeySpec;
+import kr.pyhub.llm.cache.CacheWritePolicy;
 import kr.pyhub.llm.conversation.Conversation;
 import kr.pyhub.llm.tools.Tool;
 import kr.pyhub.llm.tools.ToolRegistry;
+import kr.pyhub.llm.tools.ToolResult;
 import kr.pyhub.llm.types.LLMReply;
 import kr.pyhub.llm.types.Message;
 import kr.pyhub.llm.types.StreamChunk;
@@ -12,12 +15,17 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Getter
@@ -25,12 +33,18 @@ public abstract class BaseLLM {
     
     private final String model;
     private String systemPrompt;
+    private boolean promptCachingEnabled;
     private Double temperature = 1.0;
     private Integer maxTokens;
+    private Double topP;
     private Cache cache;
+    private CacheWritePolicy cacheWritePolicy = CacheWritePolicy.cacheAll();
     private ToolRegistry toolRegistry;
     private boolean toolsEnabled = true;
     private Conversation conversation;
+    private Executor executor;
+    private boolean requestCoalescingEnabled = true;
+    private Duration coalescingTimeout;
     
     protected BaseLLM(String model) {
         this.model = model;
@@ -43,12 +57,7 @@ public abstract class BaseLLM {
      * @return The LLM response
      */
     public LLMReply ask(String prompt) {
-        List<Message> messages = new ArrayList<>();
-        if (systemPrompt != null && !systemPrompt.isEmpty()) {
-            messages.add(Message.system(systemPrompt));
-        }
-        messages.add(Message.user(prompt));
-        return ask(messages);
+        return ask(buildMessages(prompt));
     }
     
     /**
@@ -58,24 +67,34 @@ public abstract class BaseLLM {
      * @return The LLM response
      */
     public LLMReply ask(List<Message> messages) {
+        return ask(messages, null);
+    }
+    
+    /**
+     * Send messages to the LLM, reusing a precomputed messages digest for the cache key.
+     * 
+     * @param messages The conversation messages
+     * @param messagesDigest Digest of the messages, or null to hash them here
+     * @return The LLM response
+     */
+    private LLMReply ask(List<Message> messages, byte[] messagesDigest) {
         try {
             // 캐시 확인
             if (cache != null && cache.isEnabled()) {
-                String cacheKey = cache.generateKey(messages, model, temperature, maxTokens);
-                Optional<LLMReply> cachedReply = cache.get(cacheKey);
+                String cacheKey = generateCacheKey(messages, messagesDigest);
+                Optional<LLMReply> cachedReply = lookup(cacheKey, messages);
                 
                 if (cachedReply.isPresent()) {
                     log.debug("Returning cached response for {} messages", messages.size());
-                    return cachedReply.get();
+                    return unwrapCached(cachedReply.get());
                 }
                 
-                // 캐시 미스 - API 호출
-                log.debug("Cache miss, sending {} messages to {}", messages.size(), model);
-                LLMReply reply = doAsk(messages);
-                
-                // 응답 캐싱
-                cache.put(cacheKey, reply);
-                return reply;
+                if (requestCoalescingEnabled) {
+                    // 동일한 키의 요청이 진행 중이면 그 결과를 기다림
+                    return RequestCoalescer.forCache(cache).execute(cacheKey, () -> recheck(cacheKey),
+                        () -> loadAndCache(cacheKey, messages), coalescingTimeout);
+                }
+                return loadAndCache(cacheKey, messages);
             } else {
                 // 캐시 없이 직접 호출
                 log.debug("Sending {} messages to {}", messages.size(), model);
@@ -94,29 +113,77 @@ public abstract class BaseLLM {
      * @return A future containing the LLM response
      */
     public CompletableFuture<LLMReply> askAsync(String prompt) {
-        return CompletableFuture.supplyAsync(() -> ask(prompt))
-            .exceptionally(throwable -> {
-                if (throwable instanceof CompletionException) {
-                    throwable = throwable.getCause();
-                }
-                throw new LLMException("Async call failed", throwable);
-            });
+        return askAsync(buildMessages(prompt));
     }
     
     /**
      * Send messages to the LLM and get a response asynchronously.
+     * The provider call goes through {@link #doAskAsync(List)}, so providers with
+     * callback-based I/O do not hold a thread while waiting for the response.
+     * Cancelling the returned future cancels the provider call, except when the
+     * call is shared with other coalesced requests.
      * 
      * @param messages The conversation messages
      * @return A future containing the LLM response
      */
     public CompletableFuture<LLMReply> askAsync(List<Message> messages) {
-        return CompletableFuture.supplyAsync(() -> ask(messages))
-            .exceptionally(throwable -> {
-                if (throwable instanceof CompletionException) {
-                    throwable = throwable.getCause();
+        CompletableFuture<LLMReply> future;
+        AtomicReference<CompletableFuture<LLMReply>> providerCall = new AtomicReference<>();
+        if (cache != null && cache.isEnabled()) {
+            // 캐시 조회도 블로킹 I/O일 수 있으므로 executor에서 실행
+            future = CompletableFuture.supplyAsync(() -> generateCacheKey(messages), getExecutor())
+                .thenCompose(cacheKey -> {
+                    Optional<LLMReply> cachedReply = lookup(cacheKey, messages);
+                    if (cachedReply.isPresent()) {
+                        log.debug("Returning cached response for {} messages", messages.size());
+                        return CompletableFuture.completedFuture(unwrapCached(cachedReply.get()));
+                    }
+                    
+                    log.debug("Cache miss, sending {} messages to {} asynchronously", messages.size(), model);
+                    if (requestCoalescingEnabled) {
+                        return RequestCoalescer.forCache(cache).executeAsync(cacheKey, () -> recheck(cacheKey),
+                            () -> loadAndCacheAsync(cacheKey, messages, true), coalescingTimeout);
+                    }
+                    // 합쳐지지 않은 호출만 취소를 전달 (공유 호출은 다른 요청이 기다림)
+                    CompletableFuture<LLMReply> call = loadAndCacheAsync(cacheKey, messages, true);
+                    providerCall.set(call);
+                    return call;
+                });
+        } else {
+            log.debug("Sending {} messages to {} asynchronously", messages.size(), model);
+            try {
+                future = doAskAsync(messages);
+            } catch (Exception e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+        }
+        
+        CompletableFuture<LLMReply> source = future;
+        CompletableFuture<LLMReply> result = new CompletableFuture<>();
+        source.whenComplete((reply, throwable) -> {
+            if (throwable == null) {
+                result.complete(reply);
+                return;
+            }
+            if (throwable instanceof CompletionException && throwable.getCause() != null) {
+                throwable = throwable.getCause();
+            }
+            log.error("Error calling LLM {} asynchronously: {}", model, throwable.getMessage(), throwable);
+            result.completeExceptionally(throwable instanceof LLMException
+                ? throwable
+                : new LLMException("Async call failed", throwable));
+        });
+        result.whenComplete((reply, throwable) -> {
+            if (result.isCancelled()) {
+                source.cancel(true);
+                CompletableFuture<LLMReply> call = providerCall.get();
+                if (call != null) {
+                    call.cancel(true);
                 }
-                throw new LLMException("Async call failed", throwable);
-            });
+            }
+        });
+        return result;
     }
     
     /**
@@ -130,6 +197,21 @@ public abstract class BaseLLM {
         return this;
     }
     
+    /**
+     * Mark the system prompt as a prompt-cache breakpoint on single-prompt calls.
+     * Providers that require explicit markers (Anthropic) then cache it
+     * server-side, so a long system prompt is not reprocessed on every call;
+     * providers that cache prefixes automatically ignore the marker.
+     * Conversations always mark their stable prefix.
+     * 
+     * @param enabled Whether the system prompt is marked
+     * @return This instance for method chaining
+     */
+    public BaseLLM withPromptCaching(boolean enabled) {
+        this.promptCachingEnabled = enabled;
+        return this;
+    }
+    
     /**
      * Set the temperature for response generation.
      * 
@@ -158,6 +240,20 @@ public abstract class BaseLLM {
         return this;
     }
     
+    /**
+     * Set the nucleus sampling probability for response generation.
+     * 
+     * @param topP The top-p value (0.0 to 1.0, the same range {@code Config.topP} accepts)
+     * @return This instance for method chaining
+     */
+    public BaseLLM withTopP(double topP) {
+        if (topP < 0.0 || topP > 1.0) {
+            throw new IllegalArgumentException("Top-p must be between 0 and 1");
+        }
+        this.topP = topP;
+        return this;
+    }
+    
     /**
      * Set the cache for this LLM instance.
      * 
@@ -169,6 +265,71 @@ public abstract class BaseLLM {
         return this;
     }
     
+    /**
+     * Set which outcomes are cached and for how long: replies with certain
+     * finish reasons can be skipped or kept with a short TTL, and selected
+     * provider failures can be cached so retries fail fast without a call.
+     * 
+     * @param cacheWritePolicy The policy, or null for {@link CacheWritePolicy#cacheAll()}
+     * @return This instance for method chaining
+     */
+    public BaseLLM withCacheWritePolicy(CacheWritePolicy cacheWritePolicy) {
+        this.cacheWritePolicy = cacheWritePolicy != null ? cacheWritePolicy : CacheWritePolicy.cacheAll();
+        return this;
+    }
+    
+    /**
+     * Set the executor used for blocking work: async provider calls without
+     * native async I/O, cache lookups in {@link #askAsync(List)} and tool execution.
+     * 
+     * @param executor The executor
+     * @return This instance for method chaining
+     */
+    public BaseLLM withExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.executor = executor;
+        return this;
+    }
+    
+    /**
+     * Get the executor for blocking work.
+     * 
+     * @return The configured executor, or {@link LLMExecutors#defaultExecutor()}
+     */
+    public Executor getExecutor() {
+        return executor != null ? executor : LLMExecutors.defaultExecutor();
+    }
+    
+    /**
+     * Enable or disable coalescing of concurrent cache misses.
+     * When enabled (the default), concurrent requests with the same cache key
+     * share a single provider call.
+     * 
+     * @param enabled Whether identical in-flight requests are coalesced
+     * @return This instance for method chaining
+     */
+    public BaseLLM withRequestCoalescing(boolean enabled) {
+        this.requestCoalescingEnabled = enabled;
+        return this;
+    }
+    
+    /**
+     * Set how long a coalesced request waits for the in-flight call it joined.
+     * Applies to {@link #ask(List)} and {@link #askAsync(List)} waiters alike.
+     * 
+     * @param timeout Maximum wait, or null to wait until the in-flight call finishes
+     * @return This instance for method chaining
+     */
+    public BaseLLM withCoalescingTimeout(Duration timeout) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("Coalescing timeout must be positive");
+        }
+        this.coalescingTimeout = timeout;
+        return this;
+    }
+    
     /**
      * Set the tool registry for this LLM instance.
      * 
@@ -217,6 +378,29 @@ public abstract class BaseLLM {
         return toolRegistry.getEnabledTools();
     }
     
+    /**
+     * Execute a registered tool on this instance's executor.
+     * 
+     * @param toolName The tool name
+     * @param args The tool arguments
+     * @return A future containing the tool result
+     */
+    public CompletableFuture<ToolResult> executeToolAsync(String toolName, Map<String, Object> args) {
+        Tool tool = toolRegistry != null ? toolRegistry.getTool(toolName) : null;
+        if (tool == null || !tool.isEnabled() || !toolsEnabled) {
+            return CompletableFuture.completedFuture(ToolResult.error("Tool not available: " + toolName));
+        }
+        
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return tool.execute(args);
+            } catch (Exception e) {
+                log.warn("Tool '{}' threw an exception: {}", toolName, e.getMessage(), e);
+                return ToolResult.error(e.getMessage());
+            }
+        }, getExecutor());
+    }
+    
     /**
      * Enable conversation mode with automatic history management.
      * 
@@ -281,8 +465,9 @@ public abstract class BaseLLM {
         // Add user message to conversation
         conversation.addUserMessage(message);
         
-        // Get response using full conversation history
-        LLMReply reply = ask(conversation.getMessages());
+        // Get response using full conversation history; the conversation keeps
+        // a rolling digest so the cache key does not re-hash the whole history
+        LLMReply reply = ask(conversation.getMessages(), conversation.getMessagesDigest());
         
         // Add assistant response to conversation
         conversation.addAssistantMessage(reply.getText());
@@ -312,51 +497,85 @@ public abstract class BaseLLM {
      * @return A Flux of stream chunks
      */
     public Flux<StreamChunk> askStream(String prompt) {
-        List<Message> messages = new ArrayList<>();
-        if (systemPrompt != null && !systemPrompt.isEmpty()) {
-            messages.add(Message.system(systemPrompt));
-        }
-        messages.add(Message.user(prompt));
-        return askStream(messages);
+        return askStream(buildMessages(prompt));
     }
     
     /**
      * Send messages to the LLM and get a streaming response.
-     * Default implementation converts non-streaming response to a stream.
-     * Override this method in subclasses to provide true streaming.
+     * With a cache, a cached reply is replayed as chunks; on a miss the live
+     * chunks from {@link #doAskStream(List)} are passed through as they arrive
+     * and the assembled reply is cached once the finish chunk is seen.
      * 
      * @param messages The conversation messages
      * @return A Flux of stream chunks
      */
     public Flux<StreamChunk> askStream(List<Message> messages) {
-        // Default implementation: convert non-streaming response to stream
+        return Flux.defer(() -> {
+            if (cache == null || !cache.isEnabled()) {
+                return doAskStream(messages);
+            }
+            
+            String cacheKey = generateCacheKey(messages);
+            Optional<LLMReply> cachedReply = lookup(cacheKey, messages);
+            if (cachedReply.isPresent()) {
+                log.debug("Replaying cached response for {} messages", messages.size());
+                return toChunks(unwrapCached(cachedReply.get()));
+            }
+            
+            // 청크를 모으면서 그대로 내보내고, 완료 청크에서 캐시에 저장
+            StreamAggregator aggregator = new StreamAggregator(model);
+            long start = System.nanoTime();
+            return doAskStream(messages).doOnNext(chunk -> {
+                aggregator.accept(chunk);
+                if (chunk.isFinished()) {
+                    cache.recordLoad(System.nanoTime() - start);
+                    store(cacheKey, aggregator.toReply());
+                }
+            }).doOnError(error -> storeFailure(cacheKey, error));
+        });
+    }
+    
+    /**
+     * Provider hook for streaming. Caching is handled by {@link #askStream(List)}.
+     * The default implementation calls {@link #doAsk(List)} and splits the reply
+     * into word chunks. Override this method in subclasses to provide true streaming;
+     * the stream should end with a chunk marked finished.
+     * 
+     * @param messages The messages to send
+     * @return A Flux of stream chunks
+     */
+    protected Flux<StreamChunk> doAskStream(List<Message> messages) {
         return Flux.defer(() -> {
             try {
-                LLMReply reply = ask(messages);
-                String text = reply.getText();
-                
-                // Split text into words for simulated streaming
-                String[] words = text.split(" ");
-                Flux<StreamChunk> textChunks = Flux.fromArray(words)
-                    .index()
-                    .map(tuple -> {
-                        Long index = tuple.getT1();
-                        String word = tuple.getT2();
-                        // Add space before words (except first)
-                        String content = index > 0 ? " " + word : word;
-                        return StreamChunk.text(content);
-                    });
-                
-                // Add finish chunk
-                return textChunks.concatWith(
-                    Flux.just(StreamChunk.finish(reply.getFinishReason()))
-                );
+                return toChunks(doAsk(messages));
             } catch (Exception e) {
                 return Flux.error(new LLMException("Streaming failed", e));
             }
         });
     }
     
+    /**
+     * Split a complete reply into word chunks followed by a finish chunk.
+     */
+    private static Flux<StreamChunk> toChunks(LLMReply reply) {
+        String text = reply.getText();
+        Flux<StreamChunk> textChunks = text == null || text.isEmpty()
+            ? Flux.empty()
+            : Flux.fromArray(text.split(" "))
+                .index()
+                .map(tuple -> {
+                    Long index = tuple.getT1();
+                    String word = tuple.getT2();
+                    // Add space before words (except first)
+                    String content = index > 0 ? " " + word : word;
+                    return StreamChunk.text(content);
+                });
+        
+        return textChunks.concatWith(
+            Flux.just(StreamChunk.finish(reply.getFinishReason(), reply.getUsage()))
+        );
+    }
+    
     /**
      * Abstract method to be implemented by subclasses for actual LLM communication.
      * 
@@ -364,4 +583,187 @@ public abstract class BaseLLM {
      * @return The LLM response
      */
     protected abstract LLMReply doAsk(List<Message> messages);
+    
+    /**
+     * Asynchronous counterpart of {@link #doAsk(List)}.
+     * The default implementation runs the blocking {@code doAsk} on {@link #getExecutor()}.
+     * Providers with non-blocking I/O should override this so that in-flight
+     * requests do not each occupy a thread.
+     * 
+     * @param messages The messages to send
+     * @return A future completed with the LLM response
+     */
+    protected CompletableFuture<LLMReply> doAskAsync(List<Message> messages) {
+        return CompletableFuture.supplyAsync(() -> doAsk(messages), getExecutor());
+    }
+    
+    /**
+     * Build the message list for a single prompt, including the system prompt if set.
+     * 
+     * @param prompt The user prompt
+     * @return The messages to send
+     */
+    protected List<Message> buildMessages(String prompt) {
+        List<Message> messages = new ArrayList<>();
+        if (systemPrompt != null && !systemPrompt.isEmpty()) {
+            Message system = Message.system(systemPrompt);
+            messages.add(promptCachingEnabled ? system.asCacheBreakpoint() : system);
+        }
+        messages.add(Message.user(prompt));
+        return messages;
+    }
+    
+    /**
+     * Look up the cache, passing a reloader so a cache with refresh-after-write
+     * can regenerate a stale entry in the background through this LLM.
+     */
+    private Optional<LLMReply> lookup(String cacheKey, List<Message> messages) {
+        // 갱신이 실패해도 오래된 응답을 실패 결과로 덮어쓰지 않음
+        return cache.get(cacheKey, () -> loadAndCacheAsync(cacheKey, messages, false));
+    }
+    
+    /**
+     * Look up the cache again once this request leads a coalesced miss, so a
+     * reply stored by the previous leader is not fetched a second time. The
+     * request was already counted as a miss, so the lookup records no stats.
+     */
+    private Optional<LLMReply> recheck(String cacheKey) {
+        return cache.peek(cacheKey).map(BaseLLM::unwrapCached);
+    }
+    
+    /**
+     * Call the provider on a cache miss and store the reply, or the failure
+     * if the cache write policy caches it.
+     */
+    private LLMReply loadAndCache(String cacheKey, List<Message> messages) {
+        log.debug("Cache miss, sending {} messages to {}", messages.size(), model);
+        long start = System.nanoTime();
+        LLMReply reply;
+        try {
+            reply = doAsk(messages);
+        } catch (RuntimeException e) {
+            storeFailure(cacheKey, e);
+            throw e;
+        }
+        cache.recordLoad(System.nanoTime() - start);
+        
+        // 응답 캐싱
+        store(cacheKey, reply);
+        return reply;
+    }
+    
+    /**
+     * Asynchronously call the provider on a cache miss and store the reply.
+     * 
+     * @param cacheFailures Whether a failure may be stored per the cache write policy
+     */
+    private CompletableFuture<LLMReply> loadAndCacheAsync(String cacheKey, List<Message> messages,
+                                                          boolean cacheFailures) {
+        long start = System.nanoTime();
+        CompletableFuture<LLMReply> call = doAskAsync(messages);
+        CompletableFuture<LLMReply> stored = call.whenComplete((reply, error) -> {
+            if (error != null) {
+                if (cacheFailures && !(error instanceof CancellationException)) {
+                    storeFailure(cacheKey, error instanceof CompletionException ? error.getCause() : error);
+                }
+                return;
+            }
+            cache.recordLoad(System.nanoTime() - start);
+            store(cacheKey, reply);
+        });
+        // 취소를 프로바이더 호출까지 전달
+        stored.whenComplete((reply, error) -> {
+            if (stored.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return stored;
+    }
+    
+    /**
+     * Store a provider reply as the cache write policy allows.
+     */
+    private void store(String cacheKey, LLMReply reply) {
+        if (!cacheWritePolicy.shouldCache(reply)) {
+            log.debug("Not caching reply with finish reason: {}", reply.getFinishReason());
+            return;
+        }
+        put(cacheKey, reply, cacheWritePolicy.ttlFor(reply));
+    }
+    
+    /**
+     * Store a provider failure if the cache write policy caches it (negative caching).
+     */
+    private void storeFailure(String cacheKey, Throwable error) {
+        if (cacheWritePolicy.shouldCache(error)) {
+            put(cacheKey, CacheWritePolicy.failureReply(model, error), cacheWritePolicy.getErrorTtl());
+        }
+    }
+    
+    /**
+     * Put with the given TTL, or the cache's own TTL when null. Short-lived
+     * entries are skipped on caches that cannot expire them individually.
+     */
+    private void put(String cacheKey, LLMReply reply, Duration ttl) {
+        if (ttl == null) {
+            cache.put(cacheKey, reply);
+        } else if (cache.supportsEntryTtl()) {
+            cache.put(cacheKey, reply, ttl);
+        } else {
+            log.debug("Not caching short-lived entry: {} does not support per-entry TTL",
+                cache.getClass().getSimpleName());
+        }
+    }
+    
+    /**
+     * Return a cached reply, or rethrow a cached failure.
+     */
+    private static LLMReply unwrapCached(LLMReply reply) {
+        if (CacheWritePolicy.isFailure(reply)) {
+            throw new LLMException("Cached failure: " + CacheWritePolicy.failureMessage(reply));
+        }
+        return reply;
+    }
+    
+    /**
+     * Name of the provider, part of the cache key so that different providers
+     * serving the same model name never share entries. Providers override this
+     * with a stable short name.
+     * 
+     * @return The provider name
+     */
+    protected String getProviderName() {
+        return getClass().getName();
+    }
+    
+    /**
+     * Generate the cache key for the given messages and current parameters.
+     * 
+     * @param messages The messages to send
+     * @return The cache key
+     */
+    private String generateCacheKey(List<Message> messages) {
+        return generateCacheKey(messages, null);
+    }
+    
+    /**
+     * Generate the cache key from every request-shaping field, using the
+     * precomputed messages digest when available.
+     * 
+     * @param messages The messages to send
+     * @param messagesDigest Digest of the messages, or null
+     * @return The cache key
+     */
+    private String generateCacheKey(List<Message> messages, byte[] messagesDigest) {
+        return cache.generateKey(CacheKeySpec.builder()
+            .provider(getProviderName())
+            .model(model)
+            .temperature(temperature)
+            .maxTokens(maxTokens)
+            .topP(topP)
+            .messages(messages)
+            .messagesDigest(messagesDigest)
+            .tools(getAvailableTools())
+            .build());
+    }
 }
\ No newline at end of file
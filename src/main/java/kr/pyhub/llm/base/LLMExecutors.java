@@ -0,0 +1,92 @@
+package kr.pyhub.llm.base;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default executors for blocking work done on behalf of {@link BaseLLM}
+ * (async provider calls, cache lookups and tool execution).
+ * 
+ * On JDK 21+ the default is a virtual-thread-per-task executor, so thousands of
+ * concurrent calls do not need a thread pool. On older JDKs it is a cached pool
+ * of daemon threads, which keeps this work off {@code ForkJoinPool.commonPool()}.
+ * The library itself stays compiled for Java 8; the virtual-thread factory is
+ * looked up at runtime.
+ */
+@Slf4j
+public final class LLMExecutors {
+    
+    private static final String THREAD_NAME_PREFIX = "pyhub-llm-";
+    
+    private LLMExecutors() {
+    }
+    
+    /**
+     * Get the shared default executor.
+     * 
+     * @return The default executor
+     */
+    public static ExecutorService defaultExecutor() {
+        return Holder.DEFAULT;
+    }
+    
+    /**
+     * Check whether the running JDK supports virtual threads.
+     * 
+     * @return true on JDK 21+
+     */
+    public static boolean isVirtualThreadSupported() {
+        return virtualThreadFactoryMethod() != null;
+    }
+    
+    /**
+     * Create a new virtual-thread-per-task executor if the JDK supports it,
+     * or a cached daemon thread pool otherwise.
+     * 
+     * @return A new executor
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        Method factory = virtualThreadFactoryMethod();
+        if (factory != null) {
+            try {
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Failed to create virtual thread executor, falling back to platform threads", e);
+            }
+        }
+        return newCachedDaemonPool();
+    }
+    
+    private static Method virtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+    
+    private static ExecutorService newCachedDaemonPool() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+    
+    private static final class Holder {
+        private static final ExecutorService DEFAULT = createDefault();
+        
+        private static ExecutorService createDefault() {
+            ExecutorService executor = newVirtualThreadPerTaskExecutor();
+            log.debug("Default LLM executor: {}", isVirtualThreadSupported() ? "virtual threads" : "cached daemon pool");
+            return executor;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,189 @@
+package kr.pyhub.llm.base;
+
+import kr.pyhub.llm.cache.Cache;
+import kr.pyhub.llm.exceptions.LLMException;
+import kr.pyhub.llm.types.LLMReply;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of concurrent cache misses.
+ * 
+ * When several callers miss the cache with the same key at the same time, only
+ * the first one (the leader) calls the provider; the others wait for the leader's
+ * result. One coalescer exists per {@link Cache} instance, so callers on different
+ * {@link BaseLLM} instances that share a cache are coalesced too.
+ */
+@Slf4j
+final class RequestCoalescer {
+    
+    private static final Map<Cache, RequestCoalescer> COALESCERS =
+        Collections.synchronizedMap(new WeakHashMap<>());
+    
+    private final ConcurrentHashMap<String, CompletableFuture<LLMReply>> inFlight = new ConcurrentHashMap<>();
+    
+    /**
+     * Get the coalescer shared by all users of the given cache.
+     */
+    static RequestCoalescer forCache(Cache cache) {
+        synchronized (COALESCERS) {
+            return COALESCERS.computeIfAbsent(cache, c -> new RequestCoalescer());
+        }
+    }
+    
+    /**
+     * Run the loader unless a request with the same key is already in flight,
+     * in which case wait for that request's result.
+     * 
+     * The leader looks up the cache once more before running the loader, since
+     * a previous leader may have stored the reply between the caller's miss and
+     * this request becoming the leader.
+     * 
+     * @param key The cache key
+     * @param cached Looks up the cache for the key
+     * @param loader Calls the provider and stores the reply in the cache
+     * @param waitTimeout Maximum time a waiter blocks, or null to wait indefinitely
+     * @return The reply
+     */
+    LLMReply execute(String key, Supplier<Optional<LLMReply>> cached, Supplier<LLMReply> loader,
+                     Duration waitTimeout) {
+        CompletableFuture<LLMReply> leader = new CompletableFuture<>();
+        CompletableFuture<LLMReply> existing = inFlight.putIfAbsent(key, leader);
+        
+        if (existing == null) {
+            try {
+                LLMReply reply = cached.get().orElseGet(loader);
+                leader.complete(reply);
+                return reply;
+            } catch (RuntimeException e) {
+                leader.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, leader);
+            }
+        }
+        
+        log.debug("Waiting for in-flight request with key: {}", key);
+        return await(existing, waitTimeout);
+    }
+    
+    /**
+     * Asynchronous variant of {@link #execute(String, Supplier, Supplier, Duration)}.
+     * Each waiter gets its own future that follows the leader's result, so a
+     * waiter timing out or being cancelled does not affect the leader or other waiters.
+     * 
+     * @param key The cache key
+     * @param cached Looks up the cache for the key
+     * @param loader Starts the provider call and stores the reply in the cache
+     * @param waitTimeout Maximum time a waiter waits, or null to wait indefinitely
+     * @return A future completed with the reply
+     */
+    CompletableFuture<LLMReply> executeAsync(String key, Supplier<Optional<LLMReply>> cached,
+                                             Supplier<CompletableFuture<LLMReply>> loader,
+                                             Duration waitTimeout) {
+        CompletableFuture<LLMReply> leader = new CompletableFuture<>();
+        CompletableFuture<LLMReply> existing = inFlight.putIfAbsent(key, leader);
+        
+        if (existing != null) {
+            log.debug("Joining in-flight request with key: {}", key);
+            return follow(existing, waitTimeout);
+        }
+        
+        CompletableFuture<LLMReply> call;
+        try {
+            Optional<LLMReply> hit = cached.get();
+            call = hit.isPresent() ? CompletableFuture.completedFuture(hit.get()) : loader.get();
+        } catch (RuntimeException e) {
+            call = new CompletableFuture<>();
+            call.completeExceptionally(e);
+        }
+        
+        call.whenComplete((reply, error) -> {
+            if (error != null) {
+                leader.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+            } else {
+                leader.complete(reply);
+            }
+            inFlight.remove(key, leader);
+        });
+        return leader;
+    }
+    
+    /**
+     * Create a waiter's future completed with the leader's result, or with an
+     * {@link LLMException} if the leader has not finished within the timeout.
+     */
+    private static CompletableFuture<LLMReply> follow(CompletableFuture<LLMReply> leader, Duration waitTimeout) {
+        CompletableFuture<LLMReply> waiter = new CompletableFuture<>();
+        leader.whenComplete((reply, error) -> {
+            if (error != null) {
+                waiter.completeExceptionally(error);
+            } else {
+                waiter.complete(reply);
+            }
+        });
+        if (waitTimeout != null && !waiter.isDone()) {
+            ScheduledFuture<?> timeout = Timer.INSTANCE.schedule(() -> waiter.completeExceptionally(
+                new LLMException("Timed out after " + waitTimeout.toMillis()
+                    + " ms waiting for an identical in-flight request", new TimeoutException())),
+                waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            waiter.whenComplete((reply, error) -> timeout.cancel(false));
+        }
+        return waiter;
+    }
+    
+    /**
+     * Number of requests currently in flight.
+     */
+    int inFlightCount() {
+        return inFlight.size();
+    }
+    
+    private LLMReply await(CompletableFuture<LLMReply> future, Duration waitTimeout) {
+        try {
+            if (waitTimeout == null) {
+                return future.get();
+            }
+            return future.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new LLMException("Timed out after " + waitTimeout.toMillis()
+                + " ms waiting for an identical in-flight request", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LLMException("Interrupted while waiting for an identical in-flight request", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new LLMException("In-flight request failed", cause);
+        }
+    }
+    
+    /**
+     * Daemon timer for async waiter timeouts, created on first use.
+     */
+    private static final class Timer {
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pyhub-llm-coalescer-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package kr.pyhub.llm.base;
+
+import kr.pyhub.llm.types.LLMReply;
+import kr.pyhub.llm.types.StreamChunk;
+
+/**
+ * Assembles streamed chunks into a complete {@link LLMReply} so a streamed
+ * response can be cached. Chunks are delivered serially by the stream,
+ * so this class is not thread-safe.
+ */
+final class StreamAggregator {
+    
+    private final String model;
+    private final StringBuilder text = new StringBuilder();
+    private String finishReason;
+    private LLMReply.Usage usage;
+    
+    StreamAggregator(String model) {
+        this.model = model;
+    }
+    
+    /**
+     * Append a chunk's content; the finish chunk supplies the finish reason and usage.
+     * 
+     * @param chunk The streamed chunk
+     */
+    void accept(StreamChunk chunk) {
+        if (chunk.getContent() != null) {
+            text.append(chunk.getContent());
+        }
+        if (chunk.isFinished()) {
+            finishReason = chunk.getFinishReason();
+            usage = chunk.getUsage();
+        }
+    }
+    
+    /**
+     * Build the reply from the chunks seen so far.
+     * 
+     * @return The assembled reply
+     */
+    LLMReply toReply() {
+        return LLMReply.builder()
+            .text(text.toString())
+            .model(model)
+            .finishReason(finishReason)
+            .usage(usage)
+            .build();
+    }
+}
\ No newline at end of file
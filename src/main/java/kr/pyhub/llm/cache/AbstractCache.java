@@ -1,46 +1,92 @@
 package kr.pyhub.llm.cache;
 
+import kr.pyhub.llm.types.LLMReply;
 import kr.pyhub.llm.types.Message;
 import lombok.extern.slf4j.Slf4j;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 캐시 구현을 위한 추상 클래스.
  * 
- * 공통 기능인 키 생성 로직을 제공합니다.
+ * 공통 기능인 키 생성 로직과 통계 집계를 제공합니다.
+ * 키는 {@link CacheKeyPolicy}로 요청 정보를 정규화한 뒤 {@link CacheKeyHasher}로 계산합니다.
  */
 @Slf4j
 public abstract class AbstractCache implements Cache {
     
+    /**
+     * 히트/미스, 제거, 로드 시간 통계
+     */
+    protected final CacheStatsRecorder statsRecorder = new CacheStatsRecorder();
+    
+    private volatile CacheKeyPolicy keyPolicy = CacheKeyPolicy.exact();
+    
     @Override
     public String generateKey(List<Message> messages, String model, Double temperature, Integer maxTokens) {
-        // 캐시 키 생성을 위한 문자열 조합
-        StringBuilder keyBuilder = new StringBuilder();
-        
-        // 모델 정보
-        keyBuilder.append("model:").append(model).append("|");
-        
-        // 파라미터 정보
-        if (temperature != null) {
-            keyBuilder.append("temp:").append(temperature).append("|");
-        }
-        if (maxTokens != null) {
-            keyBuilder.append("max:").append(maxTokens).append("|");
-        }
-        
-        // 메시지 정보
-        String messagesStr = messages.stream()
-            .map(msg -> msg.getRole() + ":" + msg.getContent())
-            .collect(Collectors.joining("|"));
-        keyBuilder.append("messages:").append(messagesStr);
-        
-        // SHA-256 해시로 변환
-        return sha256(keyBuilder.toString());
+        return generateKey(CacheKeySpec.builder()
+            .model(model)
+            .temperature(temperature)
+            .maxTokens(maxTokens)
+            .messages(messages)
+            .build());
+    }
+    
+    @Override
+    public String generateKey(CacheKeySpec spec) {
+        // 메시지를 하나의 문자열로 합치지 않고 필드 단위로 해시에 입력
+        return CacheKeyHasher.key(keyPolicy.apply(spec));
+    }
+    
+    /**
+     * 키 정책 반환
+     * 
+     * @return 키 정책
+     */
+    public CacheKeyPolicy getKeyPolicy() {
+        return keyPolicy;
+    }
+    
+    /**
+     * 키 정책 설정. 바꾸면 이전 정책으로 저장한 항목과 키가 달라질 수 있습니다.
+     * 
+     * @param keyPolicy 키 정책 (null이면 {@link CacheKeyPolicy#exact()})
+     */
+    public void setKeyPolicy(CacheKeyPolicy keyPolicy) {
+        this.keyPolicy = keyPolicy != null ? keyPolicy : CacheKeyPolicy.exact();
+    }
+    
+    @Override
+    public CacheStats getStats() {
+        return statsRecorder.snapshot(estimatedSize(), bytesStored());
+    }
+    
+    @Override
+    public void recordLoad(long nanos) {
+        statsRecorder.recordLoad(nanos);
+    }
+    
+    @Override
+    public void recordHit(LLMReply reply) {
+        statsRecorder.recordHit(reply);
+    }
+    
+    /**
+     * 통계에 보고할 현재 항목 수
+     * 
+     * @return 항목 수
+     */
+    protected long estimatedSize() {
+        return 0;
+    }
+    
+    /**
+     * 통계에 보고할 현재 저장 크기
+     * 
+     * @return 저장된 바이트 수
+     */
+    protected long bytesStored() {
+        return 0;
     }
     
     /**
@@ -50,24 +96,6 @@ public abstract class AbstractCache implements Cache {
      * @return SHA-256 해시 문자열
      */
     protected String sha256(String input) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
-            
-            // 바이트 배열을 16진수 문자열로 변환
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            // SHA-256은 항상 사용 가능하므로 이 예외는 발생하지 않음
-            throw new RuntimeException("SHA-256 algorithm not found", e);
-        }
+        return CacheKeyHasher.sha256Hex(input);
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package kr.pyhub.llm.cache;
 import kr.pyhub.llm.types.LLMReply;
 import kr.pyhub.llm.types.Message;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +22,33 @@ public interface Cache {
      */
     Optional<LLMReply> get(String key);
     
+    /**
+     * 캐시에서 값을 조회하고, 항목이 갱신 시점을 지났으면 비동기로 다시 생성합니다.
+     * 
+     * refresh-after-write를 지원하는 캐시는 오래된 값을 바로 반환하고 reloader를 한 번만 호출합니다.
+     * 기본 구현은 reloader를 무시하고 {@link #get(String)}을 호출합니다.
+     * 
+     * @param key 캐시 키
+     * @param reloader 응답을 다시 생성하는 함수 (null이면 갱신하지 않음)
+     * @return 캐시된 값 또는 빈 Optional
+     */
+    default Optional<LLMReply> get(String key, CacheReloader reloader) {
+        return get(key);
+    }
+    
+    /**
+     * 히트/미스 통계를 남기지 않고 값을 조회합니다.
+     * 
+     * 이미 미스로 기록된 요청을 다시 확인할 때 사용합니다 (예: 병합된 요청의 대표 호출 직전).
+     * {@link CacheStatsRecorder}로 통계를 집계하는 구현은 별도로 구현하지 않아도 됩니다.
+     * 
+     * @param key 캐시 키
+     * @return 캐시된 값 또는 빈 Optional
+     */
+    default Optional<LLMReply> peek(String key) {
+        return CacheStatsRecorder.quietly(() -> get(key));
+    }
+    
     /**
      * 캐시에 값을 저장합니다.
      * 
@@ -29,6 +57,31 @@ public interface Cache {
      */
     void put(String key, LLMReply value);
     
+    /**
+     * 항목별 TTL로 값을 저장합니다.
+     * 
+     * {@link CacheWritePolicy}가 짧은 TTL을 지정한 응답과 실패 결과를 저장할 때 사용하며,
+     * BaseLLM은 {@link #supportsEntryTtl()}이 true인 캐시에만 호출합니다.
+     * 실패 결과는 캐시 전용 하위 타입으로 표시하므로 값을 직렬화해 저장하는 캐시는 항목별 TTL을 지원하지 않아야 합니다.
+     * 기본 구현은 TTL을 무시하고 {@link #put(String, LLMReply)}를 호출합니다.
+     * 
+     * @param key 캐시 키
+     * @param value 저장할 값
+     * @param ttl 이 항목의 TTL
+     */
+    default void put(String key, LLMReply value, Duration ttl) {
+        put(key, value);
+    }
+    
+    /**
+     * {@link #put(String, LLMReply, Duration)}의 TTL을 적용하는지 확인합니다.
+     * 
+     * @return 항목별 TTL 지원 여부 (기본값: false)
+     */
+    default boolean supportsEntryTtl() {
+        return false;
+    }
+    
     /**
      * 특정 키의 캐시를 삭제합니다.
      * 
@@ -41,6 +94,34 @@ public interface Cache {
      */
     void clear();
     
+    /**
+     * 특정 키의 캐시를 삭제하고, 실제로 항목이 있었는지 반환합니다.
+     * 
+     * 다른 캐시를 감싸는 구현이 실제로 삭제된 항목만 제거로 기록할 때 사용합니다.
+     * 기본 구현은 {@link #peek(String)}으로 확인한 뒤 {@link #evict(String)}를 호출합니다.
+     * 
+     * @param key 삭제할 캐시 키
+     * @return 항목이 있었으면 true
+     */
+    default boolean remove(String key) {
+        boolean present = peek(key).isPresent();
+        evict(key);
+        return present;
+    }
+    
+    /**
+     * 모든 캐시를 삭제하고, 실제로 삭제한 항목 수를 반환합니다.
+     * 
+     * 기본 구현은 삭제 직전의 {@link CacheStats#getSize()}를 반환합니다.
+     * 
+     * @return 삭제한 항목 수
+     */
+    default long removeAll() {
+        long size = getStats().getSize();
+        clear();
+        return size;
+    }
+    
     /**
      * 메시지와 파라미터로부터 캐시 키를 생성합니다.
      * 
@@ -52,6 +133,50 @@ public interface Cache {
      */
     String generateKey(List<Message> messages, String model, Double temperature, Integer maxTokens);
     
+    /**
+     * 요청 정보로부터 캐시 키를 생성합니다.
+     * 
+     * BaseLLM은 프로바이더, top-p, 메시지 name/toolCallId, 사용 가능한 도구까지 포함한
+     * {@link CacheKeySpec}으로 키를 요청하며, 대화 모드에서는 미리 계산한 메시지 다이제스트도 함께 전달합니다.
+     * 기본 구현은 이 정보를 알지 못하는 기존 구현을 위해 메시지, 모델, 온도, 최대 토큰 수만 사용합니다.
+     * 
+     * @param spec 요청 정보
+     * @return 생성된 캐시 키
+     */
+    default String generateKey(CacheKeySpec spec) {
+        return generateKey(spec.getMessages(), spec.getModel(), spec.getTemperature(), spec.getMaxTokens());
+    }
+    
+    /**
+     * 캐시 통계를 반환합니다.
+     * 
+     * 히트/미스, 원인별 제거 횟수, 미스 후 LLM 호출 시간, 저장 크기,
+     * 절약한 토큰 수를 포함합니다. 기본 구현은 빈 통계를 반환합니다.
+     * 
+     * @return 캐시 통계
+     */
+    default CacheStats getStats() {
+        return new CacheStats();
+    }
+    
+    /**
+     * 미스 후 LLM을 호출하는 데 걸린 시간(load penalty)을 기록합니다.
+     * BaseLLM이 캐시 미스로 응답을 가져온 뒤 호출합니다.
+     * 
+     * @param nanos 걸린 시간 (나노초)
+     */
+    default void recordLoad(long nanos) {
+    }
+    
+    /**
+     * 이 캐시가 조회하지 않고 반환한 값을 히트로 기록합니다.
+     * 아직 저장되지 않은 값을 바로 반환하는 데코레이터({@link WriteBehindCache})가 호출합니다.
+     * 
+     * @param reply 반환한 응답
+     */
+    default void recordHit(LLMReply reply) {
+    }
+    
     /**
      * 캐시가 활성화되어 있는지 확인합니다.
      * 
@@ -0,0 +1,50 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+
+import java.io.IOException;
+
+/**
+ * 캐시에 저장할 응답의 직렬화 방식.
+ * 
+ * 디스크 캐시는 {@link CacheFormat}을 통해 코덱을 사용하며, 항목마다 코덱 ID를 함께
+ * 저장하므로 코덱을 바꿔도 이전에 저장한 항목을 계속 읽을 수 있습니다.
+ * 기본 제공 코덱은 {@link JsonCacheCodec}(ID 1)과 {@link SmileCacheCodec}(ID 2)입니다.
+ * 
+ * <pre>{@code
+ * CacheFormat format = CacheFormat.builder()
+ *     .codec(new SmileCacheCodec())
+ *     .compression(CacheFormat.Compression.DEFLATE)
+ *     .build();
+ * }</pre>
+ */
+public interface CacheCodec {
+    
+    /**
+     * 항목 헤더에 기록되는 코덱 ID (1~127).
+     * 1과 2는 기본 제공 코덱이 사용합니다.
+     * 
+     * @return 코덱 ID
+     */
+    int getId();
+    
+    /**
+     * 응답을 바이트 배열로 직렬화합니다.
+     * 
+     * @param value 응답
+     * @return 직렬화된 데이터
+     * @throws IOException 직렬화 실패 시
+     */
+    byte[] encode(LLMReply value) throws IOException;
+    
+    /**
+     * 바이트 배열에서 응답을 읽습니다.
+     * 
+     * @param data 데이터
+     * @param offset 시작 위치
+     * @param length 길이
+     * @return 응답
+     * @throws IOException 데이터가 손상된 경우
+     */
+    LLMReply decode(byte[] data, int offset, int length) throws IOException;
+}
\ No newline at end of file
@@ -0,0 +1,243 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 디스크 캐시 항목의 저장 형식 (코덱 + 선택적 압축).
+ * 
+ * 항목 형식:
+ * <ul>
+ *   <li>헤더 있음: {@code magic(1) | flags(1) | [originalLength(4)] | payload}.
+ *       flags의 하위 7비트는 코덱 ID, 최상위 비트는 Deflate 압축 여부입니다.
+ *       압축한 경우에만 원본 길이가 들어갑니다.</li>
+ *   <li>헤더 없음: 순수 JSON. 압축하지 않은 JSON과 이전 버전에서 저장한 항목입니다.</li>
+ * </ul>
+ * 읽을 때는 헤더의 코덱 ID로 코덱을 고르므로, 형식을 바꿔도 기존 항목을 계속 읽을 수 있습니다.
+ * 
+ * <pre>{@code
+ * FileCache cache = FileCache.builder()
+ *     .directory("./cache")
+ *     .format(CacheFormat.builder()
+ *         .codec(new SmileCacheCodec())
+ *         .compression(CacheFormat.Compression.DEFLATE)
+ *         .compressionThreshold(4096)
+ *         .build())
+ *     .build();
+ * }</pre>
+ */
+public final class CacheFormat {
+    
+    /** JSON 텍스트의 첫 바이트가 될 수 없는 값 */
+    static final byte MAGIC = (byte) 0xC7;
+    
+    private static final int FLAG_DEFLATE = 0x80;
+    private static final int CODEC_ID_MASK = 0x7F;
+    private static final int HEADER_SIZE = 2;
+    private static final int LENGTH_SIZE = 4;
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    /** Deflate의 최대 압축률 (약 1032:1), 헤더의 원래 길이가 이보다 크면 손상된 항목 */
+    private static final long MAX_DEFLATE_RATIO = 1032;
+    
+    /**
+     * 압축 방식
+     */
+    public enum Compression {
+        /** 압축하지 않음 */
+        NONE,
+        /** 임계값 이상인 항목을 Deflate로 압축 (줄어드는 경우에만) */
+        DEFLATE
+    }
+    
+    private static final CacheFormat DEFAULT = CacheFormat.builder().build();
+    private static final CacheFormat JSON = CacheFormat.builder()
+        .codec(new JsonCacheCodec())
+        .compression(Compression.NONE)
+        .build();
+    
+    @Getter
+    private final CacheCodec codec;
+    @Getter
+    private final Compression compression;
+    @Getter
+    private final int compressionThreshold;
+    private final Map<Integer, CacheCodec> codecs = new HashMap<>();
+    private final JsonCacheCodec legacyCodec = new JsonCacheCodec();
+    
+    /**
+     * 빌더용 생성자
+     * 
+     * @param codec 저장에 사용할 코덱 (기본값: Smile)
+     * @param compression 압축 방식 (기본값: DEFLATE)
+     * @param compressionThreshold 압축할 최소 직렬화 크기 (기본값: 1024바이트)
+     * @param readCodecs 읽기에 추가로 사용할 사용자 정의 코덱
+     */
+    @Builder
+    private CacheFormat(CacheCodec codec, Compression compression, Integer compressionThreshold,
+                        @Singular List<CacheCodec> readCodecs) {
+        this.codec = codec != null ? codec : new SmileCacheCodec();
+        this.compression = compression != null ? compression : Compression.DEFLATE;
+        this.compressionThreshold = compressionThreshold != null ? compressionThreshold : DEFAULT_COMPRESSION_THRESHOLD;
+        if (this.compressionThreshold < 0) {
+            throw new IllegalArgumentException("compressionThreshold must not be negative");
+        }
+        
+        register(new JsonCacheCodec());
+        register(new SmileCacheCodec());
+        for (CacheCodec readCodec : readCodecs) {
+            register(readCodec);
+        }
+        register(this.codec);
+    }
+    
+    /**
+     * 기본 형식 (Smile, 1KB 이상은 Deflate 압축)
+     * 
+     * @return 기본 형식
+     */
+    public static CacheFormat defaults() {
+        return DEFAULT;
+    }
+    
+    /**
+     * 압축하지 않은 JSON 형식 (헤더 없음, 이전 버전과 같은 형식)
+     * 
+     * @return JSON 형식
+     */
+    public static CacheFormat json() {
+        return JSON;
+    }
+    
+    /**
+     * 응답을 저장할 바이트 배열로 변환합니다.
+     * 
+     * @param value 응답
+     * @return 헤더를 포함한 데이터
+     * @throws IOException 직렬화 실패 시
+     */
+    public byte[] write(LLMReply value) throws IOException {
+        byte[] payload = codec.encode(value);
+        
+        if (compression == Compression.DEFLATE && payload.length >= compressionThreshold) {
+            byte[] deflated = deflate(payload);
+            if (deflated.length + LENGTH_SIZE < payload.length) {
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + LENGTH_SIZE + deflated.length);
+                buffer.put(MAGIC).put((byte) (codec.getId() | FLAG_DEFLATE)).putInt(payload.length).put(deflated);
+                return buffer.array();
+            }
+        }
+        
+        if (codec.getId() == JsonCacheCodec.ID) {
+            // 압축하지 않은 JSON은 헤더 없이 저장하여 사람이 읽을 수 있게 함
+            return payload;
+        }
+        byte[] framed = new byte[HEADER_SIZE + payload.length];
+        framed[0] = MAGIC;
+        framed[1] = (byte) codec.getId();
+        System.arraycopy(payload, 0, framed, HEADER_SIZE, payload.length);
+        return framed;
+    }
+    
+    /**
+     * 저장된 바이트 배열에서 응답을 읽습니다.
+     * 
+     * @param data 저장된 데이터
+     * @return 응답
+     * @throws IOException 데이터가 손상되었거나 알 수 없는 코덱인 경우
+     */
+    public LLMReply read(byte[] data) throws IOException {
+        if (data.length == 0 || data[0] != MAGIC) {
+            return legacyCodec.decode(data, 0, data.length);
+        }
+        if (data.length < HEADER_SIZE) {
+            throw new IOException("Truncated cache entry header");
+        }
+        
+        int flags = data[1] & 0xFF;
+        CacheCodec entryCodec = codecs.get(flags & CODEC_ID_MASK);
+        if (entryCodec == null) {
+            throw new IOException("Unknown cache codec id: " + (flags & CODEC_ID_MASK));
+        }
+        if ((flags & FLAG_DEFLATE) == 0) {
+            return entryCodec.decode(data, HEADER_SIZE, data.length - HEADER_SIZE);
+        }
+        
+        if (data.length < HEADER_SIZE + LENGTH_SIZE) {
+            throw new IOException("Truncated cache entry header");
+        }
+        int originalLength = ByteBuffer.wrap(data, HEADER_SIZE, LENGTH_SIZE).getInt();
+        byte[] payload = inflate(data, HEADER_SIZE + LENGTH_SIZE, originalLength);
+        return entryCodec.decode(payload, 0, payload.length);
+    }
+    
+    private void register(CacheCodec codec) {
+        int id = codec.getId();
+        if (id < 1 || id > CODEC_ID_MASK) {
+            throw new IllegalArgumentException("Codec id must be between 1 and " + CODEC_ID_MASK + ": " + id);
+        }
+        codecs.put(id, codec);
+    }
+    
+    private static byte[] deflate(byte[] input) {
+        // LLM 응답은 짧은 자연어라 압축률 차이가 작으므로 속도 우선
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] buffer = new byte[input.length];
+            int length = 0;
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            if (!deflater.finished()) {
+                // 압축해도 줄지 않음
+                return input;
+            }
+            byte[] output = new byte[length];
+            System.arraycopy(buffer, 0, output, 0, length);
+            return output;
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    private static byte[] inflate(byte[] data, int offset, int originalLength) throws IOException {
+        // 헤더의 길이를 그대로 할당하면 손상된 파일에서 OutOfMemoryError가 날 수 있음
+        long compressedLength = data.length - offset;
+        if (originalLength < 0 || originalLength > compressedLength * MAX_DEFLATE_RATIO) {
+            throw new IOException("Invalid cache entry length: " + originalLength);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] output = new byte[originalLength];
+            int length = 0;
+            while (length < originalLength) {
+                int read = inflater.inflate(output, length, originalLength - length);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != originalLength) {
+                throw new IOException("Corrupted compressed cache entry");
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted compressed cache entry", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
\ No newline at end of file
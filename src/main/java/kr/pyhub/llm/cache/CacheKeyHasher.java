@@ -0,0 +1,253 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.tools.Tool;
+import kr.pyhub.llm.types.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 캐시 키 생성을 위한 SHA-256 해시 유틸리티.
+ * 
+ * 메시지 내용을 하나의 큰 문자열로 합치지 않고, 각 필드를 길이 접두사와 함께
+ * 스레드별로 재사용되는 MessageDigest에 직접 입력합니다. 길이 접두사 덕분에
+ * 필드 경계가 모호해져 서로 다른 입력이 같은 키가 되는 일이 없습니다.
+ * 
+ * 키는 두 단계로 계산됩니다.
+ * <ol>
+ *   <li>메시지 다이제스트: 메시지들을 순서대로 입력한 SHA-256 값</li>
+ *   <li>최종 키: 프로바이더, 모델, 파라미터, 도구, 메시지 다이제스트를 입력한 SHA-256 값의 16진수 문자열</li>
+ * </ol>
+ * 메시지 다이제스트는 메시지를 추가하면서 이어서 계산할 수 있으므로
+ * 대화 기록처럼 계속 늘어나는 메시지 목록에 유용합니다.
+ */
+public final class CacheKeyHasher {
+    
+    private static final String ALGORITHM = "SHA-256";
+    private static final byte KEY_VERSION = 3;
+    private static final int NULL_LENGTH = -1;
+    private static final int SCRATCH_SIZE = 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+    
+    private CacheKeyHasher() {
+    }
+    
+    /**
+     * 메시지 다이제스트 계산을 위한 새 MessageDigest를 생성합니다.
+     * 반환된 인스턴스는 스레드 안전하지 않습니다.
+     * 
+     * @return SHA-256 MessageDigest
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256은 항상 사용 가능하므로 이 예외는 발생하지 않음
+            throw new IllegalStateException("SHA-256 algorithm not found", e);
+        }
+    }
+    
+    /**
+     * 메시지 하나를 다이제스트에 입력합니다.
+     * 
+     * @param digest 메시지 다이제스트
+     * @param message 입력할 메시지
+     */
+    public static void update(MessageDigest digest, Message message) {
+        byte[] scratch = STATE.get().scratch;
+        Message.Role role = message.getRole();
+        writeInt(digest, scratch, role != null ? role.ordinal() : NULL_LENGTH);
+        writeString(digest, scratch, message.getContent());
+        writeString(digest, scratch, message.getName());
+        writeString(digest, scratch, message.getToolCallId());
+    }
+    
+    /**
+     * 메시지 목록의 다이제스트를 계산합니다.
+     * 
+     * @param messages 메시지 리스트
+     * @return 32바이트 메시지 다이제스트
+     */
+    public static byte[] digestMessages(List<Message> messages) {
+        MessageDigest digest = STATE.get().digest;
+        digest.reset();
+        for (int i = 0, n = messages.size(); i < n; i++) {
+            update(digest, messages.get(i));
+        }
+        return digest.digest();
+    }
+    
+    /**
+     * 메시지 다이제스트와 파라미터로부터 최종 캐시 키를 생성합니다.
+     * 프로바이더, top-p, 도구가 없는 {@link #key(CacheKeySpec)}와 같은 값입니다.
+     * 
+     * @param messagesDigest {@link #digestMessages(List)}로 계산한 메시지 다이제스트
+     * @param model 모델명
+     * @param temperature 온도 파라미터
+     * @param maxTokens 최대 토큰 수
+     * @return 16진수 캐시 키
+     */
+    public static String key(byte[] messagesDigest, String model, Double temperature, Integer maxTokens) {
+        return key(messagesDigest, null, model, temperature, maxTokens, null, null);
+    }
+    
+    /**
+     * 요청 정보로부터 최종 캐시 키를 생성합니다.
+     * 메시지 다이제스트가 없으면 메시지로부터 계산합니다.
+     * 
+     * @param spec 요청 정보
+     * @return 16진수 캐시 키
+     */
+    public static String key(CacheKeySpec spec) {
+        byte[] messagesDigest = spec.getMessagesDigest() != null
+            ? spec.getMessagesDigest()
+            : digestMessages(spec.getMessages());
+        return key(messagesDigest, spec.getProvider(), spec.getModel(), spec.getTemperature(),
+            spec.getMaxTokens(), spec.getTopP(), spec.getTools());
+    }
+    
+    private static String key(byte[] messagesDigest, String provider, String model, Double temperature,
+                              Integer maxTokens, Double topP, List<Tool> tools) {
+        State state = STATE.get();
+        MessageDigest digest = state.digest;
+        byte[] scratch = state.scratch;
+        
+        digest.reset();
+        digest.update(KEY_VERSION);
+        writeString(digest, scratch, provider);
+        writeString(digest, scratch, model);
+        writeOptionalDouble(digest, scratch, temperature);
+        if (maxTokens != null) {
+            digest.update((byte) 1);
+            writeInt(digest, scratch, maxTokens);
+        } else {
+            digest.update((byte) 0);
+        }
+        writeOptionalDouble(digest, scratch, topP);
+        writeTools(digest, scratch, tools);
+        digest.update(messagesDigest);
+        return toHex(digest.digest());
+    }
+    
+    /**
+     * 문자열의 SHA-256 해시를 16진수 문자열로 반환합니다.
+     * 
+     * @param input 입력 문자열
+     * @return SHA-256 해시 문자열
+     */
+    public static String sha256Hex(String input) {
+        MessageDigest digest = STATE.get().digest;
+        digest.reset();
+        return toHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * 바이트 배열을 소문자 16진수 문자열로 변환합니다.
+     * 
+     * @param bytes 바이트 배열
+     * @return 16진수 문자열
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xff;
+            chars[i * 2] = HEX[v >>> 4];
+            chars[i * 2 + 1] = HEX[v & 0x0f];
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * 도구는 등록 순서와 관계없이 이름순으로 입력합니다.
+     */
+    private static void writeTools(MessageDigest digest, byte[] scratch, List<Tool> tools) {
+        if (tools == null || tools.isEmpty()) {
+            writeInt(digest, scratch, 0);
+            return;
+        }
+        List<Tool> sorted = new ArrayList<>(tools);
+        sorted.sort(Comparator.comparing(Tool::getName, Comparator.nullsFirst(Comparator.naturalOrder())));
+        writeInt(digest, scratch, sorted.size());
+        for (Tool tool : sorted) {
+            writeString(digest, scratch, tool.getName());
+            writeString(digest, scratch, tool.getDescription());
+            writeString(digest, scratch, tool.getSchema() != null ? tool.getSchema().toString() : null);
+        }
+    }
+    
+    private static void writeOptionalDouble(MessageDigest digest, byte[] scratch, Double value) {
+        if (value != null) {
+            digest.update((byte) 1);
+            writeLong(digest, scratch, Double.doubleToLongBits(value));
+        } else {
+            digest.update((byte) 0);
+        }
+    }
+    
+    private static void writeString(MessageDigest digest, byte[] scratch, String value) {
+        if (value == null) {
+            writeInt(digest, scratch, NULL_LENGTH);
+            return;
+        }
+        writeInt(digest, scratch, value.length());
+        writeChars(digest, scratch, value);
+    }
+    
+    /**
+     * 문자를 UTF-8로 인코딩하여 임시 버퍼 단위로 입력합니다.
+     * 서로게이트 쌍은 각 char를 개별 인코딩하므로(CESU-8 방식) 잘못된 서로게이트도
+     * 손실 없이 구분됩니다.
+     */
+    private static void writeChars(MessageDigest digest, byte[] scratch, String value) {
+        int pos = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            if (pos > scratch.length - 3) {
+                digest.update(scratch, 0, pos);
+                pos = 0;
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                scratch[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                scratch[pos++] = (byte) (0xc0 | (c >> 6));
+                scratch[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else {
+                scratch[pos++] = (byte) (0xe0 | (c >> 12));
+                scratch[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                scratch[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        if (pos > 0) {
+            digest.update(scratch, 0, pos);
+        }
+    }
+    
+    private static void writeInt(MessageDigest digest, byte[] scratch, int value) {
+        scratch[0] = (byte) (value >>> 24);
+        scratch[1] = (byte) (value >>> 16);
+        scratch[2] = (byte) (value >>> 8);
+        scratch[3] = (byte) value;
+        digest.update(scratch, 0, 4);
+    }
+    
+    private static void writeLong(MessageDigest digest, byte[] scratch, long value) {
+        for (int i = 7; i >= 0; i--) {
+            scratch[7 - i] = (byte) (value >>> (i * 8));
+        }
+        digest.update(scratch, 0, 8);
+    }
+    
+    /**
+     * 스레드별로 재사용되는 다이제스트와 인코딩 버퍼
+     */
+    private static final class State {
+        final MessageDigest digest = newDigest();
+        final byte[] scratch = new byte[SCRATCH_SIZE];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package kr.pyhub.llm.cache;
+
+/**
+ * 캐시 키를 계산하기 전에 요청 정보를 정규화하는 정책.
+ * 
+ * 정책이 돌려준 {@link CacheKeySpec}의 모든 필드가 해시되므로, 같은 응답을 기대할 수 있는 요청을
+ * 같은 값으로 바꾸면 히트율이 올라갑니다. 메시지를 바꾸는 정책은 미리 계산된 메시지 다이제스트를
+ * 비워야 합니다 ({@code messagesDigest(null)}).
+ * 
+ * <pre>{@code
+ * MemoryCache cache = new MemoryCache();
+ * cache.setKeyPolicy(CacheKeyPolicy.normalizeUserText());
+ * }</pre>
+ */
+@FunctionalInterface
+public interface CacheKeyPolicy {
+    
+    /**
+     * 해시할 요청 정보를 반환합니다.
+     * 
+     * @param spec 요청 정보
+     * @return 정규화된 요청 정보
+     */
+    CacheKeySpec apply(CacheKeySpec spec);
+    
+    /**
+     * 요청 정보를 그대로 사용하는 기본 정책
+     * 
+     * @return 기본 정책
+     */
+    static CacheKeyPolicy exact() {
+        return spec -> spec;
+    }
+    
+    /**
+     * 사용자 메시지의 대소문자와 공백 차이를 무시하는 정책.
+     * 앞뒤 공백을 없애고 연속된 공백을 하나로 줄인 뒤 소문자로 바꿉니다.
+     * 
+     * @return 정규화 정책
+     */
+    static CacheKeyPolicy normalizeUserText() {
+        return UserTextNormalizer.INSTANCE;
+    }
+}
\ No newline at end of file
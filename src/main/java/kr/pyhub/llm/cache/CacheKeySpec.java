@@ -0,0 +1,67 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.tools.Tool;
+import kr.pyhub.llm.types.Message;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 캐시 키를 구성하는 요청 정보.
+ * 
+ * 응답에 영향을 주는 모든 필드(프로바이더, 모델, 생성 파라미터, 메시지, 사용 가능한 도구)를 담습니다.
+ * BaseLLM이 요청마다 만들어 {@link Cache#generateKey(CacheKeySpec)}에 전달하며,
+ * {@link CacheKeyPolicy}가 해시하기 전에 값을 정규화할 수 있습니다.
+ * 
+ * <pre>{@code
+ * CacheKeySpec spec = CacheKeySpec.builder()
+ *     .provider("openai")
+ *     .model("gpt-4o-mini")
+ *     .temperature(0.7)
+ *     .messages(messages)
+ *     .build();
+ * String key = cache.generateKey(spec);
+ * }</pre>
+ */
+@Getter
+public final class CacheKeySpec {
+    
+    private final String provider;
+    private final String model;
+    private final Double temperature;
+    private final Integer maxTokens;
+    private final Double topP;
+    private final List<Message> messages;
+    private final byte[] messagesDigest;
+    private final List<Tool> tools;
+    
+    /**
+     * 빌더용 생성자
+     * 
+     * @param provider 프로바이더 이름
+     * @param model 모델명
+     * @param temperature 온도 파라미터
+     * @param maxTokens 최대 토큰 수
+     * @param topP top-p 파라미터
+     * @param messages 메시지 리스트 (필수)
+     * @param messagesDigest {@link CacheKeyHasher}로 미리 계산한 메시지 다이제스트 (선택)
+     * @param tools 요청에 포함되는 도구 (기본값: 없음)
+     */
+    @Builder(toBuilder = true)
+    private CacheKeySpec(String provider, String model, Double temperature, Integer maxTokens, Double topP,
+                         List<Message> messages, byte[] messagesDigest, List<Tool> tools) {
+        if (messages == null) {
+            throw new IllegalArgumentException("Messages must not be null");
+        }
+        this.provider = provider;
+        this.model = model;
+        this.temperature = temperature;
+        this.maxTokens = maxTokens;
+        this.topP = topP;
+        this.messages = messages;
+        this.messagesDigest = messagesDigest;
+        this.tools = tools != null ? tools : Collections.emptyList();
+    }
+}
\ No newline at end of file
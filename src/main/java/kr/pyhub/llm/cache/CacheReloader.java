@@ -0,0 +1,24 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 오래된 캐시 항목을 비동기로 다시 생성하는 함수.
+ * 
+ * {@link Cache#get(String, CacheReloader)}에 전달하면 refresh-after-write를 지원하는 캐시
+ * ({@link MemoryCache})가 갱신 시점이 지난 항목을 읽을 때 한 번 호출합니다.
+ * 새 응답을 캐시에 저장하는 것은 reloader의 책임입니다.
+ * BaseLLM은 미스 때와 같은 경로로 LLM을 호출하고 소유한 캐시에 저장하는 reloader를 전달합니다.
+ */
+@FunctionalInterface
+public interface CacheReloader {
+    
+    /**
+     * 응답을 다시 생성하여 캐시에 저장합니다.
+     * 
+     * @return 새 응답
+     */
+    CompletableFuture<LLMReply> reload();
+}
\ No newline at end of file
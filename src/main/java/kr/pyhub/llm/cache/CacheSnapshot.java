@@ -0,0 +1,181 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 캐시 스냅샷 파일 읽기/쓰기.
+ * 
+ * 파일 형식: {@code magic(4) | version(1) | record* | end(4)}
+ * 레코드 형식: {@code keyLength(4) | valueLength(4) | hits(4) | expiresAt(8) | ttl(8) | key | value}
+ * 
+ * 값은 {@link CacheFormat}으로 직렬화하고, hits는 조회 횟수, expiresAt은 만료 시각(epoch 밀리초),
+ * ttl은 저장할 때 적용한 항목의 TTL(밀리초)입니다.
+ * 파일 끝 표시({@code end = -1})가 없으면 쓰는 도중 잘린 파일이므로 읽은 곳까지만 사용합니다.
+ */
+@Slf4j
+final class CacheSnapshot {
+    
+    private static final int MAGIC = 0x50484353;
+    private static final byte VERSION = 1;
+    private static final int END_OF_RECORDS = -1;
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+    
+    private CacheSnapshot() {
+    }
+    
+    /**
+     * 스냅샷 항목을 받는 쪽
+     */
+    @FunctionalInterface
+    interface EntryConsumer {
+        /**
+         * @param key 캐시 키
+         * @param value 응답
+         * @param hits 조회 횟수
+         * @param expiresAtMillis 만료 시각 (epoch 밀리초)
+         * @param ttlMillis 저장할 때의 항목 TTL (밀리초)
+         * @return 계속 읽으려면 true
+         */
+        boolean accept(String key, LLMReply value, int hits, long expiresAtMillis, long ttlMillis);
+    }
+    
+    /**
+     * 스냅샷을 임시 파일에 순서대로 기록하고, {@link #commit()} 시 대상 파일로 원자적으로 교체합니다.
+     * 커밋하지 않고 닫으면 임시 파일을 삭제하므로 기존 스냅샷은 그대로 남습니다.
+     */
+    static final class Writer implements Closeable {
+        
+        private final Path file;
+        private final Path tempFile;
+        private final CacheFormat format;
+        private final FileOutputStream fileOutput;
+        private final DataOutputStream output;
+        private long count;
+        private boolean committed;
+        
+        Writer(Path file, CacheFormat format) throws IOException {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            this.file = file;
+            this.format = format;
+            this.tempFile = Files.createTempFile(dir, file.getFileName() + ".", TEMP_FILE_EXTENSION);
+            this.fileOutput = new FileOutputStream(tempFile.toFile());
+            this.output = new DataOutputStream(new BufferedOutputStream(fileOutput));
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+        }
+        
+        void write(String key, LLMReply value, int hits, long expiresAtMillis, long ttlMillis) throws IOException {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            byte[] valueBytes = format.write(value);
+            output.writeInt(keyBytes.length);
+            output.writeInt(valueBytes.length);
+            output.writeInt(hits);
+            output.writeLong(expiresAtMillis);
+            output.writeLong(ttlMillis);
+            output.write(keyBytes);
+            output.write(valueBytes);
+            count++;
+        }
+        
+        long commit() throws IOException {
+            output.writeInt(END_OF_RECORDS);
+            output.flush();
+            fileOutput.getFD().sync();
+            output.close();
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            committed = true;
+            return count;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                output.close();
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+    
+    /**
+     * 스냅샷을 앞에서부터 읽어 전달합니다. 값이 손상된 항목은 건너뜁니다.
+     * 
+     * @param file 스냅샷 파일
+     * @param format 값 형식
+     * @param consumer 항목을 받는 쪽
+     * @throws IOException 스냅샷 파일이 아니거나 레코드 형식이 잘못된 경우
+     */
+    static void read(Path file, CacheFormat format, EntryConsumer consumer) throws IOException {
+        long fileSize = Files.size(file);
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream input = new DataInputStream(new BufferedInputStream(stream))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Not a cache snapshot: " + file);
+            }
+            byte version = input.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported cache snapshot version: " + version);
+            }
+            
+            while (true) {
+                byte[] key;
+                byte[] value;
+                int hits;
+                long expiresAt;
+                long ttl;
+                try {
+                    int keyLength = input.readInt();
+                    if (keyLength == END_OF_RECORDS) {
+                        break;
+                    }
+                    int valueLength = input.readInt();
+                    if (keyLength < 0 || valueLength < 0 || (long) keyLength + valueLength > fileSize) {
+                        throw new IOException("Corrupted cache snapshot record in " + file);
+                    }
+                    hits = input.readInt();
+                    expiresAt = input.readLong();
+                    ttl = input.readLong();
+                    key = new byte[keyLength];
+                    input.readFully(key);
+                    value = new byte[valueLength];
+                    input.readFully(value);
+                } catch (EOFException e) {
+                    log.warn("Cache snapshot {} is truncated; using the entries read so far", file);
+                    break;
+                }
+                
+                String keyString = new String(key, StandardCharsets.UTF_8);
+                LLMReply reply;
+                try {
+                    reply = format.read(value);
+                } catch (IOException e) {
+                    log.warn("Skipping corrupted cache snapshot entry for key: {}", keyString, e);
+                    continue;
+                }
+                if (!consumer.accept(keyString, reply, hits, expiresAt, ttl)) {
+                    break;
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -5,6 +5,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * 캐시 통계 정보.
  */
@@ -14,6 +17,8 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class CacheStats {
     
+    private static final double TOKENS_PER_MILLION = 1_000_000.0;
+    
     /**
      * 캐시 히트 횟수
      */
@@ -29,6 +34,42 @@ public class CacheStats {
      */
     private long size;
     
+    /**
+     * 추정 메모리 사용량 (바이트). 가중치 기반 제한을 사용하는 경우에만 집계됩니다.
+     */
+    private long weightedSize;
+    
+    /**
+     * 저장된 데이터 크기 (바이트). 메모리 캐시는 추정치, 디스크 캐시는 파일 크기입니다.
+     */
+    private long bytesStored;
+    
+    /**
+     * 원인별 제거 횟수
+     */
+    @Builder.Default
+    private Map<EvictionCause, Long> evictionCounts = new EnumMap<>(EvictionCause.class);
+    
+    /**
+     * 미스 후 LLM을 호출한 횟수
+     */
+    private long loadCount;
+    
+    /**
+     * 미스 후 LLM 호출에 걸린 전체 시간 (나노초)
+     */
+    private long totalLoadTimeNanos;
+    
+    /**
+     * 캐시 히트로 절약한 프롬프트 토큰 수
+     */
+    private long promptTokensSaved;
+    
+    /**
+     * 캐시 히트로 절약한 응답 토큰 수
+     */
+    private long completionTokensSaved;
+    
     /**
      * 캐시 히트율 계산
      * 
@@ -39,11 +80,65 @@ public class CacheStats {
         return total == 0 ? 0.0 : (double) hitCount / total;
     }
     
+    /**
+     * 전체 제거 횟수
+     * 
+     * @return 모든 원인의 제거 횟수 합계
+     */
+    public long getEvictionCount() {
+        return evictionCounts == null ? 0 : evictionCounts.values().stream().mapToLong(Long::longValue).sum();
+    }
+    
+    /**
+     * 특정 원인의 제거 횟수
+     * 
+     * @param cause 제거 원인
+     * @return 제거 횟수
+     */
+    public long getEvictionCount(EvictionCause cause) {
+        return evictionCounts == null ? 0 : evictionCounts.getOrDefault(cause, 0L);
+    }
+    
+    /**
+     * 미스 한 번당 평균 LLM 호출 시간 (load penalty)
+     * 
+     * @return 평균 시간 (밀리초)
+     */
+    public double getAverageLoadPenaltyMillis() {
+        return loadCount == 0 ? 0.0 : totalLoadTimeNanos / 1_000_000.0 / loadCount;
+    }
+    
+    /**
+     * 캐시 히트로 절약한 전체 토큰 수
+     * 
+     * @return 절약한 토큰 수
+     */
+    public long getTokensSaved() {
+        return promptTokensSaved + completionTokensSaved;
+    }
+    
+    /**
+     * 절약한 토큰을 비용으로 환산합니다.
+     * 
+     * @param promptPricePerMillion 프롬프트 토큰 100만 개당 가격 (달러)
+     * @param completionPricePerMillion 응답 토큰 100만 개당 가격 (달러)
+     * @return 절약한 비용 (달러)
+     */
+    public double estimateSavings(double promptPricePerMillion, double completionPricePerMillion) {
+        return promptTokensSaved / TOKENS_PER_MILLION * promptPricePerMillion
+            + completionTokensSaved / TOKENS_PER_MILLION * completionPricePerMillion;
+    }
+    
     /**
      * 통계 초기화
      */
     public void reset() {
         this.hitCount = 0;
         this.missCount = 0;
+        this.loadCount = 0;
+        this.totalLoadTimeNanos = 0;
+        this.promptTokensSaved = 0;
+        this.completionTokensSaved = 0;
+        this.evictionCounts = new EnumMap<>(EvictionCause.class);
     }
 }
\ No newline at end of file
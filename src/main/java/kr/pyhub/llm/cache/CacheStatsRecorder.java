@@ -0,0 +1,137 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 캐시 구현에서 공통으로 사용하는 스레드 안전한 통계 집계기.
+ * 
+ * 히트 시에는 응답의 토큰 사용량을 절약한 토큰으로 집계합니다.
+ */
+public final class CacheStatsRecorder {
+    
+    /** 이 스레드에서 히트/미스를 기록하지 않는 조회 중인지 여부 ({@link Cache#peek(String)}) */
+    private static final ThreadLocal<Boolean> QUIET = new ThreadLocal<>();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+    private final LongAdder promptTokensSaved = new LongAdder();
+    private final LongAdder completionTokensSaved = new LongAdder();
+    private final Map<EvictionCause, LongAdder> evictions = new EnumMap<>(EvictionCause.class);
+    
+    public CacheStatsRecorder() {
+        for (EvictionCause cause : EvictionCause.values()) {
+            evictions.put(cause, new LongAdder());
+        }
+    }
+    
+    /**
+     * 캐시 히트를 기록합니다.
+     * 
+     * @param reply 캐시에서 반환한 응답
+     */
+    public void recordHit(LLMReply reply) {
+        if (QUIET.get() != null) {
+            return;
+        }
+        hits.increment();
+        LLMReply.Usage usage = reply != null ? reply.getUsage() : null;
+        if (usage != null) {
+            promptTokensSaved.add(usage.getPromptTokens());
+            completionTokensSaved.add(usage.getCompletionTokens());
+        }
+    }
+    
+    /**
+     * 캐시 미스를 기록합니다.
+     */
+    public void recordMiss() {
+        if (QUIET.get() != null) {
+            return;
+        }
+        misses.increment();
+    }
+    
+    /**
+     * 미스 후 응답을 가져오는 데 걸린 시간을 기록합니다.
+     * 
+     * @param nanos 걸린 시간 (나노초)
+     */
+    public void recordLoad(long nanos) {
+        loads.increment();
+        loadTimeNanos.add(nanos);
+    }
+    
+    /**
+     * 항목 제거를 기록합니다.
+     * 
+     * @param cause 제거 원인
+     * @param count 제거된 항목 수
+     */
+    public void recordEviction(EvictionCause cause, long count) {
+        evictions.get(cause).add(count);
+    }
+    
+    /**
+     * 이 스레드의 모든 집계기가 히트/미스를 기록하지 않는 상태로 조회합니다.
+     * 데코레이터와 계층 캐시의 내부 조회도 함께 제외됩니다.
+     * 
+     * @param lookup 조회
+     * @return 조회 결과
+     */
+    static <T> T quietly(Supplier<T> lookup) {
+        if (QUIET.get() != null) {
+            return lookup.get();
+        }
+        QUIET.set(Boolean.TRUE);
+        try {
+            return lookup.get();
+        } finally {
+            QUIET.remove();
+        }
+    }
+    
+    /**
+     * 현재까지의 통계를 CacheStats로 반환합니다.
+     * 
+     * @param size 현재 항목 수
+     * @param bytesStored 현재 저장된 바이트 수
+     * @return 통계 스냅샷
+     */
+    public CacheStats snapshot(long size, long bytesStored) {
+        Map<EvictionCause, Long> evictionCounts = new EnumMap<>(EvictionCause.class);
+        for (Map.Entry<EvictionCause, LongAdder> entry : evictions.entrySet()) {
+            evictionCounts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return CacheStats.builder()
+            .hitCount(hits.sum())
+            .missCount(misses.sum())
+            .size(size)
+            .bytesStored(bytesStored)
+            .evictionCounts(evictionCounts)
+            .loadCount(loads.sum())
+            .totalLoadTimeNanos(loadTimeNanos.sum())
+            .promptTokensSaved(promptTokensSaved.sum())
+            .completionTokensSaved(completionTokensSaved.sum())
+            .build();
+    }
+    
+    /**
+     * 모든 통계를 초기화합니다.
+     */
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        loads.reset();
+        loadTimeNanos.reset();
+        promptTokensSaved.reset();
+        completionTokensSaved.reset();
+        evictions.values().forEach(LongAdder::reset);
+    }
+}
\ No newline at end of file
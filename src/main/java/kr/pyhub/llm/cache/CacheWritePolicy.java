@@ -0,0 +1,229 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 어떤 결과를 얼마 동안 캐시할지 정하는 정책.
+ * 
+ * 기본 정책({@link #cacheAll()})은 모든 응답을 캐시의 TTL로 저장하고 실패는 저장하지 않습니다.
+ * 잘린 응답({@code "length"})이나 콘텐츠 필터 거부({@code "content_filter"})처럼 다시 요청해도
+ * 같은 결과가 나올 가능성이 높지만 오래 두기는 애매한 응답은 종료 사유별로 짧은 TTL을 지정하고,
+ * 저장하면 안 되는 종료 사유는 제외할 수 있습니다.
+ * 
+ * 입력 검증 오류처럼 결정적인 실패도 {@code errorTtl}로 짧게 저장하면(negative caching)
+ * 같은 요청을 재시도할 때 API를 호출하지 않고 바로 {@code LLMException}을 던집니다.
+ * 어떤 실패를 저장할지는 {@code errorFilter}로 정하며, 프로바이더가 던진 예외를 그대로 받습니다.
+ * 시간 초과, 429, 5xx, 네트워크 오류처럼 일시적인 실패가 TTL 동안 재생되지 않도록
+ * {@code errorTtl}을 지정할 때는 {@code errorFilter}도 반드시 지정해야 합니다.
+ * 저장한 실패는 종료 사유가 아니라 캐시 전용 응답 타입({@link #failureReply})으로 표시하므로
+ * 프로바이더가 어떤 종료 사유를 돌려주더라도 실제 응답과 섞이지 않습니다.
+ * 
+ * 짧은 TTL은 항목별 TTL을 지원하는 캐시({@link Cache#supportsEntryTtl()})에만 적용되며,
+ * 지원하지 않는 캐시에는 해당 결과를 저장하지 않습니다.
+ * 
+ * <pre>{@code
+ * CacheWritePolicy policy = CacheWritePolicy.builder()
+ *     .finishReasonTtl("content_filter", Duration.ofMinutes(10))
+ *     .finishReasonTtl("length", Duration.ofMinutes(1))
+ *     .uncachedFinishReason("tool_calls")
+ *     .errorTtl(Duration.ofSeconds(30))
+ *     .errorFilter(error -> String.valueOf(error.getMessage()).contains("400"))
+ *     .build();
+ * 
+ * llm.withCache(new MemoryCache()).withCacheWritePolicy(policy);
+ * }</pre>
+ */
+public final class CacheWritePolicy {
+    
+    private static final CacheWritePolicy CACHE_ALL = builder().build();
+    
+    private final Map<String, Duration> finishReasonTtls;
+    private final Set<String> uncachedFinishReasons;
+    private final Duration errorTtl;
+    private final Predicate<? super Throwable> errorFilter;
+    
+    /**
+     * 빌더용 생성자
+     * 
+     * @param finishReasonTtls 종료 사유별 TTL (지정하지 않은 종료 사유는 캐시의 TTL 사용)
+     * @param uncachedFinishReasons 저장하지 않을 종료 사유
+     * @param errorTtl 실패를 저장할 TTL (기본값: 실패를 저장하지 않음)
+     * @param errorFilter 저장할 실패를 고르는 조건 (errorTtl과 함께 지정)
+     */
+    @Builder
+    private CacheWritePolicy(Map<String, Duration> finishReasonTtls,
+                             @Singular Set<String> uncachedFinishReasons,
+                             Duration errorTtl, Predicate<? super Throwable> errorFilter) {
+        for (Map.Entry<String, Duration> entry : finishReasonTtls.entrySet()) {
+            requirePositive(entry.getValue(), "TTL for finish reason " + entry.getKey());
+        }
+        if (errorTtl != null) {
+            requirePositive(errorTtl, "errorTtl");
+        }
+        if (errorFilter != null && errorTtl == null) {
+            throw new IllegalArgumentException("errorFilter requires errorTtl");
+        }
+        if (errorTtl != null && errorFilter == null) {
+            throw new IllegalArgumentException("errorTtl requires errorFilter to select deterministic failures");
+        }
+        for (String finishReason : uncachedFinishReasons) {
+            if (finishReasonTtls.containsKey(finishReason)) {
+                throw new IllegalArgumentException("Finish reason cannot be both cached and uncached: " + finishReason);
+            }
+        }
+        this.finishReasonTtls = new HashMap<>(finishReasonTtls);
+        this.uncachedFinishReasons = new HashSet<>(uncachedFinishReasons);
+        this.errorTtl = errorTtl;
+        this.errorFilter = errorFilter;
+    }
+    
+    /**
+     * 모든 응답을 캐시의 TTL로 저장하고 실패는 저장하지 않는 기본 정책
+     * 
+     * @return 기본 정책
+     */
+    public static CacheWritePolicy cacheAll() {
+        return CACHE_ALL;
+    }
+    
+    /**
+     * 응답을 저장할지 확인합니다.
+     * 
+     * @param reply 프로바이더 응답
+     * @return 저장하면 true
+     */
+    public boolean shouldCache(LLMReply reply) {
+        return !uncachedFinishReasons.contains(reply.getFinishReason());
+    }
+    
+    /**
+     * 응답을 저장할 TTL을 반환합니다.
+     * 
+     * @param reply 프로바이더 응답
+     * @return 종료 사유에 지정한 TTL, 없으면 null (캐시의 TTL 사용)
+     */
+    public Duration ttlFor(LLMReply reply) {
+        return reply.getFinishReason() != null ? finishReasonTtls.get(reply.getFinishReason()) : null;
+    }
+    
+    /**
+     * 실패를 저장할지 확인합니다.
+     * 
+     * @param error 프로바이더가 던진 예외
+     * @return 저장하면 true
+     */
+    public boolean shouldCache(Throwable error) {
+        return errorTtl != null && errorFilter.test(error);
+    }
+    
+    /**
+     * 실패를 저장할 TTL
+     * 
+     * @return 실패 TTL, 실패를 저장하지 않으면 null
+     */
+    public Duration getErrorTtl() {
+        return errorTtl;
+    }
+    
+    /**
+     * 실패를 캐시에 저장할 응답으로 바꿉니다. 오류 메시지는 원인까지 이어 붙여 담습니다.
+     * 
+     * @param model 모델명
+     * @param error 프로바이더가 던진 예외
+     * @return 실패 응답
+     */
+    public static LLMReply failureReply(String model, Throwable error) {
+        StringBuilder message = new StringBuilder();
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (message.length() > 0) {
+                message.append(": ");
+            }
+            message.append(current.getMessage() != null ? current.getMessage() : current.getClass().getName());
+        }
+        return new Failure(model, message.toString());
+    }
+    
+    /**
+     * 캐시에 저장한 실패 결과인지 확인합니다.
+     * 
+     * @param reply 캐시된 응답
+     * @return 실패 결과이면 true
+     */
+    public static boolean isFailure(LLMReply reply) {
+        return reply instanceof Failure;
+    }
+    
+    /**
+     * 캐시에 저장한 실패 결과의 오류 메시지를 반환합니다.
+     * 
+     * @param reply 캐시된 응답
+     * @return 오류 메시지, 실패 결과가 아니면 null
+     */
+    public static String failureMessage(LLMReply reply) {
+        return isFailure(reply) ? ((Failure) reply).error : null;
+    }
+    
+    private static void requirePositive(Duration ttl, String name) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+    }
+    
+    /**
+     * 캐시에 저장한 실패 결과. 프로바이더 응답 타입에 필드를 더하지 않도록 캐시 안에서만 쓰는 하위 타입으로 표시하며,
+     * 직렬화하면 표시가 사라지므로 메모리에 두는 캐시만 저장합니다.
+     */
+    @EqualsAndHashCode(callSuper = true)
+    @ToString(callSuper = true)
+    private static final class Failure extends LLMReply {
+        
+        private final String error;
+        
+        Failure(String model, String error) {
+            setModel(model);
+            this.error = error;
+        }
+    }
+    
+    /**
+     * 종료 사유별 TTL을 하나씩 추가하는 빌더 메서드
+     */
+    public static class CacheWritePolicyBuilder {
+        
+        private final Map<String, Duration> finishReasonTtls = new HashMap<>();
+        
+        /**
+         * 종료 사유에 TTL을 지정합니다.
+         * 
+         * @param finishReason 종료 사유
+         * @param ttl 이 종료 사유의 응답을 저장할 TTL
+         * @return 빌더
+         */
+        public CacheWritePolicyBuilder finishReasonTtl(String finishReason, Duration ttl) {
+            finishReasonTtls.put(finishReason, ttl);
+            return this;
+        }
+        
+        /**
+         * 종료 사유별 TTL을 한꺼번에 지정합니다.
+         * 
+         * @param ttls 종료 사유별 TTL
+         * @return 빌더
+         */
+        public CacheWritePolicyBuilder finishReasonTtls(Map<String, Duration> ttls) {
+            finishReasonTtls.putAll(ttls);
+            return this;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package kr.pyhub.llm.cache;
+
+/**
+ * 텍스트를 임베딩 벡터로 변환하는 함수.
+ * 
+ * {@link SemanticCache}가 의미가 비슷한 질문을 찾는 데 사용합니다.
+ * 같은 캐시에서는 항상 같은 차원의 벡터를 반환해야 합니다.
+ * 
+ * <pre>{@code
+ * EmbeddingFunction embeddings = text -> embeddingClient.embed(text);
+ * }</pre>
+ */
+@FunctionalInterface
+public interface EmbeddingFunction {
+    
+    /**
+     * 텍스트를 임베딩합니다.
+     * 
+     * @param text 임베딩할 텍스트
+     * @return 임베딩 벡터
+     */
+    float[] embed(String text);
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package kr.pyhub.llm.cache;
+
+/**
+ * 캐시 항목이 제거된 원인.
+ */
+public enum EvictionCause {
+    
+    /**
+     * 크기 또는 메모리 한도 초과로 제거됨
+     */
+    SIZE,
+    
+    /**
+     * TTL이 지나 만료됨
+     */
+    EXPIRED,
+    
+    /**
+     * evict 또는 clear 호출로 제거됨
+     */
+    EXPLICIT,
+    
+    /**
+     * 저장된 데이터가 손상되어 제거됨
+     */
+    CORRUPTED
+}
\ No newline at end of file
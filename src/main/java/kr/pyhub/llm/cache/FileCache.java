@@ -1,36 +1,121 @@
 package kr.pyhub.llm.cache;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import kr.pyhub.llm.types.LLMReply;
+import lombok.Builder;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.File;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * 파일 시스템 기반 캐시 구현.
  * 
  * 특징:
- * - JSON 형식으로 디스크에 저장
+ * - 바이너리(Smile) 형식으로 저장, 큰 응답은 압축 ({@link CacheFormat})
  * - 프로세스 재시작 후에도 캐시 유지
  * - 대용량 응답 저장 가능
  * - 네트워크 파일 시스템 지원
+ * - 해시 기반 하위 디렉토리 분산 저장 (기본값)
+ * - 항목 크기 인덱스로 O(1) 크기/개수 조회
+ * - 임시 파일에 쓴 뒤 원자적으로 이름을 바꾸므로 읽는 쪽이 쓰다 만 파일을 보지 않음
+ * - 키별 잠금(스트라이프)으로 같은 키에 대한 동시 쓰기를 직렬화
+ * - 히트/미스, 제거, 저장 크기 통계 ({@link #getStats()})
+ * - 최대 크기/최대 보관 기간 정책 (백그라운드 정리, 가장 오래 사용하지 않은 항목부터 제거)
+ * 
+ * 기본 레이아웃({@link Layout#SHARDED})은 키의 해시로 두 단계 하위 디렉토리
+ * ({@code ab/cd/<key>.bin})를 만들어 한 디렉토리에 파일이 몰리지 않게 합니다.
+ * 이전 버전의 평면 레이아웃 파일은 생성 시 자동으로 옮겨집니다.
+ * 
+ * 파일 내용은 {@link CacheFormat}이 스스로 구분하므로 확장자는 저장 형식과 관계없이 {@code .bin}입니다.
+ * 이전 버전이 {@code .json} 확장자로 저장한 파일은 생성 시 {@code .bin}으로 이름을 바꿉니다.
+ * 
+ * {@code maxBytes}나 {@code maxAge}를 지정하면 백그라운드 스레드가 주기적으로 정리합니다.
+ * 정리할 때는 디렉토리를 다시 읽지 않고 메모리 인덱스의 저장 시각과, 조회/저장할 때마다 갱신하는
+ * 접근 순서 목록(LRU)의 앞쪽부터 사용하며,
+ * 저장 크기가 한도를 넘으면 다음 주기를 기다리지 않고 바로 정리를 시작합니다.
+ * 
+ * <pre>{@code
+ * FileCache cache = FileCache.builder()
+ *     .directory("./cache")
+ *     .layout(FileCache.Layout.SHARDED)
+ *     .maxBytes(512L * 1024 * 1024)
+ *     .maxAge(Duration.ofDays(7))
+ *     .build();
+ * }</pre>
  */
 @Slf4j
-public class FileCache extends AbstractCache {
+public class FileCache extends AbstractCache implements Closeable {
     
     private static final String DEFAULT_CACHE_DIR = ".pyhub-llm-cache";
-    private static final String CACHE_FILE_EXTENSION = ".json";
+    private static final String CACHE_FILE_EXTENSION = ".bin";
+    private static final String LEGACY_CACHE_FILE_EXTENSION = ".json";
+    private static final int SHARD_DEPTH = 2;
+    private static final int SHARD_WIDTH = 2;
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+    private static final long STALE_TEMP_FILE_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int LOCK_STRIPES = 64;
+    private static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(1);
+    private static final int SWEEP_BATCH = 64;
+    
+    /**
+     * 캐시 파일 배치 방식
+     */
+    public enum Layout {
+        /** 모든 파일을 캐시 디렉토리에 바로 저장 (이전 버전 방식) */
+        FLAT,
+        /** 키 해시로 만든 두 단계 하위 디렉토리에 분산 저장 */
+        SHARDED
+    }
     
     private final Path cacheDir;
-    private final ObjectMapper objectMapper;
-    private boolean enabled = true;
+    @Getter
+    private final Layout layout;
+    @Getter
+    private final CacheFormat format;
+    @Getter
+    private final long maxBytes;
+    @Getter
+    private final Duration maxAge;
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final LinkedHashMap<String, IndexEntry> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Path> knownShards = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final boolean syncOnWrite;
+    private final ScheduledExecutorService sweeper;
+    private final AtomicBoolean sweepScheduled = new AtomicBoolean();
+    private final Object sweepLock = new Object();
+    private volatile boolean enabled = true;
     
     /**
      * 기본 캐시 디렉토리로 파일 캐시 생성
@@ -45,18 +130,84 @@ public class FileCache extends AbstractCache {
      * @param cacheDirectory 캐시 디렉토리 경로
      */
     public FileCache(String cacheDirectory) {
-        this.cacheDir = Paths.get(cacheDirectory);
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        this(cacheDirectory, Layout.SHARDED, null, false, true, false, null, null, null);
+    }
+    
+    /**
+     * 빌더용 생성자
+     * 
+     * @param directory 캐시 디렉토리 경로 (기본값: .pyhub-llm-cache)
+     * @param layout 파일 배치 방식 (기본값: SHARDED)
+     * @param format 저장 형식 (기본값: {@link CacheFormat#defaults()})
+     * @param prettyPrint format을 지정하지 않았을 때 들여쓴 JSON으로 저장할지 여부 (기본값: false)
+     * @param migrateFlatLayout SHARDED 레이아웃에서 평면 레이아웃 파일을 옮길지 여부 (기본값: true)
+     * @param syncOnWrite 저장할 때마다 파일과 디렉토리를 fsync할지 여부 (기본값: false)
+     * @param maxBytes 저장 크기 한도, 0이면 제한 없음 (기본값: 0)
+     * @param maxAge 저장 후 보관 기간, 지나면 제거 (기본값: 제한 없음)
+     * @param sweepInterval 한도를 적용하는 백그라운드 정리 주기 (기본값: 1분)
+     */
+    @Builder
+    private FileCache(String directory, Layout layout, CacheFormat format, Boolean prettyPrint,
+                      Boolean migrateFlatLayout, Boolean syncOnWrite, Long maxBytes, Duration maxAge,
+                      Duration sweepInterval) {
+        this.cacheDir = Paths.get(directory != null ? directory : DEFAULT_CACHE_DIR);
+        this.layout = layout != null ? layout : Layout.SHARDED;
+        this.syncOnWrite = Boolean.TRUE.equals(syncOnWrite);
+        this.maxBytes = maxBytes != null ? maxBytes : 0;
+        this.maxAge = maxAge;
+        Duration interval = sweepInterval != null ? sweepInterval : DEFAULT_SWEEP_INTERVAL;
+        
+        if (this.maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+        if (maxAge != null && (maxAge.isNegative() || maxAge.isZero())) {
+            throw new IllegalArgumentException("maxAge must be positive");
+        }
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("sweepInterval must be positive");
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        if (format != null) {
+            this.format = format;
+        } else if (Boolean.TRUE.equals(prettyPrint)) {
+            this.format = CacheFormat.builder()
+                .codec(new JsonCacheCodec(true))
+                .compression(CacheFormat.Compression.NONE)
+                .build();
+        } else {
+            this.format = CacheFormat.defaults();
+        }
         
         // 캐시 디렉토리 생성
         try {
             Files.createDirectories(cacheDir);
-            log.info("FileCache initialized at: {}", cacheDir.toAbsolutePath());
         } catch (IOException e) {
             log.error("Failed to create cache directory: {}", cacheDir, e);
             throw new RuntimeException("Failed to initialize FileCache", e);
         }
+        
+        // 옮긴 파일까지 한 번의 디렉토리 탐색으로 인덱스에 기록
+        if (this.layout == Layout.SHARDED && !Boolean.FALSE.equals(migrateFlatLayout)) {
+            moveFlatLayoutFiles();
+        }
+        rebuildIndex();
+        
+        if (this.maxBytes == 0 && maxAge == null) {
+            this.sweeper = null;
+        } else {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pyhub-llm-file-cache-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = interval.toMillis();
+            this.sweeper.scheduleWithFixedDelay(this::sweepQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        }
+        
+        log.info("FileCache initialized at: {} (layout={}, entries={}, maxBytes={}, maxAge={})",
+            cacheDir.toAbsolutePath(), this.layout, index.size(), this.maxBytes, maxAge);
     }
     
     @Override
@@ -68,21 +219,32 @@ public class FileCache extends AbstractCache {
         Path cacheFile = getCacheFilePath(key);
         if (!Files.exists(cacheFile)) {
             log.debug("Cache miss for key: {}", key);
+            statsRecorder.recordMiss();
+            forgetIfMissing(key, cacheFile);
             return Optional.empty();
         }
         
         try {
-            LLMReply reply = objectMapper.readValue(cacheFile.toFile(), LLMReply.class);
+            IndexEntry entry = index.get(key);
+            if (entry == null) {
+                entry = recordExternalEntry(key, cacheFile);
+            }
+            if (isExpired(entry, System.currentTimeMillis())) {
+                log.debug("Cache entry expired for key: {}", key);
+                statsRecorder.recordMiss();
+                removeIfUnchanged(key, entry, EvictionCause.EXPIRED);
+                return Optional.empty();
+            }
+            
+            LLMReply reply = format.read(Files.readAllBytes(cacheFile));
+            touch(key);
+            statsRecorder.recordHit(reply);
             log.debug("Cache hit for key: {}", key);
             return Optional.of(reply);
         } catch (IOException e) {
             log.warn("Failed to read cache file: {}", cacheFile, e);
-            // 손상된 캐시 파일 삭제
-            try {
-                Files.deleteIfExists(cacheFile);
-            } catch (IOException deleteError) {
-                log.error("Failed to delete corrupted cache file: {}", cacheFile, deleteError);
-            }
+            statsRecorder.recordMiss();
+            deleteIfCorrupted(key, cacheFile);
             return Optional.empty();
         }
     }
@@ -95,8 +257,20 @@ public class FileCache extends AbstractCache {
         
         Path cacheFile = getCacheFilePath(key);
         try {
-            objectMapper.writeValue(cacheFile.toFile(), value);
+            // 직렬화는 잠금 밖에서 수행
+            byte[] bytes = format.write(value);
+            ReentrantLock lock = lockFor(key);
+            lock.lock();
+            try {
+                writeAtomically(cacheFile, bytes);
+                record(key, bytes.length, System.currentTimeMillis());
+            } finally {
+                lock.unlock();
+            }
             log.debug("Cached response to file: {}", cacheFile);
+            if (maxBytes > 0 && totalBytes.get() > maxBytes) {
+                scheduleSweep();
+            }
         } catch (IOException e) {
             log.error("Failed to write cache file: {}", cacheFile, e);
         }
@@ -104,30 +278,68 @@ public class FileCache extends AbstractCache {
     
     @Override
     public void evict(String key) {
+        remove(key);
+    }
+    
+    @Override
+    public boolean remove(String key) {
         Path cacheFile = getCacheFilePath(key);
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
         try {
-            if (Files.deleteIfExists(cacheFile)) {
+            boolean removed = Files.deleteIfExists(cacheFile);
+            if (removed) {
                 log.debug("Evicted cache file: {}", cacheFile);
+                statsRecorder.recordEviction(EvictionCause.EXPLICIT, 1);
             }
+            forget(key);
+            return removed;
         } catch (IOException e) {
             log.error("Failed to delete cache file: {}", cacheFile, e);
+            return false;
+        } finally {
+            lock.unlock();
         }
     }
     
+    /**
+     * 모든 캐시 파일을 삭제합니다. 모든 키 잠금을 잡으므로 그 사이 저장된 파일이 인덱스에서 빠지지 않으며,
+     * 삭제하지 못한 파일은 인덱스에 남기고 실제로 삭제한 파일만 제거로 기록합니다.
+     */
     @Override
     public void clear() {
-        try (Stream<Path> stream = Files.list(cacheDir)) {
-            stream.filter(path -> path.toString().endsWith(CACHE_FILE_EXTENSION))
-                .forEach(path -> {
+        removeAll();
+    }
+    
+    @Override
+    public long removeAll() {
+        lockAll();
+        try {
+            long deleted = 0;
+            Set<String> kept = new HashSet<>();
+            try (Stream<Path> stream = Files.walk(cacheDir, SHARD_DEPTH + 1)) {
+                for (Path path : stream.filter(this::isCacheFile).collect(Collectors.toList())) {
                     try {
                         Files.delete(path);
+                        deleted++;
                     } catch (IOException e) {
                         log.error("Failed to delete cache file: {}", path, e);
+                        kept.add(keyOf(path));
                     }
-                });
-            log.info("Cleared all cache files in: {}", cacheDir);
-        } catch (IOException e) {
-            log.error("Failed to clear cache directory: {}", cacheDir, e);
+                }
+                log.info("Cleared {} cache files in: {}", deleted, cacheDir);
+            } catch (IOException e) {
+                log.error("Failed to clear cache directory: {}", cacheDir, e);
+            }
+            for (String key : new ArrayList<>(index.keySet())) {
+                if (!kept.contains(key)) {
+                    forget(key);
+                }
+            }
+            statsRecorder.recordEviction(EvictionCause.EXPLICIT, deleted);
+            return deleted;
+        } finally {
+            unlockAll();
         }
     }
     
@@ -146,50 +358,507 @@ public class FileCache extends AbstractCache {
         log.info("FileCache enabled: {}", enabled);
     }
     
+    /**
+     * 평면 레이아웃으로 저장된 파일을 하위 디렉토리로 옮깁니다.
+     * 같은 키의 파일이 이미 하위 디렉토리에 있으면 평면 파일을 삭제합니다.
+     * 
+     * @return 옮긴 파일 개수
+     */
+    public int migrateFromFlatLayout() {
+        int migrated = moveFlatLayoutFiles();
+        if (migrated > 0) {
+            rebuildIndex();
+        }
+        return migrated;
+    }
+    
+    /**
+     * 평면 레이아웃 파일을 하위 디렉토리로 옮기기만 하고 인덱스는 갱신하지 않습니다.
+     */
+    private int moveFlatLayoutFiles() {
+        if (layout != Layout.SHARDED) {
+            return 0;
+        }
+        
+        int migrated = 0;
+        try (Stream<Path> stream = Files.list(cacheDir)) {
+            for (Path flatFile : stream.filter(this::isCacheFile).collect(Collectors.toList())) {
+                Path target = getCacheFilePath(keyOf(flatFile));
+                try {
+                    if (Files.exists(target)) {
+                        Files.delete(flatFile);
+                    } else {
+                        ensureShardDirectory(target.getParent());
+                        Files.move(flatFile, target);
+                        migrated++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to migrate cache file: {}", flatFile, e);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to list cache directory for migration: {}", cacheDir, e);
+        }
+        
+        if (migrated > 0) {
+            log.info("Migrated {} cache files from flat layout in: {}", migrated, cacheDir);
+        }
+        return migrated;
+    }
+    
     /**
      * 캐시 파일 경로 생성
      * 
      * @param key 캐시 키
      * @return 캐시 파일 경로
      */
-    private Path getCacheFilePath(String key) {
-        return cacheDir.resolve(key + CACHE_FILE_EXTENSION);
+    Path getCacheFilePath(String key) {
+        String fileName = key + CACHE_FILE_EXTENSION;
+        if (layout == Layout.FLAT) {
+            return cacheDir.resolve(fileName);
+        }
+        
+        String hash = isHex(key) ? key : CacheKeyHasher.sha256Hex(key);
+        Path dir = cacheDir;
+        for (int level = 0; level < SHARD_DEPTH; level++) {
+            dir = dir.resolve(hash.substring(level * SHARD_WIDTH, (level + 1) * SHARD_WIDTH));
+        }
+        return dir.resolve(fileName);
     }
     
     /**
-     * 캐시 디렉토리의 전체 크기 (바이트)
+     * 캐시 디렉토리의 전체 크기 (바이트).
+     * 이 인스턴스가 관리하는 인덱스에서 바로 계산합니다.
      * 
      * @return 캐시 크기
      */
     public long getCacheSize() {
-        try (Stream<Path> stream = Files.list(cacheDir)) {
-            return stream.filter(path -> path.toString().endsWith(CACHE_FILE_EXTENSION))
-                .mapToLong(path -> {
+        return totalBytes.get();
+    }
+    
+    /**
+     * 캐시 파일 개수.
+     * 이 인스턴스가 관리하는 인덱스에서 바로 계산합니다.
+     * 
+     * @return 파일 개수
+     */
+    public long getCacheFileCount() {
+        return index.size();
+    }
+    
+    @Override
+    protected long estimatedSize() {
+        return index.size();
+    }
+    
+    @Override
+    protected long bytesStored() {
+        return totalBytes.get();
+    }
+    
+    /**
+     * 디스크를 다시 읽어 크기 인덱스를 재구성합니다.
+     * 다른 프로세스가 같은 디렉토리를 수정한 경우 호출합니다.
+     * 이전 확장자({@code .json})로 저장된 파일은 이때 {@code .bin}으로 이름을 바꿉니다.
+     * 모든 키 잠금을 잡고 재구성하므로 그 사이의 저장/삭제가 인덱스에서 빠지지 않습니다.
+     */
+    public void rebuildIndex() {
+        lockAll();
+        try {
+            index.clear();
+            synchronized (accessOrder) {
+                accessOrder.clear();
+            }
+            totalBytes.set(0);
+            int depth = layout == Layout.SHARDED ? SHARD_DEPTH + 1 : 1;
+            deleteStaleTempFiles(depth);
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(cacheDir, depth)) {
+                files = stream.filter(this::isCacheFile)
+                    .filter(path -> path.getParent().equals(getCacheFilePath(keyOf(path)).getParent()))
+                    .collect(Collectors.toList());
+            } catch (IOException e) {
+                log.error("Failed to index cache directory: {}", cacheDir, e);
+                return;
+            }
+            files.stream()
+                .map(this::renameLegacyFile)
+                .filter(Objects::nonNull)
+                .forEach(path -> {
                     try {
-                        return Files.size(path);
+                        record(keyOf(path), Files.size(path), Files.getLastModifiedTime(path).toMillis());
                     } catch (IOException e) {
-                        return 0;
+                        log.warn("Failed to read cache file size: {}", path, e);
                     }
-                })
-                .sum();
+                });
+            // 접근 기록이 없으므로 저장 시각 순서를 사용 순서로 간주
+            synchronized (accessOrder) {
+                accessOrder.clear();
+                index.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().writtenAt))
+                    .forEach(e -> accessOrder.put(e.getKey(), e.getValue()));
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    /**
+     * 크기/보관 기간 한도를 즉시 적용합니다.
+     * 보관 기간이 지난 항목을 먼저 제거하고, 그래도 한도를 넘으면 가장 오래 사용하지 않은 항목부터 제거합니다.
+     * 백그라운드 스레드가 주기적으로 호출하므로 보통 직접 호출할 필요는 없습니다.
+     * 
+     * @return 제거한 항목 수
+     */
+    public int sweep() {
+        synchronized (sweepLock) {
+            int removed = 0;
+            if (maxAge != null) {
+                long now = System.currentTimeMillis();
+                for (Map.Entry<String, IndexEntry> e : index.entrySet()) {
+                    if (isExpired(e.getValue(), now) && removeIfUnchanged(e.getKey(), e.getValue(), EvictionCause.EXPIRED)) {
+                        removed++;
+                    }
+                }
+            }
+            while (maxBytes > 0 && totalBytes.get() > maxBytes) {
+                // 접근 순서 맵의 앞쪽부터 조금씩 꺼내 제거 (파일 삭제는 맵 잠금 밖에서 수행)
+                int batchRemoved = 0;
+                for (Map.Entry<String, IndexEntry> e : leastRecentlyUsed(SWEEP_BATCH)) {
+                    if (totalBytes.get() <= maxBytes) {
+                        break;
+                    }
+                    if (removeIfUnchanged(e.getKey(), e.getValue(), EvictionCause.SIZE)) {
+                        batchRemoved++;
+                    }
+                }
+                if (batchRemoved == 0) {
+                    // 삭제에 실패한 항목만 남았으면 다음 주기에 다시 시도
+                    break;
+                }
+                removed += batchRemoved;
+            }
+            if (removed > 0) {
+                log.debug("Swept {} cache files (size={} bytes)", removed, totalBytes.get());
+            }
+            return removed;
+        }
+    }
+    
+    /**
+     * 백그라운드 정리 스레드를 중지합니다. 캐시는 계속 사용할 수 있지만 한도는 더 이상 적용되지 않습니다.
+     */
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+    
+    /**
+     * 같은 디렉토리의 임시 파일에 쓴 뒤 최종 경로로 원자적으로 이름을 바꿉니다.
+     * 읽는 쪽은 항상 이전 파일이나 완성된 새 파일 중 하나만 보게 됩니다.
+     */
+    private void writeAtomically(Path cacheFile, byte[] bytes) throws IOException {
+        Path dir = cacheFile.getParent();
+        ensureShardDirectory(dir);
+        Path tempFile = Files.createTempFile(dir, cacheFile.getFileName() + ".", TEMP_FILE_EXTENSION);
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (syncOnWrite) {
+                    channel.force(true);
+                }
+            }
+            try {
+                Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (syncOnWrite) {
+                syncDirectory(dir);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+    
+    /**
+     * 읽기에 실패한 파일을 삭제합니다.
+     * 그 사이 다른 스레드가 새 파일로 바꿨을 수 있으므로 잠금을 잡고 다시 읽어 확인합니다.
+     */
+    private void deleteIfCorrupted(String key, Path cacheFile) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            if (!Files.exists(cacheFile)) {
+                forget(key);
+                return;
+            }
+            try {
+                format.read(Files.readAllBytes(cacheFile));
+                return;
+            } catch (IOException stillCorrupted) {
+                // 손상된 캐시 파일 삭제
+            }
+            Files.deleteIfExists(cacheFile);
+            forget(key);
+            statsRecorder.recordEviction(EvictionCause.CORRUPTED, 1);
+        } catch (IOException deleteError) {
+            log.error("Failed to delete corrupted cache file: {}", cacheFile, deleteError);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 이름 변경이 디스크에 반영되도록 디렉토리를 fsync합니다 (지원하지 않는 플랫폼에서는 무시).
+     */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
         } catch (IOException e) {
-            log.error("Failed to calculate cache size", e);
-            return 0;
+            log.trace("Directory fsync not supported for: {}", dir);
         }
     }
     
     /**
-     * 캐시 파일 개수
+     * 비정상 종료로 남은 오래된 임시 파일을 삭제합니다.
+     */
+    private void deleteStaleTempFiles(int depth) {
+        long cutoff = System.currentTimeMillis() - STALE_TEMP_FILE_MILLIS;
+        try (Stream<Path> stream = Files.walk(cacheDir, depth)) {
+            stream.filter(path -> path.toString().endsWith(TEMP_FILE_EXTENSION))
+                .forEach(path -> {
+                    try {
+                        if (Files.getLastModifiedTime(path).toMillis() < cutoff) {
+                            Files.deleteIfExists(path);
+                        }
+                    } catch (IOException e) {
+                        log.warn("Failed to delete stale temp file: {}", path, e);
+                    }
+                });
+        } catch (IOException e) {
+            log.warn("Failed to scan cache directory for temp files: {}", cacheDir, e);
+        }
+    }
+    
+    private boolean isExpired(IndexEntry entry, long now) {
+        return maxAge != null && now - entry.writtenAt > maxAge.toMillis();
+    }
+    
+    /**
+     * 인덱스 항목이 그 사이 바뀌지 않았을 때만 파일을 삭제합니다.
+     * 정리 대상을 고른 뒤 다른 스레드가 같은 키를 다시 저장했다면 새 항목은 남겨 둡니다.
+     */
+    private boolean removeIfUnchanged(String key, IndexEntry entry, EvictionCause cause) {
+        Path cacheFile = getCacheFilePath(key);
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            if (index.get(key) != entry) {
+                return false;
+            }
+            Files.deleteIfExists(cacheFile);
+            forget(key);
+            statsRecorder.recordEviction(cause, 1);
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to delete cache file: {}", cacheFile, e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void scheduleSweep() {
+        if (sweeper != null && sweepScheduled.compareAndSet(false, true)) {
+            try {
+                sweeper.execute(this::sweepQuietly);
+            } catch (RejectedExecutionException e) {
+                // 닫힌 캐시
+                sweepScheduled.set(false);
+            }
+        }
+    }
+    
+    private void sweepQuietly() {
+        sweepScheduled.set(false);
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            log.error("Cache sweep failed in: {}", cacheDir, e);
+        }
+    }
+    
+    /**
+     * 파일이 없는 키를 인덱스에서 뺍니다.
+     * 확인한 뒤 다른 스레드가 같은 키를 저장했을 수 있으므로 잠금을 잡고 다시 확인합니다.
+     */
+    private void forgetIfMissing(String key, Path cacheFile) {
+        if (!index.containsKey(key)) {
+            return;
+        }
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            if (!Files.exists(cacheFile)) {
+                forget(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 다른 프로세스가 저장한 항목을 인덱스에 추가합니다.
+     * 잠금을 잡은 뒤에도 인덱스에 없을 때만 기록하므로 같은 키의 저장/삭제 결과를 덮어쓰지 않습니다.
+     */
+    private IndexEntry recordExternalEntry(String key, Path cacheFile) throws IOException {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            IndexEntry entry = index.get(key);
+            return entry != null ? entry
+                : record(key, Files.size(cacheFile), Files.getLastModifiedTime(cacheFile).toMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private ReentrantLock lockFor(String key) {
+        return locks[(key.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+    
+    /**
+     * 모든 키 잠금을 순서대로 잡습니다. 다른 경로는 키 잠금을 하나만 잡으므로 교착 상태가 생기지 않습니다.
+     */
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+    
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+    
+    private IndexEntry record(String key, long size, long writtenAt) {
+        IndexEntry entry = new IndexEntry(size, writtenAt);
+        IndexEntry previous = index.put(key, entry);
+        synchronized (accessOrder) {
+            accessOrder.put(key, entry);
+        }
+        totalBytes.addAndGet(size - (previous != null ? previous.size : 0));
+        return entry;
+    }
+    
+    private void forget(String key) {
+        IndexEntry previous = index.remove(key);
+        if (previous != null) {
+            synchronized (accessOrder) {
+                accessOrder.remove(key);
+            }
+            totalBytes.addAndGet(-previous.size);
+        }
+    }
+    
+    /**
+     * 조회한 키를 접근 순서 맵의 맨 뒤로 옮깁니다.
+     */
+    private void touch(String key) {
+        synchronized (accessOrder) {
+            accessOrder.get(key);
+        }
+    }
+    
+    /**
+     * 가장 오래 사용하지 않은 항목부터 최대 limit개를 복사해 반환합니다.
+     */
+    private List<Map.Entry<String, IndexEntry>> leastRecentlyUsed(int limit) {
+        List<Map.Entry<String, IndexEntry>> oldest = new ArrayList<>(limit);
+        synchronized (accessOrder) {
+            for (Map.Entry<String, IndexEntry> e : accessOrder.entrySet()) {
+                if (oldest.size() == limit) {
+                    break;
+                }
+                oldest.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue()));
+            }
+        }
+        return oldest;
+    }
+    
+    private void ensureShardDirectory(Path dir) throws IOException {
+        if (!dir.equals(cacheDir) && !knownShards.contains(dir)) {
+            Files.createDirectories(dir);
+            knownShards.add(dir);
+        }
+    }
+    
+    /**
+     * 이전 확장자로 저장된 파일을 현재 확장자로 바꿉니다.
+     * 같은 키의 현재 파일이 이미 있으면 그쪽이 더 새로우므로 이전 파일을 삭제합니다.
      * 
-     * @return 파일 개수
+     * @return 인덱스에 기록할 경로, 기록할 필요가 없으면 null
      */
-    public long getCacheFileCount() {
-        try (Stream<Path> stream = Files.list(cacheDir)) {
-            return stream.filter(path -> path.toString().endsWith(CACHE_FILE_EXTENSION))
-                .count();
+    private Path renameLegacyFile(Path path) {
+        if (!path.toString().endsWith(LEGACY_CACHE_FILE_EXTENSION)) {
+            return path;
+        }
+        Path target = path.resolveSibling(keyOf(path) + CACHE_FILE_EXTENSION);
+        try {
+            if (Files.exists(target)) {
+                Files.delete(path);
+                return null;
+            }
+            Files.move(path, target);
+            return target;
         } catch (IOException e) {
-            log.error("Failed to count cache files", e);
-            return 0;
+            log.warn("Failed to rename legacy cache file: {}", path, e);
+            return null;
+        }
+    }
+    
+    private boolean isCacheFile(Path path) {
+        String name = path.toString();
+        return (name.endsWith(CACHE_FILE_EXTENSION) || name.endsWith(LEGACY_CACHE_FILE_EXTENSION))
+            && Files.isRegularFile(path);
+    }
+    
+    private static String keyOf(Path cacheFile) {
+        String fileName = cacheFile.getFileName().toString();
+        String extension = fileName.endsWith(LEGACY_CACHE_FILE_EXTENSION) ? LEGACY_CACHE_FILE_EXTENSION : CACHE_FILE_EXTENSION;
+        return fileName.substring(0, fileName.length() - extension.length());
+    }
+    
+    private static boolean isHex(String key) {
+        if (key.length() < SHARD_DEPTH * SHARD_WIDTH) {
+            return false;
+        }
+        for (int i = 0; i < SHARD_DEPTH * SHARD_WIDTH; i++) {
+            char c = key.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 크기 인덱스 항목. 사용 순서는 {@code accessOrder}가 관리합니다.
+     */
+    private static final class IndexEntry {
+        final long size;
+        final long writtenAt;
+        
+        IndexEntry(long size, long writtenAt) {
+            this.size = size;
+            this.writtenAt = writtenAt;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,408 @@
+package kr.pyhub.llm.cache;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 정규화된 벡터를 위한 HNSW(Hierarchical Navigable Small World) 근사 최근접 이웃 인덱스.
+ * 
+ * 유사도는 내적(정규화된 벡터에서는 코사인 유사도)입니다.
+ * 삭제는 표시만 하며 검색 결과에서 제외됩니다. 삭제된 노드가 많아지면
+ * {@link #compact()}로 살아 있는 노드만 모아 새 인덱스를 만듭니다.
+ * 
+ * 추가는 쓰기 잠금, 검색은 읽기 잠금으로 보호됩니다.
+ */
+final class HnswIndex {
+    
+    private static final long RANDOM_SEED = 42L;
+    
+    private final int m;
+    private final int maxLinksLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(RANDOM_SEED);
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int dimension = -1;
+    private int deletedCount;
+    
+    /**
+     * @param m 노드당 이웃 수 (0층은 2배)
+     * @param efConstruction 추가 시 탐색 후보 수
+     */
+    HnswIndex(int m, int efConstruction) {
+        if (m < 2) {
+            throw new IllegalArgumentException("m must be at least 2");
+        }
+        if (efConstruction < 1) {
+            throw new IllegalArgumentException("efConstruction must be positive");
+        }
+        this.m = m;
+        this.maxLinksLevel0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+    
+    /**
+     * 벡터를 추가합니다. 이미 있는 키는 삭제 표시만 해제합니다.
+     * 
+     * @param key 캐시 키
+     * @param vector 정규화된 벡터
+     * @return 새로 추가되었으면 true
+     */
+    boolean add(String key, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = ids.get(key);
+            if (existing != null) {
+                Node node = nodes.get(existing);
+                if (node.deleted) {
+                    node.deleted = false;
+                    deletedCount--;
+                }
+                return false;
+            }
+            if (dimension < 0) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException(
+                    "Expected vector of dimension " + dimension + " but got " + vector.length);
+            }
+            
+            int level = randomLevel();
+            int id = nodes.size();
+            Node node = new Node(key, vector, level);
+            nodes.add(node);
+            ids.put(key, id);
+            if (entryPoint < 0) {
+                entryPoint = id;
+                maxLevel = level;
+                return true;
+            }
+            
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedySearch(vector, current, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Candidate> found = searchLayer(vector, current, efConstruction, l);
+                int maxLinks = l == 0 ? maxLinksLevel0 : m;
+                for (Candidate neighbor : selectNeighbors(found, m)) {
+                    node.addLink(l, neighbor.id);
+                    connect(neighbor.id, id, l, maxLinks);
+                }
+                current = found.get(0).id;
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = id;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 삭제 표시를 합니다. 노드는 탐색 경로로는 계속 사용됩니다.
+     * 
+     * @param key 캐시 키
+     * @return 삭제 표시했으면 true
+     */
+    boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.get(key);
+            if (id == null || nodes.get(id).deleted) {
+                return false;
+            }
+            nodes.get(id).deleted = true;
+            deletedCount++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 유사도가 높은 순으로 최대 k개를 찾습니다.
+     * 
+     * @param query 정규화된 질의 벡터
+     * @param k 결과 수
+     * @param ef 탐색 후보 수 (클수록 정확하고 느림)
+     * @return 삭제되지 않은 결과 (유사도 내림차순)
+     */
+    List<Match> search(float[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return Collections.emptyList();
+            }
+            if (query.length != dimension) {
+                throw new IllegalArgumentException(
+                    "Expected vector of dimension " + dimension + " but got " + query.length);
+            }
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedySearch(query, current, l);
+            }
+            List<Candidate> found = searchLayer(query, current, Math.max(ef, k), 0);
+            List<Match> matches = new ArrayList<>(k);
+            for (Candidate candidate : found) {
+                Node node = nodes.get(candidate.id);
+                if (!node.deleted) {
+                    matches.add(new Match(node.key, candidate.similarity));
+                    if (matches.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 살아 있는 노드만으로 새 인덱스를 만듭니다.
+     * 만드는 동안의 추가·삭제는 새 인덱스에 반영되지 않으므로 호출하는 쪽에서 변경을 막아야 합니다.
+     * 
+     * @return 새 인덱스
+     */
+    HnswIndex compact() {
+        List<Node> live = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Node node : nodes) {
+                if (!node.deleted) {
+                    live.add(node);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        HnswIndex compacted = new HnswIndex(m, efConstruction);
+        for (Node node : live) {
+            compacted.add(node.key, node.vector);
+        }
+        return compacted;
+    }
+    
+    /**
+     * @return 삭제되지 않은 노드 수
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size() - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * @return 삭제 표시된 노드 수
+     */
+    int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 두 벡터의 내적
+     */
+    static float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+    
+    private int randomLevel() {
+        return (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+    
+    /**
+     * 상위 층에서 질의에 가장 가까운 노드로 이동합니다.
+     */
+    private int greedySearch(float[] query, int start, int level) {
+        int current = start;
+        float best = dot(query, nodes.get(current).vector);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Node node = nodes.get(current);
+            int[] links = node.links[level];
+            for (int i = 0, n = node.linkCounts[level]; i < n; i++) {
+                float similarity = dot(query, nodes.get(links[i]).vector);
+                if (similarity > best) {
+                    best = similarity;
+                    current = links[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * 한 층에서 ef개의 후보를 찾아 유사도 내림차순으로 반환합니다.
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        visited.set(start);
+        Candidate first = new Candidate(start, dot(query, nodes.get(start).vector));
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Candidate.BY_SIMILARITY_DESC);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Candidate.BY_SIMILARITY);
+        candidates.add(first);
+        results.add(first);
+        
+        while (!candidates.isEmpty()) {
+            Candidate candidate = candidates.poll();
+            if (results.size() >= ef && candidate.similarity < results.peek().similarity) {
+                break;
+            }
+            Node node = nodes.get(candidate.id);
+            if (level >= node.links.length) {
+                continue;
+            }
+            int[] links = node.links[level];
+            for (int i = 0, n = node.linkCounts[level]; i < n; i++) {
+                int neighbor = links[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float similarity = dot(query, nodes.get(neighbor).vector);
+                if (results.size() < ef || similarity > results.peek().similarity) {
+                    Candidate next = new Candidate(neighbor, similarity);
+                    candidates.add(next);
+                    results.add(next);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(Candidate.BY_SIMILARITY_DESC);
+        return sorted;
+    }
+    
+    /**
+     * 이웃 목록에 새 노드를 추가하고, 넘치면 가장 가까운 maxLinks개만 남깁니다.
+     */
+    private void connect(int from, int to, int level, int maxLinks) {
+        Node node = nodes.get(from);
+        if (node.linkCounts[level] < maxLinks) {
+            node.addLink(level, to);
+            return;
+        }
+        List<Candidate> neighbors = new ArrayList<>(maxLinks + 1);
+        int[] links = node.links[level];
+        for (int i = 0; i < node.linkCounts[level]; i++) {
+            neighbors.add(new Candidate(links[i], dot(node.vector, nodes.get(links[i]).vector)));
+        }
+        neighbors.add(new Candidate(to, dot(node.vector, nodes.get(to).vector)));
+        neighbors.sort(Candidate.BY_SIMILARITY_DESC);
+        List<Candidate> selected = selectNeighbors(neighbors, maxLinks);
+        for (int i = 0; i < selected.size(); i++) {
+            links[i] = selected.get(i).id;
+        }
+        node.linkCounts[level] = selected.size();
+    }
+    
+    /**
+     * 후보 중 이미 고른 이웃보다 기준 노드에 더 가까운 후보만 고릅니다 (HNSW 논문의 휴리스틱).
+     * 비슷한 방향의 이웃이 몰리지 않아 군집 사이도 연결됩니다.
+     * 
+     * @param candidates 기준 노드와의 유사도 내림차순 후보
+     * @param max 최대 이웃 수
+     */
+    private List<Candidate> selectNeighbors(List<Candidate> candidates, int max) {
+        List<Candidate> selected = new ArrayList<>(Math.min(max, candidates.size()));
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            float[] vector = nodes.get(candidate.id).vector;
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (dot(vector, nodes.get(chosen.id).vector) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            }
+        }
+        return selected;
+    }
+    
+    /**
+     * 검색 결과
+     */
+    static final class Match {
+        final String key;
+        final float similarity;
+        
+        Match(String key, float similarity) {
+            this.key = key;
+            this.similarity = similarity;
+        }
+    }
+    
+    private final class Node {
+        final String key;
+        final float[] vector;
+        final int[][] links;
+        final int[] linkCounts;
+        boolean deleted;
+        
+        Node(String key, float[] vector, int level) {
+            this.key = key;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                links[l] = new int[l == 0 ? maxLinksLevel0 : m];
+            }
+        }
+        
+        void addLink(int level, int id) {
+            links[level][linkCounts[level]++] = id;
+        }
+    }
+    
+    private static final class Candidate {
+        static final Comparator<Candidate> BY_SIMILARITY =
+            (a, b) -> Float.compare(a.similarity, b.similarity);
+        static final Comparator<Candidate> BY_SIMILARITY_DESC = BY_SIMILARITY.reversed();
+        
+        final int id;
+        final float similarity;
+        
+        Candidate(int id, float similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+    }
+}
\ No newline at end of file
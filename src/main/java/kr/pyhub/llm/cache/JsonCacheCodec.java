@@ -0,0 +1,57 @@
+package kr.pyhub.llm.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import kr.pyhub.llm.types.LLMReply;
+
+import java.io.IOException;
+
+/**
+ * JSON 텍스트 코덱.
+ * 
+ * 사람이 읽을 수 있는 형식이 필요할 때 사용합니다. 압축하지 않으면 헤더 없이
+ * 순수 JSON으로 저장되어 이전 버전의 캐시 파일과 같은 형식이 됩니다.
+ */
+public final class JsonCacheCodec implements CacheCodec {
+    
+    /** JSON 코덱 ID */
+    public static final int ID = 1;
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final ObjectWriter writer;
+    private final ObjectReader reader = MAPPER.readerFor(LLMReply.class);
+    
+    /**
+     * 공백 없는 JSON 코덱 생성
+     */
+    public JsonCacheCodec() {
+        this(false);
+    }
+    
+    /**
+     * JSON 코덱 생성
+     * 
+     * @param prettyPrint 들여쓰기 여부
+     */
+    public JsonCacheCodec(boolean prettyPrint) {
+        ObjectWriter base = MAPPER.writerFor(LLMReply.class);
+        this.writer = prettyPrint ? base.withDefaultPrettyPrinter() : base;
+    }
+    
+    @Override
+    public int getId() {
+        return ID;
+    }
+    
+    @Override
+    public byte[] encode(LLMReply value) throws IOException {
+        return writer.writeValueAsBytes(value);
+    }
+    
+    @Override
+    public LLMReply decode(byte[] data, int offset, int length) throws IOException {
+        return reader.readValue(data, offset, length);
+    }
+}
\ No newline at end of file
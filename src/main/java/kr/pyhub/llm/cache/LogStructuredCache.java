@@ -0,0 +1,687 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 추가 전용(append-only) 세그먼트 로그 기반 캐시 구현.
+ * 
+ * 특징:
+ * - 항목마다 파일을 만들지 않고 세그먼트 파일 끝에 레코드를 추가
+ * - 메모리 인덱스(키 → 세그먼트, 오프셋, 길이)로 조회
+ * - FileChannel 위치 기반 읽기
+ * - 백그라운드 컴팩션으로 덮어쓰거나 삭제된 항목 정리
+ * - 시작 시 CRC 검증으로 인덱스 재구성 (잘린 레코드는 버림)
+ * - 값은 {@link CacheFormat}으로 직렬화 (기본값: Smile, 큰 응답은 압축)
+ * 
+ * 레코드 형식: {@code keyLength(4) | valueLength(4) | type(1) | key | value | crc32(4)}
+ * 
+ * <pre>{@code
+ * try (LogStructuredCache cache = LogStructuredCache.builder()
+ *         .directory("./cache-log")
+ *         .maxSegmentBytes(64L * 1024 * 1024)
+ *         .build()) {
+ *     llm.withCache(cache);
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class LogStructuredCache extends AbstractCache implements Closeable {
+    
+    private static final String DEFAULT_CACHE_DIR = ".pyhub-llm-log-cache";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_EXTENSION = ".log";
+    private static final long DEFAULT_MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofMinutes(1);
+    private static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    
+    /** keyLength(4) + valueLength(4) + type(1) */
+    private static final int HEADER_SIZE = 9;
+    private static final int CRC_SIZE = 4;
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final double compactionThreshold;
+    private final boolean syncOnWrite;
+    private final CacheFormat format;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    private final Object writeLock = new Object();
+    private final Object compactionLock = new Object();
+    private final ScheduledExecutorService compactor;
+    private Segment active;
+    private volatile boolean enabled = true;
+    private volatile boolean closed;
+    
+    /**
+     * 기본 설정으로 로그 캐시 생성
+     */
+    public LogStructuredCache() {
+        this(DEFAULT_CACHE_DIR);
+    }
+    
+    /**
+     * 지정된 디렉토리로 로그 캐시 생성
+     * 
+     * @param directory 세그먼트 파일 디렉토리 경로
+     */
+    public LogStructuredCache(String directory) {
+        this(directory, null, null, null, null, null);
+    }
+    
+    /**
+     * 빌더용 생성자
+     * 
+     * @param directory 세그먼트 파일 디렉토리 경로 (기본값: .pyhub-llm-log-cache)
+     * @param maxSegmentBytes 세그먼트 최대 크기 (기본값: 64MB)
+     * @param compactionInterval 백그라운드 컴팩션 주기, 0이면 비활성화 (기본값: 1분)
+     * @param compactionThreshold 컴팩션 대상이 되는 세그먼트의 불필요 데이터 비율 (기본값: 0.5)
+     * @param syncOnWrite 쓰기마다 fsync 수행 여부 (기본값: false)
+     * @param format 값 저장 형식 (기본값: {@link CacheFormat#defaults()})
+     */
+    @Builder
+    private LogStructuredCache(String directory, Long maxSegmentBytes, Duration compactionInterval,
+                               Double compactionThreshold, Boolean syncOnWrite, CacheFormat format) {
+        this.directory = Paths.get(directory != null ? directory : DEFAULT_CACHE_DIR);
+        this.maxSegmentBytes = maxSegmentBytes != null ? maxSegmentBytes : DEFAULT_MAX_SEGMENT_BYTES;
+        this.compactionThreshold = compactionThreshold != null ? compactionThreshold : DEFAULT_COMPACTION_THRESHOLD;
+        this.syncOnWrite = Boolean.TRUE.equals(syncOnWrite);
+        this.format = format != null ? format : CacheFormat.defaults();
+        Duration interval = compactionInterval != null ? compactionInterval : DEFAULT_COMPACTION_INTERVAL;
+        
+        if (this.maxSegmentBytes <= 0) {
+            throw new IllegalArgumentException("maxSegmentBytes must be positive");
+        }
+        if (this.compactionThreshold <= 0 || this.compactionThreshold > 1) {
+            throw new IllegalArgumentException("compactionThreshold must be in (0, 1]");
+        }
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("compactionInterval must not be negative");
+        }
+        
+        try {
+            Files.createDirectories(this.directory);
+            recover();
+        } catch (IOException e) {
+            log.error("Failed to open log cache directory: {}", this.directory, e);
+            throw new RuntimeException("Failed to initialize LogStructuredCache", e);
+        }
+        
+        if (interval.isZero()) {
+            this.compactor = null;
+        } else {
+            this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pyhub-llm-log-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = interval.toMillis();
+            this.compactor.scheduleWithFixedDelay(this::compactQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        }
+        
+        log.info("LogStructuredCache initialized at: {} (segments={}, entries={})",
+            this.directory.toAbsolutePath(), segments.size(), index.size());
+    }
+    
+    @Override
+    public Optional<LLMReply> get(String key) {
+        if (!enabled || closed) {
+            return Optional.empty();
+        }
+        
+        Optional<LLMReply> value = read(key);
+        if (value.isPresent()) {
+            statsRecorder.recordHit(value.get());
+        } else {
+            statsRecorder.recordMiss();
+        }
+        return value;
+    }
+    
+    @Override
+    public void put(String key, LLMReply value) {
+        if (!enabled || closed) {
+            return;
+        }
+        
+        try {
+            // 직렬화는 쓰기 잠금 밖에서 수행
+            ByteBuffer record = encode(TYPE_PUT, key, format.write(value));
+            synchronized (writeLock) {
+                Location location = append(record);
+                track(key, location);
+            }
+            log.debug("Appended cache record for key: {}", key);
+        } catch (IOException e) {
+            log.error("Failed to append cache record for key: {}", key, e);
+        }
+    }
+    
+    @Override
+    public void evict(String key) {
+        remove(key);
+    }
+    
+    @Override
+    public boolean remove(String key) {
+        if (closed) {
+            return false;
+        }
+        
+        try {
+            ByteBuffer tombstone = encode(TYPE_DELETE, key, new byte[0]);
+            synchronized (writeLock) {
+                Location previous = index.remove(key);
+                if (previous != null) {
+                    append(tombstone);
+                    release(previous);
+                    statsRecorder.recordEviction(EvictionCause.EXPLICIT, 1);
+                    log.debug("Evicted cache record for key: {}", key);
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to append tombstone for key: {}", key, e);
+        }
+        return false;
+    }
+    
+    @Override
+    public void clear() {
+        removeAll();
+    }
+    
+    @Override
+    public long removeAll() {
+        long removed = 0;
+        synchronized (compactionLock) {
+            synchronized (writeLock) {
+                segmentLock.writeLock().lock();
+                try {
+                    for (Segment segment : segments.values()) {
+                        closeQuietly(segment);
+                        Files.deleteIfExists(segment.path);
+                    }
+                    segments.clear();
+                    removed = index.size();
+                    statsRecorder.recordEviction(EvictionCause.EXPLICIT, removed);
+                    index.clear();
+                    if (!closed) {
+                        active = openSegment(1);
+                    }
+                    log.info("Cleared all cache segments in: {}", directory);
+                } catch (IOException e) {
+                    log.error("Failed to clear log cache directory: {}", directory, e);
+                } finally {
+                    segmentLock.writeLock().unlock();
+                }
+            }
+        }
+        return removed;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return enabled && !closed;
+    }
+    
+    /**
+     * 캐시 활성화/비활성화
+     * 
+     * @param enabled 활성화 여부
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        log.info("LogStructuredCache enabled: {}", enabled);
+    }
+    
+    /**
+     * 불필요한 데이터 비율이 임계값 이상인 세그먼트를 정리합니다.
+     * 유효한 레코드는 활성 세그먼트로 옮기고 기존 세그먼트 파일은 삭제합니다.
+     * 
+     * @return 정리한 세그먼트 개수
+     */
+    public int compact() {
+        synchronized (compactionLock) {
+            if (closed) {
+                return 0;
+            }
+            
+            List<Segment> candidates = new ArrayList<>();
+            synchronized (writeLock) {
+                for (Segment segment : segments.values()) {
+                    if (segment != active && segment.garbageRatio() >= compactionThreshold) {
+                        candidates.add(segment);
+                    }
+                }
+            }
+            
+            int compacted = 0;
+            for (Segment segment : candidates) {
+                try {
+                    compactSegment(segment);
+                    compacted++;
+                } catch (IOException e) {
+                    log.error("Failed to compact segment: {}", segment.path, e);
+                }
+            }
+            if (compacted > 0) {
+                log.info("Compacted {} segments in: {}", compacted, directory);
+            }
+            return compacted;
+        }
+    }
+    
+    @Override
+    protected long estimatedSize() {
+        return index.size();
+    }
+    
+    @Override
+    protected long bytesStored() {
+        return segments.values().stream().mapToLong(segment -> segment.liveBytes.get()).sum();
+    }
+    
+    /**
+     * 저장된 항목 개수
+     * 
+     * @return 항목 개수
+     */
+    public long getEntryCount() {
+        return index.size();
+    }
+    
+    /**
+     * 세그먼트 파일 개수
+     * 
+     * @return 세그먼트 개수
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+    
+    /**
+     * 세그먼트 파일의 전체 크기 (바이트)
+     * 
+     * @return 디스크 사용량
+     */
+    public long getDiskSize() {
+        return segments.values().stream().mapToLong(segment -> segment.size.get()).sum();
+    }
+    
+    /**
+     * 컴팩션을 중지하고 세그먼트 파일을 닫습니다.
+     */
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        synchronized (compactionLock) {
+            synchronized (writeLock) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                segmentLock.writeLock().lock();
+                try {
+                    for (Segment segment : segments.values()) {
+                        closeQuietly(segment);
+                    }
+                } finally {
+                    segmentLock.writeLock().unlock();
+                }
+            }
+        }
+        log.info("LogStructuredCache closed: {}", directory);
+    }
+    
+    /**
+     * 인덱스가 가리키는 레코드를 읽어 응답으로 변환합니다.
+     */
+    private Optional<LLMReply> read(String key) {
+        // 컴팩션으로 세그먼트가 바뀐 경우 한 번 더 조회
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Location location = index.get(key);
+            if (location == null) {
+                log.debug("Cache miss for key: {}", key);
+                return Optional.empty();
+            }
+            
+            segmentLock.readLock().lock();
+            try {
+                Segment segment = segments.get(location.segmentId);
+                if (segment == null) {
+                    continue;
+                }
+                Record record = readRecord(segment.channel, location.offset, location.offset + location.length);
+                if (record == null || record.type != TYPE_PUT || !key.equals(record.key)) {
+                    log.warn("Corrupted cache record for key: {}", key);
+                    return Optional.empty();
+                }
+                log.debug("Cache hit for key: {}", key);
+                return Optional.of(format.read(record.value));
+            } catch (IOException e) {
+                log.warn("Failed to read cache record for key: {}", key, e);
+                return Optional.empty();
+            } finally {
+                segmentLock.readLock().unlock();
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * 세그먼트 파일을 순서대로 읽어 인덱스를 재구성합니다.
+     * CRC가 맞지 않거나 잘린 레코드를 만나면 그 위치에서 파일을 잘라냅니다.
+     */
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(LogStructuredCache::isSegmentFile)
+                .sorted((a, b) -> Long.compare(segmentId(a), segmentId(b)))
+                .collect(Collectors.toList());
+        }
+        
+        for (Path file : files) {
+            Segment segment = openSegment(segmentId(file));
+            long fileSize = segment.channel.size();
+            long position = 0;
+            while (position < fileSize) {
+                Record record = readRecord(segment.channel, position, fileSize);
+                if (record == null) {
+                    log.warn("Truncating {} at offset {}: incomplete or corrupted record", file, position);
+                    segment.channel.truncate(position);
+                    break;
+                }
+                Location location = new Location(segment.id, position, record.length);
+                if (record.type == TYPE_PUT) {
+                    track(record.key, location);
+                } else {
+                    Location previous = index.remove(record.key);
+                    if (previous != null) {
+                        release(previous);
+                    }
+                }
+                position += record.length;
+            }
+            segment.size.set(position);
+        }
+        
+        active = segments.isEmpty() || segments.lastEntry().getValue().size.get() >= maxSegmentBytes
+            ? openSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1)
+            : segments.lastEntry().getValue();
+    }
+    
+    private void compactSegment(Segment segment) throws IOException {
+        boolean oldest = segments.firstKey() == segment.id;
+        long limit = segment.size.get();
+        long position = 0;
+        while (position < limit) {
+            Record record = readRecord(segment.channel, position, limit);
+            if (record == null) {
+                break;
+            }
+            if (record.type == TYPE_PUT) {
+                moveIfLive(segment, position, record);
+            } else if (!oldest) {
+                // 더 오래된 세그먼트에 남아 있는 값이 되살아나지 않도록 삭제 표시를 유지
+                carryTombstone(record);
+            }
+            position += record.length;
+        }
+        
+        segmentLock.writeLock().lock();
+        try {
+            segments.remove(segment.id);
+            closeQuietly(segment);
+            Files.deleteIfExists(segment.path);
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+    
+    private void moveIfLive(Segment segment, long position, Record record) throws IOException {
+        Location current = index.get(record.key);
+        if (current == null || current.segmentId != segment.id || current.offset != position) {
+            return;
+        }
+        ByteBuffer copy = encode(TYPE_PUT, record.key, record.value);
+        synchronized (writeLock) {
+            // 복사하는 동안 새 값이 저장되었으면 옮기지 않음
+            if (index.get(record.key) == current) {
+                track(record.key, append(copy));
+            }
+        }
+    }
+    
+    private void carryTombstone(Record record) throws IOException {
+        if (index.containsKey(record.key)) {
+            return;
+        }
+        ByteBuffer tombstone = encode(TYPE_DELETE, record.key, new byte[0]);
+        synchronized (writeLock) {
+            if (!index.containsKey(record.key)) {
+                append(tombstone);
+            }
+        }
+    }
+    
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            log.error("Background compaction failed: {}", directory, e);
+        }
+    }
+    
+    /**
+     * 활성 세그먼트 끝에 레코드를 추가합니다. writeLock을 잡은 상태에서 호출해야 합니다.
+     */
+    private Location append(ByteBuffer record) throws IOException {
+        if (closed) {
+            throw new IOException("LogStructuredCache is closed");
+        }
+        int length = record.remaining();
+        if (active.size.get() > 0 && active.size.get() + length > maxSegmentBytes) {
+            if (syncOnWrite) {
+                active.channel.force(false);
+            }
+            active = openSegment(active.id + 1);
+        }
+        
+        long offset = active.size.get();
+        while (record.hasRemaining()) {
+            active.channel.write(record, offset + (length - record.remaining()));
+        }
+        if (syncOnWrite) {
+            active.channel.force(false);
+        }
+        active.size.addAndGet(length);
+        return new Location(active.id, offset, length);
+    }
+    
+    private void track(String key, Location location) {
+        segments.get(location.segmentId).liveBytes.addAndGet(location.length);
+        Location previous = index.put(key, location);
+        if (previous != null) {
+            release(previous);
+        }
+    }
+    
+    private void release(Location location) {
+        Segment segment = segments.get(location.segmentId);
+        if (segment != null) {
+            segment.liveBytes.addAndGet(-location.length);
+        }
+    }
+    
+    private Segment openSegment(long id) throws IOException {
+        Path path = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, id, SEGMENT_EXTENSION));
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(id, path, channel);
+        segment.size.set(channel.size());
+        segments.put(id, segment);
+        return segment;
+    }
+    
+    private static ByteBuffer encode(byte type, String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_SIZE + keyBytes.length + value.length + CRC_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(keyBytes.length).putInt(value.length).put(type).put(keyBytes).put(value);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, length - CRC_SIZE);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+    
+    /**
+     * 주어진 위치의 레코드를 읽습니다.
+     * 
+     * @return 레코드, 또는 잘렸거나 CRC가 맞지 않으면 null
+     */
+    private static Record readRecord(FileChannel channel, long offset, long limit) throws IOException {
+        if (limit - offset < HEADER_SIZE + CRC_SIZE) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, offset);
+        int keyLength = header.getInt(0);
+        int valueLength = header.getInt(4);
+        byte type = header.get(8);
+        if (keyLength < 0 || valueLength < 0 || (type != TYPE_PUT && type != TYPE_DELETE)) {
+            return null;
+        }
+        long length = (long) HEADER_SIZE + keyLength + valueLength + CRC_SIZE;
+        if (length > limit - offset) {
+            return null;
+        }
+        
+        ByteBuffer body = ByteBuffer.allocate((int) length - HEADER_SIZE);
+        readFully(channel, body, offset + HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(header.array());
+        crc.update(body.array(), 0, keyLength + valueLength);
+        if ((int) crc.getValue() != body.getInt(keyLength + valueLength)) {
+            return null;
+        }
+        
+        String key = new String(body.array(), 0, keyLength, StandardCharsets.UTF_8);
+        byte[] value = new byte[valueLength];
+        System.arraycopy(body.array(), keyLength, value, 0, valueLength);
+        return new Record(type, key, value, (int) length);
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment at offset " + (offset + buffer.position()));
+            }
+        }
+    }
+    
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close segment: {}", segment.path, e);
+        }
+    }
+    
+    private static boolean isSegmentFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION);
+    }
+    
+    private static long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXTENSION.length()));
+    }
+    
+    /**
+     * 레코드 위치
+     */
+    private static final class Location {
+        final long segmentId;
+        final long offset;
+        final int length;
+        
+        Location(long segmentId, long offset, int length) {
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+    
+    /**
+     * 세그먼트 파일과 크기 정보
+     */
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final FileChannel channel;
+        final AtomicLong size = new AtomicLong();
+        final AtomicLong liveBytes = new AtomicLong();
+        
+        Segment(long id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+        
+        double garbageRatio() {
+            long total = size.get();
+            return total == 0 ? 0 : 1.0 - (double) liveBytes.get() / total;
+        }
+    }
+    
+    /**
+     * 디스크에서 읽은 레코드
+     */
+    private static final class Record {
+        final byte type;
+        final String key;
+        final byte[] value;
+        final int length;
+        
+        Record(byte type, String key, byte[] value, int length) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+            this.length = length;
+        }
+    }
+}
\ No newline at end of file
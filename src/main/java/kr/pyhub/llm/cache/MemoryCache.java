@@ -2,22 +2,67 @@ package kr.pyhub.llm.cache;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import kr.pyhub.llm.types.LLMReply;
+import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Caffeine을 사용한 메모리 기반 캐시 구현.
  * 
  * 특징:
  * - 크기 기반 제거 (LRU)
+ * - 추정 바이트 기반 메모리 한도 (선택)
  * - 시간 기반 만료 (TTL)
+ * - 만료 전 비동기 갱신 (refresh-after-write, 선택)
+ * - 스냅샷 저장/복원으로 재시작 후 바로 캐시 사용 (선택)
  * - 통계 정보 제공
  * - 스레드 안전
+ * 
+ * {@code refreshAfterWrite}를 지정하면 그 시간이 지난 항목을 읽을 때 오래된 응답을 바로 반환하고
+ * 키마다 한 번만 {@link CacheReloader}로 다시 생성합니다 (stale-while-revalidate).
+ * {@code expireAfterWrite}는 그대로 적용되므로 그때까지 갱신되지 않은 항목은 제거됩니다.
+ * 
+ * 배포할 때마다 빈 캐시로 시작하지 않도록 {@link #saveSnapshot()}으로 항목을 파일에 저장하고,
+ * {@code loadSnapshotOnStart}로 새 인스턴스가 시작할 때 불러올 수 있습니다.
+ * 항목은 조회 횟수가 많은 순서로 저장되므로 용량이 부족하면 덜 쓰는 항목부터 제외됩니다.
+ * 남은 TTL도 함께 저장되어 복원 후에도 원래 시각에 만료됩니다.
+ * 
+ * {@link #put(String, LLMReply, Duration)}로 항목마다 더 짧은 TTL을 지정할 수 있습니다
+ * ({@link CacheWritePolicy}의 잘린 응답, 실패 결과 등).
+ * 
+ * <pre>{@code
+ * MemoryCache cache = MemoryCache.builder()
+ *     .refreshAfterWrite(Duration.ofMinutes(50))
+ *     .expireAfterWrite(Duration.ofMinutes(60))
+ *     .snapshotFile("/var/lib/app/llm-cache.snapshot")
+ *     .loadSnapshotOnStart(true)
+ *     .build();
+ * 
+ * // 종료 시
+ * cache.saveSnapshot();
+ * }</pre>
  */
 @Slf4j
 public class MemoryCache extends AbstractCache {
@@ -25,8 +70,14 @@ public class MemoryCache extends AbstractCache {
     private static final int DEFAULT_MAX_SIZE = 1000;
     private static final long DEFAULT_TTL_MINUTES = 60;
     
-    private final Cache<String, LLMReply> cache;
+    private final Cache<String, CachedReply> cache;
     private final AtomicBoolean enabled = new AtomicBoolean(true);
+    private final LongAdder bytesStored = new LongAdder();
+    private final long ttlNanos;
+    private final long refreshAfterWriteNanos;
+    private final Path snapshotFile;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final LongAdder refreshCount = new LongAdder();
     
     /**
      * 기본 설정으로 메모리 캐시 생성
@@ -43,14 +94,57 @@ public class MemoryCache extends AbstractCache {
      * @param ttlUnit TTL 시간 단위
      */
     public MemoryCache(long maxSize, long ttl, TimeUnit ttlUnit) {
-        this.cache = Caffeine.newBuilder()
-            .maximumSize(maxSize)
-            .expireAfterWrite(ttl, ttlUnit)
-            .recordStats()
-            .build();
-            
-        log.info("MemoryCache initialized with maxSize={}, ttl={} {}", 
-            maxSize, ttl, ttlUnit);
+        this(maxSize, null, Duration.ofNanos(ttlUnit.toNanos(ttl)), null, null, null);
+    }
+    
+    /**
+     * 빌더용 생성자.
+     * maximumSize와 maximumWeightBytes는 함께 지정할 수 없습니다.
+     * 
+     * @param maximumSize 최대 항목 수 (둘 다 지정하지 않으면 1000)
+     * @param maximumWeightBytes 추정 메모리 사용량 한도 (바이트)
+     * @param expireAfterWrite TTL (기본값: 60분)
+     * @param refreshAfterWrite 이 시간이 지난 항목은 읽을 때 비동기로 갱신, TTL보다 짧아야 함 (기본값: 갱신하지 않음)
+     * @param snapshotFile {@link #saveSnapshot()}으로 저장하고 시작 시 불러올 스냅샷 파일
+     * @param loadSnapshotOnStart 생성할 때 스냅샷 파일에서 항목을 불러올지 여부 (기본값: false)
+     */
+    @Builder
+    private MemoryCache(Long maximumSize, Long maximumWeightBytes, Duration expireAfterWrite,
+                        Duration refreshAfterWrite, String snapshotFile, Boolean loadSnapshotOnStart) {
+        if (maximumSize != null && maximumWeightBytes != null) {
+            throw new IllegalArgumentException("maximumSize and maximumWeightBytes cannot be combined");
+        }
+        Duration ttl = expireAfterWrite != null ? expireAfterWrite : Duration.ofMinutes(DEFAULT_TTL_MINUTES);
+        if (refreshAfterWrite != null
+            && (refreshAfterWrite.isNegative() || refreshAfterWrite.isZero() || refreshAfterWrite.compareTo(ttl) >= 0)) {
+            throw new IllegalArgumentException("refreshAfterWrite must be positive and shorter than expireAfterWrite");
+        }
+        if (Boolean.TRUE.equals(loadSnapshotOnStart) && snapshotFile == null) {
+            throw new IllegalArgumentException("loadSnapshotOnStart requires snapshotFile");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAfterWriteNanos = refreshAfterWrite != null ? refreshAfterWrite.toNanos() : 0;
+        this.snapshotFile = snapshotFile != null ? Paths.get(snapshotFile) : null;
+        
+        // 복원한 항목에 남은 TTL을 지정할 수 있도록 항목별 만료 사용 (쓸 때마다 TTL로 초기화)
+        Caffeine<String, CachedReply> builder = Caffeine.newBuilder()
+            .expireAfter(new WriteExpiry())
+            .removalListener((String key, CachedReply value, RemovalCause cause) -> onRemoval(value.reply, cause));
+        if (maximumWeightBytes != null) {
+            // 응답 크기 편차가 크므로 항목 수 대신 추정 바이트로 제한
+            builder.maximumWeight(maximumWeightBytes)
+                .weigher((String key, CachedReply value) -> ReplySizeEstimator.weigh(value.reply));
+        } else {
+            builder.maximumSize(maximumSize != null ? maximumSize : DEFAULT_MAX_SIZE);
+        }
+        this.cache = builder.build();
+        
+        log.info("MemoryCache initialized with maxSize={}, maxWeightBytes={}, ttl={}, refreshAfterWrite={}", 
+            maximumSize, maximumWeightBytes, ttl, refreshAfterWrite);
+        
+        if (Boolean.TRUE.equals(loadSnapshotOnStart)) {
+            warmStart();
+        }
     }
     
     @Override
@@ -59,36 +153,104 @@ public class MemoryCache extends AbstractCache {
             return Optional.empty();
         }
         
-        LLMReply value = cache.getIfPresent(key);
-        if (value != null) {
+        CachedReply entry = cache.getIfPresent(key);
+        LLMReply value = entry != null ? entry.reply : null;
+        if (entry != null) {
+            entry.hits.incrementAndGet();
+            statsRecorder.recordHit(value);
             log.debug("Cache hit for key: {}", key);
         } else {
+            statsRecorder.recordMiss();
             log.debug("Cache miss for key: {}", key);
         }
         
         return Optional.ofNullable(value);
     }
     
+    @Override
+    public Optional<LLMReply> get(String key, CacheReloader reloader) {
+        Optional<LLMReply> value = get(key);
+        if (value.isPresent() && reloader != null && isStale(key)) {
+            refresh(key, reloader);
+        }
+        return value;
+    }
+    
     @Override
     public void put(String key, LLMReply value) {
         if (!enabled.get()) {
             return;
         }
         
-        cache.put(key, value);
+        store(key, value, ttlNanos);
         log.debug("Cached response for key: {}", key);
     }
     
+    /**
+     * 항목별 TTL로 저장합니다. 캐시의 TTL(expireAfterWrite)보다 길게 지정하면 캐시의 TTL을 사용합니다.
+     * 
+     * @param key 캐시 키
+     * @param value 저장할 값
+     * @param ttl 이 항목의 TTL
+     */
+    @Override
+    public void put(String key, LLMReply value, Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        if (!enabled.get()) {
+            return;
+        }
+        
+        store(key, value, Math.min(ttl.toNanos(), ttlNanos));
+        log.debug("Cached response for key: {} with ttl={}", key, ttl);
+    }
+    
+    @Override
+    public boolean supportsEntryTtl() {
+        return true;
+    }
+    
+    private void store(String key, LLMReply value, long entryTtlNanos) {
+        bytesStored.add(ReplySizeEstimator.estimate(value));
+        // 갱신으로 값이 바뀌어도 조회 횟수는 유지
+        cache.asMap().compute(key, (k, previous) ->
+            new CachedReply(value, previous != null ? previous.hits.get() : 0, entryTtlNanos));
+    }
+    
     @Override
     public void evict(String key) {
-        cache.invalidate(key);
-        log.debug("Evicted cache for key: {}", key);
+        remove(key);
+    }
+    
+    @Override
+    public boolean remove(String key) {
+        boolean removed = cache.asMap().remove(key) != null;
+        if (removed) {
+            log.debug("Evicted cache for key: {}", key);
+        }
+        return removed;
     }
     
     @Override
     public void clear() {
-        cache.invalidateAll();
-        log.info("Cleared all cache entries");
+        removeAll();
+    }
+    
+    /**
+     * 항목을 하나씩 제거하며 실제로 제거한 수를 셉니다. 제거 통계는 제거 리스너가 기록합니다.
+     */
+    @Override
+    public long removeAll() {
+        Map<String, CachedReply> entries = cache.asMap();
+        long removed = 0;
+        for (String key : entries.keySet()) {
+            if (entries.remove(key) != null) {
+                removed++;
+            }
+        }
+        log.info("Cleared {} cache entries", removed);
+        return removed;
     }
     
     @Override
@@ -114,13 +276,220 @@ public class MemoryCache extends AbstractCache {
      * 
      * @return 캐시 통계
      */
-    public kr.pyhub.llm.cache.CacheStats getStats() {
-        CacheStats stats = cache.stats();
-        return kr.pyhub.llm.cache.CacheStats.builder()
-            .hitCount(stats.hitCount())
-            .missCount(stats.missCount())
-            .size(cache.estimatedSize())
-            .build();
+    @Override
+    public CacheStats getStats() {
+        CacheStats stats = super.getStats();
+        stats.setWeightedSize(weightedSize());
+        return stats;
+    }
+    
+    @Override
+    protected long estimatedSize() {
+        return cache.estimatedSize();
+    }
+    
+    @Override
+    protected long bytesStored() {
+        return bytesStored.sum();
+    }
+    
+    /**
+     * 추정 메모리 사용량 반환.
+     * maximumWeightBytes로 생성한 경우에만 값이 있으며, 그 외에는 0입니다.
+     * 
+     * @return 현재 가중치 합계 (바이트)
+     */
+    public long weightedSize() {
+        return cache.policy().eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0L))
+            .orElse(0L);
+    }
+    
+    /**
+     * 제거된 항목의 크기와 원인을 기록 (Caffeine 제거 리스너, 비동기 호출)
+     */
+    private void onRemoval(LLMReply value, RemovalCause cause) {
+        bytesStored.add(-ReplySizeEstimator.estimate(value));
+        switch (cause) {
+            case SIZE:
+            case COLLECTED:
+                statsRecorder.recordEviction(EvictionCause.SIZE, 1);
+                break;
+            case EXPIRED:
+                statsRecorder.recordEviction(EvictionCause.EXPIRED, 1);
+                break;
+            case EXPLICIT:
+                statsRecorder.recordEviction(EvictionCause.EXPLICIT, 1);
+                break;
+            default:
+                // REPLACED: 같은 키에 새 값이 저장된 경우는 제거로 보지 않음
+                break;
+        }
+    }
+    
+    /**
+     * 갱신 시점이 지나 다시 생성을 시작한 횟수
+     * 
+     * @return 갱신 횟수
+     */
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+    
+    private boolean isStale(String key) {
+        if (refreshAfterWriteNanos == 0) {
+            return false;
+        }
+        CachedReply entry = cache.asMap().get(key);
+        OptionalLong remaining = expiration().getExpiresAfter(key, TimeUnit.NANOSECONDS);
+        // 항목의 나이 = 저장할 때의 TTL - 남은 시간 (TTL이 짧은 항목은 갱신 시점에 이르기 전에 만료됨)
+        return entry != null && remaining.isPresent()
+            && entry.ttlNanos - remaining.getAsLong() >= refreshAfterWriteNanos
+            && !entry.isRefreshBackedOff();
+    }
+    
+    /**
+     * 키마다 한 번만 다시 생성합니다. 새 응답이 저장되면 항목의 나이가 초기화되므로
+     * 완료 후에는 더 이상 오래된 항목으로 보지 않습니다.
+     * 
+     * 갱신이 실패했거나 쓰기 정책이 새 응답을 저장하지 않아 같은 항목이 남아 있으면,
+     * 읽을 때마다 다시 호출하지 않도록 refreshAfterWrite만큼 다음 갱신을 미룹니다.
+     * 항목의 만료 시각은 바꾸지 않습니다.
+     */
+    private void refresh(String key, CacheReloader reloader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        CachedReply entry = cache.asMap().get(key);
+        refreshCount.increment();
+        log.debug("Refreshing stale cache entry for key: {}", key);
+        CompletableFuture<LLMReply> future;
+        try {
+            future = reloader.reload();
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((reply, error) -> {
+            if (entry != null && cache.asMap().get(key) == entry) {
+                entry.backOffRefresh(refreshAfterWriteNanos);
+            }
+            refreshing.remove(key);
+            if (error != null) {
+                // 오래된 응답은 TTL까지 계속 사용
+                log.warn("Failed to refresh cache entry for key: {}", key, error);
+            }
+        });
+    }
+    
+    /**
+     * 빌더에서 지정한 스냅샷 파일에 저장합니다.
+     * 
+     * @return 저장한 항목 수
+     * @throws IOException 쓰기 실패 시 (기존 스냅샷은 그대로 남음)
+     * @throws IllegalStateException snapshotFile을 지정하지 않은 경우
+     */
+    public long saveSnapshot() throws IOException {
+        if (snapshotFile == null) {
+            throw new IllegalStateException("snapshotFile is not configured");
+        }
+        return saveSnapshot(snapshotFile);
+    }
+    
+    /**
+     * 현재 항목을 조회 횟수가 많은 순서로 스냅샷 파일에 저장합니다.
+     * 전체를 한 번에 직렬화하지 않고 항목마다 직렬화하여 버퍼를 거쳐 기록하며,
+     * 임시 파일에 쓴 뒤 원자적으로 교체하므로 쓰는 도중 실패해도 기존 스냅샷은 손상되지 않습니다.
+     * 저장한 실패 결과({@link CacheWritePolicy#isFailure})는 직렬화하면 표시가 사라지므로 제외합니다.
+     * 
+     * @param file 스냅샷 파일
+     * @return 저장한 항목 수
+     * @throws IOException 쓰기 실패 시
+     */
+    public long saveSnapshot(Path file) throws IOException {
+        // 조회 횟수 순으로 정렬 (값은 복사하지 않고 참조만 모음)
+        List<Map.Entry<String, CachedReply>> entries = new ArrayList<>(cache.asMap().entrySet());
+        entries.sort(Comparator.comparingInt((Map.Entry<String, CachedReply> entry) -> entry.getValue().hits.get())
+            .reversed());
+        Policy.VarExpiration<String, CachedReply> expiration = expiration();
+        
+        try (CacheSnapshot.Writer writer = new CacheSnapshot.Writer(file, CacheFormat.defaults())) {
+            for (Map.Entry<String, CachedReply> entry : entries) {
+                OptionalLong remaining = expiration.getExpiresAfter(entry.getKey(), TimeUnit.MILLISECONDS);
+                CachedReply value = entry.getValue();
+                if (remaining.isPresent() && !CacheWritePolicy.isFailure(value.reply)) {
+                    writer.write(entry.getKey(), value.reply, value.hits.get(),
+                        System.currentTimeMillis() + remaining.getAsLong(), TimeUnit.NANOSECONDS.toMillis(value.ttlNanos));
+                }
+            }
+            long count = writer.commit();
+            log.info("Saved {} cache entries to snapshot: {}", count, file);
+            return count;
+        }
+    }
+    
+    /**
+     * 스냅샷 파일에서 항목을 불러옵니다.
+     * 만료된 항목은 건너뛰고, 캐시가 가득 차면 나머지(덜 쓰는 항목)는 불러오지 않습니다.
+     * 불러온 항목은 조회 통계에 포함하지 않습니다.
+     * 
+     * @param file 스냅샷 파일
+     * @return 불러온 항목 수
+     * @throws IOException 스냅샷 파일이 아니거나 읽기 실패 시
+     */
+    public long loadSnapshot(Path file) throws IOException {
+        Policy.VarExpiration<String, CachedReply> expiration = expiration();
+        boolean weighted = cache.policy().eviction().map(Policy.Eviction::isWeighted).orElse(false);
+        // 남은 용량은 한 번만 계산하고 불러온 항목만큼 줄여 나감 (항목마다 유지보수를 돌리지 않음)
+        long[] capacity = {remainingCapacity()};
+        long[] loaded = new long[1];
+        CacheSnapshot.read(file, CacheFormat.defaults(), (key, value, hits, expiresAtMillis, ttlMillis) -> {
+            long weight = weighted ? ReplySizeEstimator.weigh(value) : 1;
+            if (weight > capacity[0]) {
+                return false;
+            }
+            long remainingMillis = expiresAtMillis - System.currentTimeMillis();
+            if (remainingMillis > 0) {
+                // 저장할 때의 항목 TTL을 유지해야 갱신 시점(나이)을 올바르게 계산함
+                long entryTtlNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(ttlMillis), ttlNanos);
+                long remainingNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(remainingMillis), entryTtlNanos);
+                bytesStored.add(ReplySizeEstimator.estimate(value));
+                expiration.put(key, new CachedReply(value, hits, entryTtlNanos), remainingNanos, TimeUnit.NANOSECONDS);
+                capacity[0] -= weight;
+                loaded[0]++;
+            }
+            return true;
+        });
+        log.info("Loaded {} cache entries from snapshot: {}", loaded[0], file);
+        return loaded[0];
+    }
+    
+    /**
+     * 시작 시 스냅샷을 불러옵니다. 실패해도 빈 캐시로 시작합니다.
+     */
+    private void warmStart() {
+        if (!Files.exists(snapshotFile)) {
+            log.info("No cache snapshot to load: {}", snapshotFile);
+            return;
+        }
+        try {
+            loadSnapshot(snapshotFile);
+        } catch (IOException e) {
+            log.warn("Failed to load cache snapshot: {}", snapshotFile, e);
+        }
+    }
+    
+    private long remainingCapacity() {
+        // 쓰기 버퍼에 남은 항목까지 크기에 반영
+        cache.cleanUp();
+        return cache.policy().eviction()
+            .map(eviction -> Math.max(0, eviction.getMaximum() - eviction.weightedSize().orElse(cache.estimatedSize())))
+            .orElse(Long.MAX_VALUE);
+    }
+    
+    private Policy.VarExpiration<String, CachedReply> expiration() {
+        return cache.policy().expireVariably()
+            .orElseThrow(() -> new IllegalStateException("Per-entry expiration is not enabled"));
     }
     
     /**
@@ -131,4 +500,52 @@ public class MemoryCache extends AbstractCache {
     public long size() {
         return cache.estimatedSize();
     }
+    
+    /**
+     * 캐시 값: 응답, 조회 횟수 (스냅샷을 자주 쓰는 순서로 저장하는 데 사용), 저장할 때의 TTL,
+     * 아무것도 저장하지 못한 갱신 뒤 다음 갱신까지 기다릴 시각
+     */
+    private static final class CachedReply {
+        final LLMReply reply;
+        final AtomicInteger hits;
+        final long ttlNanos;
+        volatile long refreshBackoffUntilNanos;
+        
+        CachedReply(LLMReply reply, int hits, long ttlNanos) {
+            this.reply = reply;
+            this.hits = new AtomicInteger(hits);
+            this.ttlNanos = ttlNanos;
+            // 이미 지난 시각으로 시작해 처음에는 기다리지 않음
+            this.refreshBackoffUntilNanos = System.nanoTime();
+        }
+        
+        void backOffRefresh(long nanos) {
+            refreshBackoffUntilNanos = System.nanoTime() + nanos;
+        }
+        
+        boolean isRefreshBackedOff() {
+            return refreshBackoffUntilNanos - System.nanoTime() > 0;
+        }
+    }
+    
+    /**
+     * 쓸 때마다 항목의 TTL로 초기화하고 읽을 때는 유지하는 만료 정책 (expireAfterWrite와 같음)
+     */
+    private static final class WriteExpiry implements Expiry<String, CachedReply> {
+        
+        @Override
+        public long expireAfterCreate(String key, CachedReply value, long currentTime) {
+            return value.ttlNanos;
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, CachedReply value, long currentTime, long currentDuration) {
+            return value.ttlNanos;
+        }
+        
+        @Override
+        public long expireAfterRead(String key, CachedReply value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
\ No newline at end of file
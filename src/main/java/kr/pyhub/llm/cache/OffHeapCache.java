@@ -0,0 +1,472 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 직렬화한 응답을 힙 밖(direct ByteBuffer)에 저장하는 메모리 캐시 구현.
+ * 
+ * 수 GB 단위의 응답을 힙에 두면 old 영역이 커지고 GC 멈춤이 길어지므로,
+ * 응답은 {@link CacheFormat}으로 직렬화하여 고정 크기 슬랩에 저장하고
+ * 힙에는 키 해시 → 슬롯(슬랩, 오프셋, 길이)의 작은 인덱스만 둡니다.
+ * 
+ * 특징:
+ * - 조회할 때만 역직렬화
+ * - 메모리 한도 = 슬랩 크기 × 슬랩 개수, 슬랩은 처음 사용할 때 할당
+ * - 슬랩이 모두 차면 가장 오래된 슬랩을 재사용하며, 그 사이 조회된 항목은 한 번 더 기회를 줌 (second chance)
+ * - 읽기는 잠금 없이 수행하고, 읽는 도중 슬랩이 재사용되면 미스로 처리
+ * 
+ * 레코드 형식: {@code keyLength(4) | key | value}. 해시가 충돌해도 저장된 키를 비교하므로 다른 응답을 반환하지 않습니다.
+ * 
+ * <pre>{@code
+ * OffHeapCache cache = OffHeapCache.builder()
+ *     .maxBytes(4L * 1024 * 1024 * 1024)
+ *     .slabBytes(64 * 1024 * 1024)
+ *     .build();
+ * }</pre>
+ */
+@Slf4j
+public class OffHeapCache extends AbstractCache {
+    
+    private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    private static final int DEFAULT_SLAB_BYTES = 16 * 1024 * 1024;
+    private static final int KEY_LENGTH_SIZE = 4;
+    private static final int HEX_HASH_LENGTH = 16;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    @Getter
+    private final long maxBytes;
+    @Getter
+    private final int slabBytes;
+    @Getter
+    private final CacheFormat format;
+    private final Slab[] slabs;
+    private final Map<Long, Slot> index = new ConcurrentHashMap<>();
+    private final AtomicLong liveBytes = new AtomicLong();
+    private final Object writeLock = new Object();
+    private int head;
+    private volatile boolean enabled = true;
+    
+    /**
+     * 기본 설정(256MB)으로 off-heap 캐시 생성
+     */
+    public OffHeapCache() {
+        this(null, null, null);
+    }
+    
+    /**
+     * 빌더용 생성자
+     * 
+     * @param maxBytes 힙 밖에 할당할 최대 바이트 수, 슬랩 크기의 2배 이상 (기본값: 256MB)
+     * @param slabBytes 슬랩 하나의 크기, 이보다 큰 응답은 저장하지 않음 (기본값: 16MB)
+     * @param format 값 저장 형식 (기본값: {@link CacheFormat#defaults()})
+     */
+    @Builder
+    private OffHeapCache(Long maxBytes, Integer slabBytes, CacheFormat format) {
+        this.maxBytes = maxBytes != null ? maxBytes : DEFAULT_MAX_BYTES;
+        this.slabBytes = slabBytes != null ? slabBytes : DEFAULT_SLAB_BYTES;
+        this.format = format != null ? format : CacheFormat.defaults();
+        
+        if (this.slabBytes <= KEY_LENGTH_SIZE) {
+            throw new IllegalArgumentException("slabBytes must be greater than " + KEY_LENGTH_SIZE);
+        }
+        long slabCount = this.maxBytes / this.slabBytes;
+        if (slabCount < 2) {
+            throw new IllegalArgumentException("maxBytes must be at least twice slabBytes");
+        }
+        if (slabCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many slabs; increase slabBytes");
+        }
+        this.slabs = new Slab[(int) slabCount];
+        for (int i = 0; i < slabs.length; i++) {
+            slabs[i] = new Slab(i);
+        }
+        
+        log.info("OffHeapCache initialized with maxBytes={}, slabBytes={}, slabs={}",
+            this.maxBytes, this.slabBytes, slabs.length);
+    }
+    
+    @Override
+    public Optional<LLMReply> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        
+        long hash = hash(key);
+        Slot slot = index.get(hash);
+        byte[] payload = slot != null ? slabs[slot.slab].read(slot, key.getBytes(StandardCharsets.UTF_8)) : null;
+        if (payload == null) {
+            statsRecorder.recordMiss();
+            log.debug("Cache miss for key: {}", key);
+            return Optional.empty();
+        }
+        
+        try {
+            LLMReply reply = format.read(payload);
+            if (!slot.referenced) {
+                slot.referenced = true;
+            }
+            statsRecorder.recordHit(reply);
+            log.debug("Cache hit for key: {}", key);
+            return Optional.of(reply);
+        } catch (IOException e) {
+            log.warn("Failed to decode off-heap cache entry for key: {}", key, e);
+            statsRecorder.recordMiss();
+            if (remove(hash, slot)) {
+                statsRecorder.recordEviction(EvictionCause.CORRUPTED, 1);
+            }
+            return Optional.empty();
+        }
+    }
+    
+    @Override
+    public void put(String key, LLMReply value) {
+        if (!enabled) {
+            return;
+        }
+        
+        byte[] record;
+        try {
+            record = toRecord(key.getBytes(StandardCharsets.UTF_8), format.write(value));
+        } catch (IOException e) {
+            log.error("Failed to serialize cache entry for key: {}", key, e);
+            return;
+        }
+        if (record.length > slabBytes) {
+            log.warn("Skipping cache entry larger than slab ({} > {} bytes) for key: {}",
+                record.length, slabBytes, key);
+            return;
+        }
+        
+        long hash = hash(key);
+        synchronized (writeLock) {
+            Slot slot = append(hash, record);
+            Slot previous = index.put(hash, slot);
+            liveBytes.addAndGet(record.length - (previous != null ? previous.length : 0));
+        }
+        log.debug("Cached response off-heap for key: {}", key);
+    }
+    
+    @Override
+    public void evict(String key) {
+        remove(key);
+    }
+    
+    @Override
+    public boolean remove(String key) {
+        long hash = hash(key);
+        Slot slot = index.get(hash);
+        if (slot != null && remove(hash, slot)) {
+            statsRecorder.recordEviction(EvictionCause.EXPLICIT, 1);
+            log.debug("Evicted cache for key: {}", key);
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public void clear() {
+        removeAll();
+    }
+    
+    @Override
+    public long removeAll() {
+        long removed;
+        synchronized (writeLock) {
+            removed = index.size();
+            statsRecorder.recordEviction(EvictionCause.EXPLICIT, removed);
+            index.clear();
+            liveBytes.set(0);
+            for (Slab slab : slabs) {
+                slab.reset();
+            }
+            head = 0;
+        }
+        log.info("Cleared all off-heap cache entries");
+        return removed;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 캐시 활성화/비활성화
+     * 
+     * @param enabled 활성화 여부
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        log.info("OffHeapCache enabled: {}", enabled);
+    }
+    
+    /**
+     * 지금까지 할당한 off-heap 메모리 크기
+     * 
+     * @return 할당된 바이트 수
+     */
+    public long getAllocatedBytes() {
+        long allocated = 0;
+        for (Slab slab : slabs) {
+            if (slab.buffer != null) {
+                allocated += slabBytes;
+            }
+        }
+        return allocated;
+    }
+    
+    /**
+     * 캐시 항목 수
+     * 
+     * @return 항목 수
+     */
+    public long size() {
+        return index.size();
+    }
+    
+    @Override
+    protected long estimatedSize() {
+        return index.size();
+    }
+    
+    @Override
+    protected long bytesStored() {
+        return liveBytes.get();
+    }
+    
+    /**
+     * 현재 슬랩에 레코드를 추가합니다. 자리가 없으면 다음 슬랩으로 넘어가며, 그 슬랩이 사용 중이면 재사용합니다.
+     * writeLock을 잡고 호출해야 합니다.
+     */
+    private Slot append(long hash, byte[] record) {
+        Slab slab = slabs[head];
+        if (slab.buffer == null) {
+            slab.allocate(slabBytes);
+        }
+        if (slab.remaining() < record.length) {
+            head = (head + 1) % slabs.length;
+            slab = slabs[head];
+            if (slab.buffer == null) {
+                slab.allocate(slabBytes);
+            } else {
+                recycle(slab, record.length);
+            }
+        }
+        return slab.write(hash, record);
+    }
+    
+    /**
+     * 가장 오래된 슬랩을 비우고 다시 사용합니다.
+     * 마지막 재사용 이후 조회된 항목은 슬랩 크기의 절반까지 같은 슬랩 앞쪽으로 다시 쓰되,
+     * 이어서 쓸 레코드가 들어갈 자리는 항상 남깁니다.
+     * 
+     * @param reserve 재사용 후 바로 쓸 레코드 크기
+     */
+    private void recycle(Slab slab, int reserve) {
+        List<Slot> survivors = new ArrayList<>();
+        List<byte[]> survivorRecords = new ArrayList<>();
+        long survivorLimit = Math.min(slabBytes / 2, slabBytes - reserve);
+        long survivorBytes = 0;
+        int evicted = 0;
+        for (Slot slot : slab.slots) {
+            if (index.get(slot.hash) != slot) {
+                // 덮어쓰거나 삭제된 항목
+                continue;
+            }
+            if (slot.referenced && survivorBytes + slot.length <= survivorLimit) {
+                survivors.add(slot);
+                survivorRecords.add(slab.copy(slot));
+                survivorBytes += slot.length;
+            } else if (remove(slot.hash, slot)) {
+                evicted++;
+            }
+        }
+        
+        slab.reset();
+        for (int i = 0; i < survivors.size(); i++) {
+            Slot old = survivors.get(i);
+            Slot moved = slab.write(old.hash, survivorRecords.get(i));
+            if (!index.replace(old.hash, old, moved)) {
+                // 그 사이 삭제된 항목
+                slab.slots.remove(slab.slots.size() - 1);
+            }
+        }
+        
+        if (evicted > 0) {
+            statsRecorder.recordEviction(EvictionCause.SIZE, evicted);
+        }
+        log.debug("Recycled off-heap slab {} (evicted={}, retained={})", slab.id, evicted, survivors.size());
+    }
+    
+    private boolean remove(long hash, Slot slot) {
+        if (index.remove(hash, slot)) {
+            liveBytes.addAndGet(-slot.length);
+            return true;
+        }
+        return false;
+    }
+    
+    private static byte[] toRecord(byte[] key, byte[] value) {
+        byte[] record = new byte[KEY_LENGTH_SIZE + key.length + value.length];
+        ByteBuffer.wrap(record).putInt(key.length).put(key).put(value);
+        return record;
+    }
+    
+    /**
+     * 캐시 키의 64비트 해시. 16진수 SHA-256 키는 앞 16자리를 그대로 사용합니다.
+     * 충돌하더라도 읽을 때 저장된 키를 비교하므로 미스가 될 뿐입니다.
+     */
+    static long hash(String key) {
+        if (key.length() >= HEX_HASH_LENGTH) {
+            long value = 0;
+            int i = 0;
+            for (; i < HEX_HASH_LENGTH; i++) {
+                int digit = Character.digit(key.charAt(i), 16);
+                if (digit < 0) {
+                    break;
+                }
+                value = (value << 4) | digit;
+            }
+            if (i == HEX_HASH_LENGTH) {
+                return value;
+            }
+        }
+        long value = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            value = (value ^ key.charAt(i)) * FNV_PRIME;
+        }
+        return value;
+    }
+    
+    /**
+     * 인덱스 항목: 레코드가 있는 슬랩과 위치
+     */
+    private static final class Slot {
+        final long hash;
+        final int slab;
+        final int generation;
+        final int offset;
+        final int length;
+        volatile boolean referenced;
+        
+        Slot(long hash, int slab, int generation, int offset, int length) {
+            this.hash = hash;
+            this.slab = slab;
+            this.generation = generation;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+    
+    /**
+     * 고정 크기 off-heap 버퍼.
+     * 재사용할 때마다 세대를 올리고, 읽는 쪽은 StampedLock의 낙관적 읽기로 그 사이 재사용되지 않았는지 확인합니다.
+     */
+    private static final class Slab {
+        final int id;
+        final StampedLock lock = new StampedLock();
+        final List<Slot> slots = new ArrayList<>();
+        volatile ByteBuffer buffer;
+        int generation;
+        int position;
+        
+        Slab(int id) {
+            this.id = id;
+        }
+        
+        void allocate(int size) {
+            buffer = ByteBuffer.allocateDirect(size);
+        }
+        
+        int remaining() {
+            return buffer.capacity() - position;
+        }
+        
+        /**
+         * 레코드를 기록하고 슬롯을 반환합니다. writeLock을 잡고 호출해야 합니다.
+         */
+        Slot write(long hash, byte[] record) {
+            ByteBuffer target = buffer.duplicate();
+            target.position(position);
+            target.put(record);
+            Slot slot = new Slot(hash, id, generation, position, record.length);
+            slots.add(slot);
+            position += record.length;
+            return slot;
+        }
+        
+        /**
+         * 다음 쓰기가 기존 레코드를 덮어쓸 수 있도록 세대를 올리고 비웁니다.
+         */
+        void reset() {
+            long stamp = lock.writeLock();
+            try {
+                generation++;
+                position = 0;
+                slots.clear();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        
+        byte[] copy(Slot slot) {
+            byte[] record = new byte[slot.length];
+            ByteBuffer source = buffer.duplicate();
+            source.position(slot.offset);
+            source.get(record);
+            return record;
+        }
+        
+        /**
+         * 키가 일치하면 값 부분을 복사하여 반환합니다. 슬랩이 재사용되었거나 키가 다르면 null입니다.
+         */
+        byte[] read(Slot slot, byte[] key) {
+            long stamp = lock.tryOptimisticRead();
+            byte[] payload = slot.generation == generation ? readPayload(slot, key) : null;
+            if (lock.validate(stamp)) {
+                return payload;
+            }
+            
+            stamp = lock.readLock();
+            try {
+                return slot.generation == generation ? readPayload(slot, key) : null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        private byte[] readPayload(Slot slot, byte[] key) {
+            if (KEY_LENGTH_SIZE + key.length > slot.length) {
+                return null;
+            }
+            ByteBuffer source = buffer.duplicate();
+            source.position(slot.offset);
+            if (source.getInt() != key.length) {
+                return null;
+            }
+            for (byte b : key) {
+                if (source.get() != b) {
+                    return null;
+                }
+            }
+            byte[] payload = new byte[slot.length - KEY_LENGTH_SIZE - key.length];
+            source.get(payload);
+            return payload;
+        }
+    }
+}
\ No newline at end of file
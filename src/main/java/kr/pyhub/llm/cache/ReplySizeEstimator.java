@@ -0,0 +1,105 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LLMReply가 힙에서 차지하는 크기를 대략적으로 추정합니다.
+ * 
+ * 정확한 측정이 아니라 캐시 메모리 한도를 정하기 위한 보수적인 추정치입니다.
+ * 문자열은 문자당 2바이트로 계산하고, 객체 헤더와 참조 크기를 더합니다.
+ */
+public final class ReplySizeEstimator {
+    
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int REFERENCE_SIZE = 8;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int MAP_ENTRY_OVERHEAD = 32;
+    private static final int BOXED_VALUE_SIZE = 16;
+    private static final int MAX_DEPTH = 16;
+    
+    private ReplySizeEstimator() {
+    }
+    
+    /**
+     * 응답의 추정 크기를 바이트 단위로 반환합니다.
+     * 
+     * @param reply LLM 응답
+     * @return 추정 크기 (바이트)
+     */
+    public static long estimate(LLMReply reply) {
+        if (reply == null) {
+            return 0;
+        }
+        long size = OBJECT_OVERHEAD + 6L * REFERENCE_SIZE;
+        size += sizeOf(reply.getText());
+        size += sizeOf(reply.getModel());
+        size += sizeOf(reply.getFinishReason());
+        if (reply.getUsage() != null) {
+            size += OBJECT_OVERHEAD + 3 * 4;
+        }
+        
+        List<LLMReply.ToolCall> toolCalls = reply.getToolsCalled();
+        if (toolCalls != null) {
+            size += OBJECT_OVERHEAD + (long) toolCalls.size() * REFERENCE_SIZE;
+            for (LLMReply.ToolCall call : toolCalls) {
+                size += OBJECT_OVERHEAD + 3L * REFERENCE_SIZE + sizeOf(call.getId()) + sizeOf(call.getType());
+                if (call.getFunction() != null) {
+                    size += OBJECT_OVERHEAD + 2L * REFERENCE_SIZE
+                        + sizeOf(call.getFunction().getName())
+                        + sizeOf(call.getFunction().getArguments());
+                }
+            }
+        }
+        
+        size += sizeOfValue(reply.getRawResponse(), 0);
+        return size;
+    }
+    
+    /**
+     * Caffeine 가중치용으로 int 범위에 맞춘 추정 크기를 반환합니다.
+     * 
+     * @param reply LLM 응답
+     * @return 추정 크기 (최대 Integer.MAX_VALUE)
+     */
+    public static int weigh(LLMReply reply) {
+        return (int) Math.min(Integer.MAX_VALUE, estimate(reply));
+    }
+    
+    private static long sizeOf(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + 2L * value.length();
+    }
+    
+    private static long sizeOfValue(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return sizeOf((String) value);
+        }
+        if (depth >= MAX_DEPTH) {
+            return OBJECT_OVERHEAD;
+        }
+        if (value instanceof Map) {
+            long size = OBJECT_OVERHEAD * 3;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += MAP_ENTRY_OVERHEAD
+                    + sizeOfValue(entry.getKey(), depth + 1)
+                    + sizeOfValue(entry.getValue(), depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            long size = OBJECT_OVERHEAD * 2 + (long) collection.size() * REFERENCE_SIZE;
+            for (Object element : collection) {
+                size += sizeOfValue(element, depth + 1);
+            }
+            return size;
+        }
+        return BOXED_VALUE_SIZE;
+    }
+}
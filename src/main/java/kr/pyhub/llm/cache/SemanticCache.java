@@ -0,0 +1,394 @@
+package kr.pyhub.llm.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kr.pyhub.llm.types.LLMReply;
+import kr.pyhub.llm.types.Message;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 의미가 비슷한 질문에 캐시된 응답을 돌려주는 캐시 데코레이터.
+ * 
+ * 정확히 같은 키가 없으면 마지막 사용자 메시지를 임베딩하여 HNSW 인덱스에서
+ * 가장 비슷한 이전 질문을 찾고, 유사도가 임계값 이상이면 그 응답을 반환합니다.
+ * 
+ * 특징:
+ * - 응답 저장은 대상 캐시에 위임 (기본값: MemoryCache)
+ * - 프로바이더, 모델, 파라미터, 도구, 마지막 사용자 메시지 이전의 대화가 모두 같은 항목끼리만 비교
+ * - 임베딩은 정확한 키가 없을 때만 계산하며, 이어지는 put에서 재사용
+ * - 대상 캐시에서 사라진 항목은 검색 중에 인덱스에서도 제거
+ * - 저장한 실패({@link CacheWritePolicy})는 정확히 같은 요청에만 반환하고 비슷한 질문에는 반환하지 않음
+ * 
+ * 인덱스는 메모리에만 있으므로 재시작 후에는 정확히 같은 요청만 히트합니다.
+ * 
+ * <pre>{@code
+ * SemanticCache cache = SemanticCache.builder()
+ *     .delegate(new FileCache("./cache"))
+ *     .embeddingFunction(text -> embeddingClient.embed(text))
+ *     .similarityThreshold(0.92)
+ *     .build();
+ * }</pre>
+ */
+@Slf4j
+public class SemanticCache extends AbstractCache {
+    
+    private static final double DEFAULT_SIMILARITY_THRESHOLD = 0.9;
+    private static final int DEFAULT_M = 16;
+    private static final int DEFAULT_EF_CONSTRUCTION = 100;
+    private static final int DEFAULT_EF_SEARCH = 50;
+    private static final int CANDIDATES = 3;
+    private static final long MAX_PENDING_LOOKUPS = 10_000;
+    private static final long PENDING_LOOKUP_TTL_MINUTES = 10;
+    private static final int MIN_DELETED_FOR_COMPACTION = 64;
+    
+    @Getter
+    private final Cache delegate;
+    private final EmbeddingFunction embeddingFunction;
+    @Getter
+    private final double similarityThreshold;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final Map<String, HnswIndex> partitions = new ConcurrentHashMap<>();
+    private final com.github.benmanes.caffeine.cache.Cache<String, Lookup> lookups;
+    private final LongAdder semanticHits = new LongAdder();
+    
+    /**
+     * 메모리 캐시에 저장하는 시맨틱 캐시 생성
+     * 
+     * @param embeddingFunction 임베딩 함수
+     */
+    public SemanticCache(EmbeddingFunction embeddingFunction) {
+        this(null, embeddingFunction, null, null, null, null);
+    }
+    
+    /**
+     * 빌더용 생성자
+     * 
+     * @param delegate 응답을 저장할 캐시 (기본값: MemoryCache)
+     * @param embeddingFunction 임베딩 함수 (필수)
+     * @param similarityThreshold 히트로 볼 최소 코사인 유사도 (기본값: 0.9)
+     * @param m HNSW 노드당 이웃 수 (기본값: 16)
+     * @param efConstruction HNSW 추가 시 탐색 후보 수 (기본값: 100)
+     * @param efSearch HNSW 검색 시 탐색 후보 수 (기본값: 50)
+     */
+    @Builder
+    private SemanticCache(Cache delegate, EmbeddingFunction embeddingFunction, Double similarityThreshold,
+                          Integer m, Integer efConstruction, Integer efSearch) {
+        if (embeddingFunction == null) {
+            throw new IllegalArgumentException("Embedding function must not be null");
+        }
+        this.similarityThreshold = similarityThreshold != null ? similarityThreshold : DEFAULT_SIMILARITY_THRESHOLD;
+        if (this.similarityThreshold < -1.0 || this.similarityThreshold > 1.0) {
+            throw new IllegalArgumentException("similarityThreshold must be between -1.0 and 1.0");
+        }
+        this.delegate = delegate != null ? delegate : new MemoryCache();
+        this.embeddingFunction = embeddingFunction;
+        this.m = m != null ? m : DEFAULT_M;
+        this.efConstruction = efConstruction != null ? efConstruction : DEFAULT_EF_CONSTRUCTION;
+        this.efSearch = efSearch != null ? efSearch : DEFAULT_EF_SEARCH;
+        if (this.m < 2) {
+            throw new IllegalArgumentException("m must be at least 2");
+        }
+        if (this.efConstruction < 1 || this.efSearch < 1) {
+            throw new IllegalArgumentException("efConstruction and efSearch must be positive");
+        }
+        
+        // generateKey와 get/put 사이에서만 필요한 정보이므로 오래 보관하지 않음
+        this.lookups = Caffeine.newBuilder()
+            .maximumSize(MAX_PENDING_LOOKUPS)
+            .expireAfterWrite(PENDING_LOOKUP_TTL_MINUTES, TimeUnit.MINUTES)
+            .build();
+        
+        log.info("SemanticCache initialized over {} (similarityThreshold={}, m={}, efSearch={})",
+            this.delegate.getClass().getSimpleName(), this.similarityThreshold, this.m, this.efSearch);
+    }
+    
+    @Override
+    public String generateKey(CacheKeySpec spec) {
+        CacheKeySpec normalized = getKeyPolicy().apply(spec);
+        String key = delegate.generateKey(normalized);
+        rememberLookup(key, normalized);
+        return key;
+    }
+    
+    @Override
+    public Optional<LLMReply> get(String key) {
+        return get(key, null);
+    }
+    
+    /**
+     * 정확히 같은 키를 조회할 때 reloader를 대상 캐시에 전달하므로, 대상 캐시가 refresh-after-write를
+     * 지원하면 오래된 항목을 갱신합니다. 유사도로 찾은 응답은 다른 키의 항목이므로 갱신하지 않습니다.
+     */
+    @Override
+    public Optional<LLMReply> get(String key, CacheReloader reloader) {
+        Optional<LLMReply> exact = delegate.get(key, reloader);
+        if (exact.isPresent()) {
+            statsRecorder.recordHit(exact.get());
+            return exact;
+        }
+        
+        Lookup lookup = lookups.getIfPresent(key);
+        HnswIndex index = lookup != null ? partitions.get(lookup.partition) : null;
+        if (index != null) {
+            Optional<LLMReply> similar = findSimilar(index, lookup);
+            if (similar.isPresent()) {
+                semanticHits.increment();
+                statsRecorder.recordHit(similar.get());
+                return similar;
+            }
+        }
+        
+        statsRecorder.recordMiss();
+        return Optional.empty();
+    }
+    
+    @Override
+    public void put(String key, LLMReply value) {
+        delegate.put(key, value);
+        addToIndex(key, value);
+    }
+    
+    /**
+     * 항목별 TTL로 대상 캐시에 저장합니다. 대상 캐시에서 만료된 항목은 검색 중에 인덱스에서 제거됩니다.
+     */
+    @Override
+    public void put(String key, LLMReply value, Duration ttl) {
+        delegate.put(key, value, ttl);
+        addToIndex(key, value);
+    }
+    
+    @Override
+    public boolean supportsEntryTtl() {
+        return delegate.supportsEntryTtl();
+    }
+    
+    @Override
+    public void evict(String key) {
+        remove(key);
+    }
+    
+    @Override
+    public boolean remove(String key) {
+        boolean removed = delegate.remove(key);
+        for (String partition : partitions.keySet()) {
+            if (removeFromIndex(partition, key)) {
+                statsRecorder.recordEviction(EvictionCause.EXPLICIT, 1);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+    
+    @Override
+    public void clear() {
+        removeAll();
+    }
+    
+    @Override
+    public long removeAll() {
+        long removed = delegate.removeAll();
+        partitions.clear();
+        lookups.invalidateAll();
+        return removed;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return delegate.isEnabled();
+    }
+    
+    /**
+     * 캐시 통계 반환. 크기와 저장 바이트는 대상 캐시 기준입니다.
+     * 
+     * @return 캐시 통계
+     */
+    @Override
+    public CacheStats getStats() {
+        CacheStats delegateStats = delegate.getStats();
+        return statsRecorder.snapshot(delegateStats.getSize(), delegateStats.getBytesStored());
+    }
+    
+    /**
+     * 정확히 같은 키가 아니라 유사도로 찾은 히트 수
+     * 
+     * @return 시맨틱 히트 수
+     */
+    public long getSemanticHitCount() {
+        return semanticHits.sum();
+    }
+    
+    /**
+     * 인덱스에 있는 항목 수
+     * 
+     * @return 모든 파티션의 항목 수 합계
+     */
+    public int getIndexedCount() {
+        int count = 0;
+        for (HnswIndex index : partitions.values()) {
+            count += index.size();
+        }
+        return count;
+    }
+    
+    private void addToIndex(String key, LLMReply value) {
+        Lookup lookup = lookups.getIfPresent(key);
+        if (lookup == null) {
+            return;
+        }
+        lookups.invalidate(key);
+        if (CacheWritePolicy.isFailure(value)) {
+            // 저장한 실패는 같은 요청에만 돌려주고 비슷한 질문에는 사용하지 않음
+            return;
+        }
+        float[] vector = lookup.vector(embeddingFunction);
+        if (vector == null) {
+            return;
+        }
+        // 파티션의 추가·삭제·정리는 compute 안에서 순서대로 수행하므로 정리 중 변경을 잃지 않음
+        partitions.compute(lookup.partition, (partition, index) -> {
+            HnswIndex target = index != null ? index : new HnswIndex(m, efConstruction);
+            try {
+                target.add(key, vector);
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping semantic index for key {}: {}", key, e.getMessage());
+                return index;
+            }
+            return target;
+        });
+    }
+    
+    private Optional<LLMReply> findSimilar(HnswIndex index, Lookup lookup) {
+        float[] vector = lookup.vector(embeddingFunction);
+        if (vector == null) {
+            return Optional.empty();
+        }
+        List<HnswIndex.Match> matches;
+        try {
+            matches = index.search(vector, CANDIDATES, efSearch);
+        } catch (IllegalArgumentException e) {
+            log.warn("Semantic lookup failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+        for (HnswIndex.Match match : matches) {
+            if (match.similarity < similarityThreshold) {
+                break;
+            }
+            Optional<LLMReply> value = delegate.get(match.key);
+            if (value.isPresent() && CacheWritePolicy.isFailure(value.get())) {
+                // 성공했던 항목이 그 사이 실패로 바뀐 경우
+                continue;
+            }
+            if (value.isPresent()) {
+                log.debug("Semantic cache hit (similarity={}) for key: {}", match.similarity, match.key);
+                return value;
+            }
+            // 대상 캐시에서 만료되었거나 제거된 항목
+            removeFromIndex(lookup.partition, match.key);
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * 파티션 인덱스에서 키를 삭제 표시하고, 삭제된 항목이 많으면 같은 compute 안에서 정리한 인덱스로 바꿉니다.
+     * 
+     * @return 삭제 표시했으면 true
+     */
+    private boolean removeFromIndex(String partition, String key) {
+        boolean[] removed = new boolean[1];
+        partitions.computeIfPresent(partition, (p, index) -> {
+            removed[0] = index.remove(key);
+            return removed[0] ? compactIfNeeded(index) : index;
+        });
+        return removed[0];
+    }
+    
+    private static HnswIndex compactIfNeeded(HnswIndex index) {
+        int deleted = index.deletedCount();
+        if (deleted >= MIN_DELETED_FOR_COMPACTION && deleted > index.size()) {
+            log.debug("Compacting semantic index partition ({} deleted entries)", deleted);
+            return index.compact();
+        }
+        return index;
+    }
+    
+    /**
+     * 마지막 메시지가 사용자 메시지인 경우에만 시맨틱 조회 정보를 남깁니다.
+     */
+    private void rememberLookup(String key, CacheKeySpec spec) {
+        List<Message> messages = spec.getMessages();
+        if (messages.isEmpty()) {
+            return;
+        }
+        Message last = messages.get(messages.size() - 1);
+        if (last.getRole() != Message.Role.USER || last.getContent() == null || last.getContent().isEmpty()) {
+            return;
+        }
+        // 이전 대화와 프로바이더, 모델, 파라미터, 도구가 모두 같아야 같은 파티션
+        String partition = CacheKeyHasher.key(spec.toBuilder()
+            .messages(messages.subList(0, messages.size() - 1))
+            .messagesDigest(null)
+            .build());
+        lookups.put(key, new Lookup(partition, last.getContent()));
+    }
+    
+    /**
+     * 정규화된 벡터로 변환합니다. 영벡터는 null을 반환합니다.
+     */
+    static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0.0) {
+            return null;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+    
+    /**
+     * generateKey에서 get/put까지 전달되는 조회 정보
+     */
+    private static final class Lookup {
+        final String partition;
+        final String text;
+        volatile float[] vector;
+        volatile boolean failed;
+        
+        Lookup(String partition, String text) {
+            this.partition = partition;
+            this.text = text;
+        }
+        
+        /**
+         * 임베딩을 한 번만 계산하여 get과 put에서 공유합니다.
+         */
+        float[] vector(EmbeddingFunction embeddingFunction) {
+            if (vector == null && !failed) {
+                try {
+                    float[] embedding = embeddingFunction.embed(text);
+                    vector = embedding != null ? normalize(embedding) : null;
+                } catch (RuntimeException e) {
+                    log.warn("Embedding failed, skipping semantic lookup: {}", e.getMessage());
+                }
+                failed = vector == null;
+            }
+            return vector;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package kr.pyhub.llm.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kr.pyhub.llm.types.LLMReply;
+
+import java.io.IOException;
+
+/**
+ * Jackson Smile(바이너리 JSON) 코덱.
+ * 
+ * JSON과 같은 데이터 모델을 사용하므로 LLMReply의 Jackson 매핑을 그대로 쓰면서
+ * 텍스트 파싱과 공백 처리 비용이 없습니다. 반복되는 필드 이름과 짧은 문자열은
+ * 백 레퍼런스로 저장되어 크기도 줄어듭니다.
+ */
+public final class SmileCacheCodec implements CacheCodec {
+    
+    /** Smile 코덱 ID */
+    public static final int ID = 2;
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper(new SmileFactory());
+    
+    private final ObjectWriter writer = MAPPER.writerFor(LLMReply.class);
+    private final ObjectReader reader = MAPPER.readerFor(LLMReply.class);
+    
+    @Override
+    public int getId() {
+        return ID;
+    }
+    
+    @Override
+    public byte[] encode(LLMReply value) throws IOException {
+        return writer.writeValueAsBytes(value);
+    }
+    
+    @Override
+    public LLMReply decode(byte[] data, int offset, int length) throws IOException {
+        return reader.readValue(data, offset, length);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,232 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 메모리 캐시(L1)와 디스크 캐시(L2)를 결합한 2단계 캐시 구현.
+ * 
+ * 특징:
+ * - L1에서 먼저 조회하고, 없으면 L2에서 조회
+ * - L2에서 찾은 항목은 L1으로 승격
+ * - L2 쓰기는 즉시(write-through) 또는 백그라운드(write-behind)로 수행
+ * - 합산 통계({@link #getStats()})와 계층별 통계({@link #getTierStats()}) 제공
+ * 
+ * 프로세스를 재시작해도 L2에 남은 응답으로 L1이 다시 채워지므로 API를 다시 호출하지 않습니다.
+ * 
+ * <pre>{@code
+ * TieredCache cache = TieredCache.builder()
+ *     .l1(new MemoryCache())
+ *     .l2(new FileCache("./cache"))
+ *     .writeMode(TieredCache.WriteMode.WRITE_BEHIND)
+ *     .build();
+ * }</pre>
+ */
+@Slf4j
+public class TieredCache extends AbstractCache implements Closeable {
+    
+    /**
+     * L2 쓰기 방식
+     */
+    public enum WriteMode {
+        /** put 호출 스레드에서 L2까지 저장 */
+        WRITE_THROUGH,
+        /** L1에 저장한 뒤 L2 저장은 {@link WriteBehindCache}로 백그라운드에서 수행 */
+        WRITE_BEHIND
+    }
+    
+    @Getter
+    private final Cache l1;
+    @Getter
+    private final Cache l2;
+    @Getter
+    private final WriteMode writeMode;
+    private final Cache l2Store;
+    private volatile boolean enabled = true;
+    
+    /**
+     * 메모리 캐시와 지정된 L2 캐시로 write-through 2단계 캐시 생성
+     * 
+     * @param l2 L2 캐시 (예: FileCache)
+     */
+    public TieredCache(Cache l2) {
+        this(new MemoryCache(), l2, WriteMode.WRITE_THROUGH);
+    }
+    
+    /**
+     * 빌더용 생성자
+     * 
+     * @param l1 L1 캐시 (기본값: MemoryCache)
+     * @param l2 L2 캐시 (필수)
+     * @param writeMode L2 쓰기 방식 (기본값: WRITE_THROUGH)
+     */
+    @Builder
+    private TieredCache(Cache l1, Cache l2, WriteMode writeMode) {
+        if (l2 == null) {
+            throw new IllegalArgumentException("L2 cache must not be null");
+        }
+        this.l1 = l1 != null ? l1 : new MemoryCache();
+        this.l2 = l2;
+        this.writeMode = writeMode != null ? writeMode : WriteMode.WRITE_THROUGH;
+        this.l2Store = this.writeMode == WriteMode.WRITE_BEHIND ? new WriteBehindCache(l2) : l2;
+        
+        log.info("TieredCache initialized with l1={}, l2={}, writeMode={}",
+            this.l1.getClass().getSimpleName(), l2.getClass().getSimpleName(), this.writeMode);
+    }
+    
+    @Override
+    public Optional<LLMReply> get(String key) {
+        return get(key, null);
+    }
+    
+    /**
+     * L1에서 조회할 때 reloader를 전달하므로, L1이 refresh-after-write를 지원하면 오래된 항목을 갱신합니다.
+     */
+    @Override
+    public Optional<LLMReply> get(String key, CacheReloader reloader) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        
+        Optional<LLMReply> value = l1.get(key, reloader);
+        if (value.isPresent()) {
+            statsRecorder.recordHit(value.get());
+            return value;
+        }
+        
+        value = l2Store.get(key);
+        if (value.isPresent()) {
+            // L2 히트는 L1으로 승격
+            statsRecorder.recordHit(value.get());
+            l1.put(key, value.get());
+            log.debug("Promoted cache entry to L1 for key: {}", key);
+            return value;
+        }
+        
+        statsRecorder.recordMiss();
+        return Optional.empty();
+    }
+    
+    @Override
+    public void put(String key, LLMReply value) {
+        if (!enabled) {
+            return;
+        }
+        
+        l1.put(key, value);
+        l2Store.put(key, value);
+    }
+    
+    /**
+     * L1에 항목별 TTL로 저장합니다. L2가 항목별 TTL을 지원하지 않으면 L2에는 저장하지 않습니다.
+     */
+    @Override
+    public void put(String key, LLMReply value, Duration ttl) {
+        if (!enabled) {
+            return;
+        }
+        
+        l1.put(key, value, ttl);
+        if (l2Store.supportsEntryTtl()) {
+            l2Store.put(key, value, ttl);
+        }
+    }
+    
+    @Override
+    public boolean supportsEntryTtl() {
+        return l1.supportsEntryTtl();
+    }
+    
+    @Override
+    public void evict(String key) {
+        remove(key);
+    }
+    
+    /**
+     * 두 계층에서 삭제합니다. 어느 한 계층에라도 항목이 있었을 때만 제거로 기록합니다.
+     */
+    @Override
+    public boolean remove(String key) {
+        boolean removedFromL1 = l1.remove(key);
+        boolean removedFromL2 = l2Store.remove(key);
+        if (removedFromL1 || removedFromL2) {
+            statsRecorder.recordEviction(EvictionCause.EXPLICIT, 1);
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public void clear() {
+        removeAll();
+    }
+    
+    /**
+     * 두 계층을 비웁니다. 두 계층 모두에 있던 항목을 두 번 세지 않도록
+     * 더 많이 삭제한 계층의 삭제 수를 제거로 기록합니다.
+     */
+    @Override
+    public long removeAll() {
+        long removed = Math.max(l1.removeAll(), l2Store.removeAll());
+        if (removed > 0) {
+            statsRecorder.recordEviction(EvictionCause.EXPLICIT, removed);
+        }
+        return removed;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 캐시 활성화/비활성화
+     * 
+     * @param enabled 활성화 여부
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        log.info("TieredCache enabled: {}", enabled);
+    }
+    
+    /**
+     * 두 계층을 합친 캐시 통계 반환.
+     * 크기와 저장 바이트는 L2 기준입니다.
+     * 
+     * @return 캐시 통계
+     */
+    @Override
+    public CacheStats getStats() {
+        CacheStats l2Stats = l2Store.getStats();
+        return statsRecorder.snapshot(l2Stats.getSize(), l2Stats.getBytesStored());
+    }
+    
+    /**
+     * 계층별 캐시 통계 정보 반환
+     * 
+     * @return L1, L2 통계
+     */
+    public TieredCacheStats getTierStats() {
+        return TieredCacheStats.builder()
+            .l1(l1.getStats())
+            .l2(l2Store.getStats())
+            .build();
+    }
+    
+    /**
+     * 남은 write-behind 쓰기를 마치고 백그라운드 스레드를 종료합니다.
+     * L1, L2 캐시 자체는 닫지 않습니다.
+     */
+    @Override
+    public void close() {
+        if (l2Store instanceof WriteBehindCache) {
+            ((WriteBehindCache) l2Store).close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package kr.pyhub.llm.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 2단계 캐시의 계층별 통계 정보.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TieredCacheStats {
+    
+    /**
+     * L1(메모리) 통계
+     */
+    private CacheStats l1;
+    
+    /**
+     * L2(디스크) 통계. 미스 횟수는 두 계층 모두에서 찾지 못한 횟수입니다.
+     */
+    private CacheStats l2;
+    
+    /**
+     * 두 계층을 합친 히트율 계산
+     * 
+     * @return 히트율 (0.0 ~ 1.0)
+     */
+    public double getHitRate() {
+        long hits = l1.getHitCount() + l2.getHitCount();
+        long total = hits + l2.getMissCount();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,48 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 사용자 메시지의 대소문자와 공백을 정규화하는 {@link CacheKeyPolicy#normalizeUserText()} 구현
+ */
+final class UserTextNormalizer implements CacheKeyPolicy {
+    
+    static final UserTextNormalizer INSTANCE = new UserTextNormalizer();
+    
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    private UserTextNormalizer() {
+    }
+    
+    @Override
+    public CacheKeySpec apply(CacheKeySpec spec) {
+        List<Message> normalized = new ArrayList<>(spec.getMessages().size());
+        for (Message message : spec.getMessages()) {
+            if (message.getRole() == Message.Role.USER && message.getContent() != null) {
+                normalized.add(Message.builder()
+                    .role(message.getRole())
+                    .content(normalize(message.getContent()))
+                    .name(message.getName())
+                    .toolCallId(message.getToolCallId())
+                    .cacheBreakpoint(message.isCacheBreakpoint())
+                    .build());
+            } else {
+                normalized.add(message);
+            }
+        }
+        // 메시지가 바뀌므로 미리 계산된 다이제스트는 사용할 수 없음
+        return spec.toBuilder()
+            .messages(normalized)
+            .messagesDigest(null)
+            .build();
+    }
+    
+    static String normalize(String text) {
+        return WHITESPACE.matcher(text.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
\ No newline at end of file
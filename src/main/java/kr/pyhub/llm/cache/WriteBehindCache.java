@@ -0,0 +1,437 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import kr.pyhub.llm.types.Message;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 저장을 백그라운드 스레드에서 수행하는 캐시 데코레이터.
+ * 
+ * 특징:
+ * - put은 제한된 큐에 넣고 바로 반환 (BaseLLM.ask가 디스크 쓰기를 기다리지 않음)
+ * - 백그라운드 스레드가 큐에 쌓인 항목을 묶어서 저장
+ * - 아직 저장되지 않은 항목도 get으로 조회 가능
+ * - 같은 키를 여러 번 저장하면 마지막 값만 저장
+ * - 항목별 TTL({@link #put(String, LLMReply, Duration)})도 큐에 함께 넣어 대상 캐시에 그대로 전달
+ * - close 시 남은 항목을 모두 저장
+ * - 큐가 가득 찼을 때의 정책 선택 (버리기, 기다리기, 직접 저장)
+ * 
+ * <pre>{@code
+ * WriteBehindCache cache = WriteBehindCache.builder()
+ *     .delegate(new FileCache("./cache"))
+ *     .queueCapacity(10_000)
+ *     .fullQueuePolicy(WriteBehindCache.FullQueuePolicy.DROP)
+ *     .build();
+ * }</pre>
+ */
+@Slf4j
+public class WriteBehindCache implements Cache, Closeable {
+    
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    
+    /**
+     * 큐가 가득 찼을 때의 처리 방식
+     */
+    public enum FullQueuePolicy {
+        /** 저장하지 않고 버림 */
+        DROP,
+        /** 큐에 자리가 날 때까지 put 호출 스레드가 기다림 */
+        BLOCK,
+        /** put 호출 스레드에서 직접 저장 */
+        WRITE_THROUGH
+    }
+    
+    @Getter
+    private final Cache delegate;
+    @Getter
+    private final FullQueuePolicy fullQueuePolicy;
+    private final int batchSize;
+    private final BlockingQueue<Entry> queue;
+    private final Map<String, Entry> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Thread flusher;
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean closed;
+    
+    /**
+     * 기본 설정으로 write-behind 캐시 생성
+     * 
+     * @param delegate 실제로 저장할 캐시
+     */
+    public WriteBehindCache(Cache delegate) {
+        this(delegate, null, null, null);
+    }
+    
+    /**
+     * 빌더용 생성자
+     * 
+     * @param delegate 실제로 저장할 캐시 (필수)
+     * @param queueCapacity 대기 큐 크기 (기본값: 10000)
+     * @param batchSize 한 번에 저장할 최대 항목 수 (기본값: 100)
+     * @param fullQueuePolicy 큐가 가득 찼을 때의 처리 방식 (기본값: WRITE_THROUGH)
+     */
+    @Builder
+    private WriteBehindCache(Cache delegate, Integer queueCapacity, Integer batchSize,
+                             FullQueuePolicy fullQueuePolicy) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate cache must not be null");
+        }
+        int capacity = queueCapacity != null ? queueCapacity : DEFAULT_QUEUE_CAPACITY;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        this.batchSize = batchSize != null ? batchSize : DEFAULT_BATCH_SIZE;
+        if (this.batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.delegate = delegate;
+        this.fullQueuePolicy = fullQueuePolicy != null ? fullQueuePolicy : FullQueuePolicy.WRITE_THROUGH;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        
+        this.flusher = new Thread(this::runFlusher, "pyhub-llm-cache-writer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        
+        log.info("WriteBehindCache initialized for {} (queueCapacity={}, batchSize={}, fullQueuePolicy={})",
+            delegate.getClass().getSimpleName(), capacity, this.batchSize, this.fullQueuePolicy);
+    }
+    
+    @Override
+    public Optional<LLMReply> get(String key) {
+        Entry entry = pending.get(key);
+        if (entry != null) {
+            delegate.recordHit(entry.value);
+            return Optional.of(entry.value);
+        }
+        return delegate.get(key);
+    }
+    
+    /**
+     * 대기 중인 값은 방금 저장한 값이므로 그대로 반환하고, 그 밖의 조회는 reloader와 함께 대상 캐시에 위임합니다.
+     */
+    @Override
+    public Optional<LLMReply> get(String key, CacheReloader reloader) {
+        Entry entry = pending.get(key);
+        if (entry != null) {
+            delegate.recordHit(entry.value);
+            return Optional.of(entry.value);
+        }
+        return delegate.get(key, reloader);
+    }
+    
+    @Override
+    public void put(String key, LLMReply value) {
+        enqueue(new Entry(key, value, null));
+    }
+    
+    /**
+     * 항목별 TTL과 함께 큐에 넣습니다. TTL은 대상 캐시에 저장할 때 적용됩니다.
+     */
+    @Override
+    public void put(String key, LLMReply value, Duration ttl) {
+        enqueue(new Entry(key, value, ttl));
+    }
+    
+    @Override
+    public boolean supportsEntryTtl() {
+        return delegate.supportsEntryTtl();
+    }
+    
+    @Override
+    public void evict(String key) {
+        remove(key);
+    }
+    
+    @Override
+    public boolean remove(String key) {
+        writeLock.lock();
+        try {
+            // 대기 중인 값은 더 이상 최신이 아니므로 저장되지 않음
+            boolean pendingRemoved = pending.remove(key) != null;
+            return delegate.remove(key) || pendingRemoved;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public void clear() {
+        removeAll();
+    }
+    
+    /**
+     * 대기 중인 항목을 버리고 대상 캐시를 비웁니다. 대상 캐시에서 삭제한 항목 수를 반환합니다.
+     */
+    @Override
+    public long removeAll() {
+        writeLock.lock();
+        try {
+            pending.clear();
+            queue.clear();
+            return delegate.removeAll();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public String generateKey(List<Message> messages, String model, Double temperature, Integer maxTokens) {
+        return delegate.generateKey(messages, model, temperature, maxTokens);
+    }
+    
+    @Override
+    public String generateKey(CacheKeySpec spec) {
+        return delegate.generateKey(spec);
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return delegate.isEnabled();
+    }
+    
+    @Override
+    public CacheStats getStats() {
+        return delegate.getStats();
+    }
+    
+    @Override
+    public void recordLoad(long nanos) {
+        delegate.recordLoad(nanos);
+    }
+    
+    @Override
+    public void recordHit(LLMReply reply) {
+        delegate.recordHit(reply);
+    }
+    
+    /**
+     * 현재 큐에 있는 항목을 모두 저장할 때까지 기다립니다.
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<Entry> batch = new ArrayList<>();
+            queue.drainTo(batch);
+            writeBatch(batch);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * 아직 저장되지 않은 항목 수
+     * 
+     * @return 대기 중인 항목 수
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+    
+    /**
+     * 백그라운드에서 저장한 항목 수
+     * 
+     * @return 저장한 항목 수
+     */
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+    
+    /**
+     * 큐가 가득 차서 버린 항목 수
+     * 
+     * @return 버린 항목 수
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+    
+    /**
+     * 남은 항목을 모두 저장하고 백그라운드 스레드를 종료합니다.
+     * 이후의 put은 호출 스레드에서 직접 저장됩니다. 대상 캐시는 닫지 않습니다.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+            if (flusher.isAlive()) {
+                log.warn("Timed out waiting for {} pending cache writes", queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 종료 직전에 들어온 항목 처리
+        flush();
+    }
+    
+    private void enqueue(Entry entry) {
+        String key = entry.key;
+        if (!delegate.isEnabled()) {
+            return;
+        }
+        
+        if (closed) {
+            writeThrough(entry);
+            return;
+        }
+        
+        Entry previous = pending.put(key, entry);
+        if (queue.offer(entry)) {
+            flushIfClosed();
+            return;
+        }
+        
+        switch (fullQueuePolicy) {
+            case DROP:
+                restorePending(entry, previous);
+                droppedCount.incrementAndGet();
+                log.debug("Write-behind queue full, dropped cache entry for key: {}", key);
+                break;
+            case BLOCK:
+                try {
+                    // 닫힌 뒤에는 큐를 비우는 스레드가 없으므로 기다리지 않고 직접 저장
+                    while (!queue.offer(entry, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (closed) {
+                            writeThrough(entry);
+                            return;
+                        }
+                    }
+                    flushIfClosed();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    restorePending(entry, previous);
+                    droppedCount.incrementAndGet();
+                }
+                break;
+            case WRITE_THROUGH:
+            default:
+                writeThrough(entry);
+                break;
+        }
+    }
+    
+    /**
+     * close()가 마지막으로 큐를 비운 뒤에 넣은 항목은 백그라운드 스레드가 저장하지 않으므로 직접 저장합니다.
+     * close()는 closed를 먼저 바꾼 뒤 큐를 비우므로, 그 뒤에 큐에 넣은 쪽은 여기서 항상 closed를 봅니다.
+     */
+    private void flushIfClosed() {
+        if (closed) {
+            flush();
+        }
+    }
+    
+    /**
+     * 버린 항목 대신 이미 큐에 있던 같은 키의 값을 다시 대기 값으로 되돌립니다.
+     */
+    private void restorePending(Entry dropped, Entry previous) {
+        if (previous != null) {
+            pending.replace(dropped.key, dropped, previous);
+        } else {
+            pending.remove(dropped.key, dropped);
+        }
+    }
+    
+    private void runFlusher() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                
+                writeLock.lock();
+                try {
+                    writeBatch(batch);
+                } finally {
+                    writeLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Write-behind flush failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    /**
+     * 대기 중인 최신 값만 저장합니다. writeLock을 잡은 상태에서 호출해야 합니다.
+     */
+    private void writeBatch(List<Entry> batch) {
+        for (Entry entry : batch) {
+            if (pending.get(entry.key) != entry) {
+                // 더 새로운 값이 있거나 삭제된 항목
+                continue;
+            }
+            try {
+                entry.writeTo(delegate);
+                flushedCount.incrementAndGet();
+            } catch (RuntimeException e) {
+                log.error("Failed to write cache entry for key: {}", entry.key, e);
+            } finally {
+                pending.remove(entry.key, entry);
+            }
+        }
+    }
+    
+    private void writeThrough(Entry entry) {
+        writeLock.lock();
+        try {
+            pending.put(entry.key, entry);
+            entry.writeTo(delegate);
+        } finally {
+            pending.remove(entry.key, entry);
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * 저장 대기 항목
+     */
+    private static final class Entry {
+        final String key;
+        final LLMReply value;
+        final Duration ttl;
+        
+        Entry(String key, LLMReply value, Duration ttl) {
+            this.key = key;
+            this.value = value;
+            this.ttl = ttl;
+        }
+        
+        void writeTo(Cache target) {
+            if (ttl != null) {
+                target.put(key, value, ttl);
+            } else {
+                target.put(key, value);
+            }
+        }
+    }
+}
\ No newline at end of file
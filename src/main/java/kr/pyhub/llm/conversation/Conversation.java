@@ -1,9 +1,12 @@
 package kr.pyhub.llm.conversation;
 
+import kr.pyhub.llm.cache.CacheKeyHasher;
 import kr.pyhub.llm.types.Message;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -12,6 +15,13 @@ import java.util.UUID;
  * 대화 세션을 관리하는 클래스.
  * 
  * 메시지 히스토리를 자동으로 관리하고, 컨텍스트 제한을 처리합니다.
+ * 캐시 키 계산을 위해 메시지 다이제스트를 메시지 추가 시 이어서 계산하며,
+ * 앞부분이 바뀌는 경우(메시지 제거, 시스템 프롬프트 변경, 초기화)에만 다시 계산합니다.
+ * 
+ * 시스템 프롬프트와 {@link #pinContext(String)}로 고정한 컨텍스트는 항상 맨 앞에 두며
+ * 메시지 수 제한이나 초기화로 제거되지 않습니다. 이 고정된 앞부분의 마지막 메시지는
+ * 프롬프트 캐시 경계({@link Message#isCacheBreakpoint()})로 표시되어, 프롬프트 캐싱을 지원하는
+ * 프로바이더가 매 요청마다 같은 앞부분을 다시 처리하지 않도록 합니다.
  */
 @Slf4j
 @Getter
@@ -22,6 +32,10 @@ public class Conversation {
     private final int maxMessages;
     private final int maxTokens;
     private String systemPrompt;
+    private int pinnedCount;
+    
+    @Getter(AccessLevel.NONE)
+    private MessageDigest historyDigest;
     
     /**
      * 기본 설정으로 대화 생성
@@ -53,9 +67,11 @@ public class Conversation {
         this.maxTokens = maxTokens;
         this.systemPrompt = systemPrompt;
         
-        if (systemPrompt != null && !systemPrompt.trim().isEmpty()) {
+        if (hasSystemPrompt()) {
             this.messages.add(Message.system(systemPrompt));
         }
+        markStablePrefix();
+        rebuildDigest();
         
         log.debug("새 대화 세션 생성: {} (최대 메시지: {}, 최대 토큰: {})", 
             id, maxMessages, maxTokens);
@@ -83,6 +99,37 @@ public class Conversation {
         return this;
     }
     
+    /**
+     * 매 요청마다 보낼 고정 컨텍스트(문서, few-shot 예시 등) 추가.
+     * 시스템 프롬프트와 이전에 고정한 컨텍스트 다음, 대화 기록 앞에 시스템 메시지로 들어갑니다.
+     * 
+     * @param content 고정할 컨텍스트
+     * @return 이 대화 인스턴스 (메서드 체이닝)
+     */
+    public Conversation pinContext(String content) {
+        messages.add(stablePrefixSize(), Message.system(content));
+        pinnedCount++;
+        markStablePrefix();
+        rebuildDigest();
+        log.debug("고정 컨텍스트 추가: {} (고정 메시지 수: {})", id, pinnedCount);
+        return this;
+    }
+    
+    /**
+     * 고정 컨텍스트 모두 제거 (시스템 프롬프트와 대화 기록은 유지)
+     * 
+     * @return 이 대화 인스턴스 (메서드 체이닝)
+     */
+    public Conversation clearPinnedContext() {
+        int start = hasSystemPrompt() ? 1 : 0;
+        messages.subList(start, start + pinnedCount).clear();
+        pinnedCount = 0;
+        markStablePrefix();
+        rebuildDigest();
+        log.debug("고정 컨텍스트 제거됨: {}", id);
+        return this;
+    }
+    
     /**
      * 메시지 추가 (내부 메서드)
      * 
@@ -94,6 +141,9 @@ public class Conversation {
         // 메시지 수 제한 처리
         if (messages.size() > maxMessages) {
             trimMessages();
+            rebuildDigest();
+        } else {
+            CacheKeyHasher.update(historyDigest, message);
         }
         
         log.debug("메시지 추가: {} (총 메시지 수: {})", 
@@ -101,18 +151,14 @@ public class Conversation {
     }
     
     /**
-     * 오래된 메시지 제거 (시스템 프롬프트는 유지)
+     * 오래된 메시지 제거 (시스템 프롬프트와 고정 컨텍스트는 유지)
      */
     private void trimMessages() {
-        // 시스템 프롬프트가 있는지 확인
-        boolean hasSystemPrompt = !messages.isEmpty() && 
-            messages.get(0).getRole() == Message.Role.SYSTEM;
-        
-        int startIndex = hasSystemPrompt ? 1 : 0;
+        int startIndex = stablePrefixSize();
         int removeCount = messages.size() - maxMessages;
         
         if (removeCount > 0) {
-            // 시스템 프롬프트 다음부터 오래된 메시지 제거
+            // 고정된 앞부분 다음부터 오래된 메시지 제거
             for (int i = 0; i < removeCount; i++) {
                 if (messages.size() > startIndex + 1) { // 최소 1개 메시지는 유지
                     messages.remove(startIndex);
@@ -131,6 +177,65 @@ public class Conversation {
         return new ArrayList<>(messages);
     }
     
+    /**
+     * 현재 메시지 목록의 다이제스트 반환.
+     * 
+     * 반환 값은 {@link CacheKeyHasher#digestMessages(List)}로 전체 메시지를 다시 해시한 결과와
+     * 같으며, 캐시 키 생성 시 기록 전체를 다시 해시하지 않도록 사용됩니다.
+     * 
+     * @return 32바이트 메시지 다이제스트
+     */
+    public byte[] getMessagesDigest() {
+        try {
+            return ((MessageDigest) historyDigest.clone()).digest();
+        } catch (CloneNotSupportedException e) {
+            // 복제를 지원하지 않는 구현이면 전체를 다시 계산
+            return CacheKeyHasher.digestMessages(messages);
+        }
+    }
+    
+    /**
+     * 메시지 목록 전체로부터 다이제스트를 다시 계산
+     */
+    private void rebuildDigest() {
+        historyDigest = CacheKeyHasher.newDigest();
+        for (Message message : messages) {
+            CacheKeyHasher.update(historyDigest, message);
+        }
+    }
+    
+    private boolean hasSystemPrompt() {
+        return systemPrompt != null && !systemPrompt.trim().isEmpty();
+    }
+    
+    /**
+     * 매 요청마다 같은 앞부분(시스템 프롬프트 + 고정 컨텍스트)의 메시지 수
+     */
+    private int stablePrefixSize() {
+        return (hasSystemPrompt() ? 1 : 0) + pinnedCount;
+    }
+    
+    /**
+     * 고정된 앞부분의 마지막 메시지만 프롬프트 캐시 경계로 표시합니다.
+     * 이전에 반환한 목록에 영향이 없도록 메시지를 바꾸지 않고 사본으로 교체합니다.
+     * 경계 표시는 캐시 키에 포함되지 않으므로 다이제스트는 그대로입니다.
+     */
+    private void markStablePrefix() {
+        int prefixSize = stablePrefixSize();
+        for (int i = 0; i < prefixSize; i++) {
+            Message message = messages.get(i);
+            boolean last = i == prefixSize - 1;
+            if (message.isCacheBreakpoint() != last) {
+                messages.set(i, last ? message.asCacheBreakpoint() : Message.builder()
+                    .role(message.getRole())
+                    .content(message.getContent())
+                    .name(message.getName())
+                    .toolCallId(message.getToolCallId())
+                    .build());
+            }
+        }
+    }
+    
     /**
      * 메시지 개수 반환
      * 
@@ -141,15 +246,13 @@ public class Conversation {
     }
     
     /**
-     * 대화 초기화 (시스템 프롬프트만 유지)
+     * 대화 초기화 (시스템 프롬프트와 고정 컨텍스트만 유지)
      * 
      * @return 이 대화 인스턴스 (메서드 체이닝)
      */
     public Conversation clear() {
-        messages.clear();
-        if (systemPrompt != null && !systemPrompt.trim().isEmpty()) {
-            messages.add(Message.system(systemPrompt));
-        }
+        messages.subList(stablePrefixSize(), messages.size()).clear();
+        rebuildDigest();
         log.debug("대화 초기화됨: {}", id);
         return this;
     }
@@ -162,30 +265,30 @@ public class Conversation {
      */
     public Conversation setSystemPrompt(String newSystemPrompt) {
         // 기존 시스템 프롬프트 제거
-        if (!messages.isEmpty() && messages.get(0).getRole() == Message.Role.SYSTEM) {
+        if (hasSystemPrompt()) {
             messages.remove(0);
         }
         
         this.systemPrompt = newSystemPrompt;
         
         // 새로운 시스템 프롬프트 추가
-        if (newSystemPrompt != null && !newSystemPrompt.trim().isEmpty()) {
+        if (hasSystemPrompt()) {
             messages.add(0, Message.system(newSystemPrompt));
         }
+        markStablePrefix();
+        rebuildDigest();
         
         log.debug("시스템 프롬프트 변경됨: {}", id);
         return this;
     }
     
     /**
-     * 대화가 비어있는지 확인 (시스템 프롬프트 제외)
+     * 대화가 비어있는지 확인 (시스템 프롬프트와 고정 컨텍스트 제외)
      * 
      * @return 비어있으면 true
      */
     public boolean isEmpty() {
-        boolean hasSystemPrompt = !messages.isEmpty() && 
-            messages.get(0).getRole() == Message.Role.SYSTEM;
-        return messages.size() <= (hasSystemPrompt ? 1 : 0);
+        return messages.size() <= stablePrefixSize();
     }
     
     /**
@@ -0,0 +1,159 @@
+package kr.pyhub.llm.http;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holder for an OkHttp client whose connection pool and dispatcher are shared
+ * by every HTTP-based provider.
+ * 
+ * Creating an {@link OkHttpClient} per LLM instance gives each instance its own
+ * pool, dispatcher and thread set, which leaks threads and loses TLS session reuse.
+ * Providers obtain their client from {@link #shared()} unless a dedicated transport
+ * is supplied through {@link kr.pyhub.llm.Config}.
+ */
+@Slf4j
+public final class HttpTransport {
+    
+    private static final Object LOCK = new Object();
+    private static volatile HttpTransport shared;
+    
+    @Getter
+    private final HttpTransportConfig config;
+    private final OkHttpClient client;
+    
+    private HttpTransport(HttpTransportConfig config) {
+        config.validate();
+        this.config = config;
+        
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(config.getMaxRequestsPerHost());
+        
+        this.client = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(
+                config.getMaxIdleConnections(),
+                config.getKeepAlive().toMillis(),
+                TimeUnit.MILLISECONDS))
+            .dispatcher(dispatcher)
+            .protocols(config.isPreferHttp2()
+                ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : Collections.singletonList(Protocol.HTTP_1_1))
+            .connectTimeout(config.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+            .readTimeout(config.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS)
+            .writeTimeout(config.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS)
+            .build();
+    }
+    
+    /**
+     * Get the process-wide shared transport, creating it with default settings on first use.
+     * 
+     * @return The shared transport
+     */
+    public static HttpTransport shared() {
+        HttpTransport transport = shared;
+        if (transport == null) {
+            synchronized (LOCK) {
+                transport = shared;
+                if (transport == null) {
+                    transport = new HttpTransport(HttpTransportConfig.defaults());
+                    shared = transport;
+                }
+            }
+        }
+        return transport;
+    }
+    
+    /**
+     * Replace the shared transport with one built from the given settings.
+     * LLM instances created afterwards use the new transport; calls already
+     * running on the previous transport complete normally and its idle
+     * connections are released.
+     * 
+     * @param config The transport settings
+     * @return The new shared transport
+     */
+    public static HttpTransport configureShared(HttpTransportConfig config) {
+        HttpTransport transport = new HttpTransport(config);
+        HttpTransport previous;
+        synchronized (LOCK) {
+            previous = shared;
+            shared = transport;
+        }
+        if (previous != null) {
+            previous.client.connectionPool().evictAll();
+        }
+        log.info("Configured shared HTTP transport: {}", config);
+        return transport;
+    }
+    
+    /**
+     * Create a dedicated transport that is not shared with other providers.
+     * 
+     * @param config The transport settings
+     * @return A new transport
+     */
+    public static HttpTransport create(HttpTransportConfig config) {
+        return new HttpTransport(config);
+    }
+    
+    /**
+     * Get the underlying client.
+     * 
+     * @return The OkHttp client
+     */
+    public OkHttpClient client() {
+        return client;
+    }
+    
+    /**
+     * Get a client with custom timeouts that still shares this transport's
+     * connection pool and dispatcher.
+     * 
+     * @param connectTimeoutMillis Connect timeout in milliseconds
+     * @param readTimeoutMillis Read timeout in milliseconds
+     * @param writeTimeoutMillis Write timeout in milliseconds
+     * @return A client backed by the same pool and dispatcher
+     */
+    public OkHttpClient client(long connectTimeoutMillis, long readTimeoutMillis, long writeTimeoutMillis) {
+        return client.newBuilder()
+            .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+            .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+            .writeTimeout(writeTimeoutMillis, TimeUnit.MILLISECONDS)
+            .build();
+    }
+    
+    /**
+     * Get current pool and dispatcher statistics.
+     * 
+     * @return Transport statistics
+     */
+    public HttpTransportStats getStats() {
+        ConnectionPool pool = client.connectionPool();
+        Dispatcher dispatcher = client.dispatcher();
+        return HttpTransportStats.builder()
+            .connectionCount(pool.connectionCount())
+            .idleConnectionCount(pool.idleConnectionCount())
+            .runningCallsCount(dispatcher.runningCallsCount())
+            .queuedCallsCount(dispatcher.queuedCallsCount())
+            .build();
+    }
+    
+    /**
+     * Release pooled connections and stop the dispatcher's threads.
+     * Only call this for transports created with {@link #create(HttpTransportConfig)}
+     * or when the application is shutting down.
+     */
+    public void shutdown() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package kr.pyhub.llm.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Tuning options for the shared OkHttp transport used by HTTP-based providers.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class HttpTransportConfig {
+    
+    /**
+     * Maximum number of idle connections kept in the pool.
+     */
+    @Builder.Default
+    private int maxIdleConnections = 20;
+    
+    /**
+     * How long an idle connection is kept alive before eviction.
+     */
+    @Builder.Default
+    private Duration keepAlive = Duration.ofMinutes(5);
+    
+    /**
+     * Maximum number of concurrent asynchronous requests across all hosts.
+     */
+    @Builder.Default
+    private int maxRequests = 128;
+    
+    /**
+     * Maximum number of concurrent asynchronous requests per host.
+     * LLM APIs are usually served from a single host, so this is the effective limit.
+     */
+    @Builder.Default
+    private int maxRequestsPerHost = 64;
+    
+    /**
+     * Whether to negotiate HTTP/2 when the server supports it.
+     */
+    @Builder.Default
+    private boolean preferHttp2 = true;
+    
+    @Builder.Default
+    private Duration connectTimeout = Duration.ofSeconds(30);
+    
+    @Builder.Default
+    private Duration readTimeout = Duration.ofSeconds(60);
+    
+    @Builder.Default
+    private Duration writeTimeout = Duration.ofSeconds(60);
+    
+    /**
+     * Create a config with default settings.
+     */
+    public static HttpTransportConfig defaults() {
+        return HttpTransportConfig.builder().build();
+    }
+    
+    /**
+     * Validate the settings.
+     *
+     * @throws IllegalArgumentException if any setting is out of range
+     */
+    public void validate() {
+        if (maxIdleConnections < 0) {
+            throw new IllegalArgumentException("maxIdleConnections must not be negative");
+        }
+        if (maxRequests <= 0 || maxRequestsPerHost <= 0) {
+            throw new IllegalArgumentException("maxRequests and maxRequestsPerHost must be positive");
+        }
+        if (keepAlive == null || keepAlive.isNegative()) {
+            throw new IllegalArgumentException("keepAlive must not be negative");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package kr.pyhub.llm.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Point-in-time statistics of an {@link HttpTransport}'s connection pool and dispatcher.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HttpTransportStats {
+    
+    /**
+     * Total connections in the pool (active + idle).
+     */
+    private int connectionCount;
+    
+    /**
+     * Idle connections available for reuse.
+     */
+    private int idleConnectionCount;
+    
+    /**
+     * Asynchronous calls currently executing.
+     */
+    private int runningCallsCount;
+    
+    /**
+     * Asynchronous calls waiting for a dispatcher slot.
+     */
+    private int queuedCallsCount;
+}
\ No newline at end of file
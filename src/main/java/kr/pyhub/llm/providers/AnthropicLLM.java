@@ -1,5 +1,15 @@
 package kr.pyhub.llm.providers;
 
+import com.anthropic.client.AnthropicClient;
+import com.anthropic.client.okhttp.AnthropicOkHttpClient;
+import com.anthropic.models.messages.CacheControlEphemeral;
+import com.anthropic.models.messages.ContentBlock;
+import com.anthropic.models.messages.ContentBlockParam;
+import com.anthropic.models.messages.MessageCreateParams;
+import com.anthropic.models.messages.MessageParam;
+import com.anthropic.models.messages.StopReason;
+import com.anthropic.models.messages.TextBlockParam;
+import com.anthropic.models.messages.Usage;
 import kr.pyhub.llm.Config;
 import kr.pyhub.llm.base.BaseLLM;
 import kr.pyhub.llm.types.LLMReply;
@@ -7,15 +17,26 @@ import kr.pyhub.llm.types.Message;
 import kr.pyhub.llm.exceptions.LLMException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Anthropic Claude implementation using the official Anthropic Java SDK.
- * This is a simplified implementation that will be enhanced in future versions.
+ * Messages marked with {@link Message#isCacheBreakpoint()} are sent with an
+ * ephemeral {@code cache_control} marker, so the prompt prefix up to them is
+ * read from Anthropic's prompt cache on later calls.
+ * Streaming and tool calls are not yet supported.
  */
 @Slf4j
 public class AnthropicLLM extends BaseLLM {
     
+    /** The Messages API requires max_tokens */
+    private static final int DEFAULT_MAX_TOKENS = 1024;
+    /** The Messages API accepts at most four cache_control markers per request */
+    private static final int MAX_CACHE_BREAKPOINTS = 4;
+    
+    private final AnthropicClient client;
     private final Config config;
     
     /**
@@ -39,6 +60,19 @@ public class AnthropicLLM extends BaseLLM {
         super(model);
         this.config = config;
         
+        // Create Anthropic client
+        AnthropicOkHttpClient.Builder builder = AnthropicOkHttpClient.builder();
+        
+        if (config.getApiKey() != null) {
+            builder.apiKey(config.getApiKey());
+        }
+        
+        if (config.getBaseUrl() != null) {
+            builder.baseUrl(config.getBaseUrl());
+        }
+        
+        this.client = builder.build();
+        
         // Apply config settings
         if (config.getTemperature() != null) {
             withTemperature(config.getTemperature());
@@ -46,6 +80,9 @@ public class AnthropicLLM extends BaseLLM {
         if (config.getMaxTokens() != null) {
             withMaxTokens(config.getMaxTokens());
         }
+        if (config.getTopP() != null) {
+            withTopP(config.getTopP());
+        }
         if (config.getSystemPrompt() != null) {
             withSystemPrompt(config.getSystemPrompt());
         }
@@ -53,11 +90,141 @@ public class AnthropicLLM extends BaseLLM {
         log.info("Created AnthropicLLM for model: {}", model);
     }
     
+    /**
+     * Constructor for testing with mocked client
+     */
+    AnthropicLLM(String model, AnthropicClient client) {
+        super(model);
+        this.client = client;
+        this.config = Config.builder().build();
+    }
+    
     @Override
     protected LLMReply doAsk(List<Message> messages) {
-        // TODO: Implement actual Anthropic API call
-        // For now, throw an exception indicating this is not yet implemented
-        throw new LLMException("AnthropicLLM implementation is not yet complete. " +
-            "This will be implemented in a future version using the Anthropic Java SDK.");
+        try {
+            com.anthropic.models.messages.Message response = client.messages().create(buildParams(messages));
+            
+            StringBuilder text = new StringBuilder();
+            for (ContentBlock block : response.content()) {
+                block.text().ifPresent(textBlock -> text.append(textBlock.text()));
+            }
+            
+            return LLMReply.builder()
+                .text(text.toString())
+                .model(response.model().asString())
+                .finishReason(response.stopReason().map(StopReason::asString).orElse(null))
+                .usage(toUsage(response.usage()))
+                .build();
+            
+        } catch (Exception e) {
+            log.error("Failed to call Anthropic API: {}", e.getMessage(), e);
+            throw new LLMException("Failed to call Anthropic API", e);
+        }
+    }
+    
+    /**
+     * Build message creation parameters from messages and current settings.
+     * System messages go to the top-level system blocks, in order.
+     */
+    MessageCreateParams buildParams(List<Message> messages) {
+        MessageCreateParams.Builder paramsBuilder = MessageCreateParams.builder()
+            .model(getModel())
+            .maxTokens(getMaxTokens() != null ? getMaxTokens() : DEFAULT_MAX_TOKENS);
+        
+        // Keep the last markers: each covers the whole prefix before it
+        int excessBreakpoints = Math.max(0, countBreakpoints(messages) - MAX_CACHE_BREAKPOINTS);
+        int seenBreakpoints = 0;
+        
+        List<TextBlockParam> system = new ArrayList<>();
+        for (Message message : messages) {
+            boolean breakpoint = false;
+            if (message.isCacheBreakpoint()) {
+                breakpoint = seenBreakpoints++ >= excessBreakpoints;
+            }
+            TextBlockParam block = textBlock(message.getContent(), breakpoint);
+            
+            switch (message.getRole()) {
+                case SYSTEM:
+                    system.add(block);
+                    break;
+                
+                case USER:
+                    paramsBuilder.addMessage(messageParam(MessageParam.Role.USER, block));
+                    break;
+                
+                case ASSISTANT:
+                    paramsBuilder.addMessage(messageParam(MessageParam.Role.ASSISTANT, block));
+                    break;
+                
+                case TOOL:
+                    // Tool messages require tool_result blocks
+                    log.warn("Tool messages are not yet supported");
+                    break;
+                
+                default:
+                    throw new IllegalArgumentException("Unknown message role: " + message.getRole());
+            }
+        }
+        if (!system.isEmpty()) {
+            paramsBuilder.systemOfTextBlockParams(system);
+        }
+        
+        // Apply optional parameters
+        if (getTemperature() != null) {
+            paramsBuilder.temperature(getTemperature());
+        }
+        
+        if (getTopP() != null) {
+            paramsBuilder.topP(getTopP());
+        }
+        
+        return paramsBuilder.build();
+    }
+    
+    private static int countBreakpoints(List<Message> messages) {
+        int count = 0;
+        for (Message message : messages) {
+            if (message.isCacheBreakpoint()) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private static TextBlockParam textBlock(String text, boolean cacheBreakpoint) {
+        TextBlockParam.Builder builder = TextBlockParam.builder().text(text);
+        if (cacheBreakpoint) {
+            builder.cacheControl(CacheControlEphemeral.builder().build());
+        }
+        return builder.build();
+    }
+    
+    private static MessageParam messageParam(MessageParam.Role role, TextBlockParam block) {
+        return MessageParam.builder()
+            .role(role)
+            .contentOfBlockParams(Collections.singletonList(ContentBlockParam.ofText(block)))
+            .build();
+    }
+    
+    /**
+     * Convert SDK usage to LLMReply usage.
+     * Anthropic's input_tokens excludes tokens read from or written to the
+     * prompt cache, so they are added back to report the full prompt size.
+     */
+    private static LLMReply.Usage toUsage(Usage usage) {
+        long cacheRead = usage.cacheReadInputTokens().orElse(0L);
+        long cacheWrite = usage.cacheCreationInputTokens().orElse(0L);
+        long promptTokens = usage.inputTokens() + cacheRead + cacheWrite;
+        return LLMReply.Usage.builder()
+            .promptTokens((int) promptTokens)
+            .completionTokens((int) usage.outputTokens())
+            .totalTokens((int) (promptTokens + usage.outputTokens()))
+            .cachedPromptTokens((int) cacheRead)
+            .build();
+    }
+    
+    @Override
+    protected String getProviderName() {
+        return "anthropic";
     }
 }
\ No newline at end of file
@@ -28,4 +28,9 @@ public class GoogleLLM extends BaseLLM {
         // TODO: Implement Google API call
         throw new UnsupportedOperationException("GoogleLLM not yet implemented");
     }
+    
+    @Override
+    protected String getProviderName() {
+        return "google";
+    }
 }
\ No newline at end of file
@@ -28,4 +28,9 @@ public class OllamaLLM extends BaseLLM {
         // TODO: Implement Ollama API call
         throw new UnsupportedOperationException("OllamaLLM not yet implemented");
     }
+    
+    @Override
+    protected String getProviderName() {
+        return "ollama";
+    }
 }
\ No newline at end of file
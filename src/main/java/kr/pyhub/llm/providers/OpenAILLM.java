@@ -6,6 +6,7 @@ import com.openai.models.ChatModel;
 import com.openai.models.chat.completions.ChatCompletion;
 import com.openai.models.chat.completions.ChatCompletionCreateParams;
 import com.openai.models.chat.completions.ChatCompletionChunk;
+import com.openai.models.chat.completions.ChatCompletionStreamOptions;
 import com.openai.models.completions.CompletionUsage;
 import com.openai.core.http.StreamResponse;
 import kr.pyhub.llm.Config;
@@ -16,10 +17,12 @@ import kr.pyhub.llm.types.StreamChunk;
 import kr.pyhub.llm.exceptions.LLMException;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 public class OpenAILLM extends BaseLLM {
@@ -76,6 +79,9 @@ public class OpenAILLM extends BaseLLM {
         if (config.getMaxTokens() != null) {
             withMaxTokens(config.getMaxTokens());
         }
+        if (config.getTopP() != null) {
+            withTopP(config.getTopP());
+        }
         if (config.getSystemPrompt() != null) {
             withSystemPrompt(config.getSystemPrompt());
         }
@@ -93,51 +99,8 @@ public class OpenAILLM extends BaseLLM {
     @Override
     protected LLMReply doAsk(List<Message> messages) {
         try {
-            // Build request parameters
-            ChatCompletionCreateParams.Builder paramsBuilder = ChatCompletionCreateParams.builder()
-                .model(getModel());
-            
-            // Add messages using the convenience methods
-            for (Message message : messages) {
-                switch (message.getRole()) {
-                    case SYSTEM:
-                        paramsBuilder.addSystemMessage(message.getContent());
-                        break;
-                        
-                    case USER:
-                        paramsBuilder.addUserMessage(message.getContent());
-                        break;
-                        
-                    case ASSISTANT:
-                        // Assistant messages need to be added differently
-                        log.warn("Assistant messages are not directly supported by convenience methods");
-                        break;
-                        
-                    case TOOL:
-                        // Tool messages require special handling
-                        log.warn("Tool messages are not yet fully supported");
-                        break;
-                        
-                    default:
-                        throw new IllegalArgumentException("Unknown message role: " + message.getRole());
-                }
-            }
-            
-            // Apply optional parameters
-            if (getTemperature() != null) {
-                paramsBuilder.temperature(getTemperature());
-            }
-            
-            if (getMaxTokens() != null) {
-                paramsBuilder.maxCompletionTokens(getMaxTokens());
-            }
-            
-            if (config.getTopP() != null) {
-                paramsBuilder.topP(config.getTopP());
-            }
-            
             // Make API call
-            ChatCompletion completion = client.chat().completions().create(paramsBuilder.build());
+            ChatCompletion completion = client.chat().completions().create(buildParams(messages, false));
             
             // Extract response from the first choice
             List<ChatCompletion.Choice> choices = completion.choices();
@@ -156,12 +119,7 @@ public class OpenAILLM extends BaseLLM {
             
             // Add usage if available
             if (completion.usage().isPresent()) {
-                CompletionUsage usage = completion.usage().get();
-                replyBuilder.usage(LLMReply.Usage.builder()
-                    .promptTokens((int) usage.promptTokens())
-                    .completionTokens((int) usage.completionTokens())
-                    .totalTokens((int) usage.totalTokens())
-                    .build());
+                replyBuilder.usage(toUsage(completion.usage().get()));
             }
             
             return replyBuilder.build();
@@ -172,11 +130,133 @@ public class OpenAILLM extends BaseLLM {
         }
     }
     
+    /**
+     * Stream the response using the SDK's native chunk streaming.
+     * Each delta is emitted as soon as it is received; the finish chunk
+     * carries the finish reason and token usage. Cancelling the
+     * subscription closes the underlying HTTP response. The blocking SDK
+     * iterator runs on the configured executor.
+     */
+    @Override
+    protected Flux<StreamChunk> doAskStream(List<Message> messages) {
+        return Flux.using(
+                () -> client.chat().completions().createStreaming(buildParams(messages, true)),
+                this::toStreamChunks,
+                StreamResponse::close)
+            .onErrorMap(e -> !(e instanceof LLMException),
+                e -> new LLMException("Failed to stream from OpenAI API", e))
+            .subscribeOn(Schedulers.fromExecutor(getExecutor()));
+    }
+    
+    /**
+     * Map SDK chunks to stream chunks.
+     * With {@code include_usage} the usage arrives in a trailing chunk without
+     * choices, so the finish chunk is emitted only once the stream is exhausted.
+     */
+    private Flux<StreamChunk> toStreamChunks(StreamResponse<ChatCompletionChunk> response) {
+        AtomicReference<String> finishReason = new AtomicReference<>();
+        AtomicReference<LLMReply.Usage> usage = new AtomicReference<>();
+        
+        Flux<StreamChunk> deltas = Flux.fromStream(response::stream)
+            .handle((ChatCompletionChunk chunk, SynchronousSink<StreamChunk> sink) -> {
+                if (chunk.usage().isPresent()) {
+                    usage.set(toUsage(chunk.usage().get()));
+                }
+                
+                List<ChatCompletionChunk.Choice> choices = chunk.choices();
+                if (choices == null || choices.isEmpty()) {
+                    return;
+                }
+                
+                ChatCompletionChunk.Choice choice = choices.get(0);
+                if (choice.finishReason().isPresent()) {
+                    finishReason.set(choice.finishReason().get().toString());
+                }
+                Optional<String> content = choice.delta().content();
+                if (content.isPresent() && !content.get().isEmpty()) {
+                    sink.next(StreamChunk.text(content.get()));
+                }
+            });
+        
+        return deltas.concatWith(Flux.defer(() ->
+            Flux.just(StreamChunk.finish(finishReason.get(), usage.get()))));
+    }
+    
+    /**
+     * Build chat completion request parameters from messages and current settings.
+     */
+    private ChatCompletionCreateParams buildParams(List<Message> messages, boolean stream) {
+        ChatCompletionCreateParams.Builder paramsBuilder = ChatCompletionCreateParams.builder()
+            .model(getModel());
+        
+        // Add messages using the convenience methods
+        for (Message message : messages) {
+            switch (message.getRole()) {
+                case SYSTEM:
+                    paramsBuilder.addSystemMessage(message.getContent());
+                    break;
+                    
+                case USER:
+                    paramsBuilder.addUserMessage(message.getContent());
+                    break;
+                    
+                case ASSISTANT:
+                    // Assistant messages need to be added differently
+                    log.warn("Assistant messages are not directly supported by convenience methods");
+                    break;
+                    
+                case TOOL:
+                    // Tool messages require special handling
+                    log.warn("Tool messages are not yet fully supported");
+                    break;
+                    
+                default:
+                    throw new IllegalArgumentException("Unknown message role: " + message.getRole());
+            }
+        }
+        
+        // Apply optional parameters
+        if (getTemperature() != null) {
+            paramsBuilder.temperature(getTemperature());
+        }
+        
+        if (getMaxTokens() != null) {
+            paramsBuilder.maxCompletionTokens(getMaxTokens());
+        }
+        
+        if (getTopP() != null) {
+            paramsBuilder.topP(getTopP());
+        }
+        
+        if (stream) {
+            // Ask for usage in the final chunk
+            paramsBuilder.streamOptions(ChatCompletionStreamOptions.builder()
+                .includeUsage(true)
+                .build());
+        }
+        
+        return paramsBuilder.build();
+    }
+    
+    /**
+     * Convert SDK usage to LLMReply usage.
+     * OpenAI caches long prompt prefixes automatically; the cached part is
+     * reported in the prompt token details.
+     */
+    private static LLMReply.Usage toUsage(CompletionUsage usage) {
+        long cachedTokens = usage.promptTokensDetails()
+            .flatMap(CompletionUsage.PromptTokensDetails::cachedTokens)
+            .orElse(0L);
+        return LLMReply.Usage.builder()
+            .promptTokens((int) usage.promptTokens())
+            .completionTokens((int) usage.completionTokens())
+            .totalTokens((int) usage.totalTokens())
+            .cachedPromptTokens((int) cachedTokens)
+            .build();
+    }
+    
     @Override
-    public Flux<StreamChunk> askStream(List<Message> messages) {
-        // OpenAI Java SDK v2는 아직 스트리밍을 완전히 지원하지 않음
-        // 기본 구현을 사용하여 non-streaming 응답을 스트림으로 변환
-        log.info("OpenAI SDK v2 does not fully support streaming yet. Using fallback implementation.");
-        return super.askStream(messages);
+    protected String getProviderName() {
+        return "openai";
     }
 }
\ No newline at end of file
@@ -1,19 +1,26 @@
 package kr.pyhub.llm.providers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import kr.pyhub.llm.Config;
 import kr.pyhub.llm.base.BaseLLM;
 import kr.pyhub.llm.exceptions.LLMException;
+import kr.pyhub.llm.http.HttpTransport;
 import kr.pyhub.llm.types.LLMReply;
 import kr.pyhub.llm.types.Message;
+import kr.pyhub.llm.types.StreamChunk;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import okio.BufferedSource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Upstage Solar LLM implementation.
@@ -29,6 +36,7 @@ public class UpstageLLM extends BaseLLM {
     
     private static final String DEFAULT_BASE_URL = "https://api.upstage.ai/";
     private static final String CHAT_ENDPOINT = "v1/solar/chat/completions";
+    private static final String DONE_MARKER = "[DONE]";
     
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
@@ -64,22 +72,24 @@ public class UpstageLLM extends BaseLLM {
         
         this.baseUrl = config.getBaseUrl() != null ? config.getBaseUrl() : DEFAULT_BASE_URL;
         
-        // HTTP 클라이언트 설정
-        this.httpClient = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(60, TimeUnit.SECONDS)
-            .writeTimeout(60, TimeUnit.SECONDS)
-            .build();
+        // HTTP 클라이언트 설정 (공유 커넥션 풀과 디스패처 사용)
+        HttpTransport transport = config.getHttpTransport() != null
+            ? config.getHttpTransport()
+            : HttpTransport.shared();
+        this.httpClient = transport.client();
             
         this.objectMapper = new ObjectMapper();
         
-        // Config에서 temperature와 maxTokens 설정
+        // Config에서 temperature, maxTokens, topP 설정
         if (config.getTemperature() != null) {
             withTemperature(config.getTemperature());
         }
         if (config.getMaxTokens() != null) {
             withMaxTokens(config.getMaxTokens());
         }
+        if (config.getTopP() != null) {
+            withTopP(config.getTopP());
+        }
         
         log.info("Initialized UpstageLLM with model: {}", model);
     }
@@ -87,41 +97,8 @@ public class UpstageLLM extends BaseLLM {
     @Override
     protected LLMReply doAsk(List<Message> messages) {
         try {
-            // 요청 본문 생성
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("model", getModel());
-            
-            // 메시지 배열 생성
-            ArrayNode messagesArray = requestBody.putArray("messages");
-            for (Message message : messages) {
-                ObjectNode messageNode = messagesArray.addObject();
-                messageNode.put("role", message.getRole().toString().toLowerCase());
-                messageNode.put("content", message.getContent());
-            }
-            
-            // 선택적 파라미터 추가
-            if (getTemperature() != null) {
-                requestBody.put("temperature", getTemperature());
-            }
-            if (getMaxTokens() != null) {
-                requestBody.put("max_tokens", getMaxTokens());
-            }
-            
-            // HTTP 요청 생성
-            String url = baseUrl.endsWith("/") ? baseUrl + CHAT_ENDPOINT : baseUrl + "/" + CHAT_ENDPOINT;
-            RequestBody body = RequestBody.create(
-                requestBody.toString(),
-                MediaType.parse("application/json")
-            );
-            
-            Request request = new Request.Builder()
-                .url(url)
-                .header("Authorization", "Bearer " + apiKey)
-                .header("Content-Type", "application/json")
-                .post(body)
-                .build();
-            
-            log.debug("Sending request to Upstage API: {}", url);
+            Request request = buildRequest(buildRequestBody(messages, false));
+            log.debug("Sending request to Upstage API: {}", request.url());
             
             // API 호출
             try (Response response = httpClient.newCall(request).execute()) {
@@ -133,32 +110,7 @@ public class UpstageLLM extends BaseLLM {
                 String responseBody = response.body().string();
                 log.debug("Received response: {}", responseBody);
                 
-                // 응답 파싱
-                ObjectNode responseJson = (ObjectNode) objectMapper.readTree(responseBody);
-                
-                // 응답에서 필요한 정보 추출
-                ObjectNode firstChoice = (ObjectNode) responseJson.get("choices").get(0);
-                ObjectNode messageNode = (ObjectNode) firstChoice.get("message");
-                String content = messageNode.get("content").asText();
-                String finishReason = firstChoice.get("finish_reason").asText();
-                
-                // 사용량 정보 추출
-                LLMReply.Usage usage = null;
-                if (responseJson.has("usage")) {
-                    ObjectNode usageNode = (ObjectNode) responseJson.get("usage");
-                    usage = LLMReply.Usage.builder()
-                        .promptTokens(usageNode.get("prompt_tokens").asInt())
-                        .completionTokens(usageNode.get("completion_tokens").asInt())
-                        .totalTokens(usageNode.get("total_tokens").asInt())
-                        .build();
-                }
-                
-                return LLMReply.builder()
-                    .text(content)
-                    .model(getModel())
-                    .finishReason(finishReason)
-                    .usage(usage)
-                    .build();
+                return parseReply(responseBody);
             }
             
         } catch (IOException e) {
@@ -167,4 +119,273 @@ public class UpstageLLM extends BaseLLM {
             throw new LLMException("Error processing Upstage API response", e);
         }
     }
+    
+    /**
+     * Send the request with OkHttp's asynchronous dispatcher.
+     * No thread is held while waiting for the response; cancelling the
+     * returned future cancels the HTTP call.
+     */
+    @Override
+    protected CompletableFuture<LLMReply> doAskAsync(List<Message> messages) {
+        CompletableFuture<LLMReply> future = new CompletableFuture<>();
+        
+        Request request;
+        try {
+            request = buildRequest(buildRequestBody(messages, false));
+        } catch (Exception e) {
+            future.completeExceptionally(new LLMException("Failed to build Upstage request", e));
+            return future;
+        }
+        
+        log.debug("Sending async request to Upstage API: {}", request.url());
+        Call call = httpClient.newCall(request);
+        future.whenComplete((reply, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call failedCall, IOException e) {
+                future.completeExceptionally(new LLMException("Failed to communicate with Upstage API", e));
+            }
+            
+            @Override
+            public void onResponse(Call completedCall, Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful()) {
+                        String errorBody = body != null ? body.string() : "No error details";
+                        future.completeExceptionally(
+                            new LLMException("Upstage API error: " + response.code() + " - " + errorBody));
+                        return;
+                    }
+                    
+                    String responseBody = body != null ? body.string() : "";
+                    log.debug("Received response: {}", responseBody);
+                    future.complete(parseReply(responseBody));
+                } catch (IOException e) {
+                    future.completeExceptionally(new LLMException("Failed to communicate with Upstage API", e));
+                } catch (Exception e) {
+                    future.completeExceptionally(new LLMException("Error processing Upstage API response", e));
+                }
+            }
+        });
+        
+        return future;
+    }
+    
+    /**
+     * Stream the response token by token using server-sent events.
+     * Chunks are emitted as soon as each event arrives; cancelling the
+     * subscription cancels the underlying HTTP call.
+     */
+    @Override
+    protected Flux<StreamChunk> doAskStream(List<Message> messages) {
+        return Flux.create(sink -> {
+            Request request;
+            try {
+                request = buildRequest(buildRequestBody(messages, true));
+            } catch (Exception e) {
+                sink.error(new LLMException("Failed to build Upstage streaming request", e));
+                return;
+            }
+            
+            log.debug("Sending streaming request to Upstage API: {}", request.url());
+            Call call = httpClient.newCall(request);
+            sink.onDispose(call::cancel);
+            
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call failedCall, IOException e) {
+                    if (!failedCall.isCanceled()) {
+                        sink.error(new LLMException("Failed to communicate with Upstage API", e));
+                    }
+                }
+                
+                @Override
+                public void onResponse(Call streamingCall, Response response) {
+                    try (ResponseBody body = response.body()) {
+                        if (!response.isSuccessful()) {
+                            String errorBody = body != null ? body.string() : "No error details";
+                            sink.error(new LLMException("Upstage API error: " + response.code() + " - " + errorBody));
+                            return;
+                        }
+                        if (body == null) {
+                            sink.error(new LLMException("Upstage API returned an empty stream"));
+                            return;
+                        }
+                        readEventStream(body.source(), sink);
+                    } catch (IOException e) {
+                        if (!streamingCall.isCanceled()) {
+                            sink.error(new LLMException("Failed to read Upstage event stream", e));
+                        }
+                    } catch (Exception e) {
+                        sink.error(new LLMException("Error processing Upstage event stream", e));
+                    }
+                }
+            });
+        });
+    }
+    
+    /**
+     * Read server-sent events from the response body and emit a chunk per delta.
+     * The finish chunk is emitted at {@code [DONE]} (or end of stream) so that a
+     * trailing usage-only event can still be attached to it. A stream that ends
+     * before {@code [DONE]} without a finish reason was cut off and fails, so the
+     * partial reply is never cached as complete.
+     */
+    private void readEventStream(BufferedSource source, FluxSink<StreamChunk> sink) throws IOException {
+        String finishReason = null;
+        LLMReply.Usage usage = null;
+        StringBuilder data = new StringBuilder();
+        boolean done = false;
+        
+        while (!sink.isCancelled()) {
+            String line = source.readUtf8Line();
+            if (line == null || line.isEmpty()) {
+                // 빈 줄은 이벤트의 끝
+                if (data.length() > 0) {
+                    String payload = data.toString();
+                    data.setLength(0);
+                    if (DONE_MARKER.equals(payload)) {
+                        done = true;
+                        break;
+                    }
+                    
+                    JsonNode event = objectMapper.readTree(payload);
+                    JsonNode choices = event.get("choices");
+                    if (choices != null && choices.size() > 0) {
+                        JsonNode choice = choices.get(0);
+                        JsonNode delta = choice.get("delta");
+                        if (delta != null && delta.hasNonNull("content")) {
+                            String content = delta.get("content").asText();
+                            if (!content.isEmpty()) {
+                                sink.next(StreamChunk.text(content));
+                            }
+                        }
+                        if (choice.hasNonNull("finish_reason")) {
+                            finishReason = choice.get("finish_reason").asText();
+                        }
+                    }
+                    LLMReply.Usage eventUsage = parseUsage(event);
+                    if (eventUsage != null) {
+                        usage = eventUsage;
+                    }
+                }
+                if (line == null) {
+                    break;
+                }
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(line.substring(5).trim());
+            }
+            // "event:", "id:", 주석(":") 라인은 무시
+        }
+        
+        if (sink.isCancelled()) {
+            return;
+        }
+        if (!done && finishReason == null) {
+            throw new EOFException("Upstage event stream ended before [DONE]");
+        }
+        sink.next(StreamChunk.finish(finishReason, usage));
+        sink.complete();
+    }
+    
+    /**
+     * Build the chat completion request body.
+     */
+    private ObjectNode buildRequestBody(List<Message> messages, boolean stream) {
+        ObjectNode requestBody = objectMapper.createObjectNode();
+        requestBody.put("model", getModel());
+        
+        // 메시지 배열 생성
+        ArrayNode messagesArray = requestBody.putArray("messages");
+        for (Message message : messages) {
+            ObjectNode messageNode = messagesArray.addObject();
+            messageNode.put("role", message.getRole().toString().toLowerCase());
+            messageNode.put("content", message.getContent());
+        }
+        
+        // 선택적 파라미터 추가
+        if (getTemperature() != null) {
+            requestBody.put("temperature", getTemperature());
+        }
+        if (getMaxTokens() != null) {
+            requestBody.put("max_tokens", getMaxTokens());
+        }
+        if (getTopP() != null) {
+            requestBody.put("top_p", getTopP());
+        }
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+        return requestBody;
+    }
+    
+    /**
+     * Build the HTTP request for the given body.
+     */
+    private Request buildRequest(ObjectNode requestBody) {
+        String url = baseUrl.endsWith("/") ? baseUrl + CHAT_ENDPOINT : baseUrl + "/" + CHAT_ENDPOINT;
+        RequestBody body = RequestBody.create(
+            requestBody.toString(),
+            MediaType.parse("application/json")
+        );
+        
+        Request.Builder builder = new Request.Builder()
+            .url(url)
+            .header("Authorization", "Bearer " + apiKey)
+            .header("Content-Type", "application/json")
+            .post(body);
+        if (requestBody.path("stream").asBoolean(false)) {
+            builder.header("Accept", "text/event-stream");
+        }
+        return builder.build();
+    }
+    
+    /**
+     * Parse a non-streaming chat completion response.
+     */
+    private LLMReply parseReply(String responseBody) throws IOException {
+        // 응답 파싱
+        ObjectNode responseJson = (ObjectNode) objectMapper.readTree(responseBody);
+        
+        // 응답에서 필요한 정보 추출
+        ObjectNode firstChoice = (ObjectNode) responseJson.get("choices").get(0);
+        ObjectNode messageNode = (ObjectNode) firstChoice.get("message");
+        String content = messageNode.get("content").asText();
+        String finishReason = firstChoice.get("finish_reason").asText();
+        
+        return LLMReply.builder()
+            .text(content)
+            .model(getModel())
+            .finishReason(finishReason)
+            .usage(parseUsage(responseJson))
+            .build();
+    }
+    
+    /**
+     * Extract token usage from a response or stream event, if present.
+     */
+    private LLMReply.Usage parseUsage(JsonNode responseJson) {
+        JsonNode usageNode = responseJson.get("usage");
+        if (usageNode == null || usageNode.isNull()) {
+            return null;
+        }
+        return LLMReply.Usage.builder()
+            .promptTokens(usageNode.path("prompt_tokens").asInt())
+            .completionTokens(usageNode.path("completion_tokens").asInt())
+            .totalTokens(usageNode.path("total_tokens").asInt())
+            .cachedPromptTokens(usageNode.path("prompt_tokens_details").path("cached_tokens").asInt())
+            .build();
+    }
+    
+    @Override
+    protected String getProviderName() {
+        return "upstage";
+    }
 }
\ No newline at end of file
@@ -46,6 +46,16 @@ public class LLMReply {
         
         @JsonProperty("total_tokens")
         private int totalTokens;
+        
+        /**
+         * 프롬프트 토큰 중 프로바이더의 프롬프트 캐시에서 읽은 토큰 수 (promptTokens에 포함됨)
+         */
+        @JsonProperty("cached_prompt_tokens")
+        private int cachedPromptTokens;
+        
+        public Usage(int promptTokens, int completionTokens, int totalTokens) {
+            this(promptTokens, completionTokens, totalTokens, 0);
+        }
     }
     
     @Data
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Data
@@ -38,6 +39,16 @@ public class Message {
     @JsonProperty("tool_call_id")
     private String toolCallId;
     
+    /**
+     * 프롬프트 캐시 경계 표시.
+     * 이 메시지까지가 매 요청마다 같은 앞부분(시스템 프롬프트, 고정 컨텍스트 등)임을 나타내며,
+     * 프롬프트 캐시를 명시해야 하는 프로바이더(Anthropic)는 여기에 cache_control을 붙입니다.
+     * 응답 내용에는 영향이 없으므로 응답 캐시 키에는 포함되지 않습니다.
+     */
+    @JsonProperty("cache_breakpoint")
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean cacheBreakpoint;
+    
     public static Message system(String content) {
         return Message.builder()
             .role(Role.SYSTEM)
@@ -66,4 +77,13 @@ public class Message {
             .toolCallId(toolCallId)
             .build();
     }
+    
+    /**
+     * 프롬프트 캐시 경계로 표시한 사본 반환
+     * 
+     * @return 같은 내용에 cacheBreakpoint가 설정된 메시지
+     */
+    public Message asCacheBreakpoint() {
+        return new Message(role, content, name, toolCallId, true);
+    }
 }
\ No newline at end of file
@@ -48,6 +48,11 @@ public class StreamChunk {
      */
     private Object metadata;
     
+    /**
+     * 토큰 사용량 (완료 청크에만 포함, 프로바이더가 제공하는 경우)
+     */
+    private LLMReply.Usage usage;
+    
     /**
      * 텍스트 청크 생성 헬퍼 메서드
      */
@@ -69,4 +74,16 @@ public class StreamChunk {
             .finishReason(reason)
             .build();
     }
+    
+    /**
+     * 사용량 정보를 포함한 완료 청크 생성 헬퍼 메서드
+     */
+    public static StreamChunk finish(String reason, LLMReply.Usage usage) {
+        return StreamChunk.builder()
+            .content("")
+            .finished(true)
+            .finishReason(reason)
+            .usage(usage)
+            .build();
+    }
 }
\ No newline at end of file
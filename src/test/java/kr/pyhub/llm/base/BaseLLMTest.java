@@ -1,5 +1,9 @@
 package kr.pyhub.llm.base;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import kr.pyhub.llm.cache.MemoryCache;
+import kr.pyhub.llm.tools.AbstractTool;
+import kr.pyhub.llm.tools.ToolResult;
 import kr.pyhub.llm.types.LLMReply;
 import kr.pyhub.llm.types.Message;
 import kr.pyhub.llm.exceptions.LLMException;
@@ -9,9 +13,13 @@ import org.junit.jupiter.api.DisplayName;
 import org.mockito.Mockito;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -79,6 +87,142 @@ class BaseLLMTest {
         assertThat(reply.getText()).isEqualTo(expectedResponse);
     }
     
+    @Test
+    @DisplayName("askAsync는 프로바이더의 doAskAsync를 사용해야 한다")
+    void testAskAsyncUsesProviderHook() throws Exception {
+        // Given
+        CompletableFuture<LLMReply> pending = new CompletableFuture<>();
+        llm.setAsyncReply(pending);
+        
+        // When
+        CompletableFuture<LLMReply> future = llm.askAsync("Hello");
+        
+        // Then: 프로바이더가 완료하기 전까지 대기 상태
+        assertThat(future).isNotDone();
+        pending.complete(LLMReply.builder().text("from hook").build());
+        assertThat(future.get().getText()).isEqualTo("from hook");
+    }
+    
+    @Test
+    @DisplayName("askAsync 실패는 LLMException으로 전달되어야 한다")
+    void testAskAsyncFailure() {
+        // Given
+        CompletableFuture<LLMReply> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("provider down"));
+        llm.setAsyncReply(failed);
+        
+        // When & Then
+        assertThatThrownBy(() -> llm.askAsync("Hello").get())
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(LLMException.class)
+            .hasRootCauseMessage("provider down");
+    }
+    
+    @Test
+    @DisplayName("askAsync 실패가 LLMException이면 감싸지 않고 그대로 전달해야 한다")
+    void testAskAsyncPassesLLMExceptionThrough() {
+        // Given
+        CompletableFuture<LLMReply> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new LLMException("Upstage API error: 400"));
+        llm.setAsyncReply(failed);
+        
+        // When & Then
+        assertThatThrownBy(() -> llm.askAsync("Hello").get())
+            .isInstanceOf(ExecutionException.class)
+            .cause()
+            .isInstanceOf(LLMException.class)
+            .hasMessage("Upstage API error: 400")
+            .hasNoCause();
+    }
+    
+    @Test
+    @DisplayName("askAsync가 반환한 future를 취소하면 프로바이더 호출도 취소되어야 한다")
+    void testAskAsyncCancelsProviderCall() {
+        // Given
+        CompletableFuture<LLMReply> pending = new CompletableFuture<>();
+        llm.setAsyncReply(pending);
+        
+        // When
+        CompletableFuture<LLMReply> future = llm.askAsync("Hello");
+        future.cancel(true);
+        
+        // Then
+        assertThat(pending).isCancelled();
+        
+        // Given: 캐시를 사용하고 요청을 합치지 않는 경우
+        CompletableFuture<LLMReply> cachedPending = new CompletableFuture<>();
+        llm.setAsyncReply(cachedPending);
+        llm.withCache(new MemoryCache()).withRequestCoalescing(false).withExecutor(Runnable::run);
+        
+        // When
+        llm.askAsync("Hello").cancel(true);
+        
+        // Then
+        assertThat(cachedPending).isCancelled();
+    }
+    
+    @Test
+    @DisplayName("withExecutor로 지정한 executor에서 비동기 작업이 실행되어야 한다")
+    void testAskAsyncRunsOnConfiguredExecutor() throws Exception {
+        // Given
+        AtomicInteger executed = new AtomicInteger();
+        Executor countingExecutor = command -> {
+            executed.incrementAndGet();
+            new Thread(command).start();
+        };
+        llm.withExecutor(countingExecutor);
+        
+        // When
+        LLMReply reply = llm.askAsync("Hello").get();
+        
+        // Then
+        assertThat(reply.getText()).isEqualTo("Default response");
+        assertThat(executed.get()).isEqualTo(1);
+        assertThat(llm.getExecutor()).isSameAs(countingExecutor);
+    }
+    
+    @Test
+    @DisplayName("executor를 지정하지 않으면 기본 executor를 사용해야 한다")
+    void testDefaultExecutor() {
+        assertThat(llm.getExecutor()).isSameAs(LLMExecutors.defaultExecutor());
+        assertThat(LLMExecutors.isVirtualThreadSupported())
+            .isEqualTo(Integer.parseInt(System.getProperty("java.specification.version").replaceFirst("^1\\.", "")) >= 21);
+        assertThatThrownBy(() -> llm.withExecutor(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    @DisplayName("도구는 executor에서 실행되어야 한다")
+    void testExecuteToolAsync() throws Exception {
+        // Given
+        AtomicInteger executed = new AtomicInteger();
+        llm.withExecutor(command -> {
+            executed.incrementAndGet();
+            command.run();
+        });
+        llm.withTools(new AbstractTool("echo", "Echo the input") {
+            @Override
+            public JsonNode getSchema() {
+                return null;
+            }
+            
+            @Override
+            public ToolResult execute(Map<String, Object> args) {
+                return ToolResult.success(String.valueOf(args.get("text")));
+            }
+        });
+        
+        // When
+        ToolResult result = llm.executeToolAsync("echo", Collections.singletonMap("text", "hi")).get();
+        ToolResult missing = llm.executeToolAsync("unknown", Collections.emptyMap()).get();
+        
+        // Then
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getOutput()).isEqualTo("hi");
+        assertThat(executed.get()).isEqualTo(1);
+        assertThat(missing.isSuccess()).isFalse();
+    }
+    
     @Test
     @DisplayName("withSystemPrompt 메서드는 시스템 프롬프트를 설정할 수 있어야 한다")
     void testWithSystemPrompt() {
@@ -133,6 +277,21 @@ class BaseLLMTest {
             .hasMessageContaining("Temperature must be between 0 and 2");
     }
     
+    @Test
+    @DisplayName("withTopP 메서드는 Config와 같은 0~1 범위를 허용해야 한다")
+    void testWithTopPRange() {
+        assertThat(llm.withTopP(0.0).getTopP()).isEqualTo(0.0);
+        assertThat(llm.withTopP(1.0).getTopP()).isEqualTo(1.0);
+        
+        assertThatThrownBy(() -> llm.withTopP(-0.1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Top-p must be between 0 and 1");
+        
+        assertThatThrownBy(() -> llm.withTopP(1.1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Top-p must be between 0 and 1");
+    }
+    
     @Test
     @DisplayName("잘못된 maxTokens 값은 예외를 발생시켜야 한다")
     void testInvalidMaxTokens() {
@@ -154,6 +313,7 @@ class BaseLLMTest {
     // Test implementation of BaseLLM for testing purposes
     private static class TestLLM extends BaseLLM {
         private String mockResponse = "Default response";
+        private CompletableFuture<LLMReply> asyncReply;
         
         public TestLLM() {
             super("test-model");
@@ -163,6 +323,15 @@ class BaseLLMTest {
             this.mockResponse = response;
         }
         
+        public void setAsyncReply(CompletableFuture<LLMReply> asyncReply) {
+            this.asyncReply = asyncReply;
+        }
+        
+        @Override
+        protected CompletableFuture<LLMReply> doAskAsync(List<Message> messages) {
+            return asyncReply != null ? asyncReply : super.doAskAsync(messages);
+        }
+        
         @Override
         protected LLMReply doAsk(List<Message> messages) {
             return LLMReply.builder()
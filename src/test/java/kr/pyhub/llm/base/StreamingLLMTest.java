@@ -1,5 +1,6 @@
 package kr.pyhub.llm.base;
 
+import kr.pyhub.llm.cache.MemoryCache;
 import kr.pyhub.llm.types.LLMReply;
 import kr.pyhub.llm.types.Message;
 import kr.pyhub.llm.types.StreamChunk;
@@ -11,6 +12,8 @@ import reactor.test.StepVerifier;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -83,11 +86,87 @@ class StreamingLLMTest {
         assertThat(result).isEqualTo("Hello from stream!");
     }
     
+    @Test
+    @DisplayName("캐시 미스 스트림은 완료 후 저장되고 다음 호출은 캐시에서 재생해야 함")
+    void shouldReplayCachedStream() {
+        // Given
+        TestStreamingLLM llm = new TestStreamingLLM();
+        MemoryCache cache = new MemoryCache();
+        llm.withCache(cache);
+        List<Message> messages = Arrays.asList(Message.user("Hello, stream!"));
+        
+        // When
+        String first = collectText(llm.askStream(messages));
+        List<StreamChunk> replayed = llm.askStream(messages).collectList().block(Duration.ofSeconds(5));
+        
+        // Then
+        assertThat(first).isEqualTo("Hello from stream!");
+        assertThat(llm.getStreamCalls()).isEqualTo(1);
+        assertThat(replayed).isNotNull();
+        assertThat(replayed.get(replayed.size() - 1).isFinished()).isTrue();
+        assertThat(replayed.get(replayed.size() - 1).getFinishReason()).isEqualTo("stop");
+        assertThat(replayed.get(replayed.size() - 1).getUsage().getTotalTokens()).isEqualTo(7);
+        assertThat(replayed.stream()
+            .filter(chunk -> !chunk.isFinished())
+            .map(StreamChunk::getContent)
+            .collect(Collectors.joining())).isEqualTo("Hello from stream!");
+        assertThat(cache.getStats().getHitCount()).isEqualTo(1);
+        assertThat(cache.getStats().getLoadCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("캐시 미스 스트림은 버퍼링 없이 바로 내보내고, 중간에 취소되면 저장하지 않아야 함")
+    void shouldPassThroughChunksWithoutBuffering() {
+        // Given: 첫 청크 이후 끝나지 않는 스트림
+        TestStreamingLLM llm = new TestStreamingLLM();
+        llm.setNeverFinish(true);
+        MemoryCache cache = new MemoryCache();
+        llm.withCache(cache);
+        List<Message> messages = Arrays.asList(Message.user("Hello, stream!"));
+        
+        // When/Then
+        StepVerifier.create(llm.askStream(messages))
+            .expectNextMatches(chunk -> "Hello".equals(chunk.getContent()))
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+        
+        assertThat(cache.size()).isZero();
+    }
+    
+    @Test
+    @DisplayName("에러로 끝난 스트림은 캐시에 저장하지 않아야 함")
+    void shouldNotCacheFailedStream() {
+        // Given
+        TestStreamingLLM llm = new TestStreamingLLM();
+        llm.setShouldError(true);
+        MemoryCache cache = new MemoryCache();
+        llm.withCache(cache);
+        
+        // When
+        StepVerifier.create(llm.askStream(Arrays.asList(Message.user("Cause error"))))
+            .expectNextCount(1)
+            .expectError()
+            .verify(Duration.ofSeconds(5));
+        
+        // Then
+        assertThat(cache.size()).isZero();
+    }
+    
+    private static String collectText(Flux<StreamChunk> stream) {
+        return stream
+            .filter(chunk -> !chunk.isFinished())
+            .map(StreamChunk::getContent)
+            .collect(Collectors.joining())
+            .block(Duration.ofSeconds(5));
+    }
+    
     /**
      * 테스트용 스트리밍 LLM 구현
      */
     static class TestStreamingLLM extends BaseLLM {
         private boolean shouldError = false;
+        private boolean neverFinish = false;
+        private final AtomicInteger streamCalls = new AtomicInteger();
         
         public TestStreamingLLM() {
             super("test-streaming-model");
@@ -97,6 +176,14 @@ class StreamingLLMTest {
             this.shouldError = shouldError;
         }
         
+        public void setNeverFinish(boolean neverFinish) {
+            this.neverFinish = neverFinish;
+        }
+        
+        public int getStreamCalls() {
+            return streamCalls.get();
+        }
+        
         @Override
         protected LLMReply doAsk(List<Message> messages) {
             return LLMReply.builder()
@@ -106,7 +193,11 @@ class StreamingLLMTest {
         }
         
         @Override
-        public Flux<StreamChunk> askStream(List<Message> messages) {
+        protected Flux<StreamChunk> doAskStream(List<Message> messages) {
+            streamCalls.incrementAndGet();
+            if (neverFinish) {
+                return Flux.just(StreamChunk.text("Hello")).concatWith(Flux.never());
+            }
             if (shouldError) {
                 return Flux.just("Starting")
                     .map(content -> StreamChunk.builder()
@@ -125,6 +216,7 @@ class StreamingLLMTest {
                     .content("")
                     .finished(true)
                     .finishReason("stop")
+                    .usage(new LLMReply.Usage(5, 2, 7))
                     .build()));
         }
     }
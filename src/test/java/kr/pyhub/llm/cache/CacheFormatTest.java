@@ -0,0 +1,161 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 캐시 저장 형식 테스트
+ */
+class CacheFormatTest {
+    
+    @Test
+    @DisplayName("기본 형식은 Smile로 저장하고 그대로 읽어야 함")
+    void shouldRoundTripWithDefaultFormat() throws IOException {
+        // Given
+        LLMReply reply = reply("Hello");
+        
+        // When
+        byte[] bytes = CacheFormat.defaults().write(reply);
+        
+        // Then
+        assertThat(bytes[0]).isEqualTo(CacheFormat.MAGIC);
+        assertThat(bytes[1]).isEqualTo((byte) SmileCacheCodec.ID);
+        assertThat(CacheFormat.defaults().read(bytes)).isEqualTo(reply);
+    }
+    
+    @Test
+    @DisplayName("압축하지 않은 JSON은 헤더 없이 저장되어야 함")
+    void shouldWriteHeaderlessJson() throws IOException {
+        // When
+        byte[] bytes = CacheFormat.json().write(reply("Hello"));
+        
+        // Then
+        assertThat(new String(bytes, StandardCharsets.UTF_8)).startsWith("{");
+        assertThat(CacheFormat.defaults().read(bytes).getText()).isEqualTo("Hello");
+    }
+    
+    @Test
+    @DisplayName("임계값보다 큰 항목은 압축되어야 함")
+    void shouldCompressLargeEntries() throws IOException {
+        // Given
+        LLMReply large = reply(repeat("The quick brown fox jumps over the lazy dog. ", 200));
+        
+        // When
+        byte[] compressed = CacheFormat.defaults().write(large);
+        byte[] json = CacheFormat.json().write(large);
+        byte[] small = CacheFormat.defaults().write(reply("Hi"));
+        
+        // Then
+        assertThat(compressed[1] & 0x80).isNotZero();
+        assertThat(small[1] & 0x80).isZero();
+        assertThat(compressed.length).isLessThan(json.length / 10);
+        assertThat(CacheFormat.json().read(compressed)).isEqualTo(large);
+    }
+    
+    @Test
+    @DisplayName("등록한 사용자 정의 코덱으로 저장한 항목을 읽어야 함")
+    void shouldReadCustomCodec() throws IOException {
+        // Given
+        CacheCodec custom = new TextOnlyCodec();
+        CacheFormat writer = CacheFormat.builder().codec(custom).compression(CacheFormat.Compression.NONE).build();
+        byte[] bytes = writer.write(reply("Custom"));
+        
+        // When/Then
+        assertThat(CacheFormat.builder().readCodec(custom).build().read(bytes).getText()).isEqualTo("Custom");
+        assertThatThrownBy(() -> CacheFormat.defaults().read(bytes))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Unknown cache codec id");
+    }
+    
+    @Test
+    @DisplayName("손상된 압축 데이터는 IOException이어야 함")
+    void shouldRejectCorruptedCompressedData() throws IOException {
+        // Given
+        byte[] bytes = CacheFormat.defaults().write(reply(repeat("abc ", 1000)));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+        
+        // When/Then
+        assertThatThrownBy(() -> CacheFormat.defaults().read(truncated))
+            .isInstanceOf(IOException.class);
+    }
+    
+    @Test
+    @DisplayName("원래 길이 헤더가 손상된 항목은 메모리를 할당하지 않고 IOException이어야 함")
+    void shouldRejectCorruptedLengthHeader() throws IOException {
+        // Given
+        byte[] bytes = CacheFormat.defaults().write(reply(repeat("abc ", 1000)));
+        byte[] huge = bytes.clone();
+        ByteBuffer.wrap(huge, 2, 4).putInt(Integer.MAX_VALUE);
+        byte[] negative = bytes.clone();
+        ByteBuffer.wrap(negative, 2, 4).putInt(-1);
+        
+        // When/Then
+        assertThatThrownBy(() -> CacheFormat.defaults().read(huge))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Invalid cache entry length");
+        assertThatThrownBy(() -> CacheFormat.defaults().read(negative))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Invalid cache entry length");
+    }
+    
+    @Test
+    @DisplayName("잘못된 코덱 ID는 거부해야 함")
+    void shouldRejectInvalidCodecId() {
+        CacheCodec invalid = new TextOnlyCodec() {
+            @Override
+            public int getId() {
+                return 200;
+            }
+        };
+        assertThatThrownBy(() -> CacheFormat.builder().codec(invalid).build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static LLMReply reply(String text) {
+        return LLMReply.builder()
+            .text(text)
+            .model("gpt-4o-mini")
+            .finishReason("stop")
+            .usage(new LLMReply.Usage(10, 20, 30))
+            .rawResponse(Collections.singletonMap("id", "chatcmpl-123"))
+            .build();
+    }
+    
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * 텍스트만 저장하는 테스트용 코덱
+     */
+    private static class TextOnlyCodec implements CacheCodec {
+        @Override
+        public int getId() {
+            return 42;
+        }
+        
+        @Override
+        public byte[] encode(LLMReply value) {
+            return value.getText().getBytes(StandardCharsets.UTF_8);
+        }
+        
+        @Override
+        public LLMReply decode(byte[] data, int offset, int length) {
+            return LLMReply.builder().text(new String(data, offset, length, StandardCharsets.UTF_8)).build();
+        }
+    }
+}
\ No newline at end of file
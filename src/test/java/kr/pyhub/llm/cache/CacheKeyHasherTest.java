@@ -0,0 +1,203 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.Message;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 캐시 키 해시 테스트
+ */
+class CacheKeyHasherTest {
+    
+    @Test
+    @DisplayName("필드 경계가 다르면 다른 키를 생성해야 함")
+    void shouldNotCollideAcrossFieldBoundaries() {
+        // Given: 기존 방식에서는 "role:content|..." 문자열이 동일해짐
+        List<Message> first = Arrays.asList(Message.user("a|ASSISTANT:b"));
+        List<Message> second = Arrays.asList(Message.user("a"), Message.assistant("b"));
+        
+        // When
+        String key1 = CacheKeyHasher.key(CacheKeyHasher.digestMessages(first), "m", null, null);
+        String key2 = CacheKeyHasher.key(CacheKeyHasher.digestMessages(second), "m", null, null);
+        
+        // Then
+        assertThat(key1).isNotEqualTo(key2);
+        assertThat(CacheKeyHasher.key(new byte[32], "ab", null, null))
+            .isNotEqualTo(CacheKeyHasher.key(new byte[32], "a", null, null));
+    }
+    
+    @Test
+    @DisplayName("null 파라미터와 값이 있는 파라미터는 구분되어야 함")
+    void shouldDistinguishNullParameters() {
+        byte[] digest = CacheKeyHasher.digestMessages(Arrays.asList(Message.user("Hi")));
+        
+        assertThat(CacheKeyHasher.key(digest, "m", null, 0))
+            .isNotEqualTo(CacheKeyHasher.key(digest, "m", 0.0, null))
+            .isNotEqualTo(CacheKeyHasher.key(digest, "m", null, null))
+            .hasSize(64)
+            .matches("[0-9a-f]+");
+    }
+    
+    @Test
+    @DisplayName("메시지를 이어서 입력한 다이제스트는 전체 다이제스트와 같아야 함")
+    void shouldSupportIncrementalDigest() {
+        // Given
+        List<Message> messages = Arrays.asList(
+            Message.system("You are helpful"),
+            Message.user("안녕하세요 😀"),
+            Message.assistant(null));
+        
+        // When
+        MessageDigest rolling = CacheKeyHasher.newDigest();
+        for (Message message : messages) {
+            CacheKeyHasher.update(rolling, message);
+        }
+        
+        // Then
+        assertThat(rolling.digest()).isEqualTo(CacheKeyHasher.digestMessages(messages));
+    }
+    
+    @Test
+    @DisplayName("16진수 변환은 표준 SHA-256 결과와 같아야 함")
+    void shouldProduceStandardSha256Hex() {
+        assertThat(CacheKeyHasher.sha256Hex("abc"))
+            .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+    
+    @Test
+    @Tag("benchmark")
+    @DisplayName("키 생성 시 할당되는 메모리가 기존 방식보다 크게 줄어야 함")
+    void shouldAllocateLessThanLegacyKeyGeneration() {
+        AllocationCounter allocation = AllocationCounter.create();
+        assumeTrue(allocation != null, "Thread allocation measurement is not supported");
+        
+        // Given: 100개 메시지로 이루어진 대화
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            messages.add(i % 2 == 0
+                ? Message.user("질문 " + i + ": " + repeat("How do I configure the cache? ", 20))
+                : Message.assistant("답변 " + i + ": " + repeat("You can use MemoryCache or FileCache. ", 20)));
+        }
+        MemoryCache cache = new MemoryCache();
+        int iterations = 200;
+        
+        // 워밍업
+        for (int i = 0; i < iterations; i++) {
+            legacyKey(messages, "gpt-4o-mini", 0.7, 1000);
+            cache.generateKey(messages, "gpt-4o-mini", 0.7, 1000);
+        }
+        
+        // When
+        long legacyBytes = measure(allocation, () -> {
+            for (int i = 0; i < iterations; i++) {
+                legacyKey(messages, "gpt-4o-mini", 0.7, 1000);
+            }
+        }) / iterations;
+        long currentBytes = measure(allocation, () -> {
+            for (int i = 0; i < iterations; i++) {
+                cache.generateKey(messages, "gpt-4o-mini", 0.7, 1000);
+            }
+        }) / iterations;
+        
+        // Then
+        assertThat(currentBytes).isLessThan(legacyBytes / 20);
+    }
+    
+    private static long measure(AllocationCounter allocation, Runnable task) {
+        long before = allocation.allocatedBytes();
+        task.run();
+        return allocation.allocatedBytes() - before;
+    }
+    
+    /**
+     * 현재 스레드의 할당 바이트 수.
+     * JVM 전용 API({@code com.sun.management.ThreadMXBean})는 리플렉션으로 호출하며, 지원하지 않으면 null
+     */
+    private static final class AllocationCounter {
+        private final ThreadMXBean bean;
+        private final Method getThreadAllocatedBytes;
+        
+        private AllocationCounter(ThreadMXBean bean, Method getThreadAllocatedBytes) {
+            this.bean = bean;
+            this.getThreadAllocatedBytes = getThreadAllocatedBytes;
+        }
+        
+        static AllocationCounter create() {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            try {
+                Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+                if (!type.isInstance(bean)
+                    || !(Boolean) type.getMethod("isThreadAllocatedMemorySupported").invoke(bean)) {
+                    return null;
+                }
+                type.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(bean, true);
+                return new AllocationCounter(bean, type.getMethod("getThreadAllocatedBytes", long.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+        
+        long allocatedBytes() {
+            try {
+                return (Long) getThreadAllocatedBytes.invoke(bean, Thread.currentThread().getId());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+    
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * 이전 AbstractCache.generateKey 구현
+     */
+    private static String legacyKey(List<Message> messages, String model, Double temperature, Integer maxTokens) {
+        StringBuilder keyBuilder = new StringBuilder();
+        keyBuilder.append("model:").append(model).append("|");
+        if (temperature != null) {
+            keyBuilder.append("temp:").append(temperature).append("|");
+        }
+        if (maxTokens != null) {
+            keyBuilder.append("max:").append(maxTokens).append("|");
+        }
+        String messagesStr = messages.stream()
+            .map(msg -> msg.getRole() + ":" + msg.getContent())
+            .collect(Collectors.joining("|"));
+        keyBuilder.append("messages:").append(messagesStr);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(keyBuilder.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hexString = new StringBuilder();
+            for (byte b : hash) {
+                String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1) {
+                    hexString.append('0');
+                }
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package kr.pyhub.llm.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kr.pyhub.llm.tools.AbstractTool;
+import kr.pyhub.llm.tools.Tool;
+import kr.pyhub.llm.tools.ToolResult;
+import kr.pyhub.llm.types.Message;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 캐시 키 요청 정보와 키 정책 테스트
+ */
+class CacheKeyPolicyTest {
+    
+    private final List<Message> messages = Collections.singletonList(Message.user("What is 2+2?"));
+    
+    @Test
+    @DisplayName("응답에 영향을 주는 모든 필드가 키에 반영되어야 함")
+    void shouldCoverEveryRequestShapingField() {
+        // Given
+        CacheKeySpec base = CacheKeySpec.builder()
+            .provider("openai")
+            .model("gpt-4o-mini")
+            .temperature(0.7)
+            .messages(messages)
+            .build();
+        String key = CacheKeyHasher.key(base);
+        
+        // When/Then
+        assertThat(CacheKeyHasher.key(base.toBuilder().provider("upstage").build())).isNotEqualTo(key);
+        assertThat(CacheKeyHasher.key(base.toBuilder().topP(0.9).build())).isNotEqualTo(key);
+        assertThat(CacheKeyHasher.key(base.toBuilder().tools(Collections.singletonList(tool("search", "{}"))).build()))
+            .isNotEqualTo(key);
+        assertThat(CacheKeyHasher.key(base.toBuilder()
+            .messages(Collections.singletonList(Message.builder()
+                .role(Message.Role.USER).content("What is 2+2?").name("alice").build()))
+            .build())).isNotEqualTo(key);
+        assertThat(CacheKeyHasher.key(base.toBuilder()
+            .messages(Collections.singletonList(Message.tool("4", "call_1"))).build()))
+            .isNotEqualTo(CacheKeyHasher.key(base.toBuilder()
+                .messages(Collections.singletonList(Message.tool("4", "call_2"))).build()));
+    }
+    
+    @Test
+    @DisplayName("도구 스키마가 다르면 다른 키여야 하고, 등록 순서는 무관해야 함")
+    void shouldHashToolsByContentNotOrder() {
+        // Given
+        Tool search = tool("search", "{\"type\":\"object\"}");
+        Tool weather = tool("weather", "{\"type\":\"object\"}");
+        CacheKeySpec spec = CacheKeySpec.builder().model("m").messages(messages)
+            .tools(Arrays.asList(search, weather)).build();
+        
+        // When/Then
+        assertThat(CacheKeyHasher.key(spec))
+            .isEqualTo(CacheKeyHasher.key(spec.toBuilder().tools(Arrays.asList(weather, search)).build()));
+        assertThat(CacheKeyHasher.key(spec))
+            .isNotEqualTo(CacheKeyHasher.key(spec.toBuilder()
+                .tools(Arrays.asList(tool("search", "{\"type\":\"string\"}"), weather)).build()));
+    }
+    
+    @Test
+    @DisplayName("파라미터만 지정한 키는 기존 키 계산과 같아야 함")
+    void shouldMatchParameterOnlyKey() {
+        // Given
+        CacheKeySpec spec = CacheKeySpec.builder().model("m").temperature(0.5).maxTokens(100).messages(messages).build();
+        
+        // When/Then
+        assertThat(CacheKeyHasher.key(spec))
+            .isEqualTo(CacheKeyHasher.key(CacheKeyHasher.digestMessages(messages), "m", 0.5, 100));
+        assertThat(new MemoryCache().generateKey(spec))
+            .isEqualTo(new MemoryCache().generateKey(messages, "m", 0.5, 100));
+    }
+    
+    @Test
+    @DisplayName("정규화 정책은 사용자 메시지의 대소문자와 공백 차이를 무시해야 함")
+    void shouldNormalizeUserText() {
+        // Given
+        MemoryCache cache = new MemoryCache();
+        cache.setKeyPolicy(CacheKeyPolicy.normalizeUserText());
+        List<Message> messy = Arrays.asList(Message.system("Be brief"), Message.user("  What   IS\n2+2? "));
+        
+        // When
+        String normalized = cache.generateKey(messy, "m", null, null);
+        
+        // Then
+        assertThat(normalized).isEqualTo(cache.generateKey(
+            Arrays.asList(Message.system("Be brief"), Message.user("what is 2+2?")), "m", null, null));
+        assertThat(normalized).isNotEqualTo(cache.generateKey(
+            Arrays.asList(Message.system("BE BRIEF"), Message.user("what is 2+2?")), "m", null, null));
+        assertThat(new MemoryCache().generateKey(messy, "m", null, null)).isNotEqualTo(normalized);
+    }
+    
+    @Test
+    @DisplayName("메시지를 바꾸는 정책은 미리 계산된 다이제스트를 무시해야 함")
+    void shouldDropPrecomputedDigestWhenNormalizing() {
+        // Given
+        List<Message> messy = Collections.singletonList(Message.user("HELLO"));
+        CacheKeySpec spec = CacheKeySpec.builder().model("m").messages(messy)
+            .messagesDigest(CacheKeyHasher.digestMessages(messy)).build();
+        
+        // When
+        CacheKeySpec normalized = CacheKeyPolicy.normalizeUserText().apply(spec);
+        
+        // Then
+        assertThat(normalized.getMessagesDigest()).isNull();
+        assertThat(normalized.getMessages().get(0).getContent()).isEqualTo("hello");
+        assertThat(spec.getMessages().get(0).getContent()).isEqualTo("HELLO");
+    }
+    
+    private static Tool tool(String name, String schema) {
+        return new AbstractTool(name, "Test tool " + name) {
+            @Override
+            public JsonNode getSchema() {
+                try {
+                    return new ObjectMapper().readTree(schema);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            
+            @Override
+            public ToolResult execute(Map<String, Object> args) {
+                return ToolResult.success("ok");
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.exceptions.LLMException;
+import kr.pyhub.llm.types.LLMReply;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 캐시 저장 정책 테스트
+ */
+class CacheWritePolicyTest {
+    
+    @Test
+    @DisplayName("기본 정책은 모든 응답을 캐시의 TTL로 저장하고 실패는 저장하지 않아야 함")
+    void shouldCacheAllRepliesByDefault() {
+        // Given
+        CacheWritePolicy policy = CacheWritePolicy.cacheAll();
+        LLMReply truncated = reply("length");
+        
+        // Then
+        assertThat(policy.shouldCache(truncated)).isTrue();
+        assertThat(policy.ttlFor(truncated)).isNull();
+        assertThat(policy.shouldCache(new LLMException("Bad request"))).isFalse();
+    }
+    
+    @Test
+    @DisplayName("종료 사유별로 TTL을 지정하거나 저장하지 않아야 함")
+    void shouldApplyFinishReasonRules() {
+        // Given
+        CacheWritePolicy policy = CacheWritePolicy.builder()
+            .finishReasonTtl("length", Duration.ofMinutes(1))
+            .uncachedFinishReason("content_filter")
+            .build();
+        
+        // Then
+        assertThat(policy.ttlFor(reply("length"))).isEqualTo(Duration.ofMinutes(1));
+        assertThat(policy.shouldCache(reply("content_filter"))).isFalse();
+        assertThat(policy.shouldCache(reply("stop"))).isTrue();
+        assertThat(policy.ttlFor(reply("stop"))).isNull();
+        assertThat(policy.ttlFor(reply(null))).isNull();
+    }
+    
+    @Test
+    @DisplayName("조건에 맞는 실패만 원인 메시지와 함께 저장해야 함")
+    void shouldCacheMatchingFailures() {
+        // Given
+        CacheWritePolicy policy = CacheWritePolicy.builder()
+            .errorTtl(Duration.ofSeconds(30))
+            .errorFilter(error -> error.getCause() instanceof IllegalArgumentException)
+            .build();
+        LLMException invalid = new LLMException("Failed to call API", new IllegalArgumentException("Invalid prompt"));
+        
+        // When
+        LLMReply failure = CacheWritePolicy.failureReply("test-model", invalid);
+        
+        // Then
+        assertThat(policy.shouldCache(invalid)).isTrue();
+        assertThat(policy.shouldCache(new LLMException("Timeout"))).isFalse();
+        assertThat(policy.getErrorTtl()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(CacheWritePolicy.isFailure(failure)).isTrue();
+        assertThat(CacheWritePolicy.failureMessage(failure)).isEqualTo("Failed to call API: Invalid prompt");
+        assertThat(failure.getFinishReason()).isNull();
+        assertThat(CacheWritePolicy.isFailure(reply("stop"))).isFalse();
+        // 프로바이더가 돌려준 종료 사유는 실패 표시로 보지 않음
+        assertThat(CacheWritePolicy.isFailure(reply("error"))).isFalse();
+    }
+    
+    @Test
+    @DisplayName("일시적인 실패는 저장하지 않아야 함")
+    void shouldNotCacheTransientFailures() {
+        // Given: 요청 오류(4xx)만 저장하는 정책
+        CacheWritePolicy policy = CacheWritePolicy.builder()
+            .errorTtl(Duration.ofSeconds(30))
+            .errorFilter(error -> error.getMessage().contains("API error: 400"))
+            .build();
+        
+        // Then
+        assertThat(policy.shouldCache(new LLMException("API error: 400 - invalid prompt"))).isTrue();
+        assertThat(policy.shouldCache(new LLMException("API error: 429 - rate limited"))).isFalse();
+        assertThat(policy.shouldCache(new LLMException("API error: 503 - overloaded"))).isFalse();
+        assertThat(policy.shouldCache(new LLMException("Failed to call API",
+            new SocketTimeoutException("timeout")))).isFalse();
+        assertThat(CacheWritePolicy.cacheAll().shouldCache(new LLMException("API error: 400"))).isFalse();
+    }
+    
+    @Test
+    @DisplayName("잘못된 설정은 거부해야 함")
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> CacheWritePolicy.builder().finishReasonTtl("length", Duration.ZERO).build())
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CacheWritePolicy.builder().errorFilter(error -> true).build())
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CacheWritePolicy.builder().errorTtl(Duration.ofSeconds(30)).build())
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CacheWritePolicy.builder()
+            .finishReasonTtl("length", Duration.ofMinutes(1))
+            .uncachedFinishReason("length")
+            .build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static LLMReply reply(String finishReason) {
+        return LLMReply.builder()
+            .text("Hello")
+            .model("test-model")
+            .finishReason(finishReason)
+            .build();
+    }
+}
\ No newline at end of file
@@ -6,10 +6,25 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * 파일 기반 캐시 테스트
@@ -74,11 +89,16 @@ class FileCacheTest {
         cache.put("key1", LLMReply.builder().text("Value 1").build());
         cache.put("key2", LLMReply.builder().text("Value 2").build());
         cache.put("key3", LLMReply.builder().text("Value 3").build());
+        cache.put("gone", LLMReply.builder().text("Gone").build());
+        // 다른 프로세스가 이미 지운 파일은 제거로 세지 않음
+        assertThat(cache.getCacheFilePath("gone").toFile().delete()).isTrue();
         
         // When
         cache.clear();
         
         // Then
+        assertThat(cache.getCacheFileCount()).isZero();
+        assertThat(cache.getStats().getEvictionCount(EvictionCause.EXPLICIT)).isEqualTo(3);
         assertThat(cache.get("key1")).isEmpty();
         assertThat(cache.get("key2")).isEmpty();
         assertThat(cache.get("key3")).isEmpty();
@@ -90,9 +110,10 @@ class FileCacheTest {
         // Given
         String key = "corrupted-key";
         // 직접 손상된 파일 생성
-        Path corruptedFile = tempDir.resolve(key + ".json");
+        Path corruptedFile = cache.getCacheFilePath(key);
         try {
-            java.nio.file.Files.write(corruptedFile, "{ invalid json".getBytes());
+            Files.createDirectories(corruptedFile.getParent());
+            Files.write(corruptedFile, "{ invalid json".getBytes());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -118,4 +139,349 @@ class FileCacheTest {
         assertThat(nonExistentDir).exists();
         assertThat(newCache.get("key")).isPresent();
     }
+    
+    @Test
+    @DisplayName("기본 레이아웃은 해시 하위 디렉토리에 저장해야 함")
+    void shouldStoreEntriesInShardedDirectories() {
+        // Given
+        String key = "0a1b2c3d4e5f";
+        
+        // When
+        cache.put(key, LLMReply.builder().text("Sharded").build());
+        
+        // Then
+        assertThat(cache.getLayout()).isEqualTo(FileCache.Layout.SHARDED);
+        assertThat(tempDir.resolve("0a").resolve("1b").resolve(key + ".bin")).exists();
+        assertThat(tempDir.resolve(key + ".bin")).doesNotExist();
+        assertThat(cache.get(key)).isPresent();
+    }
+    
+    @Test
+    @DisplayName("JSON 형식 캐시 파일은 들여쓰기 없이 저장되어야 함")
+    void shouldWriteCompactJson() throws IOException {
+        // Given
+        cache = FileCache.builder().directory(tempDir.toString()).format(CacheFormat.json()).build();
+        
+        // When
+        cache.put("compact-key", LLMReply.builder().text("Compact").model("test-model").build());
+        
+        // Then
+        String json = new String(Files.readAllBytes(cache.getCacheFilePath("compact-key")), StandardCharsets.UTF_8);
+        assertThat(json).doesNotContain("\n").doesNotContain("  ");
+    }
+    
+    @Test
+    @DisplayName("저장 형식을 바꿔도 기존 항목을 읽을 수 있어야 함")
+    void shouldReadEntriesWrittenWithOtherFormats() {
+        // Given: JSON으로 저장한 항목
+        FileCache jsonCache = FileCache.builder().directory(tempDir.toString()).format(CacheFormat.json()).build();
+        jsonCache.put("json-key", LLMReply.builder().text("From JSON").build());
+        
+        // When: 기본(바이너리) 형식으로 다시 열고 새 항목 저장
+        FileCache binaryCache = new FileCache(tempDir.toString());
+        binaryCache.put("binary-key", LLMReply.builder().text("From Smile").build());
+        
+        // Then
+        assertThat(binaryCache.get("json-key").map(LLMReply::getText)).contains("From JSON");
+        assertThat(binaryCache.get("binary-key").map(LLMReply::getText)).contains("From Smile");
+        assertThat(jsonCache.get("binary-key").map(LLMReply::getText)).contains("From Smile");
+    }
+    
+    @Test
+    @DisplayName("캐시 크기와 개수는 인덱스로 추적되어야 함")
+    void shouldTrackSizeAndCountInIndex() throws IOException {
+        // When
+        cache.put("key1", LLMReply.builder().text("Value 1").build());
+        cache.put("key2", LLMReply.builder().text("Value 2").build());
+        cache.put("key2", LLMReply.builder().text("Value 2 updated").build());
+        
+        // Then
+        long expectedSize = Files.size(cache.getCacheFilePath("key1")) + Files.size(cache.getCacheFilePath("key2"));
+        assertThat(cache.getCacheFileCount()).isEqualTo(2);
+        assertThat(cache.getCacheSize()).isEqualTo(expectedSize);
+        
+        // 재시작 후에도 디스크에서 인덱스를 복원
+        FileCache reopened = new FileCache(tempDir.toString());
+        assertThat(reopened.getCacheFileCount()).isEqualTo(2);
+        assertThat(reopened.getCacheSize()).isEqualTo(expectedSize);
+        
+        // When
+        cache.evict("key1");
+        
+        // Then
+        assertThat(cache.getCacheFileCount()).isEqualTo(1);
+        assertThat(cache.getCacheSize()).isEqualTo(Files.size(cache.getCacheFilePath("key2")));
+        
+        // When
+        cache.clear();
+        
+        // Then
+        assertThat(cache.getCacheFileCount()).isZero();
+        assertThat(cache.getCacheSize()).isZero();
+    }
+    
+    @Test
+    @DisplayName("평면 레이아웃 파일을 하위 디렉토리로 옮겨야 함")
+    void shouldMigrateFromFlatLayout() {
+        // Given: 이전 버전 방식으로 저장된 캐시
+        Path dir = tempDir.resolve("legacy");
+        FileCache flat = FileCache.builder()
+            .directory(dir.toString())
+            .layout(FileCache.Layout.FLAT)
+            .prettyPrint(true)
+            .build();
+        flat.put("abcdef0123", LLMReply.builder().text("Legacy 1").build());
+        flat.put("legacy-key", LLMReply.builder().text("Legacy 2").build());
+        assertThat(dir.resolve("abcdef0123.bin")).exists();
+        
+        // When
+        FileCache sharded = new FileCache(dir.toString());
+        
+        // Then
+        assertThat(dir.resolve("abcdef0123.bin")).doesNotExist();
+        assertThat(dir.resolve("legacy-key.bin")).doesNotExist();
+        assertThat(sharded.getCacheFilePath("abcdef0123")).exists();
+        assertThat(sharded.get("abcdef0123").map(LLMReply::getText)).contains("Legacy 1");
+        assertThat(sharded.get("legacy-key").map(LLMReply::getText)).contains("Legacy 2");
+        assertThat(sharded.getCacheFileCount()).isEqualTo(2);
+    }
+    
+    @Test
+    @DisplayName("이전 확장자(.json)로 저장된 파일을 .bin으로 바꿔 읽어야 함")
+    void shouldRenameLegacyJsonFiles() throws IOException {
+        // Given: 이전 버전이 .json 확장자로 저장한 평면/하위 디렉토리 파일
+        Path dir = tempDir.resolve("legacy-extension");
+        Path shard = Files.createDirectories(dir.resolve("ab").resolve("cd"));
+        byte[] json = CacheFormat.json().write(LLMReply.builder().text("Sharded JSON").build());
+        Files.write(shard.resolve("abcdef0123.json"), json);
+        Files.write(dir.resolve("legacy-key.json"), CacheFormat.json().write(LLMReply.builder().text("Flat JSON").build()));
+        
+        // When
+        FileCache reopened = new FileCache(dir.toString());
+        
+        // Then
+        assertThat(shard.resolve("abcdef0123.json")).doesNotExist();
+        assertThat(reopened.getCacheFilePath("abcdef0123")).isEqualTo(shard.resolve("abcdef0123.bin")).exists();
+        assertThat(reopened.get("abcdef0123").map(LLMReply::getText)).contains("Sharded JSON");
+        assertThat(reopened.get("legacy-key").map(LLMReply::getText)).contains("Flat JSON");
+        assertThat(reopened.getCacheFileCount()).isEqualTo(2);
+        assertThat(reopened.getCacheSize()).isEqualTo(
+            Files.size(reopened.getCacheFilePath("abcdef0123")) + Files.size(reopened.getCacheFilePath("legacy-key")));
+    }
+    
+    @Test
+    @DisplayName("여러 스레드가 같은 키에 동시에 쓰고 읽어도 손상된 항목이 보이지 않아야 함")
+    void shouldSurviveConcurrentWritersAndReaders() throws Exception {
+        // Given
+        int threads = 64;
+        int iterations = 200;
+        String[] keys = {"hot-key-1", "hot-key-2", "hot-key-3", "hot-key-4"};
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger badReads = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        
+        // When
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    String key = keys[(worker + i) % keys.length];
+                    if (i % 2 == 0) {
+                        cache.put(key, LLMReply.builder().text(key + " from worker " + worker).build());
+                    } else {
+                        Optional<LLMReply> reply = cache.get(key);
+                        if (reply.isPresent() && !reply.get().getText().startsWith(key)) {
+                            badReads.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // Then
+        assertThat(badReads.get()).isZero();
+        assertThat(cache.getStats().getEvictionCount(EvictionCause.CORRUPTED)).isZero();
+        assertThat(cache.getCacheFileCount()).isEqualTo(keys.length);
+        for (String key : keys) {
+            assertThat(cache.get(key)).isPresent();
+        }
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            assertThat(files.filter(path -> path.toString().endsWith(".tmp"))).isEmpty();
+        }
+    }
+    
+    @Test
+    @DisplayName("fsync를 켜도 정상적으로 저장되어야 함")
+    void shouldWriteWithSyncEnabled() {
+        // Given
+        FileCache synced = FileCache.builder()
+            .directory(tempDir.resolve("synced").toString())
+            .syncOnWrite(true)
+            .build();
+        
+        // When
+        synced.put("key1", LLMReply.builder().text("Durable").build());
+        
+        // Then
+        assertThat(synced.get("key1").map(LLMReply::getText)).contains("Durable");
+    }
+    
+    @Test
+    @DisplayName("비정상 종료로 남은 오래된 임시 파일은 시작할 때 정리해야 함")
+    void shouldDeleteStaleTempFilesOnStartup() throws IOException {
+        // Given
+        cache.put("key1", LLMReply.builder().text("Hello").build());
+        Path shard = cache.getCacheFilePath("key1").getParent();
+        Path stale = Files.write(shard.resolve("key1.json.123.tmp"), new byte[]{1, 2});
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)));
+        Path fresh = Files.write(shard.resolve("key1.json.456.tmp"), new byte[]{1, 2});
+        
+        // When
+        FileCache reopened = new FileCache(tempDir.toString());
+        
+        // Then
+        assertThat(stale).doesNotExist();
+        assertThat(fresh).exists();
+        assertThat(reopened.getCacheFileCount()).isEqualTo(1);
+        assertThat(reopened.get("key1").map(LLMReply::getText)).contains("Hello");
+    }
+    
+    @Test
+    @DisplayName("크기 한도를 넘으면 가장 오래 사용하지 않은 항목부터 제거해야 함")
+    void shouldEvictLeastRecentlyUsedWhenOverMaxBytes() {
+        // Given: 항목 3개까지 들어가는 캐시
+        cache.put("probe", reply("Answer 0"));
+        long entrySize = cache.getCacheSize();
+        FileCache bounded = FileCache.builder()
+            .directory(tempDir.resolve("bounded").toString())
+            .maxBytes(entrySize * 3 + entrySize / 2)
+            .build();
+        bounded.put("key1", reply("Answer 1"));
+        bounded.put("key2", reply("Answer 2"));
+        bounded.put("key3", reply("Answer 3"));
+        bounded.get("key1");
+        
+        // When
+        bounded.put("key4", reply("Answer 4"));
+        bounded.sweep();
+        
+        // Then
+        assertThat(bounded.getCacheSize()).isLessThanOrEqualTo(bounded.getMaxBytes());
+        assertThat(bounded.get("key2")).isEmpty();
+        assertThat(bounded.get("key1")).isPresent();
+        assertThat(bounded.get("key3")).isPresent();
+        assertThat(bounded.get("key4")).isPresent();
+        assertThat(bounded.getStats().getEvictionCount(EvictionCause.SIZE)).isEqualTo(1);
+        bounded.close();
+    }
+    
+    @Test
+    @DisplayName("한 번에 많은 항목을 넘어도 사용 순서대로 한도까지 제거해야 함")
+    void shouldEvictManyEntriesInAccessOrder() {
+        // Given: 항목 50개까지 들어가는 캐시에 200개 저장하면서 처음 10개는 계속 다시 조회
+        cache.put("probe", reply("Answer 000"));
+        long entrySize = cache.getCacheSize();
+        FileCache bounded = FileCache.builder()
+            .directory(tempDir.resolve("bounded-many").toString())
+            .maxBytes(entrySize * 50)
+            .sweepInterval(Duration.ofHours(1))
+            .build();
+        for (int i = 0; i < 200; i++) {
+            bounded.put(String.format("key%03d", i), reply(String.format("Answer %03d", i)));
+            for (int j = 0; j < Math.min(i + 1, 10); j++) {
+                bounded.get(String.format("key%03d", j));
+            }
+        }
+        
+        // When
+        bounded.sweep();
+        
+        // Then: 다시 조회한 10개와 가장 최근에 저장한 40개만 남음
+        assertThat(bounded.getCacheFileCount()).isEqualTo(50);
+        assertThat(bounded.getCacheSize()).isLessThanOrEqualTo(bounded.getMaxBytes());
+        for (int i = 0; i < 10; i++) {
+            assertThat(bounded.get(String.format("key%03d", i))).isPresent();
+        }
+        assertThat(bounded.get("key159")).isEmpty();
+        for (int i = 160; i < 200; i++) {
+            assertThat(bounded.get(String.format("key%03d", i))).isPresent();
+        }
+        bounded.close();
+    }
+    
+    @Test
+    @DisplayName("크기 한도를 넘으면 백그라운드에서 바로 정리해야 함")
+    void shouldSweepInBackgroundWhenOverMaxBytes() throws InterruptedException {
+        // Given
+        FileCache bounded = FileCache.builder()
+            .directory(tempDir.resolve("bounded").toString())
+            .maxBytes(1024L)
+            .sweepInterval(Duration.ofHours(1))
+            .build();
+        
+        // When
+        for (int i = 0; i < 100; i++) {
+            bounded.put("key" + i, reply("Answer " + i));
+        }
+        
+        // Then
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bounded.getCacheSize() > 1024 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(bounded.getCacheSize()).isLessThanOrEqualTo(1024);
+        assertThat(bounded.get("key99")).isPresent();
+        assertThat(bounded.getStats().getEvictionCount(EvictionCause.SIZE)).isPositive();
+        bounded.close();
+    }
+    
+    @Test
+    @DisplayName("보관 기간이 지난 항목은 미스로 처리하고 정리해야 함")
+    void shouldExpireEntriesOlderThanMaxAge() throws IOException {
+        // Given: 이틀 전에 저장된 항목 2개와 방금 저장된 항목 1개
+        cache.put("old1", reply("Old 1"));
+        cache.put("old2", reply("Old 2"));
+        cache.put("fresh", reply("Fresh"));
+        FileTime twoDaysAgo = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2));
+        Files.setLastModifiedTime(cache.getCacheFilePath("old1"), twoDaysAgo);
+        Files.setLastModifiedTime(cache.getCacheFilePath("old2"), twoDaysAgo);
+        FileCache aged = FileCache.builder()
+            .directory(tempDir.toString())
+            .maxAge(Duration.ofDays(1))
+            .build();
+        
+        // When
+        Optional<LLMReply> expired = aged.get("old1");
+        int swept = aged.sweep();
+        
+        // Then
+        assertThat(expired).isEmpty();
+        assertThat(swept).isEqualTo(1);
+        assertThat(aged.getCacheFilePath("old1")).doesNotExist();
+        assertThat(aged.getCacheFilePath("old2")).doesNotExist();
+        assertThat(aged.get("fresh")).isPresent();
+        assertThat(aged.getStats().getEvictionCount(EvictionCause.EXPIRED)).isEqualTo(2);
+        aged.close();
+    }
+    
+    @Test
+    @DisplayName("잘못된 한도 설정은 거부해야 함")
+    void shouldRejectInvalidLimits() {
+        assertThatThrownBy(() -> FileCache.builder().directory(tempDir.toString()).maxBytes(-1L).build())
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FileCache.builder().directory(tempDir.toString()).maxAge(Duration.ZERO).build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static LLMReply reply(String text) {
+        return LLMReply.builder().text(text).build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,222 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 세그먼트 로그 캐시 테스트
+ */
+class LogStructuredCacheTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private LogStructuredCache cache;
+    
+    @BeforeEach
+    void setUp() {
+        cache = open(1024 * 1024);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        cache.close();
+    }
+    
+    @Test
+    @DisplayName("레코드를 추가하고 읽을 수 있어야 함")
+    void shouldAppendAndRead() {
+        // Given
+        LLMReply value = LLMReply.builder()
+            .text("Log cached response")
+            .model("test-model")
+            .usage(LLMReply.Usage.builder().promptTokens(1).completionTokens(2).totalTokens(3).build())
+            .build();
+        
+        // When
+        cache.put("key", value);
+        cache.put("other", reply("Other"));
+        
+        // Then
+        assertThat(cache.get("key").map(LLMReply::getText)).contains("Log cached response");
+        assertThat(cache.get("key").get().getUsage().getTotalTokens()).isEqualTo(3);
+        assertThat(cache.get("missing")).isEmpty();
+        assertThat(cache.getEntryCount()).isEqualTo(2);
+        assertThat(cache.getSegmentCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("재시작 후 세그먼트에서 인덱스를 복원해야 함")
+    void shouldRebuildIndexOnStartup() {
+        // Given
+        cache.put("key1", reply("Value 1"));
+        cache.put("key2", reply("Value 2"));
+        cache.put("key1", reply("Value 1 updated"));
+        cache.evict("key2");
+        cache.close();
+        
+        // When
+        cache = open(1024 * 1024);
+        
+        // Then
+        assertThat(cache.get("key1").map(LLMReply::getText)).contains("Value 1 updated");
+        assertThat(cache.get("key2")).isEmpty();
+        assertThat(cache.getEntryCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("잘린 마지막 레코드는 버리고 이전 레코드는 유지해야 함")
+    void shouldTruncateTornWriteOnStartup() throws IOException {
+        // Given
+        cache.put("key1", reply("Value 1"));
+        cache.put("key2", reply("Value 2"));
+        cache.close();
+        
+        Path segment = segmentFiles().get(0);
+        long validSize = Files.size(segment);
+        // 쓰는 도중 프로세스가 종료된 것처럼 불완전한 레코드를 추가
+        Files.write(segment, new byte[] {0, 0, 0, 4, 0, 0, 1, 0, 1, 'k', 'e'}, StandardOpenOption.APPEND);
+        
+        // When
+        cache = open(1024 * 1024);
+        
+        // Then
+        assertThat(Files.size(segment)).isEqualTo(validSize);
+        assertThat(cache.get("key1").map(LLMReply::getText)).contains("Value 1");
+        assertThat(cache.get("key2").map(LLMReply::getText)).contains("Value 2");
+        
+        // 이후 쓰기도 정상 동작
+        cache.put("key3", reply("Value 3"));
+        assertThat(cache.get("key3").map(LLMReply::getText)).contains("Value 3");
+    }
+    
+    @Test
+    @DisplayName("CRC가 맞지 않는 레코드는 복원하지 않아야 함")
+    void shouldDropRecordsWithBadChecksum() throws IOException {
+        // Given
+        cache.put("key1", reply("Value 1"));
+        long firstRecordEnd = cache.getDiskSize();
+        cache.put("key2", reply("Value 2"));
+        cache.close();
+        
+        // 두 번째 레코드의 마지막 바이트(CRC) 손상
+        Path segment = segmentFiles().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x5a;
+        Files.write(segment, bytes);
+        
+        // When
+        cache = open(1024 * 1024);
+        
+        // Then
+        assertThat(cache.get("key1")).isPresent();
+        assertThat(cache.get("key2")).isEmpty();
+        assertThat(cache.getDiskSize()).isEqualTo(firstRecordEnd);
+    }
+    
+    @Test
+    @DisplayName("세그먼트 크기를 넘으면 새 세그먼트를 만들어야 함")
+    void shouldRollSegments() {
+        // Given
+        cache.close();
+        cache = open(256);
+        
+        // When
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, reply("Value " + i));
+        }
+        
+        // Then
+        assertThat(cache.getSegmentCount()).isGreaterThan(1);
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get("key" + i).map(LLMReply::getText)).contains("Value " + i);
+        }
+    }
+    
+    @Test
+    @DisplayName("컴팩션은 덮어쓰거나 삭제된 레코드를 정리해야 함")
+    void shouldCompactOverwrittenAndEvictedRecords() {
+        // Given
+        cache.close();
+        cache = open(256);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 4; i++) {
+                cache.put("key" + i, reply("Value " + i + " round " + round));
+            }
+        }
+        cache.evict("key3");
+        long sizeBefore = cache.getDiskSize();
+        int segmentsBefore = cache.getSegmentCount();
+        
+        // When
+        int compacted = cache.compact();
+        
+        // Then
+        assertThat(compacted).isPositive();
+        assertThat(cache.getSegmentCount()).isLessThan(segmentsBefore);
+        assertThat(cache.getDiskSize()).isLessThan(sizeBefore);
+        for (int i = 0; i < 3; i++) {
+            assertThat(cache.get("key" + i).map(LLMReply::getText)).contains("Value " + i + " round 4");
+        }
+        assertThat(cache.get("key3")).isEmpty();
+        
+        // 컴팩션 후 재시작해도 같은 상태
+        cache.close();
+        cache = open(256);
+        assertThat(cache.get("key0").map(LLMReply::getText)).contains("Value 0 round 4");
+        assertThat(cache.get("key3")).isEmpty();
+        assertThat(cache.getEntryCount()).isEqualTo(3);
+    }
+    
+    @Test
+    @DisplayName("모든 세그먼트를 삭제할 수 있어야 함")
+    void shouldClearAllSegments() throws IOException {
+        // Given
+        cache.put("key1", reply("Value 1"));
+        cache.put("key2", reply("Value 2"));
+        
+        // When
+        cache.clear();
+        
+        // Then
+        assertThat(cache.get("key1")).isEmpty();
+        assertThat(cache.getEntryCount()).isZero();
+        assertThat(segmentFiles()).hasSize(1);
+        
+        cache.put("key3", reply("Value 3"));
+        assertThat(cache.get("key3")).isPresent();
+    }
+    
+    private LogStructuredCache open(long maxSegmentBytes) {
+        return LogStructuredCache.builder()
+            .directory(tempDir.toString())
+            .maxSegmentBytes(maxSegmentBytes)
+            .compactionInterval(Duration.ZERO)
+            .build();
+    }
+    
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> stream = Files.list(tempDir)) {
+            return stream.sorted().collect(Collectors.toList());
+        }
+    }
+    
+    private static LLMReply reply(String text) {
+        return LLMReply.builder().text(text).model("test-model").build();
+    }
+}
\ No newline at end of file
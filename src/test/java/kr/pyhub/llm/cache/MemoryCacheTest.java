@@ -4,17 +4,31 @@ import kr.pyhub.llm.types.LLMReply;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * 메모리 캐시 테스트
  */
 class MemoryCacheTest {
     
+    @TempDir
+    Path tempDir;
+    
     private MemoryCache cache;
     
     @BeforeEach
@@ -79,6 +93,30 @@ class MemoryCacheTest {
         assertThat(cache.get(key)).isEmpty(); // 만료됨
     }
     
+    @Test
+    @DisplayName("항목별 TTL은 해당 항목에만 적용되고 캐시의 TTL을 넘지 않아야 함")
+    void shouldApplyPerEntryTtl() throws InterruptedException {
+        // Given
+        cache = MemoryCache.builder().expireAfterWrite(Duration.ofMillis(300)).build();
+        
+        // When
+        cache.put("short", LLMReply.builder().text("Short").build(), Duration.ofMillis(50));
+        cache.put("long", LLMReply.builder().text("Long").build(), Duration.ofHours(1));
+        cache.put("default", LLMReply.builder().text("Default").build());
+        Thread.sleep(100);
+        
+        // Then
+        assertThat(cache.supportsEntryTtl()).isTrue();
+        assertThat(cache.get("short")).isEmpty();
+        assertThat(cache.get("long")).isPresent();
+        assertThat(cache.get("default")).isPresent();
+        
+        Thread.sleep(300);
+        assertThat(cache.get("long")).isEmpty();
+        assertThatThrownBy(() -> cache.put("zero", LLMReply.builder().build(), Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
     @Test
     @DisplayName("캐시 통계를 제공해야 함")
     void shouldProvideStatistics() {
@@ -100,6 +138,27 @@ class MemoryCacheTest {
         assertThat(stats.getSize()).isEqualTo(2);
     }
     
+    @Test
+    @DisplayName("peek은 통계를 남기지 않아야 함")
+    void shouldNotRecordStatsOnPeek() {
+        // Given
+        cache.put("key1", LLMReply.builder().text("Value 1").build());
+    
+        // When
+        Optional<LLMReply> hit = cache.peek("key1");
+        Optional<LLMReply> miss = cache.peek("key2");
+    
+        // Then
+        assertThat(hit.map(LLMReply::getText)).contains("Value 1");
+        assertThat(miss).isEmpty();
+        assertThat(cache.getStats().getHitCount()).isZero();
+        assertThat(cache.getStats().getMissCount()).isZero();
+    
+        // 이후 조회는 다시 기록됨
+        cache.get("key2");
+        assertThat(cache.getStats().getMissCount()).isEqualTo(1);
+    }
+    
     @Test
     @DisplayName("캐시를 비활성화할 수 있어야 함")
     void shouldDisableCache() {
@@ -115,4 +174,377 @@ class MemoryCacheTest {
         assertThat(retrieved).isEmpty(); // 캐시가 비활성화되어 저장되지 않음
         assertThat(cache.isEnabled()).isFalse();
     }
+    
+    @Test
+    @DisplayName("추정 바이트 한도를 넘으면 항목을 제거해야 함")
+    void shouldRespectMaximumWeight() throws InterruptedException {
+        // Given: 약 8KB 응답 두 개는 10KB 한도를 넘음
+        cache = MemoryCache.builder()
+            .maximumWeightBytes(10_000L)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+        LLMReply large = LLMReply.builder().text(repeat('a', 4000)).build();
+        
+        // When
+        cache.put("key1", large);
+        cache.put("key2", large);
+        cache.put("small", LLMReply.builder().text("tiny").build());
+        Thread.sleep(100);
+        
+        // Then
+        assertThat(cache.size()).isLessThan(3);
+        assertThat(cache.getStats().getWeightedSize())
+            .isPositive()
+            .isLessThanOrEqualTo(10_000L);
+    }
+    
+    @Test
+    @DisplayName("응답 크기 추정은 텍스트와 원본 응답을 포함해야 함")
+    void shouldEstimateReplySize() {
+        // Given
+        LLMReply small = LLMReply.builder().text("Hi").build();
+        LLMReply withRaw = LLMReply.builder()
+            .text("Hi")
+            .rawResponse(Collections.singletonMap("choices",
+                Collections.singletonList(Collections.singletonMap("content", repeat('x', 1000)))))
+            .build();
+        
+        // Then
+        assertThat(ReplySizeEstimator.estimate(withRaw) - ReplySizeEstimator.estimate(small))
+            .isGreaterThan(2000);
+    }
+    
+    @Test
+    @DisplayName("항목 수와 바이트 한도는 함께 지정할 수 없어야 함")
+    void shouldRejectCombinedLimits() {
+        assertThatThrownBy(() -> MemoryCache.builder().maximumSize(10L).maximumWeightBytes(1000L).build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    @DisplayName("제거 원인별로 집계해야 함")
+    void shouldCountEvictionsByCause() throws InterruptedException {
+        // Given
+        cache = MemoryCache.builder().maximumSize(1L).build();
+        
+        // When: 명시적 제거는 한도를 넘기 전에 수행 (크기 제거가 새 항목을 먼저 내보낼 수 있음)
+        cache.put("key1", LLMReply.builder().text("one").build());
+        cache.evict("key1");
+        cache.put("key2", LLMReply.builder().text("two").build());
+        cache.put("key3", LLMReply.builder().text("three").build());
+        
+        // Then: 제거 리스너는 비동기로 호출됨
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getStats().getEvictionCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        CacheStats stats = cache.getStats();
+        assertThat(stats.getEvictionCount(EvictionCause.SIZE)).isGreaterThanOrEqualTo(1);
+        assertThat(stats.getEvictionCount(EvictionCause.EXPLICIT)).isEqualTo(1);
+        assertThat(stats.getEvictionCount(EvictionCause.EXPIRED)).isZero();
+    }
+    
+    @Test
+    @DisplayName("히트로 절약한 토큰과 비용을 집계해야 함")
+    void shouldTrackTokensSaved() {
+        // Given
+        LLMReply reply = LLMReply.builder()
+            .text("answer")
+            .usage(new LLMReply.Usage(1000, 500, 1500))
+            .build();
+        cache.put("key", reply);
+        
+        // When
+        cache.get("key");
+        cache.get("key");
+        
+        // Then
+        CacheStats stats = cache.getStats();
+        assertThat(stats.getPromptTokensSaved()).isEqualTo(2000);
+        assertThat(stats.getCompletionTokensSaved()).isEqualTo(1000);
+        assertThat(stats.getTokensSaved()).isEqualTo(3000);
+        assertThat(stats.estimateSavings(3.0, 15.0)).isCloseTo(0.021, within(1e-9));
+        assertThat(stats.getBytesStored()).isPositive();
+    }
+    
+    @Test
+    @DisplayName("LLM 호출 시간을 평균 load penalty로 집계해야 함")
+    void shouldTrackLoadPenalty() {
+        // When
+        cache.recordLoad(TimeUnit.MILLISECONDS.toNanos(100));
+        cache.recordLoad(TimeUnit.MILLISECONDS.toNanos(300));
+        
+        // Then
+        CacheStats stats = cache.getStats();
+        assertThat(stats.getLoadCount()).isEqualTo(2);
+        assertThat(stats.getAverageLoadPenaltyMillis()).isEqualTo(200.0);
+    }
+    
+    @Test
+    @DisplayName("갱신 시점이 지난 항목은 오래된 응답을 반환하고 한 번만 다시 생성해야 함")
+    void shouldServeStaleWhileRefreshing() throws InterruptedException {
+        // Given
+        cache = MemoryCache.builder()
+            .refreshAfterWrite(Duration.ofMillis(50))
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+        cache.put("key", LLMReply.builder().text("stale").build());
+        AtomicInteger reloads = new AtomicInteger();
+        CompletableFuture<LLMReply> pending = new CompletableFuture<>();
+        CacheReloader reloader = () -> {
+            reloads.incrementAndGet();
+            return pending;
+        };
+        
+        // When: 갱신 전에는 reloader를 호출하지 않음
+        assertThat(cache.get("key", reloader).map(LLMReply::getText)).contains("stale");
+        assertThat(reloads.get()).isZero();
+        Thread.sleep(100);
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get("key", reloader).map(LLMReply::getText)).contains("stale");
+        }
+        
+        // Then
+        assertThat(reloads.get()).isEqualTo(1);
+        assertThat(cache.getRefreshCount()).isEqualTo(1);
+        
+        // When: reloader가 새 응답을 저장하고 완료
+        LLMReply fresh = LLMReply.builder().text("fresh").build();
+        cache.put("key", fresh);
+        pending.complete(fresh);
+        
+        // Then
+        assertThat(cache.get("key", reloader).map(LLMReply::getText)).contains("fresh");
+        assertThat(reloads.get()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("갱신이 아무것도 저장하지 않으면 읽을 때마다 다시 호출하지 않아야 함")
+    void shouldBackOffWhenRefreshStoresNothing() throws InterruptedException {
+        // Given: 쓰기 정책이 새 응답을 거부한 것처럼 저장하지 않고 완료하는 reloader
+        cache = MemoryCache.builder()
+            .refreshAfterWrite(Duration.ofMillis(100))
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+        cache.put("key", LLMReply.builder().text("stale").build());
+        AtomicInteger reloads = new AtomicInteger();
+        CacheReloader rejected = () -> {
+            reloads.incrementAndGet();
+            return CompletableFuture.completedFuture(LLMReply.builder().text("rejected").build());
+        };
+        Thread.sleep(150);
+        
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get("key", rejected).map(LLMReply::getText)).contains("stale");
+        }
+        
+        // Then: 한 번만 호출하고 refreshAfterWrite가 지나면 다시 시도
+        assertThat(reloads.get()).isEqualTo(1);
+        Thread.sleep(150);
+        cache.get("key", rejected);
+        assertThat(reloads.get()).isEqualTo(2);
+    }
+    
+    @Test
+    @DisplayName("갱신되지 않은 항목은 TTL이 지나면 제거되어야 함")
+    void shouldExpireUnrefreshedEntries() throws InterruptedException {
+        // Given
+        cache = MemoryCache.builder()
+            .refreshAfterWrite(Duration.ofMillis(30))
+            .expireAfterWrite(Duration.ofMillis(300))
+            .build();
+        cache.put("key", LLMReply.builder().text("stale").build());
+        CacheReloader failing = () -> {
+            CompletableFuture<LLMReply> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("provider down"));
+            return failed;
+        };
+        
+        // When
+        Thread.sleep(60);
+        Optional<LLMReply> stale = cache.get("key", failing);
+        Thread.sleep(300);
+        
+        // Then
+        assertThat(stale).isPresent();
+        assertThat(cache.get("key", failing)).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("갱신 시간은 TTL보다 짧아야 함")
+    void shouldRejectRefreshNotShorterThanTtl() {
+        assertThatThrownBy(() -> MemoryCache.builder()
+            .refreshAfterWrite(Duration.ofMinutes(60))
+            .expireAfterWrite(Duration.ofMinutes(60))
+            .build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    @DisplayName("스냅샷으로 저장한 항목을 새 캐시가 시작할 때 불러와야 함")
+    void shouldWarmStartFromSnapshot() throws IOException {
+        // Given
+        Path snapshot = tempDir.resolve("cache.snapshot");
+        cache = MemoryCache.builder().snapshotFile(snapshot.toString()).build();
+        for (int i = 0; i < 100; i++) {
+            cache.put("key-" + i, LLMReply.builder().text("Response " + i).model("test-model").build());
+        }
+        
+        // When
+        long saved = cache.saveSnapshot();
+        MemoryCache restarted = MemoryCache.builder()
+            .snapshotFile(snapshot.toString())
+            .loadSnapshotOnStart(true)
+            .build();
+        
+        // Then
+        assertThat(saved).isEqualTo(100);
+        assertThat(restarted.size()).isEqualTo(100);
+        assertThat(restarted.getStats().getHitCount()).isZero();
+        assertThat(restarted.get("key-42").map(LLMReply::getText)).contains("Response 42");
+        assertThat(restarted.getStats().getBytesStored()).isEqualTo(cache.getStats().getBytesStored());
+    }
+    
+    @Test
+    @DisplayName("용량이 부족하면 자주 쓰는 항목부터 불러와야 함")
+    void shouldLoadHottestEntriesFirst() throws IOException {
+        // Given
+        Path snapshot = tempDir.resolve("cache.snapshot");
+        for (int i = 0; i < 50; i++) {
+            cache.put("key-" + i, LLMReply.builder().text("Response " + i).build());
+        }
+        for (int i = 0; i < 2; i++) {
+            cache.get("key-10");
+            cache.get("key-20");
+            cache.get("key-30");
+        }
+        cache.saveSnapshot(snapshot);
+        
+        // When
+        MemoryCache small = MemoryCache.builder().maximumSize(3L).build();
+        long loaded = small.loadSnapshot(snapshot);
+        
+        // Then
+        assertThat(loaded).isEqualTo(3);
+        assertThat(small.get("key-10")).isPresent();
+        assertThat(small.get("key-20")).isPresent();
+        assertThat(small.get("key-30")).isPresent();
+    }
+    
+    @Test
+    @DisplayName("저장한 실패 결과는 스냅샷에 포함하지 않아야 함")
+    void shouldNotSnapshotCachedFailures() throws IOException {
+        // Given
+        Path snapshot = tempDir.resolve("cache.snapshot");
+        cache.put("ok", LLMReply.builder().text("Response").build());
+        cache.put("failed", CacheWritePolicy.failureReply("test-model", new IllegalArgumentException("Invalid prompt")),
+            Duration.ofSeconds(30));
+        
+        // When
+        long saved = cache.saveSnapshot(snapshot);
+        MemoryCache restored = new MemoryCache();
+        restored.loadSnapshot(snapshot);
+        
+        // Then
+        assertThat(saved).isEqualTo(1);
+        assertThat(restored.get("ok")).isPresent();
+        assertThat(restored.get("failed")).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("복원한 항목은 원래 만료 시각을 유지해야 함")
+    void shouldKeepRemainingTtlAcrossSnapshot() throws IOException, InterruptedException {
+        // Given
+        Path snapshot = tempDir.resolve("cache.snapshot");
+        cache = MemoryCache.builder().expireAfterWrite(Duration.ofMillis(300)).build();
+        cache.put("short", LLMReply.builder().text("short-lived").build());
+        cache.saveSnapshot(snapshot);
+        
+        // When
+        MemoryCache restored = MemoryCache.builder().expireAfterWrite(Duration.ofHours(1)).build();
+        restored.loadSnapshot(snapshot);
+        Thread.sleep(400);
+        
+        // Then
+        assertThat(restored.get("short")).isEmpty();
+        assertThat(new MemoryCache().loadSnapshot(snapshot)).isZero();
+    }
+    
+    @Test
+    @DisplayName("스냅샷에서 불러온 항목은 저장할 때의 항목별 TTL을 유지해야 함")
+    void shouldRestorePerEntryTtlFromSnapshot() throws IOException {
+        // Given: 캐시 TTL은 1시간이지만 10분짜리 항목
+        Path snapshot = tempDir.resolve("cache.snapshot");
+        cache = MemoryCache.builder()
+            .expireAfterWrite(Duration.ofHours(1))
+            .refreshAfterWrite(Duration.ofMinutes(30))
+            .build();
+        cache.put("short", LLMReply.builder().text("Short").build(), Duration.ofMinutes(10));
+        cache.saveSnapshot(snapshot);
+        
+        // When
+        MemoryCache restarted = MemoryCache.builder()
+            .expireAfterWrite(Duration.ofHours(1))
+            .refreshAfterWrite(Duration.ofMinutes(30))
+            .build();
+        restarted.loadSnapshot(snapshot);
+        AtomicInteger reloads = new AtomicInteger();
+        Optional<LLMReply> value = restarted.get("short", () -> {
+            reloads.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        
+        // Then: 방금 저장한 항목이므로 갱신 시점이 지난 것으로 보지 않음
+        assertThat(value.map(LLMReply::getText)).contains("Short");
+        assertThat(reloads.get()).isZero();
+        assertThat(restarted.getRefreshCount()).isZero();
+    }
+    
+    @Test
+    @DisplayName("잘린 스냅샷은 읽을 수 있는 항목까지 불러와야 함")
+    void shouldLoadTruncatedSnapshotPartially() throws IOException {
+        // Given
+        Path snapshot = tempDir.resolve("cache.snapshot");
+        for (int i = 0; i < 10; i++) {
+            cache.put("key-" + i, LLMReply.builder().text("Response " + i).build());
+        }
+        cache.saveSnapshot(snapshot);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 10));
+        
+        // When
+        long loaded = new MemoryCache().loadSnapshot(snapshot);
+        
+        // Then
+        assertThat(loaded).isEqualTo(9);
+    }
+    
+    @Test
+    @DisplayName("스냅샷을 읽을 수 없으면 빈 캐시로 시작해야 함")
+    void shouldStartEmptyWhenSnapshotIsInvalid() throws IOException {
+        // Given
+        Path snapshot = tempDir.resolve("cache.snapshot");
+        Files.write(snapshot, "not a snapshot".getBytes());
+        
+        // When
+        MemoryCache restarted = MemoryCache.builder()
+            .snapshotFile(snapshot.toString())
+            .loadSnapshotOnStart(true)
+            .build();
+        
+        // Then
+        assertThat(restarted.size()).isZero();
+        assertThatThrownBy(() -> restarted.loadSnapshot(snapshot)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> MemoryCache.builder().loadSnapshotOnStart(true).build())
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MemoryCache().saveSnapshot())
+            .isInstanceOf(IllegalStateException.class);
+    }
+    
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
 }
\ No newline at end of file
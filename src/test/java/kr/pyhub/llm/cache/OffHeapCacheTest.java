@@ -0,0 +1,220 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * off-heap 캐시 테스트
+ */
+class OffHeapCacheTest {
+    
+    @Test
+    @DisplayName("저장한 응답을 그대로 읽고 덮어쓰기와 삭제를 반영해야 함")
+    void shouldStoreOverwriteAndEvict() {
+        // Given
+        OffHeapCache cache = new OffHeapCache();
+        String key = cache.generateKey(Collections.emptyList(), "gpt-4o-mini", 0.7, null);
+        LLMReply reply = reply("Hello");
+        
+        // When
+        cache.put(key, reply);
+        
+        // Then
+        assertThat(cache.get(key)).contains(reply);
+        assertThat(cache.getAllocatedBytes()).isEqualTo(cache.getSlabBytes());
+        
+        cache.put(key, reply("Updated"));
+        assertThat(cache.get(key).map(LLMReply::getText)).contains("Updated");
+        assertThat(cache.size()).isEqualTo(1);
+        
+        cache.evict(key);
+        assertThat(cache.get(key)).isEmpty();
+        assertThat(cache.getStats().getEvictionCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("해시가 같아도 키가 다르면 다른 응답을 반환하지 않아야 함")
+    void shouldVerifyKeyOnRead() {
+        // Given: 앞 16자리가 같은 두 키
+        OffHeapCache cache = new OffHeapCache();
+        String first = "0123456789abcdef-first";
+        String second = "0123456789abcdef-second";
+        assertThat(OffHeapCache.hash(first)).isEqualTo(OffHeapCache.hash(second));
+        
+        // When
+        cache.put(first, reply("First"));
+        
+        // Then
+        assertThat(cache.get(second)).isEmpty();
+        assertThat(cache.get(first).map(LLMReply::getText)).contains("First");
+    }
+    
+    @Test
+    @DisplayName("메모리 한도를 넘으면 오래된 항목부터 제거해야 함")
+    void shouldEvictWithinBudget() {
+        // Given
+        OffHeapCache cache = OffHeapCache.builder()
+            .maxBytes(16 * 1024L)
+            .slabBytes(4 * 1024)
+            .build();
+        
+        // When
+        for (int i = 0; i < 200; i++) {
+            cache.put("key-" + i, reply("Response " + i + " " + repeat("x", 100)));
+        }
+        
+        // Then
+        assertThat(cache.getAllocatedBytes()).isLessThanOrEqualTo(cache.getMaxBytes());
+        assertThat(cache.get("key-0")).isEmpty();
+        assertThat(cache.get("key-199").map(LLMReply::getText)).hasValueSatisfying(
+            text -> assertThat(text).startsWith("Response 199 "));
+        assertThat(cache.getStats().getEvictionCount(EvictionCause.SIZE)).isPositive();
+        assertThat(cache.getStats().getBytesStored()).isLessThanOrEqualTo(cache.getMaxBytes());
+    }
+    
+    @Test
+    @DisplayName("슬랩을 재사용할 때 최근 조회된 항목은 유지해야 함")
+    void shouldGiveReferencedEntriesSecondChance() {
+        // Given
+        OffHeapCache cache = OffHeapCache.builder()
+            .maxBytes(16 * 1024L)
+            .slabBytes(4 * 1024)
+            .build();
+        cache.put("hot", reply("Hot"));
+        
+        // When: 조회하면서 슬랩을 여러 바퀴 채움
+        for (int i = 0; i < 400; i++) {
+            cache.put("key-" + i, reply("Response " + i + " " + repeat("x", 100)));
+            cache.get("hot");
+        }
+        
+        // Then
+        assertThat(cache.get("hot").map(LLMReply::getText)).contains("Hot");
+        assertThat(cache.get("key-0")).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("조회된 항목을 남기며 슬랩을 재사용해도 슬랩 절반보다 큰 응답을 저장해야 함")
+    void shouldFitLargeRecordAfterRecyclingReferencedEntries() {
+        // Given: 첫 슬랩을 조회된 작은 항목으로 채움
+        OffHeapCache cache = OffHeapCache.builder()
+            .maxBytes(8 * 1024L)
+            .slabBytes(4 * 1024)
+            .format(CacheFormat.json())
+            .build();
+        for (int i = 0; i < 30; i++) {
+            cache.put("hot-" + i, reply("Response " + i + " " + repeat("x", 60)));
+            cache.get("hot-" + i);
+        }
+        
+        // When: 슬랩 절반보다 큰 응답으로 두 번째 슬랩을 채우고 첫 슬랩을 재사용
+        cache.put("large-1", reply(repeat("a", 3000)));
+        cache.put("large-2", reply(repeat("b", 3000)));
+        
+        // Then
+        assertThat(cache.get("large-1").map(LLMReply::getText)).contains(repeat("a", 3000));
+        assertThat(cache.get("large-2").map(LLMReply::getText)).contains(repeat("b", 3000));
+        assertThat(cache.get("hot-0")).isPresent();
+        assertThat(cache.getStats().getEvictionCount(EvictionCause.SIZE)).isPositive();
+    }
+    
+    @Test
+    @DisplayName("슬랩보다 큰 응답은 저장하지 않아야 함")
+    void shouldSkipEntriesLargerThanSlab() {
+        // Given
+        OffHeapCache cache = OffHeapCache.builder()
+            .maxBytes(2048L)
+            .slabBytes(1024)
+            .format(CacheFormat.json())
+            .build();
+        
+        // When
+        cache.put("large", reply(repeat("x", 2000)));
+        
+        // Then
+        assertThat(cache.get("large")).isEmpty();
+        assertThat(cache.getAllocatedBytes()).isZero();
+    }
+    
+    @Test
+    @DisplayName("동시에 읽고 쓰더라도 다른 키의 응답을 반환하지 않아야 함")
+    void shouldNeverReturnWrongReplyUnderConcurrency() throws Exception {
+        // Given: 계속 재사용되도록 작은 슬랩
+        OffHeapCache cache = OffHeapCache.builder()
+            .maxBytes(32 * 1024L)
+            .slabBytes(8 * 1024)
+            .build();
+        int keys = 500;
+        AtomicInteger hits = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    int n = (i * 31 + thread) % keys;
+                    if (thread % 2 == 0) {
+                        cache.put("key-" + n, reply("Response " + n + " " + repeat("y", n % 50)));
+                    } else {
+                        Optional<LLMReply> value = cache.get("key-" + n);
+                        if (value.isPresent()) {
+                            assertThat(value.get().getText()).isEqualTo("Response " + n + " " + repeat("y", n % 50));
+                            hits.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // Then
+        assertThat(hits.get()).isPositive();
+        assertThat(cache.getAllocatedBytes()).isLessThanOrEqualTo(cache.getMaxBytes());
+    }
+    
+    @Test
+    @DisplayName("잘못된 설정은 거부해야 함")
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> OffHeapCache.builder().maxBytes(1024L).slabBytes(1024).build())
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> OffHeapCache.builder().slabBytes(0).build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static LLMReply reply(String text) {
+        return LLMReply.builder()
+            .text(text)
+            .model("gpt-4o-mini")
+            .finishReason("stop")
+            .usage(new LLMReply.Usage(10, 20, 30))
+            .build();
+    }
+    
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,448 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import kr.pyhub.llm.types.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 시맨틱 캐시 테스트
+ */
+class SemanticCacheTest {
+    
+    private static final String MODEL = "gpt-4o-mini";
+    private static final int DIMENSION = 64;
+    
+    private AtomicInteger embedCalls;
+    private SemanticCache cache;
+    
+    @BeforeEach
+    void setUp() {
+        embedCalls = new AtomicInteger();
+        cache = SemanticCache.builder()
+            .embeddingFunction(this::bagOfWords)
+            .similarityThreshold(0.7)
+            .build();
+    }
+    
+    @Test
+    @DisplayName("표현이 다른 같은 질문은 캐시된 응답을 반환해야 함")
+    void shouldHitForParaphrasedQuestion() {
+        // Given
+        store(Collections.singletonList(Message.user("How do I reset my password?")), 0.7, "Use the reset link");
+        
+        // When
+        Optional<LLMReply> reply = lookup(Collections.singletonList(Message.user("password reset how?")), 0.7);
+        
+        // Then
+        assertThat(reply.map(LLMReply::getText)).contains("Use the reset link");
+        assertThat(cache.getSemanticHitCount()).isEqualTo(1);
+        assertThat(cache.getStats().getHitCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("정확히 같은 키를 조회할 때 reloader를 대상 캐시에 전달해야 함")
+    void shouldForwardReloaderToDelegate() throws InterruptedException {
+        // Given
+        MemoryCache memory = MemoryCache.builder()
+            .refreshAfterWrite(Duration.ofMillis(50))
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+        cache = SemanticCache.builder().delegate(memory).embeddingFunction(this::bagOfWords).build();
+        cache.put("key", LLMReply.builder().text("Stale").build());
+        AtomicInteger reloads = new AtomicInteger();
+        Thread.sleep(100);
+        
+        // When
+        Optional<LLMReply> value = cache.get("key", () -> {
+            reloads.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        
+        // Then
+        assertThat(value.map(LLMReply::getText)).contains("Stale");
+        assertThat(reloads.get()).isEqualTo(1);
+        assertThat(memory.getRefreshCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("저장한 실패는 비슷한 질문에 반환하지 않아야 함")
+    void shouldNotReturnCachedFailureForSimilarQuestion() {
+        // Given: 한 질문의 실패를 negative caching으로 저장
+        List<Message> failed = Collections.singletonList(Message.user("How do I reset my password?"));
+        String failedKey = cache.generateKey(failed, MODEL, 0.7, null);
+        cache.put(failedKey, CacheWritePolicy.failureReply(MODEL, new IllegalArgumentException("Invalid prompt")));
+        
+        // When
+        Optional<LLMReply> exact = lookup(failed, 0.7);
+        Optional<LLMReply> similar = lookup(Collections.singletonList(Message.user("password reset how?")), 0.7);
+        
+        // Then: 같은 요청에는 실패를 그대로 반환하고, 비슷한 질문은 미스
+        assertThat(exact.map(CacheWritePolicy::isFailure)).contains(true);
+        assertThat(similar).isEmpty();
+        assertThat(cache.getIndexedCount()).isZero();
+        assertThat(cache.getSemanticHitCount()).isZero();
+    }
+    
+    @Test
+    @DisplayName("항목별 TTL을 대상 캐시에 전달하고 만료된 항목은 비슷한 질문에도 반환하지 않아야 함")
+    void shouldForwardEntryTtlToDelegate() throws InterruptedException {
+        // Given
+        List<Message> question = Collections.singletonList(Message.user("How do I reset my password?"));
+        String key = cache.generateKey(question, MODEL, 0.7, null);
+        
+        // When
+        cache.put(key, LLMReply.builder().text("Use the reset link").build(), Duration.ofMillis(50));
+        
+        // Then
+        assertThat(cache.supportsEntryTtl()).isTrue();
+        assertThat(lookup(Collections.singletonList(Message.user("password reset how?")), 0.7)).isPresent();
+        Thread.sleep(100);
+        assertThat(lookup(question, 0.7)).isEmpty();
+        assertThat(lookup(Collections.singletonList(Message.user("password reset how?")), 0.7)).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("유사도가 임계값보다 낮으면 미스여야 함")
+    void shouldMissBelowThreshold() {
+        // Given
+        store(Collections.singletonList(Message.user("How do I reset my password?")), 0.7, "Use the reset link");
+        
+        // When
+        Optional<LLMReply> reply = lookup(Collections.singletonList(Message.user("What is the capital of France?")), 0.7);
+        
+        // Then
+        assertThat(reply).isEmpty();
+        assertThat(cache.getSemanticHitCount()).isZero();
+    }
+    
+    @Test
+    @DisplayName("모델, 파라미터, 이전 대화가 다르면 비교하지 않아야 함")
+    void shouldOnlyMatchSamePartition() {
+        // Given
+        store(Collections.singletonList(Message.user("How do I reset my password?")), 0.7, "Use the reset link");
+        
+        // When/Then
+        assertThat(lookup(Collections.singletonList(Message.user("password reset how?")), 0.2)).isEmpty();
+        assertThat(lookup(Arrays.asList(
+            Message.system("You are a pirate"),
+            Message.user("password reset how?")), 0.7)).isEmpty();
+        
+        String key = cache.generateKey(Collections.singletonList(Message.user("password reset how?")),
+            "other-model", 0.7, null);
+        assertThat(cache.get(key)).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("정확히 같은 요청은 임베딩 없이 히트해야 함")
+    void shouldNotEmbedOnExactHit() {
+        // Given
+        List<Message> messages = Collections.singletonList(Message.user("How do I reset my password?"));
+        store(messages, 0.7, "Use the reset link");
+        int callsAfterStore = embedCalls.get();
+        
+        // When
+        Optional<LLMReply> reply = lookup(messages, 0.7);
+        
+        // Then
+        assertThat(reply).isPresent();
+        assertThat(embedCalls.get()).isEqualTo(callsAfterStore);
+        assertThat(cache.getSemanticHitCount()).isZero();
+    }
+    
+    @Test
+    @DisplayName("미스 후 저장할 때 임베딩을 다시 계산하지 않아야 함")
+    void shouldReuseEmbeddingFromMiss() {
+        // Given
+        List<Message> messages = Collections.singletonList(Message.user("How do I reset my password?"));
+        
+        // When
+        store(messages, 0.7, "Use the reset link");
+        
+        // Then
+        assertThat(embedCalls.get()).isEqualTo(1);
+        assertThat(cache.getIndexedCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("삭제된 항목은 유사 질문으로도 반환하지 않아야 함")
+    void shouldNotReturnEvictedEntries() {
+        // Given
+        List<Message> original = Collections.singletonList(Message.user("How do I reset my password?"));
+        store(original, 0.7, "Use the reset link");
+        cache.evict(cache.generateKey(original, MODEL, 0.7, null));
+        
+        // When
+        Optional<LLMReply> reply = lookup(Collections.singletonList(Message.user("password reset how?")), 0.7);
+        
+        // Then
+        assertThat(reply).isEmpty();
+        assertThat(cache.getIndexedCount()).isZero();
+    }
+    
+    @Test
+    @DisplayName("대상 캐시에서 사라진 항목은 인덱스에서도 제거해야 함")
+    void shouldDropStaleIndexEntries() {
+        // Given
+        store(Collections.singletonList(Message.user("How do I reset my password?")), 0.7, "Use the reset link");
+        cache.getDelegate().clear();
+        
+        // When
+        Optional<LLMReply> reply = lookup(Collections.singletonList(Message.user("password reset how?")), 0.7);
+        
+        // Then
+        assertThat(reply).isEmpty();
+        assertThat(cache.getIndexedCount()).isZero();
+    }
+    
+    @Test
+    @DisplayName("임베딩에 실패하면 예외 없이 미스로 처리해야 함")
+    void shouldTreatEmbeddingFailureAsMiss() {
+        // Given
+        SemanticCache failing = new SemanticCache(text -> {
+            throw new IllegalStateException("embedding service down");
+        });
+        List<Message> messages = Collections.singletonList(Message.user("Hello"));
+        String key = failing.generateKey(messages, MODEL, 0.7, null);
+        
+        // When
+        failing.put(key, LLMReply.builder().text("Hi").build());
+        
+        // Then
+        assertThat(failing.get(key).map(LLMReply::getText)).contains("Hi");
+        assertThat(failing.getIndexedCount()).isZero();
+    }
+    
+    @Test
+    @DisplayName("잘못된 설정은 거부해야 함")
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> SemanticCache.builder().build())
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SemanticCache.builder()
+            .embeddingFunction(this::bagOfWords)
+            .similarityThreshold(1.5)
+            .build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    @DisplayName("HNSW 검색은 전수 조사와 비슷한 정확도를 내야 함")
+    void shouldApproximateBruteForceSearch() {
+        // Given: 주제별로 모인 64차원 임베딩 5,000개
+        Random random = new Random(7);
+        List<float[]> vectors = clusteredVectors(5_000, random);
+        HnswIndex index = buildIndex(vectors);
+        List<float[]> queryVectors = paraphrasedQueries(vectors, 200, random);
+        
+        // When
+        int found = 0;
+        for (float[] query : queryVectors) {
+            List<HnswIndex.Match> matches = index.search(query, 1, 50);
+            if (!matches.isEmpty() && matches.get(0).key.equals("key-" + bruteForce(vectors, query))) {
+                found++;
+            }
+        }
+        
+        // Then
+        assertThat((double) found / queryVectors.size()).isGreaterThanOrEqualTo(0.95);
+    }
+    
+    @Test
+    @Tag("benchmark")
+    @DisplayName("HNSW 검색은 전수 조사보다 빨라야 함")
+    void shouldSearchFasterThanBruteForce() {
+        // Given: 주제별로 모인 64차원 임베딩 20,000개
+        Random random = new Random(7);
+        List<float[]> vectors = clusteredVectors(20_000, random);
+        HnswIndex index = buildIndex(vectors);
+        List<float[]> queryVectors = paraphrasedQueries(vectors, 500, random);
+        
+        // 워밍업
+        for (float[] query : queryVectors) {
+            index.search(query, 1, 50);
+            bruteForce(vectors, query);
+        }
+        
+        // When
+        long hnswNanos = 0;
+        long bruteForceNanos = 0;
+        for (float[] query : queryVectors) {
+            long start = System.nanoTime();
+            index.search(query, 1, 50);
+            hnswNanos += System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            bruteForce(vectors, query);
+            bruteForceNanos += System.nanoTime() - start;
+        }
+        
+        // Then
+        assertThat(hnswNanos).isLessThan(bruteForceNanos);
+    }
+    
+    @Test
+    @DisplayName("인덱스를 정리하는 동안 추가된 항목도 잃지 않아야 함")
+    void shouldNotLoseEntriesAddedDuringCompaction() throws Exception {
+        // Given: 모두 같은 파티션 (이전 대화 없음)
+        cache = SemanticCache.builder()
+            .embeddingFunction(text -> randomUnitVector(new Random(text.hashCode())))
+            .build();
+        int count = 2_000;
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String key = cache.generateKey(Collections.singletonList(Message.user("question " + i)), MODEL, 0.7, null);
+            keys.add(key);
+        }
+        for (int i = 0; i < count / 2; i++) {
+            cache.put(keys.get(i), LLMReply.builder().text("answer " + i).build());
+        }
+        
+        // When: 앞 절반을 제거하면서(정리 반복) 뒤 절반을 추가
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> evictions = executor.submit(() -> {
+            for (int i = 0; i < count / 2; i++) {
+                cache.evict(keys.get(i));
+            }
+        });
+        Future<?> puts = executor.submit(() -> {
+            for (int i = count / 2; i < count; i++) {
+                cache.put(keys.get(i), LLMReply.builder().text("answer " + i).build());
+            }
+        });
+        evictions.get(30, TimeUnit.SECONDS);
+        puts.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        
+        // Then
+        assertThat(cache.getIndexedCount()).isEqualTo(count / 2);
+    }
+    
+    @Test
+    @DisplayName("HNSW 인덱스를 정리해도 살아 있는 항목은 검색되어야 함")
+    void shouldKeepLiveEntriesAfterCompaction() {
+        // Given
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(8, 50);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            float[] vector = randomUnitVector(random);
+            vectors.add(vector);
+            index.add("key-" + i, vector);
+        }
+        for (int i = 0; i < 200; i += 2) {
+            index.remove("key-" + i);
+        }
+        
+        // When
+        HnswIndex compacted = index.compact();
+        
+        // Then
+        assertThat(compacted.size()).isEqualTo(100);
+        assertThat(compacted.deletedCount()).isZero();
+        assertThat(compacted.search(vectors.get(1), 1, 50).get(0).key).isEqualTo("key-1");
+        assertThat(index.search(vectors.get(0), 1, 50).get(0).key).isNotEqualTo("key-0");
+    }
+    
+    private void store(List<Message> messages, double temperature, String text) {
+        String key = cache.generateKey(messages, MODEL, temperature, null);
+        assertThat(cache.get(key)).isEmpty();
+        cache.put(key, LLMReply.builder().text(text).build());
+    }
+    
+    private Optional<LLMReply> lookup(List<Message> messages, double temperature) {
+        return cache.get(cache.generateKey(messages, MODEL, temperature, null));
+    }
+    
+    /**
+     * 테스트용 임베딩: 단어마다 해시한 차원에 1을 더함
+     */
+    private float[] bagOfWords(String text) {
+        embedCalls.incrementAndGet();
+        float[] vector = new float[DIMENSION];
+        for (String word : text.toLowerCase().split("[^a-z]+")) {
+            if (word.length() > 2) {
+                vector[Math.floorMod(word.hashCode(), DIMENSION)] += 1f;
+            }
+        }
+        return vector;
+    }
+    
+    private static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return SemanticCache.normalize(vector);
+    }
+    
+    private static float[] perturb(float[] base, float noise, Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = base[i] + (float) random.nextGaussian() * noise / (float) Math.sqrt(DIMENSION);
+        }
+        return SemanticCache.normalize(vector);
+    }
+    
+    private static List<float[]> clusteredVectors(int count, Random random) {
+        List<float[]> topics = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            topics.add(randomUnitVector(random));
+        }
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            vectors.add(perturb(topics.get(random.nextInt(topics.size())), 0.5f, random));
+        }
+        return vectors;
+    }
+    
+    private static HnswIndex buildIndex(List<float[]> vectors) {
+        HnswIndex index = new HnswIndex(16, 100);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add("key-" + i, vectors.get(i));
+        }
+        return index;
+    }
+    
+    /**
+     * 저장된 질문을 조금 바꿔 말한 질의
+     */
+    private static List<float[]> paraphrasedQueries(List<float[]> vectors, int queries, Random random) {
+        List<float[]> queryVectors = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            queryVectors.add(perturb(vectors.get(random.nextInt(vectors.size())), 0.1f, random));
+        }
+        return queryVectors;
+    }
+    
+    private static int bruteForce(List<float[]> vectors, float[] query) {
+        int best = -1;
+        float bestSimilarity = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < vectors.size(); i++) {
+            float similarity = HnswIndex.dot(query, vectors.get(i));
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
\ No newline at end of file
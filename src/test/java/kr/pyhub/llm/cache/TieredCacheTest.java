@@ -0,0 +1,171 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 2단계 캐시 테스트
+ */
+class TieredCacheTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private MemoryCache l1;
+    private FileCache l2;
+    
+    @BeforeEach
+    void setUp() {
+        l1 = new MemoryCache();
+        l2 = new FileCache(tempDir.toString());
+    }
+    
+    @Test
+    @DisplayName("저장한 값은 두 계층 모두에 있어야 함")
+    void shouldWriteThroughToBothTiers() {
+        // Given
+        TieredCache cache = new TieredCache(l2);
+        
+        // When
+        cache.put("key", reply("Tiered"));
+        
+        // Then
+        assertThat(cache.getL1().get("key")).isPresent();
+        assertThat(l2.get("key")).isPresent();
+        assertThat(cache.get("key").map(LLMReply::getText)).contains("Tiered");
+    }
+    
+    @Test
+    @DisplayName("L2 히트는 L1으로 승격되어야 함")
+    void shouldPromoteL2HitsToL1() {
+        // Given: 재시작 후 디스크에만 남아 있는 항목
+        l2.put("key", reply("From disk"));
+        TieredCache cache = TieredCache.builder().l1(l1).l2(l2).build();
+        
+        // When
+        LLMReply first = cache.get("key").orElse(null);
+        LLMReply second = cache.get("key").orElse(null);
+        
+        // Then
+        assertThat(first).isNotNull();
+        assertThat(second.getText()).isEqualTo("From disk");
+        assertThat(l1.get("key")).isPresent();
+        
+        // L1 히트: 두 번째 조회와 위의 l1.get 확인
+        TieredCacheStats stats = cache.getTierStats();
+        assertThat(stats.getL1().getHitCount()).isEqualTo(2);
+        assertThat(stats.getL1().getMissCount()).isEqualTo(1);
+        assertThat(stats.getL2().getHitCount()).isEqualTo(1);
+        assertThat(stats.getL2().getMissCount()).isZero();
+        assertThat(stats.getL1().getSize()).isEqualTo(1);
+        assertThat(stats.getL2().getSize()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(1.0);
+        assertThat(cache.getStats().getHitCount()).isEqualTo(2);
+    }
+    
+    @Test
+    @DisplayName("두 계층 모두 없으면 미스로 집계해야 함")
+    void shouldCountMissesAcrossTiers() {
+        // Given
+        TieredCache cache = TieredCache.builder().l1(l1).l2(l2).build();
+        
+        // When
+        assertThat(cache.get("missing")).isEmpty();
+        
+        // Then
+        TieredCacheStats stats = cache.getTierStats();
+        assertThat(stats.getL1().getMissCount()).isEqualTo(1);
+        assertThat(stats.getL2().getMissCount()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isZero();
+        assertThat(cache.getStats().getMissCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("write-behind 모드에서도 항목별 TTL을 지원하는 L2에는 TTL과 함께 저장해야 함")
+    void shouldWriteEntryTtlThroughWriteBehind() throws InterruptedException {
+        // Given
+        MemoryCache memoryL2 = new MemoryCache();
+        TieredCache cache = TieredCache.builder()
+            .l1(l1)
+            .l2(memoryL2)
+            .writeMode(TieredCache.WriteMode.WRITE_BEHIND)
+            .build();
+        
+        // When
+        cache.put("short", reply("Short"), Duration.ofMillis(50));
+        cache.close();
+        
+        // Then
+        assertThat(cache.supportsEntryTtl()).isTrue();
+        assertThat(memoryL2.get("short")).isPresent();
+        Thread.sleep(100);
+        assertThat(memoryL2.get("short")).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("write-behind 모드는 닫을 때 남은 쓰기를 마쳐야 함")
+    void shouldFlushWriteBehindOnClose() {
+        // Given
+        TieredCache cache = TieredCache.builder()
+            .l1(l1)
+            .l2(l2)
+            .writeMode(TieredCache.WriteMode.WRITE_BEHIND)
+            .build();
+        
+        // When
+        for (int i = 0; i < 20; i++) {
+            cache.put("key" + i, reply("Value " + i));
+        }
+        cache.close();
+        
+        // Then
+        assertThat(l2.getCacheFileCount()).isEqualTo(20);
+        assertThat(l2.get("key19").map(LLMReply::getText)).contains("Value 19");
+    }
+    
+    @Test
+    @DisplayName("삭제는 두 계층 모두에 적용되어야 함")
+    void shouldEvictFromBothTiers() {
+        // Given
+        TieredCache cache = new TieredCache(l2);
+        cache.put("key1", reply("Value 1"));
+        cache.put("key2", reply("Value 2"));
+        
+        // When
+        cache.evict("key1");
+        cache.evict("missing");
+        
+        // Then
+        assertThat(cache.get("key1")).isEmpty();
+        assertThat(l2.get("key1")).isEmpty();
+        assertThat(cache.getStats().getEvictionCount(EvictionCause.EXPLICIT)).isEqualTo(1);
+        
+        // When
+        cache.clear();
+        
+        // Then
+        assertThat(cache.get("key2")).isEmpty();
+        assertThat(l2.getCacheFileCount()).isZero();
+        assertThat(cache.getStats().getEvictionCount(EvictionCause.EXPLICIT)).isEqualTo(2);
+    }
+    
+    @Test
+    @DisplayName("L2 캐시는 필수여야 함")
+    void shouldRequireL2() {
+        assertThatThrownBy(() -> TieredCache.builder().l1(l1).build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static LLMReply reply(String text) {
+        return LLMReply.builder().text(text).model("test-model").build();
+    }
+}
\ No newline at end of file
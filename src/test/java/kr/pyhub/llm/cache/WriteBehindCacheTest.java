@@ -0,0 +1,264 @@
+package kr.pyhub.llm.cache;
+
+import kr.pyhub.llm.types.LLMReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * write-behind 캐시 테스트
+ */
+class WriteBehindCacheTest {
+    
+    private final GatedCache delegate = new GatedCache();
+    private WriteBehindCache cache;
+    
+    @AfterEach
+    void tearDown() {
+        delegate.open();
+        if (cache != null) {
+            cache.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("put은 저장을 기다리지 않고 대기 중인 값도 조회할 수 있어야 함")
+    void shouldReturnBeforeDelegateWrite() throws InterruptedException {
+        // Given
+        cache = new WriteBehindCache(delegate);
+        
+        // When: 대상 캐시가 막혀 있어도 put은 바로 반환
+        cache.put("slow", reply("Slow"));
+        assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.put("key", reply("Pending"));
+        
+        // Then
+        assertThat(cache.get("key").map(LLMReply::getText)).contains("Pending");
+        assertThat(cache.getStats().getHitCount()).isEqualTo(1);
+        assertThat(delegate.get("key")).isEmpty();
+        assertThat(cache.getPendingCount()).isEqualTo(2);
+        
+        // When
+        delegate.open();
+        cache.flush();
+        
+        // Then
+        assertThat(delegate.get("key").map(LLMReply::getText)).contains("Pending");
+        assertThat(cache.getPendingCount()).isZero();
+    }
+    
+    @Test
+    @DisplayName("저장된 항목을 조회할 때 reloader를 대상 캐시에 전달해야 함")
+    void shouldForwardReloaderToDelegate() throws InterruptedException {
+        // Given
+        MemoryCache memory = MemoryCache.builder()
+            .refreshAfterWrite(Duration.ofMillis(50))
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+        cache = new WriteBehindCache(memory);
+        cache.put("key", reply("Stale"));
+        cache.flush();
+        AtomicInteger reloads = new AtomicInteger();
+        Thread.sleep(100);
+        
+        // When
+        Optional<LLMReply> value = cache.get("key", () -> {
+            reloads.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        
+        // Then
+        assertThat(value.map(LLMReply::getText)).contains("Stale");
+        assertThat(reloads.get()).isEqualTo(1);
+        assertThat(memory.getRefreshCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("항목별 TTL은 대상 캐시가 지원할 때 TTL과 함께 저장해야 함")
+    void shouldForwardEntryTtlToDelegate() throws InterruptedException {
+        // Given
+        MemoryCache memory = new MemoryCache();
+        cache = new WriteBehindCache(memory);
+        
+        // When
+        cache.put("short", reply("Short"), Duration.ofMillis(50));
+        cache.put("default", reply("Default"));
+        cache.flush();
+        
+        // Then
+        assertThat(cache.supportsEntryTtl()).isTrue();
+        assertThat(memory.get("short")).isPresent();
+        Thread.sleep(100);
+        assertThat(memory.get("short")).isEmpty();
+        assertThat(memory.get("default")).isPresent();
+    }
+    
+    @Test
+    @DisplayName("닫을 때 남은 항목을 모두 저장해야 함")
+    void shouldDrainOnClose() {
+        // Given
+        cache = WriteBehindCache.builder().delegate(delegate).batchSize(8).build();
+        
+        // When
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, reply("Value " + i));
+        }
+        cache.close();
+        
+        // Then
+        assertThat(delegate.size()).isEqualTo(100);
+        assertThat(cache.getPendingCount()).isZero();
+        
+        // 닫힌 뒤의 put은 직접 저장
+        cache.put("late", reply("Late"));
+        assertThat(delegate.get("late")).isPresent();
+    }
+    
+    @Test
+    @DisplayName("DROP 정책은 큐가 가득 차면 항목을 버려야 함")
+    void shouldDropWhenQueueIsFull() throws InterruptedException {
+        // Given
+        cache = WriteBehindCache.builder()
+            .delegate(delegate)
+            .queueCapacity(1)
+            .fullQueuePolicy(WriteBehindCache.FullQueuePolicy.DROP)
+            .build();
+        cache.put("slow", reply("Slow"));
+        assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        // When
+        cache.put("queued", reply("Queued"));
+        cache.put("dropped", reply("Dropped"));
+        
+        // Then
+        assertThat(cache.getDroppedCount()).isEqualTo(1);
+        assertThat(cache.get("dropped")).isEmpty();
+        
+        delegate.open();
+        cache.close();
+        assertThat(delegate.get("queued")).isPresent();
+        assertThat(delegate.get("dropped")).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("DROP 정책으로 버린 값은 큐에 있던 같은 키의 값을 지우지 않아야 함")
+    void shouldKeepQueuedValueWhenSameKeyIsDropped() throws InterruptedException {
+        // Given
+        cache = WriteBehindCache.builder()
+            .delegate(delegate)
+            .queueCapacity(1)
+            .fullQueuePolicy(WriteBehindCache.FullQueuePolicy.DROP)
+            .build();
+        cache.put("slow", reply("Slow"));
+        assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+    
+        // When
+        cache.put("key", reply("First"));
+        cache.put("key", reply("Second"));
+    
+        // Then
+        assertThat(cache.getDroppedCount()).isEqualTo(1);
+        assertThat(cache.get("key").map(LLMReply::getText)).contains("First");
+    
+        delegate.open();
+        cache.close();
+        assertThat(delegate.get("key").map(LLMReply::getText)).contains("First");
+    }
+    
+    @Test
+    @DisplayName("WRITE_THROUGH 정책은 큐가 가득 차면 직접 저장해야 함")
+    void shouldWriteThroughWhenQueueIsFull() throws InterruptedException {
+        // Given
+        cache = WriteBehindCache.builder()
+            .delegate(delegate)
+            .queueCapacity(1)
+            .fullQueuePolicy(WriteBehindCache.FullQueuePolicy.WRITE_THROUGH)
+            .build();
+        cache.put("slow", reply("Slow"));
+        assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.put("queued", reply("Queued"));
+        
+        // When
+        Thread writer = new Thread(() -> cache.put("direct", reply("Direct")));
+        writer.start();
+        awaitParked(writer);
+        delegate.open();
+        writer.join(5000);
+        
+        // Then
+        assertThat(writer.isAlive()).isFalse();
+        assertThat(delegate.get("direct")).isPresent();
+        assertThat(cache.getDroppedCount()).isZero();
+    }
+    
+    @Test
+    @DisplayName("삭제된 키의 대기 중인 값은 저장되지 않아야 함")
+    void shouldNotWriteEvictedPendingEntries() throws InterruptedException {
+        // Given
+        cache = new WriteBehindCache(delegate);
+        cache.put("slow", reply("Slow"));
+        assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.put("key", reply("Value"));
+        
+        // When
+        Thread evictor = new Thread(() -> cache.evict("key"));
+        evictor.start();
+        awaitParked(evictor);
+        delegate.open();
+        evictor.join(5000);
+        cache.flush();
+        
+        // Then
+        assertThat(cache.get("key")).isEmpty();
+        assertThat(delegate.get("key")).isEmpty();
+    }
+    
+    /**
+     * 스레드가 잠금을 기다리는 상태가 될 때까지 대기
+     */
+    private static void awaitParked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(thread.getState()).isEqualTo(Thread.State.WAITING);
+    }
+    
+    private static LLMReply reply(String text) {
+        return LLMReply.builder().text(text).model("test-model").build();
+    }
+    
+    /**
+     * "slow" 키 저장을 게이트가 열릴 때까지 막는 캐시
+     */
+    private static class GatedCache extends MemoryCache {
+        final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+        
+        void open() {
+            gate.countDown();
+        }
+        
+        @Override
+        public void put(String key, LLMReply value) {
+            if ("slow".equals(key)) {
+                entered.countDown();
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.put(key, value);
+        }
+    }
+}
\ No newline at end of file
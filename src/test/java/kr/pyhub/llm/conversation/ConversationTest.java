@@ -1,10 +1,13 @@
 package kr.pyhub.llm.conversation;
 
+import kr.pyhub.llm.cache.CacheKeyHasher;
 import kr.pyhub.llm.types.Message;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -130,4 +133,94 @@ class ConversationTest {
         int tokenCount = conversation.estimateTokenCount();
         assertThat(tokenCount).isGreaterThan(0);
     }
+    
+    @Test
+    @DisplayName("메시지 다이제스트는 전체 메시지를 다시 해시한 값과 같아야 함")
+    void shouldKeepMessagesDigestInSyncWithHistory() {
+        // When: 메시지 추가
+        conversation.addUserMessage("Hello!")
+                   .addAssistantMessage("Hi there!");
+        
+        // Then
+        assertDigestMatchesHistory(conversation);
+        
+        // When: 시스템 프롬프트 변경
+        conversation.setSystemPrompt("You are a pirate");
+        
+        // Then
+        assertDigestMatchesHistory(conversation);
+        
+        // When: 초기화
+        conversation.clear();
+        
+        // Then
+        assertDigestMatchesHistory(conversation);
+    }
+    
+    @Test
+    @DisplayName("오래된 메시지가 제거되면 다이제스트를 다시 계산해야 함")
+    void shouldRebuildMessagesDigestAfterTrim() {
+        // Given
+        Conversation limited = new Conversation("System", 3, 4000);
+        
+        // When
+        limited.addUserMessage("Message 1")
+               .addAssistantMessage("Response 1")
+               .addUserMessage("Message 2");
+        
+        // Then
+        assertThat(limited.getMessageCount()).isEqualTo(3);
+        assertDigestMatchesHistory(limited);
+    }
+    
+    @Test
+    @DisplayName("고정 컨텍스트는 시스템 프롬프트 다음에 유지되고 마지막만 캐시 경계여야 함")
+    void shouldKeepPinnedContextAsStablePrefix() {
+        // Given
+        Conversation limited = new Conversation("System", 4, 4000);
+        
+        // When
+        limited.pinContext("Reference document")
+               .addUserMessage("Message 1")
+               .addAssistantMessage("Response 1")
+               .addUserMessage("Message 2");
+        
+        // Then
+        List<Message> messages = limited.getMessages();
+        assertThat(messages).extracting(Message::getContent)
+            .containsExactly("System", "Reference document", "Response 1", "Message 2");
+        assertThat(messages).extracting(Message::isCacheBreakpoint)
+            .containsExactly(false, true, false, false);
+        assertDigestMatchesHistory(limited);
+    }
+    
+    @Test
+    @DisplayName("초기화와 시스템 프롬프트 변경 후에도 고정 컨텍스트를 유지해야 함")
+    void shouldKeepPinnedContextOnClearAndSystemPromptChange() {
+        // Given
+        Conversation conversation = new Conversation();
+        conversation.pinContext("Context").addUserMessage("Hello!");
+        assertThat(conversation.getMessages().get(0).isCacheBreakpoint()).isTrue();
+        
+        // When
+        conversation.clear();
+        conversation.setSystemPrompt("System");
+        
+        // Then
+        assertThat(conversation.getMessages()).extracting(Message::getContent)
+            .containsExactly("System", "Context");
+        assertThat(conversation.getMessages()).extracting(Message::isCacheBreakpoint)
+            .containsExactly(false, true);
+        assertThat(conversation.isEmpty()).isTrue();
+        
+        conversation.clearPinnedContext();
+        assertThat(conversation.getMessages()).extracting(Message::isCacheBreakpoint)
+            .containsExactly(true);
+        assertDigestMatchesHistory(conversation);
+    }
+    
+    private static void assertDigestMatchesHistory(Conversation conversation) {
+        assertThat(conversation.getMessagesDigest())
+            .isEqualTo(CacheKeyHasher.digestMessages(conversation.getMessages()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package kr.pyhub.llm.http;
+
+import kr.pyhub.llm.Config;
+import kr.pyhub.llm.providers.UpstageLLM;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 공유 HTTP 트랜스포트 테스트
+ */
+class HttpTransportTest {
+    
+    private static final String REPLY_BODY = "{\"choices\":[{\"message\":{\"content\":\"ok\"},\"finish_reason\":\"stop\"}]}";
+    
+    private MockWebServer server;
+    private HttpTransport transport;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        transport = HttpTransport.create(HttpTransportConfig.builder()
+            .maxIdleConnections(4)
+            .keepAlive(Duration.ofMinutes(1))
+            .maxRequestsPerHost(8)
+            .build());
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        transport.shutdown();
+        server.shutdown();
+    }
+    
+    @Test
+    @DisplayName("공유 트랜스포트는 프로세스 내에서 하나여야 함")
+    void sharedTransportShouldBeSingleton() {
+        assertThat(HttpTransport.shared()).isSameAs(HttpTransport.shared());
+        assertThat(HttpTransport.shared().client()).isSameAs(HttpTransport.shared().client());
+    }
+    
+    @Test
+    @DisplayName("설정값이 디스패처와 프로토콜에 반영되어야 함")
+    void shouldApplyConfiguration() {
+        HttpTransport http1Only = HttpTransport.create(HttpTransportConfig.builder()
+            .maxRequests(10)
+            .maxRequestsPerHost(3)
+            .preferHttp2(false)
+            .build());
+        try {
+            assertThat(http1Only.client().dispatcher().getMaxRequests()).isEqualTo(10);
+            assertThat(http1Only.client().dispatcher().getMaxRequestsPerHost()).isEqualTo(3);
+            assertThat(http1Only.client().protocols()).containsExactly(Protocol.HTTP_1_1);
+        } finally {
+            http1Only.shutdown();
+        }
+    }
+    
+    @Test
+    @DisplayName("잘못된 설정은 거부해야 함")
+    void shouldRejectInvalidConfiguration() {
+        assertThatThrownBy(() -> HttpTransport.create(HttpTransportConfig.builder().maxRequests(0).build()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    @DisplayName("여러 LLM 인스턴스가 같은 커넥션 풀을 재사용해야 함")
+    void shouldReuseConnectionsAcrossInstances() {
+        // Given
+        Config config = Config.builder()
+            .apiKey("test-api-key")
+            .baseUrl(server.url("/").toString())
+            .httpTransport(transport)
+            .build();
+        server.enqueue(new MockResponse().setBody(REPLY_BODY));
+        server.enqueue(new MockResponse().setBody(REPLY_BODY));
+        
+        // When
+        new UpstageLLM("solar-1-mini-chat", config).ask("first");
+        new UpstageLLM("solar-1-mini-chat", config).ask("second");
+        
+        // Then
+        HttpTransportStats stats = transport.getStats();
+        assertThat(stats.getConnectionCount()).isEqualTo(1);
+        assertThat(stats.getIdleConnectionCount()).isEqualTo(1);
+        assertThat(stats.getRunningCallsCount()).isZero();
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+    
+    @Test
+    @DisplayName("공유 트랜스포트를 재설정할 수 있어야 함")
+    void shouldReconfigureSharedTransport() {
+        HttpTransport previous = HttpTransport.shared();
+        try {
+            HttpTransport configured = HttpTransport.configureShared(HttpTransportConfig.builder()
+                .maxRequestsPerHost(16)
+                .build());
+            
+            assertThat(HttpTransport.shared()).isSameAs(configured).isNotSameAs(previous);
+            assertThat(HttpTransport.shared().client().dispatcher().getMaxRequestsPerHost()).isEqualTo(16);
+        } finally {
+            HttpTransport.configureShared(previous.getConfig());
+        }
+    }
+}
\ No newline at end of file
@@ -1,18 +1,29 @@
 package kr.pyhub.llm.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import kr.pyhub.llm.base.BaseLLM;
+import kr.pyhub.llm.cache.CacheWritePolicy;
+import kr.pyhub.llm.cache.FileCache;
 import kr.pyhub.llm.cache.MemoryCache;
+import kr.pyhub.llm.exceptions.LLMException;
+import kr.pyhub.llm.tools.AbstractTool;
+import kr.pyhub.llm.tools.ToolResult;
 import kr.pyhub.llm.types.LLMReply;
 import kr.pyhub.llm.types.Message;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * 캐싱이 통합된 LLM 테스트
@@ -46,6 +57,7 @@ class CachedLLMTest {
         assertThat(llm.getCallCount()).isEqualTo(1); // API는 한 번만 호출됨
         assertThat(cache.getStats().getHitCount()).isEqualTo(1);
         assertThat(cache.getStats().getMissCount()).isEqualTo(1);
+        assertThat(cache.getStats().getLoadCount()).isEqualTo(1);
     }
     
     @Test
@@ -102,11 +114,198 @@ class CachedLLMTest {
         assertThat(llm.getCallCount()).isEqualTo(1);
     }
     
+    @Test
+    @DisplayName("대화 모드의 캐시 키는 같은 메시지로 직접 요청한 키와 같아야 함")
+    void shouldShareCacheBetweenChatAndAsk() {
+        // Given
+        llm.enableConversation("You are a helpful assistant");
+        
+        // When
+        LLMReply reply1 = llm.chat("Hello!");
+        llm.clearConversation();
+        LLMReply reply2 = llm.chat("Hello!");
+        LLMReply reply3 = llm.ask(Arrays.asList(
+            Message.system("You are a helpful assistant"),
+            Message.user("Hello!")));
+        
+        // Then
+        assertThat(reply2.getText()).isEqualTo(reply1.getText());
+        assertThat(reply3.getText()).isEqualTo(reply1.getText());
+        assertThat(llm.getCallCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("갱신 시점이 지난 응답은 바로 반환하고 백그라운드에서 다시 생성해야 함")
+    void shouldRefreshStaleResponseInBackground() throws InterruptedException {
+        // Given
+        cache = MemoryCache.builder()
+            .refreshAfterWrite(Duration.ofMillis(50))
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+        llm.withCache(cache);
+        List<Message> messages = Arrays.asList(Message.user("What is 2+2?"));
+        llm.ask(messages);
+        Thread.sleep(100);
+        
+        // When
+        LLMReply stale = llm.ask(messages);
+        
+        // Then
+        assertThat(stale.getText()).isEqualTo("Response 1");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!llm.ask(messages).getText().equals("Response 2") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(llm.ask(messages).getText()).isEqualTo("Response 2");
+        assertThat(llm.getCallCount()).isEqualTo(2);
+        assertThat(cache.getRefreshCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("top-p나 사용 가능한 도구가 다르면 캐시를 공유하지 않아야 함")
+    void shouldNotShareCacheAcrossTopPOrTools() {
+        // Given
+        List<Message> messages = Arrays.asList(Message.user("What is the weather?"));
+        llm.ask(messages);
+        
+        // When
+        llm.withTopP(0.5);
+        llm.ask(messages);
+        llm.withTools(new AbstractTool("weather", "Get the weather") {
+            @Override
+            public JsonNode getSchema() {
+                return null;
+            }
+            
+            @Override
+            public ToolResult execute(Map<String, Object> args) {
+                return ToolResult.success("sunny");
+            }
+        });
+        llm.ask(messages);
+        llm.withToolsEnabled(false);
+        llm.ask(messages);
+        
+        // Then: 도구를 끄면 도구 없이 저장한 응답을 다시 사용
+        assertThat(llm.getCallCount()).isEqualTo(3);
+        assertThat(cache.getStats().getHitCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("저장하지 않을 종료 사유의 응답은 캐시하지 않고, 짧은 TTL을 지정한 응답은 그 시간만 캐시해야 함")
+    void shouldApplyCacheWritePolicyToFinishReasons() throws InterruptedException {
+        // Given
+        llm.withCacheWritePolicy(CacheWritePolicy.builder()
+            .uncachedFinishReason("content_filter")
+            .finishReasonTtl("length", Duration.ofMillis(50))
+            .build());
+        List<Message> messages = Arrays.asList(Message.user("Write a long story"));
+        
+        // When: 거부된 응답은 저장하지 않음
+        llm.setFinishReason("content_filter");
+        llm.ask(messages);
+        llm.ask(messages);
+        
+        // Then
+        assertThat(llm.getCallCount()).isEqualTo(2);
+        
+        // When: 잘린 응답은 짧게 저장
+        llm.setFinishReason("length");
+        llm.ask(messages);
+        llm.ask(messages);
+        assertThat(llm.getCallCount()).isEqualTo(3);
+        Thread.sleep(100);
+        llm.ask(messages);
+        
+        // Then
+        assertThat(llm.getCallCount()).isEqualTo(4);
+    }
+    
+    @Test
+    @DisplayName("저장하도록 지정한 실패는 TTL 동안 API를 호출하지 않고 바로 실패해야 함")
+    void shouldCacheFailuresWithinErrorTtl() throws InterruptedException {
+        // Given
+        llm.withCacheWritePolicy(CacheWritePolicy.builder()
+            .errorTtl(Duration.ofMillis(100))
+            .errorFilter(error -> error.getMessage().contains("400"))
+            .build());
+        llm.setFailure(new LLMException("API error: 400 - invalid prompt"));
+        List<Message> messages = Arrays.asList(Message.user("Invalid"));
+        
+        // When
+        assertThatThrownBy(() -> llm.ask(messages)).isInstanceOf(LLMException.class);
+        assertThatThrownBy(() -> llm.ask(messages))
+            .isInstanceOf(LLMException.class)
+            .hasRootCauseMessage("Cached failure: API error: 400 - invalid prompt");
+        assertThatThrownBy(() -> llm.askAsync(messages).join())
+            .hasRootCauseMessage("Cached failure: API error: 400 - invalid prompt");
+        
+        // Then
+        assertThat(llm.getCallCount()).isEqualTo(1);
+        
+        Thread.sleep(150);
+        llm.setFailure(null);
+        assertThat(llm.ask(messages).getText()).isEqualTo("Response 2");
+    }
+    
+    @Test
+    @DisplayName("프로바이더가 종료 사유 error를 돌려줘도 저장한 실패로 보지 않아야 함")
+    void shouldNotTreatProviderErrorFinishReasonAsCachedFailure() {
+        // Given
+        llm.withCacheWritePolicy(CacheWritePolicy.builder()
+            .errorTtl(Duration.ofMinutes(1))
+            .errorFilter(error -> true)
+            .build());
+        llm.setFinishReason("error");
+        List<Message> messages = Arrays.asList(Message.user("Hello"));
+        
+        // When
+        LLMReply first = llm.ask(messages);
+        LLMReply second = llm.ask(messages);
+        
+        // Then
+        assertThat(second.getText()).isEqualTo(first.getText());
+        assertThat(second.getFinishReason()).isEqualTo("error");
+        assertThat(llm.getCallCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("조건에 맞지 않는 실패와 항목별 TTL을 지원하지 않는 캐시에는 저장하지 않아야 함")
+    void shouldNotCacheUnmatchedFailuresOrShortLivedEntriesWithoutTtlSupport(@TempDir Path tempDir) {
+        // Given
+        llm.withCacheWritePolicy(CacheWritePolicy.builder()
+            .finishReasonTtl("length", Duration.ofMinutes(1))
+            .errorTtl(Duration.ofMinutes(1))
+            .errorFilter(error -> error.getMessage().contains("400"))
+            .build());
+        List<Message> messages = Arrays.asList(Message.user("Hello"));
+        
+        // When: 일시적인 실패는 저장하지 않음
+        llm.setFailure(new LLMException("API error: 503 - overloaded"));
+        assertThatThrownBy(() -> llm.ask(messages)).isInstanceOf(LLMException.class);
+        llm.setFailure(null);
+        llm.ask(messages);
+        
+        // Then
+        assertThat(llm.getCallCount()).isEqualTo(2);
+        
+        // When: FileCache는 항목별 TTL을 지원하지 않으므로 잘린 응답을 저장하지 않음
+        llm.withCache(new FileCache(tempDir.toString()));
+        llm.setFinishReason("length");
+        llm.ask(messages);
+        llm.ask(messages);
+        
+        // Then
+        assertThat(llm.getCallCount()).isEqualTo(4);
+    }
+    
     /**
      * 테스트용 LLM 구현
      */
     static class TestLLM extends BaseLLM {
         private final AtomicInteger callCount = new AtomicInteger(0);
+        private volatile String finishReason = "stop";
+        private volatile RuntimeException failure;
         
         public TestLLM() {
             super("test-model");
@@ -115,13 +314,24 @@ class CachedLLMTest {
         @Override
         protected LLMReply doAsk(List<Message> messages) {
             callCount.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
             return LLMReply.builder()
                 .text("Response " + callCount.get())
                 .model(getModel())
-                .finishReason("stop")
+                .finishReason(finishReason)
                 .build();
         }
         
+        public void setFinishReason(String finishReason) {
+            this.finishReason = finishReason;
+        }
+        
+        public void setFailure(RuntimeException failure) {
+            this.failure = failure;
+        }
+        
         public int getCallCount() {
             return callCount.get();
         }
@@ -0,0 +1,296 @@
+package kr.pyhub.llm.integration;
+
+import kr.pyhub.llm.base.BaseLLM;
+import kr.pyhub.llm.cache.Cache;
+import kr.pyhub.llm.cache.CacheReloader;
+import kr.pyhub.llm.cache.FileCache;
+import kr.pyhub.llm.cache.MemoryCache;
+import kr.pyhub.llm.exceptions.LLMException;
+import kr.pyhub.llm.types.LLMReply;
+import kr.pyhub.llm.types.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 동시 캐시 미스 요청 병합(single-flight) 테스트
+ */
+class RequestCoalescingTest {
+    
+    private static final int CALLERS = 8;
+    private static final List<Message> MESSAGES = Collections.singletonList(Message.user("What is 2+2?"));
+    
+    @TempDir
+    Path tempDir;
+    
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+    
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+    
+    @Test
+    @DisplayName("MemoryCache: 동시에 들어온 동일 요청은 한 번만 호출해야 함")
+    void shouldCoalesceConcurrentMissesWithMemoryCache() throws Exception {
+        assertSingleUpstreamCall(new MemoryCache());
+    }
+    
+    @Test
+    @DisplayName("FileCache: 동시에 들어온 동일 요청은 한 번만 호출해야 함")
+    void shouldCoalesceConcurrentMissesWithFileCache() throws Exception {
+        assertSingleUpstreamCall(new FileCache(tempDir.toString()));
+    }
+    
+    @Test
+    @DisplayName("캐시를 공유하는 다른 인스턴스의 요청도 병합해야 함")
+    void shouldCoalesceAcrossInstancesSharingCache() throws Exception {
+        // Given
+        MemoryCache cache = new MemoryCache();
+        BlockingLLM first = new BlockingLLM();
+        BlockingLLM second = new BlockingLLM();
+        first.withCache(cache);
+        second.withCache(cache);
+        
+        // When
+        Future<LLMReply> leader = pool.submit(() -> first.ask(MESSAGES));
+        assertThat(first.started.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<LLMReply> waiter = pool.submit(() -> second.ask(MESSAGES));
+        Thread.sleep(100);
+        first.release.countDown();
+        second.release.countDown();
+        
+        // Then
+        assertThat(leader.get(5, TimeUnit.SECONDS).getText()).isEqualTo("answer");
+        assertThat(waiter.get(5, TimeUnit.SECONDS).getText()).isEqualTo("answer");
+        assertThat(first.calls.get() + second.calls.get()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("실패한 호출의 예외는 대기 중인 요청에도 전달되어야 함")
+    void shouldPropagateErrorToWaiters() throws Exception {
+        // Given
+        BlockingLLM llm = new BlockingLLM();
+        llm.failure = new IllegalStateException("upstream down");
+        llm.withCache(new MemoryCache());
+        
+        // When
+        List<Future<LLMReply>> futures = submitConcurrently(llm);
+        llm.release.countDown();
+        
+        // Then
+        for (Future<LLMReply> future : futures) {
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(LLMException.class)
+                .hasRootCauseMessage("upstream down");
+        }
+        assertThat(llm.calls.get()).isEqualTo(1);
+        
+        // 실패는 캐시되지 않으므로 다음 요청은 다시 호출함
+        llm.failure = null;
+        assertThat(llm.ask(MESSAGES).getText()).isEqualTo("answer");
+        assertThat(llm.calls.get()).isEqualTo(2);
+    }
+    
+    @Test
+    @DisplayName("대기 시간이 초과되면 대기 중인 요청만 실패해야 함")
+    void shouldTimeOutWaiter() throws Exception {
+        // Given
+        BlockingLLM llm = new BlockingLLM();
+        llm.withCache(new MemoryCache());
+        llm.withCoalescingTimeout(Duration.ofMillis(100));
+        
+        Future<LLMReply> leader = pool.submit(() -> llm.ask(MESSAGES));
+        assertThat(llm.started.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        // When/Then
+        assertThatThrownBy(() -> llm.ask(MESSAGES))
+            .isInstanceOf(LLMException.class)
+            .hasStackTraceContaining("waiting for an identical in-flight request");
+        
+        llm.release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS).getText()).isEqualTo("answer");
+        assertThat(llm.calls.get()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("비동기 대기 요청도 각자 대기 시간이 초과되면 실패해야 함")
+    void shouldTimeOutAsyncWaiter() throws Exception {
+        // Given
+        BlockingLLM llm = new BlockingLLM();
+        llm.withCache(new MemoryCache());
+        llm.withExecutor(pool);
+        llm.withCoalescingTimeout(Duration.ofMillis(100));
+        
+        CompletableFuture<LLMReply> leader = llm.askAsync(MESSAGES);
+        assertThat(llm.started.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        // When
+        CompletableFuture<LLMReply> waiter = llm.askAsync(MESSAGES);
+        
+        // Then
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(LLMException.class)
+            .hasStackTraceContaining("waiting for an identical in-flight request");
+        assertThat(leader).isNotDone();
+        
+        llm.release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS).getText()).isEqualTo("answer");
+        assertThat(llm.calls.get()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("병합을 끄면 각 요청이 개별 호출해야 함")
+    void shouldCallUpstreamForEachRequestWhenDisabled() throws Exception {
+        // Given
+        BlockingLLM llm = new BlockingLLM();
+        llm.withCache(new MemoryCache());
+        llm.withRequestCoalescing(false);
+        
+        // When
+        List<Future<LLMReply>> futures = submitConcurrently(llm);
+        llm.release.countDown();
+        for (Future<LLMReply> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        
+        // Then
+        assertThat(llm.calls.get()).isGreaterThan(1);
+    }
+    
+    @Test
+    @DisplayName("비동기 요청도 진행 중인 호출을 공유해야 함")
+    void shouldCoalesceAsyncRequests() throws Exception {
+        // Given
+        BlockingLLM llm = new BlockingLLM();
+        llm.withCache(new MemoryCache());
+        llm.withExecutor(pool);
+        
+        // When
+        CompletableFuture<LLMReply> first = llm.askAsync(MESSAGES);
+        assertThat(llm.started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<LLMReply> second = llm.askAsync(MESSAGES);
+        llm.release.countDown();
+        
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS).getText()).isEqualTo("answer");
+        assertThat(second.get(5, TimeUnit.SECONDS).getText()).isEqualTo("answer");
+        assertThat(llm.calls.get()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("이전 호출이 막 저장한 응답은 새 호출 없이 반환해야 함")
+    void shouldReuseReplyStoredByPreviousLeader() throws Exception {
+        // Given
+        LateMissCache cache = new LateMissCache();
+        BlockingLLM llm = new BlockingLLM();
+        llm.withCache(cache);
+        llm.withExecutor(pool);
+        llm.release.countDown();
+        llm.ask(MESSAGES);
+        
+        // When: 첫 조회는 이전 호출이 저장하기 직전에 놓친 것처럼 동작
+        cache.missNextLookup = true;
+        LLMReply syncReply = llm.ask(MESSAGES);
+        cache.missNextLookup = true;
+        LLMReply asyncReply = llm.askAsync(MESSAGES).get(5, TimeUnit.SECONDS);
+        
+        // Then
+        assertThat(syncReply.getText()).isEqualTo("answer");
+        assertThat(asyncReply.getText()).isEqualTo("answer");
+        assertThat(llm.calls.get()).isEqualTo(1);
+    }
+    
+    private void assertSingleUpstreamCall(Cache cache) throws Exception {
+        // Given
+        BlockingLLM llm = new BlockingLLM();
+        llm.withCache(cache);
+        
+        // When
+        List<Future<LLMReply>> futures = submitConcurrently(llm);
+        llm.release.countDown();
+        
+        // Then
+        for (Future<LLMReply> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS).getText()).isEqualTo("answer");
+        }
+        assertThat(llm.calls.get()).isEqualTo(1);
+    }
+    
+    /**
+     * 첫 호출이 시작된 뒤 나머지 요청을 보내 모두 대기 상태가 되도록 함
+     */
+    private List<Future<LLMReply>> submitConcurrently(BlockingLLM llm) throws InterruptedException {
+        List<Future<LLMReply>> futures = new ArrayList<>();
+        futures.add(pool.submit(() -> llm.ask(MESSAGES)));
+        assertThat(llm.started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i < CALLERS; i++) {
+            futures.add(pool.submit(() -> llm.ask(MESSAGES)));
+        }
+        Thread.sleep(100);
+        return futures;
+    }
+    
+    /**
+     * 다음 한 번의 조회만 미스로 응답하는 캐시
+     */
+    static class LateMissCache extends MemoryCache {
+        volatile boolean missNextLookup;
+        
+        @Override
+        public Optional<LLMReply> get(String key, CacheReloader reloader) {
+            if (missNextLookup) {
+                missNextLookup = false;
+                return Optional.empty();
+            }
+            return super.get(key, reloader);
+        }
+    }
+    
+    static class BlockingLLM extends BaseLLM {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile RuntimeException failure;
+        
+        BlockingLLM() {
+            super("test-model");
+        }
+        
+        @Override
+        protected LLMReply doAsk(List<Message> messages) {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return LLMReply.builder()
+                .text("answer")
+                .model(getModel())
+                .build();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package kr.pyhub.llm.providers;
+
+import com.anthropic.client.AnthropicClient;
+import com.anthropic.models.messages.ContentBlock;
+import com.anthropic.models.messages.MessageCreateParams;
+import com.anthropic.models.messages.Model;
+import com.anthropic.models.messages.StopReason;
+import com.anthropic.models.messages.TextBlock;
+import com.anthropic.models.messages.TextBlockParam;
+import com.anthropic.models.messages.Usage;
+import com.anthropic.services.blocking.MessageService;
+import kr.pyhub.llm.types.LLMReply;
+import kr.pyhub.llm.types.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnthropicLLMTest {
+    
+    @Mock
+    private AnthropicClient mockClient;
+    
+    @Mock
+    private MessageService mockMessageService;
+    
+    @Mock
+    private com.anthropic.models.messages.Message mockResponse;
+    
+    @Mock
+    private ContentBlock mockContent;
+    
+    @Mock
+    private TextBlock mockText;
+    
+    @Mock
+    private Usage mockUsage;
+    
+    private AnthropicLLM llm;
+    
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        
+        when(mockClient.messages()).thenReturn(mockMessageService);
+        when(mockMessageService.create(any(MessageCreateParams.class))).thenReturn(mockResponse);
+        when(mockResponse.content()).thenReturn(Collections.singletonList(mockContent));
+        when(mockResponse.model()).thenReturn(Model.of("claude-3-5-sonnet-latest"));
+        when(mockResponse.stopReason()).thenReturn(Optional.of(StopReason.END_TURN));
+        when(mockResponse.usage()).thenReturn(mockUsage);
+        when(mockContent.text()).thenReturn(Optional.of(mockText));
+        when(mockText.text()).thenReturn("Hello!");
+        
+        llm = new AnthropicLLM("claude-3-5-sonnet-latest", mockClient);
+    }
+    
+    @Test
+    @DisplayName("doAsk 메서드는 Anthropic API를 호출하고 캐시된 프롬프트 토큰을 따로 보고해야 한다")
+    void testDoAskReportsCachedPromptTokens() {
+        // Given
+        when(mockUsage.inputTokens()).thenReturn(20L);
+        when(mockUsage.outputTokens()).thenReturn(10L);
+        when(mockUsage.cacheReadInputTokens()).thenReturn(Optional.of(2000L));
+        when(mockUsage.cacheCreationInputTokens()).thenReturn(Optional.empty());
+        
+        // When
+        LLMReply reply = llm.doAsk(Arrays.asList(
+            Message.system("Long system prompt").asCacheBreakpoint(),
+            Message.user("Hi")));
+        
+        // Then
+        assertThat(reply.getText()).isEqualTo("Hello!");
+        assertThat(reply.getModel()).isEqualTo("claude-3-5-sonnet-latest");
+        assertThat(reply.getFinishReason()).isEqualTo("end_turn");
+        assertThat(reply.getUsage().getPromptTokens()).isEqualTo(2020);
+        assertThat(reply.getUsage().getCachedPromptTokens()).isEqualTo(2000);
+        assertThat(reply.getUsage().getTotalTokens()).isEqualTo(2030);
+    }
+    
+    @Test
+    @DisplayName("캐시 경계로 표시한 메시지에만 cache_control을 붙여야 한다")
+    void testCacheControlOnBreakpoints() {
+        // Given
+        when(mockUsage.cacheReadInputTokens()).thenReturn(Optional.empty());
+        when(mockUsage.cacheCreationInputTokens()).thenReturn(Optional.empty());
+        List<Message> messages = Arrays.asList(
+            Message.system("System"),
+            Message.system("Pinned context").asCacheBreakpoint(),
+            Message.user("Question"));
+        
+        // When
+        llm.doAsk(messages);
+        
+        // Then
+        ArgumentCaptor<MessageCreateParams> captor = ArgumentCaptor.forClass(MessageCreateParams.class);
+        verify(mockMessageService).create(captor.capture());
+        MessageCreateParams params = captor.getValue();
+        List<TextBlockParam> system = params.system().get().asTextBlockParams();
+        assertThat(system).extracting(TextBlockParam::text).containsExactly("System", "Pinned context");
+        assertThat(system.get(0).cacheControl()).isEmpty();
+        assertThat(system.get(1).cacheControl()).isPresent();
+        assertThat(params.messages()).hasSize(1);
+        assertThat(params.maxTokens()).isEqualTo(1024);
+    }
+    
+    @Test
+    @DisplayName("캐시 경계는 마지막 4개만 보내야 한다")
+    void testLimitsCacheBreakpoints() {
+        // Given
+        List<Message> messages = Arrays.asList(
+            Message.system("1").asCacheBreakpoint(),
+            Message.system("2").asCacheBreakpoint(),
+            Message.system("3").asCacheBreakpoint(),
+            Message.system("4").asCacheBreakpoint(),
+            Message.system("5").asCacheBreakpoint(),
+            Message.user("Question"));
+        
+        // When
+        MessageCreateParams params = llm.buildParams(messages);
+        
+        // Then
+        assertThat(params.system().get().asTextBlockParams())
+            .extracting(block -> block.cacheControl().isPresent())
+            .containsExactly(false, true, true, true, true);
+    }
+    
+    @Test
+    @DisplayName("프롬프트 캐싱을 켜면 시스템 프롬프트를 캐시 경계로 표시해야 한다")
+    void testPromptCachingMarksSystemPrompt() {
+        // Given
+        when(mockUsage.cacheReadInputTokens()).thenReturn(Optional.empty());
+        when(mockUsage.cacheCreationInputTokens()).thenReturn(Optional.empty());
+        llm.withSystemPrompt("Long system prompt").withPromptCaching(true);
+        
+        // When
+        llm.ask("Question");
+        
+        // Then
+        ArgumentCaptor<MessageCreateParams> captor = ArgumentCaptor.forClass(MessageCreateParams.class);
+        verify(mockMessageService).create(captor.capture());
+        assertThat(captor.getValue().system().get().asTextBlockParams().get(0).cacheControl()).isPresent();
+    }
+}
\ No newline at end of file
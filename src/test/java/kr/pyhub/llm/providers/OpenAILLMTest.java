@@ -174,6 +174,22 @@ class OpenAILLMTest {
         assertThat(llmWithConfig.getMaxTokens()).isEqualTo(2000);
     }
     
+    @Test
+    @DisplayName("Config의 topP가 0이어도 OpenAILLM을 생성할 수 있어야 한다")
+    void testCreateWithZeroTopP() {
+        // Given
+        Config config = Config.builder()
+            .apiKey("test-api-key")
+            .topP(0.0)
+            .build();
+        
+        // When
+        OpenAILLM llmWithConfig = new OpenAILLM("gpt-4", config);
+        
+        // Then
+        assertThat(llmWithConfig.getTopP()).isEqualTo(0.0);
+    }
+    
     @Test
     @DisplayName("응답에 choices가 없으면 예외를 발생시켜야 한다")
     void testNoChoicesThrowsException() {
@@ -1,73 +1,116 @@
 package kr.pyhub.llm.providers;
 
-import kr.pyhub.llm.Config;
-import kr.pyhub.llm.types.LLMReply;
+import com.openai.client.OpenAIClient;
+import com.openai.core.http.StreamResponse;
+import com.openai.models.chat.completions.ChatCompletionChunk;
+import com.openai.models.chat.completions.ChatCompletionCreateParams;
+import com.openai.models.completions.CompletionUsage;
+import com.openai.services.blocking.ChatService;
+import com.openai.services.blocking.chat.ChatCompletionService;
+import kr.pyhub.llm.exceptions.LLMException;
 import kr.pyhub.llm.types.Message;
 import kr.pyhub.llm.types.StreamChunk;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 /**
  * OpenAI 스트리밍 테스트
  * 
- * 실제 API 호출은 제외하고 기본 스트리밍 동작만 테스트
+ * 실제 API 호출 대신 SDK의 StreamResponse를 모킹하여 네이티브 스트리밍 동작을 테스트
  */
 class OpenAIStreamingTest {
     
-    private static final String TEST_API_KEY = "test-api-key";
     private static final String TEST_MODEL = "gpt-3.5-turbo";
     
-    private Config config;
+    @Mock
+    private OpenAIClient mockClient;
+    
+    @Mock
+    private ChatService mockChatService;
+    
+    @Mock
+    private ChatCompletionService mockCompletionService;
+    
+    @Mock
+    private StreamResponse<ChatCompletionChunk> mockStreamResponse;
+    
+    private OpenAILLM llm;
     
     @BeforeEach
     void setUp() {
-        config = Config.builder()
-            .apiKey(TEST_API_KEY)
-            .temperature(0.7)
-            .maxTokens(100)
-            .build();
+        MockitoAnnotations.openMocks(this);
+        
+        when(mockClient.chat()).thenReturn(mockChatService);
+        when(mockChatService.completions()).thenReturn(mockCompletionService);
+        when(mockCompletionService.createStreaming(any(ChatCompletionCreateParams.class)))
+            .thenReturn(mockStreamResponse);
+        
+        llm = new OpenAILLM(TEST_MODEL, mockClient);
     }
     
     @Test
-    @DisplayName("스트리밍 기본 폴백 동작 테스트")
-    void shouldFallbackToDefaultStreaming() {
+    @DisplayName("SDK 청크를 StreamChunk로 변환하고 마지막에 사용량을 포함해야 함")
+    void shouldMapSdkChunksToStreamChunks() {
         // Given
+        Stream<ChatCompletionChunk> sdkChunks = Stream.of(
+            textChunk("Test"),
+            textChunk(" response"),
+            finishChunk(ChatCompletionChunk.Choice.FinishReason.STOP),
+            usageChunk(12, 2)
+        );
+        when(mockStreamResponse.stream()).thenReturn(sdkChunks);
         List<Message> messages = Arrays.asList(
             Message.user("Hello!")
         );
         
         // When
-        // 실제 API 호출을 피하기 위해 TestOpenAILLM 사용
-        TestOpenAILLM llm = new TestOpenAILLM(TEST_MODEL, config);
         Flux<StreamChunk> stream = llm.askStream(messages);
         
         // Then
         StepVerifier.create(stream)
-            .expectNextMatches(chunk -> chunk.getContent() != null && !chunk.isFinished())
-            .expectNextMatches(chunk -> chunk.getContent() != null && !chunk.isFinished())
-            .expectNextMatches(chunk -> chunk.isFinished() && chunk.getFinishReason() != null)
-            .verifyComplete();
+            .expectNextMatches(chunk -> "Test".equals(chunk.getContent()) && !chunk.isFinished())
+            .expectNextMatches(chunk -> " response".equals(chunk.getContent()) && !chunk.isFinished())
+            .expectNextMatches(chunk -> chunk.isFinished()
+                && "stop".equals(chunk.getFinishReason())
+                && chunk.getUsage() != null
+                && chunk.getUsage().getTotalTokens() == 14)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+        
+        verify(mockStreamResponse).close();
     }
     
     @Test
     @DisplayName("스트리밍 응답을 문자열로 수집할 수 있어야 함")
     void shouldCollectStreamToString() {
         // Given
+        Stream<ChatCompletionChunk> sdkChunks = Stream.of(
+            textChunk("Test"),
+            textChunk(" response"),
+            finishChunk(ChatCompletionChunk.Choice.FinishReason.STOP)
+        );
+        when(mockStreamResponse.stream()).thenReturn(sdkChunks);
         List<Message> messages = Arrays.asList(
             Message.user("Tell me a joke")
         );
         
         // When
-        TestOpenAILLM llm = new TestOpenAILLM(TEST_MODEL, config);
         String result = llm.askStream(messages)
             .filter(chunk -> !chunk.isFinished())
             .map(StreamChunk::getContent)
@@ -79,22 +122,77 @@ class OpenAIStreamingTest {
         assertThat(result).isEqualTo("Test response");
     }
     
-    /**
-     * 테스트용 OpenAILLM 구현
-     */
-    static class TestOpenAILLM extends OpenAILLM {
-        public TestOpenAILLM(String model, Config config) {
-            super(model, config);
-        }
+    @Test
+    @DisplayName("구독을 취소하면 스트림 응답을 닫아야 함")
+    void shouldCloseResponseOnCancel() {
+        // Given
+        Stream<ChatCompletionChunk> sdkChunks = Stream.of(
+            textChunk("first"),
+            textChunk("second"),
+            finishChunk(ChatCompletionChunk.Choice.FinishReason.STOP)
+        );
+        when(mockStreamResponse.stream()).thenReturn(sdkChunks);
         
-        @Override
-        protected LLMReply doAsk(List<Message> messages) {
-            // 실제 API 호출 대신 테스트 응답 반환
-            return LLMReply.builder()
-                .text("Test response")
-                .model(getModel())
-                .finishReason("stop")
-                .build();
-        }
+        // When
+        List<StreamChunk> chunks = llm.askStream(Collections.singletonList(Message.user("Hi")))
+            .take(1)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+        
+        // Then
+        assertThat(chunks).hasSize(1);
+        verify(mockStreamResponse, timeout(1000)).close();
+    }
+    
+    @Test
+    @DisplayName("스트리밍 API 호출 실패 시 LLMException을 전달해야 함")
+    void shouldPropagateStreamingErrors() {
+        // Given
+        when(mockCompletionService.createStreaming(any(ChatCompletionCreateParams.class)))
+            .thenThrow(new RuntimeException("API Error"));
+        
+        // When/Then
+        StepVerifier.create(llm.askStream(Collections.singletonList(Message.user("Hi"))))
+            .expectError(LLMException.class)
+            .verify(Duration.ofSeconds(5));
+    }
+    
+    private static ChatCompletionChunk textChunk(String content) {
+        ChatCompletionChunk.Choice.Delta delta = mock(ChatCompletionChunk.Choice.Delta.class);
+        when(delta.content()).thenReturn(Optional.of(content));
+        
+        ChatCompletionChunk.Choice choice = mock(ChatCompletionChunk.Choice.class);
+        when(choice.delta()).thenReturn(delta);
+        when(choice.finishReason()).thenReturn(Optional.empty());
+        
+        return chunkWith(Collections.singletonList(choice), Optional.empty());
+    }
+    
+    private static ChatCompletionChunk finishChunk(ChatCompletionChunk.Choice.FinishReason reason) {
+        ChatCompletionChunk.Choice.Delta delta = mock(ChatCompletionChunk.Choice.Delta.class);
+        when(delta.content()).thenReturn(Optional.empty());
+        
+        ChatCompletionChunk.Choice choice = mock(ChatCompletionChunk.Choice.class);
+        when(choice.delta()).thenReturn(delta);
+        when(choice.finishReason()).thenReturn(Optional.of(reason));
+        
+        return chunkWith(Collections.singletonList(choice), Optional.empty());
+    }
+    
+    private static ChatCompletionChunk usageChunk(long promptTokens, long completionTokens) {
+        CompletionUsage usage = mock(CompletionUsage.class);
+        when(usage.promptTokens()).thenReturn(promptTokens);
+        when(usage.completionTokens()).thenReturn(completionTokens);
+        when(usage.totalTokens()).thenReturn(promptTokens + completionTokens);
+        
+        return chunkWith(Collections.emptyList(), Optional.of(usage));
+    }
+    
+    private static ChatCompletionChunk chunkWith(List<ChatCompletionChunk.Choice> choices,
+                                                 Optional<CompletionUsage> usage) {
+        ChatCompletionChunk chunk = mock(ChatCompletionChunk.class);
+        when(chunk.choices()).thenReturn(choices);
+        when(chunk.usage()).thenReturn(usage);
+        return chunk;
     }
 }
\ No newline at end of file
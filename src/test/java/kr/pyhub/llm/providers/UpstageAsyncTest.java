@@ -0,0 +1,104 @@
+package kr.pyhub.llm.providers;
+
+import kr.pyhub.llm.Config;
+import kr.pyhub.llm.exceptions.LLMException;
+import kr.pyhub.llm.http.HttpTransport;
+import kr.pyhub.llm.http.HttpTransportConfig;
+import kr.pyhub.llm.types.LLMReply;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Upstage 비동기 호출 테스트
+ */
+class UpstageAsyncTest {
+    
+    private static final String REPLY_BODY = "{\"choices\":[{\"message\":{\"content\":\"비동기 응답\"},"
+        + "\"finish_reason\":\"stop\"}],\"usage\":{\"prompt_tokens\":3,\"completion_tokens\":4,\"total_tokens\":7}}";
+    
+    private MockWebServer server;
+    private HttpTransport transport;
+    private UpstageLLM llm;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        transport = HttpTransport.create(HttpTransportConfig.defaults());
+        
+        llm = new UpstageLLM("solar-1-mini-chat", Config.builder()
+            .apiKey("test-api-key")
+            .baseUrl(server.url("/").toString())
+            .httpTransport(transport)
+            .build());
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        transport.shutdown();
+        server.shutdown();
+    }
+    
+    @Test
+    @DisplayName("askAsync는 콜백 기반 I/O로 응답을 반환해야 함")
+    void shouldCompleteWithReply() throws Exception {
+        // Given
+        server.enqueue(new MockResponse().setBody(REPLY_BODY));
+        
+        // When
+        LLMReply reply = llm.askAsync("안녕").get(5, TimeUnit.SECONDS);
+        
+        // Then
+        assertThat(reply.getText()).isEqualTo("비동기 응답");
+        assertThat(reply.getFinishReason()).isEqualTo("stop");
+        assertThat(reply.getUsage().getTotalTokens()).isEqualTo(7);
+    }
+    
+    @Test
+    @DisplayName("여러 요청이 스레드를 점유하지 않고 동시에 진행되어야 함")
+    void shouldRunManyRequestsConcurrently() throws Exception {
+        // Given: 각 응답이 300ms 지연됨
+        int requests = 20;
+        for (int i = 0; i < requests; i++) {
+            server.enqueue(new MockResponse().setBody(REPLY_BODY).setBodyDelay(300, TimeUnit.MILLISECONDS));
+        }
+        
+        // When
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+        for (int i = 0; i < requests; i++) {
+            futures[i] = llm.askAsync("질문 " + i);
+        }
+        CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        // Then: 순차 실행이었다면 6초 이상 걸림
+        assertThat(server.getRequestCount()).isEqualTo(requests);
+        assertThat(elapsedMillis).isLessThan(3000);
+    }
+    
+    @Test
+    @DisplayName("HTTP 에러는 LLMException으로 전달되어야 함")
+    void shouldFailWithLLMException() {
+        // Given
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("boom"));
+        
+        // When/Then
+        assertThatThrownBy(() -> llm.askAsync("안녕").get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(LLMException.class)
+            .hasRootCauseMessage("Upstage API error: 500 - boom");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package kr.pyhub.llm.providers;
+
+import kr.pyhub.llm.Config;
+import kr.pyhub.llm.cache.MemoryCache;
+import kr.pyhub.llm.exceptions.LLMException;
+import kr.pyhub.llm.types.Message;
+import kr.pyhub.llm.types.StreamChunk;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upstage SSE 스트리밍 테스트
+ */
+class UpstageStreamingTest {
+    
+    private static final String TEST_MODEL = "solar-1-mini-chat";
+    
+    private MockWebServer server;
+    private UpstageLLM llm;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        
+        Config config = Config.builder()
+            .apiKey("test-api-key")
+            .baseUrl(server.url("/").toString())
+            .build();
+        llm = new UpstageLLM(TEST_MODEL, config);
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+    
+    @Test
+    @DisplayName("SSE 이벤트를 StreamChunk로 변환해야 함")
+    void shouldEmitChunksFromServerSentEvents() throws InterruptedException {
+        // Given
+        server.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setBody(
+                "data: {\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"\"}}]}\n\n" +
+                "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"안녕\"}}]}\n\n" +
+                "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"하세요\"}}]}\n\n" +
+                "data: {\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]," +
+                "\"usage\":{\"prompt_tokens\":5,\"completion_tokens\":2,\"total_tokens\":7}}\n\n" +
+                "data: [DONE]\n\n"));
+        
+        // When/Then
+        StepVerifier.create(llm.askStream(Collections.singletonList(Message.user("인사해줘"))))
+            .expectNextMatches(chunk -> "안녕".equals(chunk.getContent()) && !chunk.isFinished())
+            .expectNextMatches(chunk -> "하세요".equals(chunk.getContent()) && !chunk.isFinished())
+            .expectNextMatches(chunk -> chunk.isFinished()
+                && "stop".equals(chunk.getFinishReason())
+                && chunk.getUsage() != null
+                && chunk.getUsage().getTotalTokens() == 7)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+        
+        RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+        assertThat(request).isNotNull();
+        assertThat(request.getHeader("Accept")).isEqualTo("text/event-stream");
+        assertThat(request.getBody().readUtf8()).contains("\"stream\":true");
+    }
+    
+    @Test
+    @DisplayName("[DONE] 없이 스트림이 끝나도 완료 청크를 보내야 함")
+    void shouldFinishWhenStreamEndsWithoutDoneMarker() {
+        // Given
+        server.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setBody("data: {\"choices\":[{\"delta\":{\"content\":\"Hi\"},\"finish_reason\":\"length\"}]}\n\n"));
+        
+        // When
+        List<StreamChunk> chunks = llm.askStream(Collections.singletonList(Message.user("Hello")))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+        
+        // Then
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0).getContent()).isEqualTo("Hi");
+        assertThat(chunks.get(1).isFinished()).isTrue();
+        assertThat(chunks.get(1).getFinishReason()).isEqualTo("length");
+    }
+    
+    @Test
+    @DisplayName("[DONE]과 완료 사유 없이 끊긴 스트림은 실패하고 캐시되지 않아야 함")
+    void shouldFailWhenStreamIsCutOff() {
+        // Given
+        MemoryCache cache = new MemoryCache();
+        llm.withCache(cache);
+        server.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setBody("data: {\"choices\":[{\"delta\":{\"content\":\"Hi\"}}]}\n\n"));
+        
+        // When/Then
+        StepVerifier.create(llm.askStream(Collections.singletonList(Message.user("Hello"))))
+            .expectNextMatches(chunk -> "Hi".equals(chunk.getContent()) && !chunk.isFinished())
+            .expectError(LLMException.class)
+            .verify(Duration.ofSeconds(5));
+        assertThat(cache.getStats().getSize()).isZero();
+    }
+    
+    @Test
+    @DisplayName("HTTP 에러는 LLMException으로 전달되어야 함")
+    void shouldPropagateHttpErrors() {
+        // Given
+        server.enqueue(new MockResponse().setResponseCode(401).setBody("{\"error\":\"invalid key\"}"));
+        
+        // When/Then
+        StepVerifier.create(llm.askStream(Collections.singletonList(Message.user("Hello"))))
+            .expectErrorMatches(error -> error instanceof LLMException
+                && error.getMessage().contains("401"))
+            .verify(Duration.ofSeconds(5));
+    }
+    
+    @Test
+    @DisplayName("구독을 취소하면 HTTP 호출도 취소되어야 함")
+    void shouldCancelHttpCallOnDispose() {
+        // Given: 첫 이벤트 이후 응답이 매우 느리게 전송됨
+        StringBuilder body = new StringBuilder("data: {\"choices\":[{\"delta\":{\"content\":\"first\"}}]}\n\n");
+        for (int i = 0; i < 100; i++) {
+            body.append("data: {\"choices\":[{\"delta\":{\"content\":\"more\"}}]}\n\n");
+        }
+        server.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setBody(body.toString())
+            .throttleBody(64, 1, TimeUnit.SECONDS));
+        
+        // When/Then: 첫 청크만 받고 취소해도 전체 응답을 기다리지 않아야 함
+        StepVerifier.create(llm.askStream(Collections.singletonList(Message.user("Hello"))).take(1))
+            .expectNextMatches(chunk -> "first".equals(chunk.getContent()))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+}
\ No newline at end of file